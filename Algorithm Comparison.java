@@ -0,0 +1,365 @@
+import javax.swing.*;
+import javax.swing.border.*;
+import javax.swing.table.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Runs every scheduling algorithm on the same workload and shows the Gantt charts on one
+// time axis with the metrics side by side. The workload is entered once, wrapped in an
+// immutable Workload and handed to all engines at the same time, so the comparison takes
+// about as long as the slowest algorithm rather than the sum of all of them.
+class ComparisonFrame extends JFrame {
+    static final Color ACCENT = new Color(100, 149, 237);
+    static final Color TEXT = new Color(25, 25, 112);
+
+    private final ExecutorService pool;
+    private JSpinner countSpinner, quantumSpinner;
+    private JTable inputTable, metricsTable;
+    private DefaultTableModel inputModel, metricsModel;
+    private JPanel chartsPanel;
+    private JLabel statusLabel;
+    private JButton compareButton;
+
+    ComparisonFrame() {
+        setTitle("Scheduling Algorithm Comparison");
+        setSize(1000, 800);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setLocationRelativeTo(null);
+
+        pool = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+            Thread t = new Thread(r, "comparison-engine");
+            t.setDaemon(true);
+            return t;
+        });
+
+        setContentPane(new JPanel(new BorderLayout(15, 15)) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                Graphics2D g2 = (Graphics2D) g;
+                g2.setPaint(new GradientPaint(0, 0, new Color(240, 248, 255), 0, getHeight(), new Color(230, 240, 250)));
+                g2.fillRect(0, 0, getWidth(), getHeight());
+            }
+        });
+
+        initializeComponents();
+        setupLayout();
+        setProcesses(5);
+    }
+
+    // The algorithms being compared; add new engines here.
+    static List<SchedulingEngine> engines(int quantum) {
+        List<SchedulingEngine> engines = new ArrayList<>();
+        engines.add(new FcfsEngine());
+        engines.add(new SjfEngine());
+        engines.add(new SrtfEngine());
+        engines.add(new RoundRobinEngine(quantum));
+        engines.add(new MlfqEngine(quantum));
+        engines.add(new LotteryEngine(quantum, 42));
+        engines.add(new StrideEngine(quantum));
+        engines.add(new CfsEngine(1, 3 * quantum));
+        engines.add(new PriorityEngine(false, 0));
+        engines.add(new PriorityEngine(true, 10 * quantum));
+        return engines;
+    }
+
+    private void initializeComponents() {
+        countSpinner = new JSpinner(new SpinnerNumberModel(5, 1, 500, 1));
+        quantumSpinner = new JSpinner(new SpinnerNumberModel(2, 1, 100, 1));
+
+        inputModel = new DefaultTableModel(new Object[]{"Process", "AT", "BT", "Nice"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return column != 0;
+            }
+        };
+        inputTable = new JTable(inputModel);
+        styleTable(inputTable);
+
+        metricsModel = new DefaultTableModel(
+                new Object[]{"Algorithm", "Avg WT", "Avg TAT", "Makespan", "Preemptions", "Share Dev", "Run Time"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        metricsTable = new JTable(metricsModel);
+        styleTable(metricsTable);
+
+        chartsPanel = new JPanel(new GridLayout(0, 1, 0, 10));
+        chartsPanel.setOpaque(false);
+
+        compareButton = button("Compare", new Color(46, 139, 87));
+        statusLabel = new JLabel("Enter AT and BT for each process, then press Compare.");
+        statusLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        statusLabel.setForeground(TEXT);
+    }
+
+    private void setupLayout() {
+        JPanel inputPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 12, 12));
+        inputPanel.setOpaque(false);
+        inputPanel.setBorder(new CompoundBorder(new LineBorder(ACCENT, 2, true), new EmptyBorder(5, 10, 5, 10)));
+
+        JLabel titleLabel = new JLabel("⚖ Algorithm Comparison");
+        titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 18));
+        titleLabel.setForeground(TEXT);
+
+        JButton setButton = button("Set Processes", ACCENT);
+        JButton randomButton = button("Random", new Color(255, 140, 0));
+
+        inputPanel.add(titleLabel);
+        inputPanel.add(Box.createHorizontalStrut(15));
+        inputPanel.add(label("Processes:"));
+        inputPanel.add(countSpinner);
+        inputPanel.add(setButton);
+        inputPanel.add(randomButton);
+        inputPanel.add(label("RR Quantum:"));
+        inputPanel.add(quantumSpinner);
+        inputPanel.add(compareButton);
+        add(inputPanel, BorderLayout.NORTH);
+
+        JScrollPane inputScroll = titled(new JScrollPane(inputTable), "📊 Workload");
+        inputScroll.setPreferredSize(new Dimension(250, 400));
+        add(inputScroll, BorderLayout.WEST);
+
+        JScrollPane chartsScroll = titled(new JScrollPane(chartsPanel), "📅 Gantt Charts (shared time axis)");
+        chartsScroll.getViewport().setOpaque(false);
+        chartsScroll.setOpaque(false);
+        add(chartsScroll, BorderLayout.CENTER);
+
+        JPanel bottomPanel = new JPanel(new BorderLayout(5, 5));
+        bottomPanel.setOpaque(false);
+        bottomPanel.setBorder(new EmptyBorder(0, 10, 10, 10));
+        JScrollPane metricsScroll = titled(new JScrollPane(metricsTable), "📈 Metrics");
+        metricsScroll.setPreferredSize(new Dimension(900, 150));
+        bottomPanel.add(metricsScroll, BorderLayout.CENTER);
+        bottomPanel.add(statusLabel, BorderLayout.SOUTH);
+        add(bottomPanel, BorderLayout.SOUTH);
+
+        setButton.addActionListener(e -> setProcesses((Integer) countSpinner.getValue()));
+        randomButton.addActionListener(e -> randomize());
+        compareButton.addActionListener(e -> compare());
+    }
+
+    private void setProcesses(int count) {
+        inputModel.setRowCount(0);
+        for (int i = 0; i < count; i++) {
+            inputModel.addRow(new Object[]{"P" + (i + 1), "", "", 0});
+        }
+        metricsModel.setRowCount(0);
+        chartsPanel.removeAll();
+        chartsPanel.revalidate();
+        chartsPanel.repaint();
+    }
+
+    private void randomize() {
+        setProcesses((Integer) countSpinner.getValue());
+        Random random = new Random();
+        for (int i = 0; i < inputModel.getRowCount(); i++) {
+            inputModel.setValueAt(random.nextInt(10), i, 1);
+            inputModel.setValueAt(1 + random.nextInt(9), i, 2);
+            inputModel.setValueAt(0, i, 3);
+        }
+    }
+
+    private void compare() {
+        if (inputTable.isEditing()) {
+            inputTable.getCellEditor().stopCellEditing();
+        }
+        Workload workload;
+        try {
+            workload = readWorkload();
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "❌ Please enter valid integers for AT and BT values!",
+                    "Input Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, "❌ " + ex.getMessage(),
+                    "Input Validation Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        // Sort once here instead of racing to do it in every engine
+        workload.arrivalOrder();
+
+        List<SchedulingEngine> engines = engines((Integer) quantumSpinner.getValue());
+        List<CompletableFuture<ScheduleResult>> futures = new ArrayList<>();
+        long started = System.nanoTime();
+        for (SchedulingEngine engine : engines) {
+            futures.add(CompletableFuture.supplyAsync(() -> engine.run(workload), pool));
+        }
+        compareButton.setEnabled(false);
+        statusLabel.setText("Running " + engines.size() + " algorithms...");
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, failure) -> {
+            long elapsed = System.nanoTime() - started;
+            SwingUtilities.invokeLater(() -> {
+                compareButton.setEnabled(true);
+                if (failure != null) {
+                    Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+                    statusLabel.setText("Comparison failed: " + cause);
+                    return;
+                }
+                List<ScheduleResult> results = new ArrayList<>();
+                for (CompletableFuture<ScheduleResult> future : futures) {
+                    results.add(future.join());
+                }
+                show(engines, results, elapsed);
+            });
+        });
+    }
+
+    private Workload readWorkload() {
+        int n = inputModel.getRowCount();
+        if (n == 0) {
+            throw new IllegalArgumentException("Please set the number of processes first!");
+        }
+        String[] names = new String[n];
+        int[] arrival = new int[n];
+        int[] burst = new int[n];
+        int[] nice = new int[n];
+        for (int i = 0; i < n; i++) {
+            names[i] = inputModel.getValueAt(i, 0).toString();
+            String at = inputModel.getValueAt(i, 1).toString().trim();
+            String bt = inputModel.getValueAt(i, 2).toString().trim();
+            if (at.isEmpty() || bt.isEmpty()) {
+                throw new IllegalArgumentException("All AT and BT fields must be filled!");
+            }
+            arrival[i] = Integer.parseInt(at);
+            burst[i] = Integer.parseInt(bt);
+            if (arrival[i] < 0 || burst[i] <= 0) {
+                throw new IllegalArgumentException("AT must be ≥ 0 and BT must be > 0!");
+            }
+            String level = inputModel.getValueAt(i, 3).toString().trim();
+            nice[i] = level.isEmpty() ? 0 : Integer.parseInt(level);
+            if (nice[i] < -20 || nice[i] > 19) {
+                throw new IllegalArgumentException("Nice must be between -20 and 19!");
+            }
+        }
+        return new Workload(names, arrival, burst, nice);
+    }
+
+    private void show(List<SchedulingEngine> engines, List<ScheduleResult> results, long elapsedNanos) {
+        Workload workload = results.get(0).workload;
+        int n = workload.size();
+        String[] labels = new String[n];
+        Color[] colors = new Color[n];
+        for (int i = 0; i < n; i++) {
+            labels[i] = workload.name(i);
+            colors[i] = Color.getHSBColor((float) i / n, 0.7f, 0.9f);
+        }
+
+        int span = 0;
+        long sequentialNanos = 0;
+        for (ScheduleResult result : results) {
+            span = Math.max(span, result.makespan());
+            sequentialNanos += result.cost.wallNanos;
+        }
+
+        chartsPanel.removeAll();
+        metricsModel.setRowCount(0);
+        for (int e = 0; e < results.size(); e++) {
+            ScheduleResult result = results.get(e);
+            chartsPanel.add(new AlignedGanttPanel(engines.get(e).name(), result.timeline, labels, colors, span));
+            metricsModel.addRow(new Object[]{
+                engines.get(e).name(),
+                String.format("%.2f", result.averageWaiting()),
+                String.format("%.2f", result.averageTurnaround()),
+                result.makespan(),
+                result.preemptions(),
+                String.format("%.1f%%", 100 * result.averageShareDeviation()),
+                RunCost.formatNanos(result.cost.wallNanos)
+            });
+        }
+        chartsPanel.revalidate();
+        chartsPanel.repaint();
+        statusLabel.setText(String.format("Compared %d algorithms in %s (%s if run one after another)",
+                results.size(), RunCost.formatNanos(elapsedNanos), RunCost.formatNanos(sequentialNanos)));
+    }
+
+    static JLabel label(String text) {
+        JLabel label = new JLabel(text);
+        label.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        label.setForeground(TEXT);
+        return label;
+    }
+
+    static JButton button(String text, Color background) {
+        JButton button = new JButton(text);
+        button.setFont(new Font("Segoe UI", Font.BOLD, 13));
+        button.setBackground(background);
+        button.setForeground(Color.WHITE);
+        button.setFocusPainted(false);
+        button.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        return button;
+    }
+
+    static JScrollPane titled(JScrollPane scroll, String title) {
+        scroll.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createTitledBorder(
+                new LineBorder(ACCENT, 2, true), title,
+                TitledBorder.CENTER, TitledBorder.TOP,
+                new Font("Segoe UI", Font.BOLD, 14), TEXT
+            ),
+            new EmptyBorder(5, 5, 5, 5)
+        ));
+        return scroll;
+    }
+
+    static void styleTable(JTable table) {
+        DefaultTableCellRenderer center = new DefaultTableCellRenderer();
+        center.setHorizontalAlignment(JLabel.CENTER);
+        for (int i = 0; i < table.getColumnCount(); i++) {
+            table.getColumnModel().getColumn(i).setCellRenderer(center);
+        }
+        table.setRowHeight(28);
+        table.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        table.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 13));
+        table.getTableHeader().setBackground(ACCENT);
+        table.setGridColor(new Color(200, 220, 240));
+        table.setSelectionBackground(new Color(184, 207, 229));
+    }
+
+    // One algorithm's chart, scaled to the longest schedule of the comparison.
+    static class AlignedGanttPanel extends JPanel {
+        private final Timeline timeline;
+        private final String[] labels;
+        private final Color[] colors;
+        private final int span;
+
+        AlignedGanttPanel(String title, Timeline timeline, String[] labels, Color[] colors, int span) {
+            this.timeline = timeline;
+            this.labels = labels;
+            this.colors = colors;
+            this.span = span;
+            setPreferredSize(new Dimension(700, 130));
+            setBackground(Color.WHITE);
+            setBorder(BorderFactory.createTitledBorder(
+                BorderFactory.createLineBorder(ACCENT, 1), title,
+                TitledBorder.LEFT, TitledBorder.TOP,
+                new Font("Segoe UI", Font.BOLD, 13), TEXT
+            ));
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            Graphics2D g2 = (Graphics2D) g.create();
+            GanttPainter.paint(g2, getWidth(), getHeight(), timeline, labels, colors, span);
+            g2.dispose();
+        }
+    }
+
+    public static void main(String[] args) {
+        try {
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+        } catch (ClassNotFoundException | InstantiationException |
+                 IllegalAccessException | UnsupportedLookAndFeelException e) {
+            System.err.println("Could not set system look and feel: " + e.getMessage());
+        }
+        SwingUtilities.invokeLater(() -> new ComparisonFrame().setVisible(true));
+    }
+}
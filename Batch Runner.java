@@ -0,0 +1,486 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Headless batch runs: every workload file in a directory under every requested algorithm
+// and quantum, each result written to its own file in the output directory, followed by a
+// summary table.
+//
+// Files are pipelined through one work-stealing pool. A file task reads and parses its
+// workload, then forks a run per algorithm and quantum, so while some workers are still
+// simulating earlier files, others are already parsing the next ones, and the runs of
+// one large workload spread over idle workers. At most in-flight workloads are held in
+// memory at a time; the main thread waits for one to finish before submitting another.
+//
+// Workload files are either the binary files WorkloadGenerator writes with target=file or,
+// for a .csv name, text rows of [name,]arrival,burst[,priority]. A row whose first field
+// is not a number carries a name; a first row whose arrival is not a number is a header,
+// and blank lines are skipped. When any run fails the exit status is 1.
+//
+// Usage: java BatchRunner in=<dir> [out=batch-results] [algorithms=fcfs,sjf,rr]
+//        [quanta=4] [format=csv|columnar] [timelines=false] [threads=<cores>]
+//        [in-flight=<2 x threads>] [store=<run store>]
+//
+// algorithms are fcfs, sjf, srtf, rr, mlfq, lottery, stride, cfs, priority and
+// priority-aging. Those with a time slice run once per quantum in quanta. With store set,
+// every successful run is also recorded in that RunStore, e.g. ~/.ccopsysl/runs.log for the
+// history the windows keep.
+final class BatchRunner {
+    static final String[] ALGORITHMS = {"fcfs", "sjf", "srtf", "rr", "mlfq", "lottery", "stride", "cfs", "priority",
+            "priority-aging"};
+
+    // One algorithm and quantum on one file, filled in when it has run.
+    static final class Run {
+        final int file;
+        final String algorithm;
+        // 0 for algorithms without a time slice
+        final int quantum;
+        String engine;
+        int processes;
+        double averageWaiting;
+        double averageTurnaround;
+        int makespan;
+        long nanos;
+        String error;
+
+        Run(int file, String algorithm, int quantum) {
+            this.file = file;
+            this.algorithm = algorithm;
+            this.quantum = quantum;
+        }
+    }
+
+    private final List<Path> files;
+    private final Path out;
+    // Output extension, which picks the writer
+    private final String extension;
+    private final boolean timelines;
+    // Runs of file f are runs[f]
+    final Run[][] runs;
+    final LongAdder processes = new LongAdder();
+    final LongAdder workerCpu = new LongAdder();
+    final LongAdder workerAllocated = new LongAdder();
+    // Records every successful run when set
+    RunStore store;
+
+    BatchRunner(List<Path> files, List<String> algorithms, int[] quanta, Path out, boolean columnar,
+            boolean timelines) {
+        for (String algorithm : algorithms) {
+            engine(algorithm, 1);
+        }
+        for (int quantum : quanta) {
+            if (quantum <= 0) {
+                throw new IllegalArgumentException("Quanta must be > 0!");
+            }
+        }
+        this.files = files;
+        this.out = out;
+        this.extension = columnar ? ".bin" : ".csv";
+        this.timelines = timelines;
+        runs = new Run[files.size()][];
+        for (int f = 0; f < runs.length; f++) {
+            List<Run> list = new ArrayList<>();
+            for (String algorithm : algorithms) {
+                if (slices(algorithm)) {
+                    for (int quantum : quanta) {
+                        list.add(new Run(f, algorithm, quantum));
+                    }
+                } else {
+                    list.add(new Run(f, algorithm, 0));
+                }
+            }
+            runs[f] = list.toArray(new Run[0]);
+        }
+    }
+
+    static SchedulingEngine engine(String algorithm, int quantum) {
+        switch (algorithm) {
+            case "fcfs": return new FcfsEngine();
+            case "sjf": return new SjfEngine();
+            case "srtf": return new SrtfEngine();
+            case "rr": return new RoundRobinEngine(quantum);
+            case "mlfq": return new MlfqEngine(quantum);
+            case "lottery": return new LotteryEngine(quantum, 42);
+            case "stride": return new StrideEngine(quantum);
+            case "cfs": return new CfsEngine(1, 3 * quantum);
+            case "priority": return new PriorityEngine(false, 0);
+            case "priority-aging": return new PriorityEngine(true, 10 * quantum);
+            default: throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        }
+    }
+
+    // Whether the algorithm takes a quantum, and so runs once per quantum.
+    static boolean slices(String algorithm) {
+        switch (algorithm) {
+            case "fcfs":
+            case "sjf":
+            case "srtf":
+            case "priority":
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    // Runs every file on pool, holding at most inFlight parsed workloads at a time.
+    void run(ForkJoinPool pool, int inFlight) throws InterruptedException {
+        Semaphore permits = new Semaphore(inFlight);
+        CountDownLatch done = new CountDownLatch(files.size());
+        for (int f = 0; f < files.size(); f++) {
+            permits.acquire();
+            pool.execute(new FileTask(f, permits, done));
+        }
+        done.await();
+    }
+
+    private final class FileTask extends RecursiveAction {
+        private final int file;
+        private final Semaphore permits;
+        private final CountDownLatch done;
+
+        FileTask(int file, Semaphore permits, CountDownLatch done) {
+            this.file = file;
+            this.permits = permits;
+            this.done = done;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                long cpu = RunCost.threadCpuNanos();
+                long allocated = RunCost.threadAllocatedBytes();
+                Workload workload;
+                try {
+                    workload = read(files.get(file));
+                } catch (IOException | RuntimeException e) {
+                    for (Run run : runs[file]) {
+                        run.error = "Cannot read: " + e.getMessage();
+                    }
+                    return;
+                } finally {
+                    workerCpu.add(RunCost.threadCpuNanos() - cpu);
+                    workerAllocated.add(RunCost.threadAllocatedBytes() - allocated);
+                }
+                processes.add(workload.size());
+                RunTask[] tasks = new RunTask[runs[file].length];
+                for (int r = 0; r < tasks.length; r++) {
+                    tasks[r] = new RunTask(workload, runs[file][r]);
+                }
+                invokeAll(tasks);
+            } finally {
+                permits.release();
+                done.countDown();
+            }
+        }
+    }
+
+    private final class RunTask extends RecursiveAction {
+        private final Workload workload;
+        private final Run run;
+
+        RunTask(Workload workload, Run run) {
+            this.workload = workload;
+            this.run = run;
+        }
+
+        @Override
+        protected void compute() {
+            long cpu = RunCost.threadCpuNanos();
+            long allocated = RunCost.threadAllocatedBytes();
+            long started = System.nanoTime();
+            try {
+                SchedulingEngine engine = engine(run.algorithm, Math.max(1, run.quantum));
+                run.engine = engine.name();
+                int[] completion = new int[workload.size()];
+                Timeline timeline = timelines ? new Timeline(workload.size()) : null;
+                engine.schedule(workload, completion, timeline, SchedulerEvents.listener(engine.name()));
+                ScheduleResult result = new ScheduleResult(workload, completion, timeline, null);
+                run.processes = workload.size();
+                run.averageWaiting = result.averageWaiting();
+                run.averageTurnaround = result.averageTurnaround();
+                run.makespan = result.makespan();
+                Path path = out.resolve(outputName(files.get(run.file), run));
+                String exported = null;
+                if (timelines) {
+                    exported = ResultExport.writeWithTimeline(result, path).toAbsolutePath().toString();
+                } else {
+                    ResultExport.write(result, path);
+                }
+                if (store != null) {
+                    store.append(StoredRun.of(run.algorithm, run.quantum, result, exported));
+                }
+            } catch (IOException | RuntimeException e) {
+                run.error = e.toString();
+            } finally {
+                run.nanos = System.nanoTime() - started;
+                workerCpu.add(RunCost.threadCpuNanos() - cpu);
+                workerAllocated.add(RunCost.threadAllocatedBytes() - allocated);
+            }
+        }
+    }
+
+    private String outputName(Path file, Run run) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String stem = dot <= 0 ? name : name.substring(0, dot);
+        return stem + "-" + run.algorithm + (run.quantum > 0 ? "-q" + run.quantum : "") + extension;
+    }
+
+    // A workload file, text for a .csv name and binary otherwise.
+    static Workload read(Path path) throws IOException {
+        return path.getFileName().toString().toLowerCase().endsWith(".csv") ? readCsv(path) : readBinary(path);
+    }
+
+    static Workload readBinary(Path path) throws IOException {
+        WorkloadBuilder builder = new WorkloadBuilder();
+        WorkloadFileWriter.replay(path, builder);
+        return builder.build(path.toString());
+    }
+
+    static Workload readCsv(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            return readCsv(reader, path.getFileName().toString(), Integer.MAX_VALUE);
+        }
+    }
+
+    // CSV rows from reader, at most limit of them; source names the input in errors.
+    static Workload readCsv(BufferedReader reader, String source, int limit) throws IOException {
+        WorkloadBuilder builder = new WorkloadBuilder();
+        String line;
+        int number = 0;
+        boolean header = true;
+        while ((line = reader.readLine()) != null) {
+            number++;
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] fields = line.split(",", -1);
+            boolean named = !integer(fields[0].trim());
+            int first = named ? 1 : 0;
+            // Only the first line that is not blank can be a header
+            boolean skip = header && named && (fields.length < 2 || !integer(fields[1].trim()));
+            header = false;
+            if (skip) {
+                continue;
+            }
+            if (fields.length - first < 2 || fields.length - first > 3) {
+                throw new IOException(source + ":" + number + ": expected [name,]arrival,burst[,priority]");
+            }
+            if (builder.size() == limit) {
+                throw new IOException(source + " has more than " + limit + " processes");
+            }
+            try {
+                builder.add(named ? fields[0].trim() : null, Integer.parseInt(fields[first].trim()),
+                        Integer.parseInt(fields[first + 1].trim()),
+                        fields.length - first == 3 ? Integer.parseInt(fields[first + 2].trim()) : 0);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(source + ":" + number + ": " + e.getMessage());
+            }
+        }
+        return builder.build(source);
+    }
+
+    private static boolean integer(String field) {
+        if (field.isEmpty() || field.length() > 11) {
+            return false;
+        }
+        for (int i = field.charAt(0) == '-' ? 1 : 0; i < field.length(); i++) {
+            if (field.charAt(i) < '0' || field.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return field.length() > (field.charAt(0) == '-' ? 1 : 0);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        Path in = null;
+        Path out = Paths.get("batch-results");
+        List<String> algorithms = Arrays.asList("fcfs", "sjf", "rr");
+        int[] quanta = {4};
+        boolean columnar = false;
+        boolean timelines = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int inFlight = -1;
+        Path storePath = null;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "in": in = Paths.get(value); break;
+                case "out": out = Paths.get(value); break;
+                case "algorithms": algorithms = Arrays.asList(value.toLowerCase().split(",")); break;
+                case "quanta": quanta = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray(); break;
+                case "format":
+                    if (!value.equals("csv") && !value.equals("columnar")) {
+                        throw new IllegalArgumentException("Unknown format: " + value);
+                    }
+                    columnar = value.equals("columnar");
+                    break;
+                case "timelines": timelines = Boolean.parseBoolean(value); break;
+                case "threads": threads = Integer.parseInt(value); break;
+                case "in-flight": inFlight = Integer.parseInt(value); break;
+                case "store": storePath = Paths.get(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        if (in == null || !Files.isDirectory(in)) {
+            throw new IllegalArgumentException("in must name a directory of workload files!");
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be > 0!");
+        }
+        if (inFlight < 0) {
+            inFlight = 2 * threads;
+        }
+        if (inFlight <= 0) {
+            throw new IllegalArgumentException("in-flight must be > 0!");
+        }
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(in)) {
+            files = listing.filter(Files::isRegularFile)
+                    .filter(path -> !path.getFileName().toString().startsWith("."))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        Files.createDirectories(out);
+
+        BatchRunner runner = new BatchRunner(files, algorithms, quanta, out, columnar, timelines);
+        RunCost.Meter meter = RunCost.start();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            runner.store = storePath == null ? null : new RunStore(storePath);
+            runner.run(pool, inFlight);
+        } finally {
+            pool.shutdown();
+            if (runner.store != null) {
+                runner.store.close();
+            }
+        }
+        RunCost run = meter.stop();
+        RunCost cost = new RunCost(run.wallNanos, runner.workerCpu.sum(), runner.workerAllocated.sum(), run.gcCount,
+                run.gcMillis);
+
+        System.out.printf("%-32s%-36s%12s%12s%12s%12s%12s%n", "File", "Algorithm", "Processes", "Avg WT", "Avg TAT",
+                "Makespan", "Time");
+        int total = 0;
+        int failed = 0;
+        for (Run[] fileRuns : runner.runs) {
+            for (Run r : fileRuns) {
+                total++;
+                String file = files.get(r.file).getFileName().toString();
+                if (r.error != null) {
+                    failed++;
+                    String engine = r.engine != null ? r.engine : r.algorithm + (r.quantum > 0 ? " (q=" + r.quantum + ")" : "");
+                    System.out.printf("%-32s%-36s  FAILED: %s%n", file, engine, r.error);
+                    continue;
+                }
+                System.out.printf("%-32s%-36s%12d%12.2f%12.2f%12d%12s%n", file, r.engine, r.processes,
+                        r.averageWaiting, r.averageTurnaround, r.makespan, RunCost.formatNanos(r.nanos));
+            }
+        }
+        double seconds = cost.wallNanos / 1e9;
+        System.out.printf("%n%d runs over %d files (%,d processes) on %d threads in %.2f s, %.0f runs/s, %d failed%n",
+                total, files.size(), runner.processes.sum(), threads, seconds, total / seconds, failed);
+        // CPU and allocation are summed over the workers
+        System.out.println("Run cost: " + cost);
+        System.out.println("cost " + cost.toJson());
+        if (failed > 0) {
+            // The table already says which ones; a stack trace would only bury it
+            System.err.println(failed + " of " + total + " runs failed");
+            System.exit(1);
+        }
+    }
+}
+
+// Collects a workload of unknown size, as a ProcessSink for the binary format or row by
+// row for the text one. Names and priorities are only kept once a row has one.
+final class WorkloadBuilder implements ProcessSink {
+    private int[] arrival = new int[1024];
+    private int[] burst = new int[1024];
+    private String[] names;
+    private int[] priority;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    @Override
+    public void accept(long arrival, int burst) {
+        if (arrival < 0 || arrival > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Arrival " + arrival + " is out of range!");
+        }
+        add(null, (int) arrival, burst, 0);
+    }
+
+    @Override
+    public void finish() {
+    }
+
+    void add(String name, int arrival, int burst, int priority) {
+        if (arrival < 0 || burst <= 0) {
+            throw new IllegalArgumentException("AT must be >= 0 and BT must be > 0!");
+        }
+        if (size == this.arrival.length) {
+            int capacity = size * 2;
+            this.arrival = Arrays.copyOf(this.arrival, capacity);
+            this.burst = Arrays.copyOf(this.burst, capacity);
+            if (names != null) {
+                names = Arrays.copyOf(names, capacity);
+            }
+            if (this.priority != null) {
+                this.priority = Arrays.copyOf(this.priority, capacity);
+            }
+        }
+        if (name != null && names == null) {
+            names = new String[this.arrival.length];
+        }
+        if (priority != 0 && this.priority == null) {
+            this.priority = new int[this.arrival.length];
+        }
+        this.arrival[size] = arrival;
+        this.burst[size] = burst;
+        if (names != null) {
+            names[size] = name;
+        }
+        if (this.priority != null) {
+            this.priority[size] = priority;
+        }
+        size++;
+    }
+
+    Workload build(String source) throws IOException {
+        if (size == 0) {
+            throw new IOException("No processes in " + source);
+        }
+        String[] labels = null;
+        if (names != null) {
+            labels = Arrays.copyOf(names, size);
+            // Rows without a name get the default one
+            for (int i = 0; i < size; i++) {
+                if (labels[i] == null) {
+                    labels[i] = "P" + (i + 1);
+                }
+            }
+        }
+        return new Workload(labels, Arrays.copyOf(arrival, size), Arrays.copyOf(burst, size),
+                priority == null ? null : Arrays.copyOf(priority, size));
+    }
+}
@@ -0,0 +1,527 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Batch scheduling of multi-node jobs on a machine with a fixed number of nodes, plain FCFS
+// against EASY backfilling, for traces of up to millions of jobs.
+//
+// Usage: java BatchSimulation [trace=<file.swf>] [nodes=<machine size>] [jobs=1000000]
+//        [load=0.9] [tau=10] [seed=42]
+//
+// trace= reads a Standard Workload Format file (Parallel Workloads Archive): submit time,
+// run time, allocated processors and requested time. Without it a synthetic trace is
+// generated: power-of-two job sizes, log-normal run times and over-estimated requests,
+// about a year of submissions for a million jobs at the default load.
+
+// Jobs in submit order. runtime is what the job actually takes; estimate is what the user
+// asked for, which EASY plans with. A job that outruns its estimate is killed at it.
+final class JobTrace {
+    final long[] submit;
+    final int[] nodes;
+    final long[] runtime;
+    final long[] estimate;
+    final int machineNodes;
+
+    JobTrace(long[] submit, int[] nodes, long[] runtime, long[] estimate, int machineNodes) {
+        int n = submit.length;
+        if (nodes.length != n || runtime.length != n || estimate.length != n) {
+            throw new IllegalArgumentException("All job columns must have the same length!");
+        }
+        for (int i = 0; i < n; i++) {
+            if (nodes[i] <= 0 || nodes[i] > machineNodes || runtime[i] < 0 || estimate[i] <= 0) {
+                throw new IllegalArgumentException("Job " + (i + 1) + " needs 1.." + machineNodes
+                        + " nodes, a run time >= 0 and an estimate > 0!");
+            }
+            if (i > 0 && submit[i] < submit[i - 1]) {
+                throw new IllegalArgumentException("Jobs must be in submit order!");
+            }
+        }
+        this.submit = submit;
+        this.nodes = nodes;
+        this.runtime = runtime;
+        this.estimate = estimate;
+        this.machineNodes = machineNodes;
+    }
+
+    int size() {
+        return submit.length;
+    }
+
+    // Time the job really holds its nodes.
+    long actual(int j) {
+        return Math.min(runtime[j], estimate[j]);
+    }
+}
+
+final class BatchResult {
+    final JobTrace trace;
+    final long[] start;
+    RunCost cost;
+
+    BatchResult(JobTrace trace) {
+        this.trace = trace;
+        this.start = new long[trace.size()];
+    }
+
+    long end(int j) {
+        return start[j] + trace.actual(j);
+    }
+
+    double averageWait() {
+        double total = 0;
+        for (int j = 0; j < start.length; j++) {
+            total += start[j] - trace.submit[j];
+        }
+        return start.length == 0 ? 0 : total / start.length;
+    }
+
+    // Mean of max(1, (wait + run) / max(run, tau)), so very short jobs do not dominate.
+    double averageBoundedSlowdown(long tau) {
+        double total = 0;
+        for (int j = 0; j < start.length; j++) {
+            long run = trace.actual(j);
+            total += Math.max(1.0, (double) (start[j] - trace.submit[j] + run) / Math.max(run, tau));
+        }
+        return start.length == 0 ? 0 : total / start.length;
+    }
+
+    // Node-time used over node-time available from the first submission to the last end.
+    double utilisation() {
+        if (start.length == 0) {
+            return 0;
+        }
+        double used = 0;
+        long last = 0;
+        for (int j = 0; j < start.length; j++) {
+            used += (double) trace.nodes[j] * trace.actual(j);
+            last = Math.max(last, end(j));
+        }
+        long span = last - trace.submit[0];
+        return span == 0 ? 0 : used / ((double) trace.machineNodes * span);
+    }
+}
+
+// Event-driven FCFS or EASY. Waiting jobs are indexed by a QueueIndex in submit order and
+// running jobs by an AvailabilityProfile keyed on their planned end. The queue head and its
+// reservation (shadow time and spare nodes) cost O(log n), and each backfill candidate is
+// found by a pruned tree descent instead of a scan (see QueueIndex).
+final class BatchScheduler {
+    enum Policy { FCFS, EASY }
+
+    final Policy policy;
+
+    BatchScheduler(Policy policy) {
+        this.policy = policy;
+    }
+
+    String name() {
+        return policy == Policy.FCFS ? "FCFS" : "EASY backfilling";
+    }
+
+    BatchResult run(JobTrace trace) {
+        RunCost.Meter meter = RunCost.start();
+        int n = trace.size();
+        BatchResult result = new BatchResult(trace);
+        QueueIndex queue = new QueueIndex(n);
+        AvailabilityProfile running = new AvailabilityProfile(n);
+        IntHeap completions = new IntHeap(1024);
+        int free = trace.machineNodes;
+        int next = 0;
+        int done = 0;
+        while (done < n) {
+            long time;
+            if (completions.isEmpty() || (next < n && trace.submit[next] < completions.peekKey())) {
+                time = trace.submit[next];
+            } else {
+                time = completions.peekKey();
+            }
+            while (!completions.isEmpty() && completions.peekKey() <= time) {
+                int j = completions.pop();
+                free += trace.nodes[j];
+                running.remove(j);
+                done++;
+            }
+            while (next < n && trace.submit[next] <= time) {
+                queue.add(next, trace.nodes[next], trace.estimate[next]);
+                next++;
+            }
+
+            // Start jobs in order while the head fits
+            int head;
+            while ((head = queue.head()) >= 0 && trace.nodes[head] <= free) {
+                free -= start(trace, result, queue, running, completions, head, time);
+            }
+            if (policy == Policy.FCFS || head < 0 || free == 0) {
+                continue;
+            }
+
+            // Reserve the earliest time the head fits; later jobs may start now if they end
+            // by then or only use nodes the head will not need
+            int missing = trace.nodes[head] - free;
+            long shadow = running.timeFreeing(missing);
+            int extra = (int) (free + running.freedBy(shadow) - trace.nodes[head]);
+            int j;
+            while (free > 0 && (j = queue.first(free, shadow - time, Math.min(extra, free))) >= 0) {
+                if (time + trace.estimate[j] > shadow) {
+                    extra -= trace.nodes[j];
+                }
+                free -= start(trace, result, queue, running, completions, j, time);
+            }
+        }
+        result.cost = meter.stop();
+        return result;
+    }
+
+    private static int start(JobTrace trace, BatchResult result, QueueIndex queue, AvailabilityProfile running,
+            IntHeap completions, int j, long time) {
+        queue.remove(j);
+        result.start[j] = time;
+        running.add(j, time + trace.estimate[j], trace.nodes[j]);
+        completions.push(j, time + trace.actual(j));
+        return trace.nodes[j];
+    }
+}
+
+// Waiting jobs by submit order, in a segment tree holding the smallest node count and
+// estimate under every subtree. first() finds the earliest job that fits in the free nodes
+// and either ends within a time limit or fits in the spare nodes, pruning subtrees that
+// cannot contain one. The two minima of a subtree may come from different jobs, so a
+// subtree can pass the test without holding a fitting job and the descent backs out of
+// it: the worst case is O(n). BatchSimulation's default million jobs visit 65 nodes per
+// search on average and 1,311 at most.
+final class QueueIndex {
+    private static final int EMPTY_NODES = Integer.MAX_VALUE;
+    private static final long EMPTY_ESTIMATE = Long.MAX_VALUE;
+
+    private final int leaves;
+    private final int[] minNodes;
+    private final long[] minEstimate;
+
+    QueueIndex(int size) {
+        leaves = Integer.highestOneBit(Math.max(size, 1) * 2 - 1);
+        minNodes = new int[2 * leaves];
+        minEstimate = new long[2 * leaves];
+        Arrays.fill(minNodes, EMPTY_NODES);
+        Arrays.fill(minEstimate, EMPTY_ESTIMATE);
+    }
+
+    void add(int j, int nodes, long estimate) {
+        set(j, nodes, estimate);
+    }
+
+    void remove(int j) {
+        set(j, EMPTY_NODES, EMPTY_ESTIMATE);
+    }
+
+    // Oldest waiting job, or -1.
+    int head() {
+        if (minNodes[1] == EMPTY_NODES) {
+            return -1;
+        }
+        int i = 1;
+        while (i < leaves) {
+            i = minNodes[2 * i] != EMPTY_NODES ? 2 * i : 2 * i + 1;
+        }
+        return i - leaves;
+    }
+
+    // Oldest job with nodes <= spare, or with nodes <= free and estimate <= limit; -1 if none.
+    int first(int free, long limit, int spare) {
+        return first(1, free, limit, spare);
+    }
+
+    private int first(int i, int free, long limit, int spare) {
+        if (!(minNodes[i] <= spare || (minNodes[i] <= free && minEstimate[i] <= limit))) {
+            return -1;
+        }
+        if (i >= leaves) {
+            // A leaf: both minima belong to the same job
+            return i - leaves;
+        }
+        int found = first(2 * i, free, limit, spare);
+        return found >= 0 ? found : first(2 * i + 1, free, limit, spare);
+    }
+
+    private void set(int j, int nodes, long estimate) {
+        int i = j + leaves;
+        minNodes[i] = nodes;
+        minEstimate[i] = estimate;
+        for (i >>= 1; i > 0; i >>= 1) {
+            minNodes[i] = Math.min(minNodes[2 * i], minNodes[2 * i + 1]);
+            minEstimate[i] = Math.min(minEstimate[2 * i], minEstimate[2 * i + 1]);
+        }
+    }
+}
+
+// Availability profile of the running jobs: a treap keyed by (planned end, job) whose
+// nodes carry the node counts of their subtree. With only running jobs in it the free
+// node count is a staircase that rises at every planned end, so the time enough nodes
+// come free, and how many are free by then, are both O(log n) walks.
+final class AvailabilityProfile {
+    private final long[] end;
+    private final int[] nodes;
+    private final long[] sum;
+    private final int[] left;
+    private final int[] right;
+    private final int[] priority;
+    private int root = -1;
+
+    AvailabilityProfile(int capacity) {
+        end = new long[capacity];
+        nodes = new int[capacity];
+        sum = new long[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        priority = new int[capacity];
+        SplittableRandom random = new SplittableRandom(capacity);
+        for (int i = 0; i < capacity; i++) {
+            priority[i] = random.nextInt();
+        }
+    }
+
+    void add(int job, long plannedEnd, int count) {
+        end[job] = plannedEnd;
+        nodes[job] = count;
+        sum[job] = count;
+        left[job] = right[job] = -1;
+        int[] parts = split(root, plannedEnd, job);
+        root = merge(merge(parts[0], job), parts[1]);
+    }
+
+    void remove(int job) {
+        int[] below = split(root, end[job], job);
+        int[] rest = split(below[1], end[job], job + 1);
+        // rest[0] is the job on its own
+        root = merge(below[0], rest[1]);
+    }
+
+    // Earliest planned end by which at least count nodes have been released.
+    long timeFreeing(long count) {
+        int x = root;
+        long time = Long.MAX_VALUE;
+        while (x >= 0) {
+            long leftSum = left[x] >= 0 ? sum[left[x]] : 0;
+            if (leftSum >= count) {
+                x = left[x];
+            } else if (leftSum + nodes[x] >= count) {
+                time = end[x];
+                break;
+            } else {
+                count -= leftSum + nodes[x];
+                x = right[x];
+            }
+        }
+        return time;
+    }
+
+    // Nodes released by jobs planned to end at or before time.
+    long freedBy(long time) {
+        long total = 0;
+        int x = root;
+        while (x >= 0) {
+            if (end[x] <= time) {
+                total += (left[x] >= 0 ? sum[left[x]] : 0) + nodes[x];
+                x = right[x];
+            } else {
+                x = left[x];
+            }
+        }
+        return total;
+    }
+
+    // Splits into keys below (time, job) and keys at or above it.
+    private int[] split(int x, long time, int job) {
+        if (x < 0) {
+            return new int[]{-1, -1};
+        }
+        if (end[x] < time || (end[x] == time && x < job)) {
+            int[] parts = split(right[x], time, job);
+            right[x] = parts[0];
+            update(x);
+            parts[0] = x;
+            return parts;
+        }
+        int[] parts = split(left[x], time, job);
+        left[x] = parts[1];
+        update(x);
+        parts[1] = x;
+        return parts;
+    }
+
+    private int merge(int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        if (b < 0) {
+            return a;
+        }
+        if (priority[a] > priority[b]) {
+            right[a] = merge(right[a], b);
+            update(a);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        update(b);
+        return b;
+    }
+
+    private void update(int x) {
+        sum[x] = nodes[x] + (left[x] >= 0 ? sum[left[x]] : 0) + (right[x] >= 0 ? sum[right[x]] : 0);
+    }
+}
+
+class BatchSimulation {
+    static final long MAX_WALLTIME = 24 * 3600;
+
+    // Standard Workload Format: ';' comments, whitespace-separated fields, -1 when unknown.
+    static JobTrace readSwf(String path, int machineNodes) throws IOException {
+        long[] submit = new long[1024];
+        int[] nodes = new int[1024];
+        long[] runtime = new long[1024];
+        long[] estimate = new long[1024];
+        int n = 0;
+        int maxNodes = 0;
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.ISO_8859_1)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith(";")) {
+                    if (machineNodes <= 0 && line.startsWith("; MaxNodes:")) {
+                        machineNodes = Integer.parseInt(line.substring(11).trim());
+                    }
+                    continue;
+                }
+                String[] f = line.split("\\s+");
+                long run = Long.parseLong(f[3]);
+                int procs = Integer.parseInt(f[4]);
+                if (procs <= 0) {
+                    procs = Integer.parseInt(f[7]);
+                }
+                long requested = Long.parseLong(f[8]);
+                if (run < 0 || procs <= 0) {
+                    continue;
+                }
+                if (n == submit.length) {
+                    submit = Arrays.copyOf(submit, n * 2);
+                    nodes = Arrays.copyOf(nodes, n * 2);
+                    runtime = Arrays.copyOf(runtime, n * 2);
+                    estimate = Arrays.copyOf(estimate, n * 2);
+                }
+                submit[n] = Long.parseLong(f[1]);
+                nodes[n] = procs;
+                runtime[n] = run;
+                estimate[n] = requested > 0 ? requested : Math.max(1, run);
+                maxNodes = Math.max(maxNodes, procs);
+                n++;
+            }
+        }
+        if (machineNodes <= 0) {
+            machineNodes = maxNodes;
+        }
+        // Jobs wider than the machine can never run
+        int kept = 0;
+        for (int i = 0; i < n; i++) {
+            if (nodes[i] <= machineNodes) {
+                submit[kept] = submit[i];
+                nodes[kept] = nodes[i];
+                runtime[kept] = runtime[i];
+                estimate[kept] = estimate[i];
+                kept++;
+            }
+        }
+        // Traces are nearly sorted by submit time, but not always
+        Integer[] order = new Integer[kept];
+        for (int i = 0; i < kept; i++) {
+            order[i] = i;
+        }
+        long[] byTime = submit;
+        Arrays.sort(order, (x, y) -> Long.compare(byTime[x], byTime[y]));
+        long[] sortedSubmit = new long[kept];
+        int[] sortedNodes = new int[kept];
+        long[] sortedRuntime = new long[kept];
+        long[] sortedEstimate = new long[kept];
+        for (int i = 0; i < kept; i++) {
+            sortedSubmit[i] = submit[order[i]];
+            sortedNodes[i] = nodes[order[i]];
+            sortedRuntime[i] = runtime[order[i]];
+            sortedEstimate[i] = estimate[order[i]];
+        }
+        return new JobTrace(sortedSubmit, sortedNodes, sortedRuntime, sortedEstimate, machineNodes);
+    }
+
+    // Poisson submissions at the rate that gives the requested offered load.
+    static JobTrace synthetic(int jobs, int machineNodes, double load, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] submit = new long[jobs];
+        int[] nodes = new int[jobs];
+        long[] runtime = new long[jobs];
+        long[] estimate = new long[jobs];
+        int maxPower = 31 - Integer.numberOfLeadingZeros(machineNodes);
+        double work = 0;
+        for (int j = 0; j < jobs; j++) {
+            // Small jobs are the most common
+            double u = random.nextDouble();
+            nodes[j] = 1 << (int) (u * u * u * (maxPower + 1));
+            // Log-normal with a median of about 3 minutes, up to the one day wall-time limit
+            runtime[j] = Math.max(1, Math.min(MAX_WALLTIME, Math.round(Math.exp(5.2 + 1.4 * gaussian(random)))));
+            estimate[j] = Math.min(MAX_WALLTIME, Math.round(runtime[j] * (1 + 4 * random.nextDouble())));
+            work += (double) nodes[j] * runtime[j];
+        }
+        double meanGap = work / jobs / (machineNodes * load);
+        double t = 0;
+        for (int j = 0; j < jobs; j++) {
+            t += -Math.log(1 - random.nextDouble()) * meanGap;
+            submit[j] = (long) t;
+        }
+        return new JobTrace(submit, nodes, runtime, estimate, machineNodes);
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+
+    public static void main(String[] args) throws IOException {
+        String trace = null;
+        int machineNodes = 0, jobs = 1_000_000;
+        double load = 0.9;
+        long tau = 10, seed = 42;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "trace": trace = value; break;
+                case "nodes": machineNodes = Integer.parseInt(value); break;
+                case "jobs": jobs = Integer.parseInt(value); break;
+                case "load": load = Double.parseDouble(value); break;
+                case "tau": tau = Long.parseLong(value); break;
+                case "seed": seed = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        if (jobs <= 0 || load <= 0 || tau <= 0) {
+            throw new IllegalArgumentException("jobs, load and tau must be > 0!");
+        }
+        JobTrace jobTrace = trace != null ? readSwf(trace, machineNodes)
+                : synthetic(jobs, machineNodes > 0 ? machineNodes : 1024, load, seed);
+        System.out.printf("%d jobs on %d nodes, spanning %.1f days%n", jobTrace.size(), jobTrace.machineNodes,
+                jobTrace.size() == 0 ? 0 : (jobTrace.submit[jobTrace.size() - 1] - jobTrace.submit[0]) / 86400.0);
+        System.out.printf("%-18s%14s%18s%14s%n", "Policy", "Avg wait (s)", "Bounded slowdown", "Utilisation");
+        for (BatchScheduler.Policy policy : BatchScheduler.Policy.values()) {
+            BatchScheduler scheduler = new BatchScheduler(policy);
+            BatchResult result = scheduler.run(jobTrace);
+            System.out.printf("%-18s%14.1f%18.2f%13.1f%%%n", scheduler.name(), result.averageWait(),
+                    result.averageBoundedSlowdown(tau), 100 * result.utilisation());
+            System.out.println("                   Run cost: " + result.cost);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+// Completely fair scheduling after Linux CFS. Every process has a weight taken from its
+// nice level (the workload's priority column) and accumulates virtual runtime, real run
+// time scaled by NICE_0_WEIGHT / weight. The process with the smallest vruntime runs next,
+// for its weighted part of the scheduling period: targetLatency, stretched to
+// minGranularity per process once there are too many to fit, and never less than
+// minGranularity. A newcomer starts at the queue's min_vruntime so it cannot monopolise the
+// CPU. Arrivals are handled when the current slice ends (no wakeup preemption), and a
+// process that is alone runs until it completes or somebody arrives.
+//
+// The run queue is an IntHeap keyed by vruntime with arrival ranks as ids, which plays the
+// role of the kernel's red-black tree: O(log n) insert and pick-min on primitive keys.
+final class CfsEngine implements SchedulingEngine {
+    static final int NICE_0_WEIGHT = 1024;
+    // Fixed-point fraction bits of vruntime
+    private static final int VRUNTIME_SHIFT = 20;
+    // sched_prio_to_weight from the kernel, nice -20 to 19
+    private static final int[] WEIGHTS = {
+        88761, 71755, 56483, 46273, 36291,
+        29154, 23254, 18705, 14949, 11916,
+        9548, 7620, 6100, 4904, 3906,
+        3121, 2501, 1991, 1586, 1277,
+        1024, 820, 655, 526, 423,
+        335, 272, 215, 172, 137,
+        110, 87, 70, 56, 45,
+        36, 29, 23, 18, 15,
+    };
+
+    private final int minGranularity;
+    private final int targetLatency;
+
+    CfsEngine(int minGranularity, int targetLatency) {
+        if (minGranularity <= 0 || targetLatency < minGranularity) {
+            throw new IllegalArgumentException("Granularity must be > 0 and no larger than the target latency!");
+        }
+        this.minGranularity = minGranularity;
+        this.targetLatency = targetLatency;
+    }
+
+    // Load weight of a nice level; levels outside -20..19 are clamped.
+    static int weight(int nice) {
+        return WEIGHTS[Math.max(-20, Math.min(19, nice)) + 20];
+    }
+
+    @Override
+    public String name() {
+        return "CFS (gran " + minGranularity + ", latency " + targetLatency + ")";
+    }
+
+    @Override
+    public void schedule(Workload workload, int[] completion, Timeline timeline, SchedulerListener listener) {
+        int[] at = workload.arrival;
+        int[] bt = workload.burst;
+        int[] order = workload.arrivalOrder();
+        int n = order.length;
+        // By arrival rank
+        int[] weight = new int[n];
+        int[] remaining = new int[n];
+        long[] vruntime = new long[n];
+        IntHeap queue = new IntHeap(Math.min(n, 1024));
+        int fitting = targetLatency / minGranularity;
+        long totalWeight = 0;
+        long minVruntime = 0;
+        int time = 0;
+        int next = 0;
+        int done = 0;
+        while (done < n) {
+            while (next < n && at[order[next]] <= time) {
+                int p = order[next];
+                weight[next] = weight(workload.priority(p));
+                remaining[next] = bt[p];
+                vruntime[next] = minVruntime;
+                queue.push(next, minVruntime);
+                totalWeight += weight[next];
+                if (listener != null) {
+                    listener.arrived(p, at[p]);
+                }
+                next++;
+            }
+            if (queue.isEmpty()) {
+                if (listener != null) {
+                    listener.idle(time, at[order[next]]);
+                }
+                time = at[order[next]];
+                continue;
+            }
+
+            int r = queue.pop();
+            int p = order[r];
+            long slice;
+            if (queue.isEmpty()) {
+                slice = next < n ? at[order[next]] - time : remaining[r];
+            } else {
+                int running = queue.size() + 1;
+                long period = running > fitting ? (long) running * minGranularity : targetLatency;
+                slice = Math.max(minGranularity, period * weight[r] / totalWeight);
+            }
+            int ran = (int) Math.min(slice, remaining[r]);
+            int start = time;
+            time += ran;
+            remaining[r] -= ran;
+            vruntime[r] += ((long) ran << VRUNTIME_SHIFT) * NICE_0_WEIGHT / weight[r];
+            if (timeline != null) {
+                timeline.add(p, start, time);
+            }
+            if (listener != null) {
+                listener.dispatched(p, start, time, queue.size());
+            }
+            if (remaining[r] == 0) {
+                completion[p] = time;
+                totalWeight -= weight[r];
+                if (listener != null) {
+                    listener.completed(p, time);
+                }
+                done++;
+            } else {
+                if (listener != null) {
+                    listener.preempted(p, time, remaining[r]);
+                }
+                queue.push(r, vruntime[r]);
+            }
+            // min_vruntime only moves forward
+            long leftmost = queue.isEmpty() ? vruntime[r] : queue.peekKey();
+            minVruntime = Math.max(minVruntime, leftmost);
+        }
+        if (listener != null) {
+            listener.finished(time);
+        }
+    }
+}
@@ -3,6 +3,10 @@ import javax.swing.border.*;
 import javax.swing.table.*;
 import java.awt.*;
 import java.awt.geom.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 
 // Custom round button class with enhanced styling
 class RoundedButton extends JButton {
@@ -112,61 +116,12 @@ class GanttChartPanel extends JPanel {
             return;
         }
         
-        Graphics2D g2 = (Graphics2D) g.create();
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        
-        int margin = 20;
-        int chartHeight = 50;
-        int chartY = (getHeight() - chartHeight) / 2 - 10;
-        int maxTime = completionTimes[completionTimes.length - 1];
-        double scale = (double) (getWidth() - 2 * margin) / maxTime;
-        
-        // Draw process blocks
-        for (int i = 0; i < processIds.length; i++) {
-            int x = margin + (int) (startTimes[i] * scale);
-            int width = (int) ((completionTimes[i] - startTimes[i]) * scale);
-            
-            // Draw shadow
-            g2.setColor(new Color(0, 0, 0, 30));
-            g2.fillRoundRect(x + 2, chartY + 2, width, chartHeight, 10, 10);
-            
-            // Draw main block
-            g2.setColor(processColors[i]);
-            g2.fillRoundRect(x, chartY, width, chartHeight, 10, 10);
-            
-            // Draw border
-            g2.setColor(processColors[i].darker());
-            g2.setStroke(new BasicStroke(2));
-            g2.drawRoundRect(x, chartY, width, chartHeight, 10, 10);
-            
-            // Draw process ID
-            g2.setColor(Color.BLACK);
-            g2.setFont(new Font("Segoe UI", Font.BOLD, 14));
-            FontMetrics fm = g2.getFontMetrics();
-            int textX = x + (width - fm.stringWidth(processIds[i])) / 2;
-            int textY = chartY + (chartHeight + fm.getHeight()) / 2 - 2;
-            g2.drawString(processIds[i], textX, textY);
-        }
-        
-        // Draw timeline
-        g2.setColor(Color.DARK_GRAY);
-        g2.setStroke(new BasicStroke(1));
-        int timelineY = chartY + chartHeight + 15;
-        g2.drawLine(margin, timelineY, getWidth() - margin, timelineY);
-        
-        // Draw time markers
-        g2.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        Timeline timeline = new Timeline(processIds.length);
         for (int i = 0; i < processIds.length; i++) {
-            int x = margin + (int) (startTimes[i] * scale);
-            g2.drawLine(x, timelineY - 5, x, timelineY + 5);
-            g2.drawString(String.valueOf(startTimes[i]), x - 5, timelineY + 20);
+            timeline.add(i, startTimes[i], completionTimes[i]);
         }
-        
-        // Draw final time marker
-        int finalX = margin + (int) (maxTime * scale);
-        g2.drawLine(finalX, timelineY - 5, finalX, timelineY + 5);
-        g2.drawString(String.valueOf(maxTime), finalX - 5, timelineY + 20);
-        
+        Graphics2D g2 = (Graphics2D) g.create();
+        GanttPainter.paint(g2, getWidth(), getHeight(), timeline, processIds, processColors);
         g2.dispose();
     }
     
@@ -183,8 +138,10 @@ public class SNFN2 extends JFrame {
     private DefaultTableModel model;
     private JTextArea resultArea;
     private GanttChartPanel ganttPanel;
-    private RoundedButton computeButton, resetButton;
+    private RoundedButton computeButton, resetButton, replayButton, playButton, exportButton;
     private int processCount = 0;
+    private ScheduleResult lastResult;
+    private StoredRun lastRun;
     
     public SNFN2() {
         setTitle("FCFS Scheduling Algorithm");
@@ -210,6 +167,7 @@ public class SNFN2 extends JFrame {
         initializeComponents();
         setupLayout();
         setupEventHandlers();
+        RunStore.openShared();
     }
     
     private void initializeComponents() {
@@ -294,6 +252,27 @@ public class SNFN2 extends JFrame {
         resetButton.setForeground(Color.WHITE);
         resetButton.setToolTipText("Clear all data");
         
+        replayButton = new RoundedButton("Replay", 25);
+        replayButton.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        replayButton.setBackground(new Color(100, 149, 237));
+        replayButton.setForeground(Color.WHITE);
+        replayButton.setToolTipText("Step through the schedule");
+        replayButton.setEnabled(false);
+        
+        playButton = new RoundedButton("Play", 25);
+        playButton.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        playButton.setBackground(new Color(46, 139, 87));
+        playButton.setForeground(Color.WHITE);
+        playButton.setToolTipText("Run the schedule again, live");
+        playButton.setEnabled(false);
+        
+        exportButton = new RoundedButton("Export", 25);
+        exportButton.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        exportButton.setBackground(new Color(255, 140, 0));
+        exportButton.setForeground(Color.WHITE);
+        exportButton.setToolTipText("Save the results and the timeline as CSV or columnar binary");
+        exportButton.setEnabled(false);
+        
         // Result Area
         resultArea = new JTextArea(6, 60);
         resultArea.setEditable(false);
@@ -368,6 +347,9 @@ public class SNFN2 extends JFrame {
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 30, 10));
         buttonPanel.setOpaque(false);
         buttonPanel.add(computeButton);
+        buttonPanel.add(replayButton);
+        buttonPanel.add(playButton);
+        buttonPanel.add(exportButton);
         buttonPanel.add(resetButton);
         
         // Results Panel
@@ -396,6 +378,11 @@ public class SNFN2 extends JFrame {
                 model.addRow(new Object[]{"P" + (i + 1), "", "", "", "", ""});
             }
             ganttPanel.clearChart();
+            lastResult = null;
+            lastRun = null;
+            replayButton.setEnabled(false);
+            playButton.setEnabled(false);
+            exportButton.setEnabled(false);
             resultArea.setText("✨ Ready to compute! Please enter Arrival Time (AT) and Burst Time (BT) for each process.");
         });
     }
@@ -403,6 +390,9 @@ public class SNFN2 extends JFrame {
     private void setupEventHandlers() {
         computeButton.addActionListener(e -> computeScheduling());
         resetButton.addActionListener(e -> resetAll());
+        replayButton.addActionListener(e -> new ReplayFrame("FCFS", lastResult).setVisible(true));
+        playButton.addActionListener(e -> new PlayFrame(new FcfsEngine(), lastResult.workload).setVisible(true));
+        exportButton.addActionListener(e -> exportResults());
     }
     
     private void computeScheduling() {
@@ -438,25 +428,22 @@ public class SNFN2 extends JFrame {
                 }
             }
             
-            // Sort by arrival time (FCFS)
-            for (int i = 0; i < processCount - 1; i++) {
-                for (int j = i + 1; j < processCount; j++) {
-                    if (at[i] > at[j]) {
-                        // Swap all arrays
-                        swap(at, i, j);
-                        swap(bt, i, j);
-                        String temp = pid[i]; pid[i] = pid[j]; pid[j] = temp;
-                    }
-                }
-            }
-            
-            // Calculate start and completion times
-            st[0] = at[0];
-            ct[0] = st[0] + bt[0];
+            RunCost.Meter meter = RunCost.start();
             
-            for (int i = 1; i < processCount; i++) {
-                st[i] = Math.max(at[i], ct[i - 1]);
-                ct[i] = st[i] + bt[i];
+            // Schedule in arrival order (FCFS) and list the processes in execution order
+            Workload workload = new Workload(pid.clone(), at.clone(), bt.clone());
+            lastResult = new FcfsEngine().run(workload);
+            replayButton.setEnabled(true);
+            playButton.setEnabled(true);
+            exportButton.setEnabled(true);
+            Timeline timeline = lastResult.timeline;
+            for (int i = 0; i < processCount; i++) {
+                int p = timeline.process(i);
+                pid[i] = workload.name(p);
+                at[i] = workload.arrival[p];
+                bt[i] = workload.burst[p];
+                st[i] = timeline.start(i);
+                ct[i] = timeline.end(i);
             }
             
             // Calculate TAT and WT
@@ -502,7 +489,16 @@ public class SNFN2 extends JFrame {
             results.append(String.format("   • CPU Utilization: %.1f%%", 
                 (double) totalTAT / ct[processCount - 1] * 100));
             
+            results.append(String.format("\n\n⏱ Run Cost:\n   • %s", meter.stop()));
             resultArea.setText(results.toString());
+            ScheduleResult recorded = lastResult;
+            RunStore.remember("fcfs", 0, recorded, (run, history) -> {
+                // Skipped when the table was reset or computed again meanwhile
+                if (lastResult == recorded) {
+                    lastRun = run;
+                    resultArea.append("\n\n🗄 History:\n   • " + history);
+                }
+            });
             
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, 
@@ -519,10 +515,40 @@ public class SNFN2 extends JFrame {
         }
     }
     
-    private void swap(int[] arr, int i, int j) {
-        int temp = arr[i];
-        arr[i] = arr[j];
-        arr[j] = temp;
+    // Results to the chosen file and the timeline beside it, as CSV for a .csv name and
+    // columnar binary otherwise; a .svg or .png name gets the Gantt chart instead.
+    private void exportResults() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export results (.csv for CSV, .svg or .png for the chart, anything else for columnar)");
+        chooser.setSelectedFile(new File("fcfs-results.csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path path = chooser.getSelectedFile().toPath();
+        String name = path.getFileName().toString().toLowerCase();
+        try {
+            if (name.endsWith(".svg") || name.endsWith(".png")) {
+                String scale = JOptionPane.showInputDialog(this, "Pixels per time unit:",
+                    GanttExport.fittingScale(lastResult.makespan()));
+                if (scale == null) {
+                    return;
+                }
+                GanttExport.of(lastResult, Double.parseDouble(scale.trim()), GanttExport.DEFAULT_WIDTH).write(path);
+                resultArea.append("\n\n💾 Exported the chart to " + path);
+                return;
+            }
+            Path timeline = ResultExport.writeWithTimeline(lastResult, path);
+            RunStore.rememberTimeline(lastRun, timeline);
+            resultArea.append("\n\n💾 Exported to " + path + " and " + timeline.getFileName());
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this,
+                "❌ " + ex.getMessage(),
+                "Export Error", JOptionPane.ERROR_MESSAGE);
+        } catch (IOException | UncheckedIOException ex) {
+            JOptionPane.showMessageDialog(this,
+                "❌ Export failed: " + ex.getMessage(),
+                "Export Error", JOptionPane.ERROR_MESSAGE);
+        }
     }
     
     private void resetAll() {
@@ -530,6 +556,11 @@ public class SNFN2 extends JFrame {
         processCount = 0;
         model.setRowCount(0);
         ganttPanel.clearChart();
+        lastResult = null;
+        lastRun = null;
+        replayButton.setEnabled(false);
+        playButton.setEnabled(false);
+        exportButton.setEnabled(false);
         resultArea.setText("🔄 System reset! Select number of processes to begin.");
     }
     
@@ -0,0 +1,255 @@
+import java.util.Set;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.SettingControl;
+import jdk.jfr.SettingDefinition;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+// Java Flight Recorder events for scheduling decisions and Gantt repaints. All of them are
+// disabled by default; enable them with ccopsysl.jfc or any recording that names them, e.g.
+//
+//   java -XX:StartFlightRecording:settings=ccopsysl.jfc,filename=run.jfr WorkloadGenerator target=rr
+//
+// The simulation events are about simulated time, so instead of JFR's wall-clock threshold
+// take one "filter" setting, "<minimum>/<sample>", with a minimum in simulated time units
+// and a rate that keeps one event in N. Engines only get an emitter when one of the events is enabled as the run starts, so
+// a run without a recording pays for one check.
+final class SchedulerEvents {
+    private static final EventType DISPATCH = EventType.getEventType(DispatchEvent.class);
+    private static final EventType IDLE = EventType.getEventType(IdleEvent.class);
+    private static final EventType COMPLETION = EventType.getEventType(CompletionEvent.class);
+
+    private SchedulerEvents() {
+    }
+
+    // An emitter for one run of the given engine, or null when no scheduling event is enabled.
+    static SchedulerListener listener(String engine) {
+        boolean dispatch = DISPATCH.isEnabled();
+        boolean idle = IDLE.isEnabled();
+        boolean completion = COMPLETION.isEnabled();
+        if (!dispatch && !idle && !completion) {
+            return null;
+        }
+        return new Emitter(engine, dispatch, idle, completion);
+    }
+
+    static final class Emitter implements SchedulerListener {
+        private final String engine;
+        private final boolean dispatch, idle, completion;
+
+        Emitter(String engine, boolean dispatch, boolean idle, boolean completion) {
+            this.engine = engine;
+            this.dispatch = dispatch;
+            this.idle = idle;
+            this.completion = completion;
+        }
+
+        @Override
+        public void dispatched(long process, long start, long end, int ready) {
+            if (dispatch) {
+                DispatchEvent event = new DispatchEvent();
+                event.engine = engine;
+                event.process = process;
+                event.start = start;
+                event.slice = end - start;
+                event.ready = ready;
+                event.commit();
+            }
+        }
+
+        @Override
+        public void idle(long from, long to) {
+            if (idle) {
+                IdleEvent event = new IdleEvent();
+                event.engine = engine;
+                event.from = from;
+                event.length = to - from;
+                event.commit();
+            }
+        }
+
+        @Override
+        public void completed(long process, long time) {
+            if (completion) {
+                CompletionEvent event = new CompletionEvent();
+                event.engine = engine;
+                event.process = process;
+                event.time = time;
+                event.commit();
+            }
+        }
+    }
+}
+
+@Name("ccopsysl.Dispatch")
+@Label("Dispatch")
+@Category({"CCOPSYSL", "Scheduler"})
+@Description("The scheduler handed the CPU to a process for one slice")
+@Enabled(false)
+@StackTrace(false)
+final class DispatchEvent extends Event {
+    @Label("Engine")
+    String engine;
+
+    @Label("Process")
+    long process;
+
+    @Label("Start")
+    @Description("Simulated time the slice starts")
+    long start;
+
+    @Label("Slice")
+    @Description("Simulated time units the process runs")
+    long slice;
+
+    @Label("Ready")
+    @Description("Processes left waiting for the CPU")
+    int ready;
+
+    @Name("filter")
+    @Label("Minimum Slice / Sample One In")
+    @SettingDefinition
+    boolean filter(SimulatedFilter filter) {
+        return filter.take(slice);
+    }
+}
+
+@Name("ccopsysl.Idle")
+@Label("Idle")
+@Category({"CCOPSYSL", "Scheduler"})
+@Description("The CPU had nothing to run until the next arrival")
+@Enabled(false)
+@StackTrace(false)
+final class IdleEvent extends Event {
+    @Label("Engine")
+    String engine;
+
+    @Label("From")
+    @Description("Simulated time the CPU went idle")
+    long from;
+
+    @Label("Length")
+    @Description("Simulated time units spent idle")
+    long length;
+
+    @Name("filter")
+    @Label("Minimum Length / Sample One In")
+    @SettingDefinition
+    boolean filter(SimulatedFilter filter) {
+        return filter.take(length);
+    }
+}
+
+@Name("ccopsysl.Completion")
+@Label("Completion")
+@Category({"CCOPSYSL", "Scheduler"})
+@Description("A process finished its last burst")
+@Enabled(false)
+@StackTrace(false)
+final class CompletionEvent extends Event {
+    @Label("Engine")
+    String engine;
+
+    @Label("Process")
+    long process;
+
+    @Label("Time")
+    @Description("Simulated completion time")
+    long time;
+
+    // A completion has no length, so only the sample rate applies
+    @Name("filter")
+    @Label("Sample One In")
+    @SettingDefinition
+    boolean filter(SimulatedFilter filter) {
+        return filter.take(Long.MAX_VALUE);
+    }
+}
+
+// One repaint of a Gantt chart. Unlike the simulation events this one has a real duration,
+// so the usual JFR threshold setting filters out the fast frames.
+@Name("ccopsysl.GanttRender")
+@Label("Gantt Render")
+@Category({"CCOPSYSL", "Rendering"})
+@Enabled(false)
+@StackTrace(false)
+@Threshold("0 ms")
+final class GanttRenderEvent extends Event {
+    @Label("Blocks")
+    int blocks;
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+}
+
+// The one setting of a simulation event, "<minimum>/<sample>": events shorter than minimum
+// simulated time units are dropped and one in sample of the rest is kept, e.g. "50/1" or
+// "0/1000". It is a single control because JFR pairs an event's setting methods with their
+// controls in no fixed order, and two controls of different types sometimes came back
+// swapped, failing the commit with a ClassCastException. Several recordings get the
+// smallest minimum and the smallest sample rate asked for, so nobody loses events.
+//
+// The sample counter is shared by every thread committing the event type and is updated
+// without synchronisation: a lost increment only shifts which event is kept.
+final class SimulatedFilter extends SettingControl {
+    volatile long minimum;
+    volatile long every = 1;
+    private String text = "0/1";
+    private long counter;
+
+    boolean take(long length) {
+        if (length < minimum) {
+            return false;
+        }
+        long n = every;
+        return n <= 1 || counter++ % n == 0;
+    }
+
+    @Override
+    public String combine(Set<String> values) {
+        long minimum = Long.MAX_VALUE;
+        long every = Long.MAX_VALUE;
+        for (String v : values) {
+            long[] parsed = parse(v);
+            minimum = Math.min(minimum, parsed[0]);
+            every = Math.min(every, parsed[1]);
+        }
+        return values.isEmpty() ? "0/1" : minimum + "/" + every;
+    }
+
+    @Override
+    public void setValue(String text) {
+        long[] parsed = parse(text);
+        this.text = text;
+        minimum = parsed[0];
+        every = parsed[1];
+    }
+
+    @Override
+    public String getValue() {
+        return text;
+    }
+
+    // Minimum and sample rate; a missing or unreadable part keeps everything.
+    private static long[] parse(String text) {
+        String[] parts = text.split("/", -1);
+        return new long[]{number(parts[0], 0), parts.length > 1 ? number(parts[1], 1) : 1};
+    }
+
+    private static long number(String text, long least) {
+        try {
+            return Math.max(least, Long.parseLong(text.trim()));
+        } catch (NumberFormatException e) {
+            return least;
+        }
+    }
+}
@@ -0,0 +1,593 @@
+import java.awt.Color;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// Whole-schedule Gantt export at a chosen resolution, scale pixels per time unit, as SVG or
+// PNG. However long the schedule, it is wrapped into lines of at most width pixels, each
+// line a chart of its own in GanttPainter's look: rounded blocks with a shadow, a border
+// and a centred label, and a time axis underneath. A block running across a line break is
+// drawn on both lines.
+//
+// Both formats are written line by line. SVG goes out element by element through a
+// TextChannelWriter; PNG lines are painted into one reusable tile and handed to
+// PngStreamWriter, so memory stays at one line however many lines there are.
+//
+// Like GanttPainter, a line holding more segments than pixels is drawn as one pixel column
+// per step, and the axis only gets a tick per block start while the labels have room;
+// otherwise it is ticked at round intervals. As in paintLanes, blocks too narrow for their
+// rounded corners are plain rectangles without shadow or border, which also keeps a
+// million-segment PNG from spending its time antialiasing corners nobody can see.
+final class GanttExport {
+    static final int DEFAULT_WIDTH = 1600;
+    static final int MAX_WIDTH = 1 << 15;
+    static final int LINE_HEIGHT = 120;
+    // Room a tick label at a block start needs
+    static final int TICK_SPACING = 40;
+    // Narrowest block that still gets corners, shadow and border
+    static final int ROUNDED_WIDTH = 12;
+    private static final int CHART_Y = GanttPainter.MARGIN;
+    private static final int AXIS_Y = CHART_Y + GanttPainter.BLOCK_HEIGHT + 15;
+
+    private final Timeline timeline;
+    private final String[] labels;
+    private final Color[] colors;
+    private final double scale;
+    private final int span;
+    private final int width;
+    // Time units per line, and lines
+    private final int lineSpan;
+    private final int lines;
+    // Label widths in the label font, filled in as labels come up; -1 until then
+    private final int[] labelWidths;
+    private final Color[] borders;
+    private final FontMetrics labelMetrics;
+
+    GanttExport(Timeline timeline, String[] labels, Color[] colors, double scale, int width) {
+        if (!(scale > 0)) {
+            throw new IllegalArgumentException("Scale must be > 0!");
+        }
+        if (width <= 2 * GanttPainter.MARGIN || width > MAX_WIDTH) {
+            throw new IllegalArgumentException("Width must be between " + (2 * GanttPainter.MARGIN + 1) + " and "
+                    + MAX_WIDTH + "!");
+        }
+        this.timeline = timeline;
+        this.labels = labels;
+        this.colors = colors;
+        this.scale = scale;
+        int count = timeline.size();
+        span = count == 0 ? 0 : timeline.end(count - 1);
+        lineSpan = Math.max(1, (int) ((width - 2 * GanttPainter.MARGIN) / scale));
+        // A schedule that fits on one line gets a line only as wide as it needs
+        this.width = span <= lineSpan ? (int) Math.ceil(span * scale) + 2 * GanttPainter.MARGIN : width;
+        lines = Math.max(1, (int) ((span + (long) lineSpan - 1) / lineSpan));
+        if ((long) lines * LINE_HEIGHT > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Chart would be " + lines + " lines high; lower the scale!");
+        }
+        labelWidths = new int[labels.length];
+        Arrays.fill(labelWidths, -1);
+        borders = new Color[colors.length];
+        Graphics2D g2 = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).createGraphics();
+        labelMetrics = g2.getFontMetrics(GanttPainter.LABEL_FONT);
+        g2.dispose();
+    }
+
+    // A result's chart with the labels and colours the frames use.
+    static GanttExport of(ScheduleResult result, double scale, int width) {
+        Workload workload = result.workload;
+        int n = workload.size();
+        String[] labels = new String[n];
+        Color[] colors = new Color[n];
+        for (int i = 0; i < n; i++) {
+            labels[i] = workload.name(i);
+            colors[i] = Color.getHSBColor((float) i / n, 0.7f, 0.9f);
+        }
+        return new GanttExport(result.timeline, labels, colors, scale, width);
+    }
+
+    // Scale that fits span time units on one line of the default width, but no less than a
+    // pixel per time unit.
+    static double fittingScale(int span) {
+        return Math.max(1, (double) (DEFAULT_WIDTH - 2 * GanttPainter.MARGIN) / Math.max(1, span));
+    }
+
+    int width() {
+        return width;
+    }
+
+    int height() {
+        return lines * LINE_HEIGHT;
+    }
+
+    int lines() {
+        return lines;
+    }
+
+    // .svg for SVG, anything else for PNG.
+    void write(Path path) throws IOException {
+        if (path.getFileName().toString().toLowerCase().endsWith(".svg")) {
+            writeSvg(path);
+        } else {
+            writePng(path);
+        }
+    }
+
+    private int x(long time, long from) {
+        return GanttPainter.MARGIN + (int) ((time - from) * scale);
+    }
+
+    private int labelWidth(int p) {
+        if (labelWidths[p] < 0) {
+            labelWidths[p] = labelMetrics.stringWidth(labels[p]);
+        }
+        return labelWidths[p];
+    }
+
+    private boolean dense(int first, int last) {
+        return last - first > width - 2 * GanttPainter.MARGIN;
+    }
+
+    private boolean tickEveryBlock(int first, int last) {
+        return (long) (last - first) * TICK_SPACING <= width - 2 * GanttPainter.MARGIN;
+    }
+
+    // Process on the CPU at time, or -1 while it is idle.
+    private int sample(int time) {
+        int i = timeline.seek(time);
+        return i < timeline.size() && timeline.start(i) <= time ? timeline.process(i) : -1;
+    }
+
+    void writePng(Path path) throws IOException {
+        int height = height();
+        BufferedImage tile = new BufferedImage(width, LINE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) tile.getRaster().getDataBuffer()).getData();
+        try (PngStreamWriter png = new PngStreamWriter(path, width, height, Deflater.BEST_SPEED)) {
+            for (int line = 0; line < lines; line++) {
+                Graphics2D g2 = tile.createGraphics();
+                g2.setColor(Color.WHITE);
+                g2.fillRect(0, 0, width, LINE_HEIGHT);
+                paintLine(g2, line);
+                g2.dispose();
+                png.rows(pixels, 0, width, LINE_HEIGHT);
+            }
+        }
+    }
+
+    private void paintLine(Graphics2D g2, int line) {
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        long from = (long) line * lineSpan;
+        long to = Math.min(span, from + lineSpan);
+        int right = x(to, from);
+        int count = timeline.size();
+        int first = timeline.seek((int) from);
+        int last = timeline.seek((int) to - 1);
+        if (dense(first, last)) {
+            for (int px = GanttPainter.MARGIN; px < right; px++) {
+                int p = sample((int) (from + (px - GanttPainter.MARGIN) / scale));
+                if (p >= 0) {
+                    g2.setColor(colors[p]);
+                    g2.fillRect(px, CHART_Y, 1, GanttPainter.BLOCK_HEIGHT);
+                }
+            }
+            GanttPainter.paintAxis(g2, GanttPainter.MARGIN, right, AXIS_Y, from, to, scale);
+            return;
+        }
+
+        g2.setFont(GanttPainter.LABEL_FONT);
+        for (int i = first; i < count && timeline.start(i) < to; i++) {
+            int p = timeline.process(i);
+            int x = x(Math.max(timeline.start(i), from), from);
+            int blockWidth = Math.max(1, x(Math.min(timeline.end(i), to), from) - x);
+            if (blockWidth < ROUNDED_WIDTH) {
+                g2.setColor(colors[p]);
+                g2.fillRect(x, CHART_Y, blockWidth, GanttPainter.BLOCK_HEIGHT);
+                continue;
+            }
+            g2.setColor(GanttPainter.SHADOW);
+            g2.fillRoundRect(x + 2, CHART_Y + 2, blockWidth, GanttPainter.BLOCK_HEIGHT, 10, 10);
+            g2.setColor(colors[p]);
+            g2.fillRoundRect(x, CHART_Y, blockWidth, GanttPainter.BLOCK_HEIGHT, 10, 10);
+            if (borders[p] == null) {
+                borders[p] = colors[p].darker();
+            }
+            g2.setColor(borders[p]);
+            g2.setStroke(GanttPainter.BORDER_STROKE);
+            g2.drawRoundRect(x, CHART_Y, blockWidth, GanttPainter.BLOCK_HEIGHT, 10, 10);
+            int labelWidth = labelWidth(p);
+            if (labelWidth + 4 <= blockWidth) {
+                g2.setColor(Color.BLACK);
+                g2.drawString(labels[p], x + (blockWidth - labelWidth) / 2,
+                        CHART_Y + (GanttPainter.BLOCK_HEIGHT + labelMetrics.getHeight()) / 2 - 2);
+            }
+        }
+
+        if (!tickEveryBlock(first, last)) {
+            GanttPainter.paintAxis(g2, GanttPainter.MARGIN, right, AXIS_Y, from, to, scale);
+            return;
+        }
+        g2.setColor(Color.DARK_GRAY);
+        g2.setStroke(GanttPainter.AXIS_STROKE);
+        g2.setFont(GanttPainter.TIME_FONT);
+        g2.drawLine(GanttPainter.MARGIN, AXIS_Y, right, AXIS_Y);
+        for (int i = first; i < count && timeline.start(i) < to; i++) {
+            if (timeline.start(i) >= from) {
+                int x = x(timeline.start(i), from);
+                g2.drawLine(x, AXIS_Y - 5, x, AXIS_Y + 5);
+                g2.drawString(String.valueOf(timeline.start(i)), x - 5, AXIS_Y + 20);
+            }
+        }
+        if (span <= to) {
+            g2.drawLine(right, AXIS_Y - 5, right, AXIS_Y + 5);
+            g2.drawString(String.valueOf(span), right - 5, AXIS_Y + 20);
+        }
+    }
+
+    void writeSvg(Path path) throws IOException {
+        TextChannelWriter out = new TextChannelWriter(path);
+        try {
+            out.text("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"");
+            out.number(width);
+            out.text("\" height=\"");
+            out.number(height());
+            out.text("\" font-family=\"Segoe UI, sans-serif\">\n<style>"
+                    + ".s{fill:#000;fill-opacity:0.118}.b{stroke-width:2}"
+                    + ".l{font-size:14px;font-weight:bold;text-anchor:middle;fill:#000}"
+                    + ".t{font-size:12px;fill:#404040}.a{stroke:#404040;stroke-width:1}</style>\n"
+                    + "<rect width=\"100%\" height=\"100%\" fill=\"#fff\"/>\n");
+            for (int line = 0; line < lines; line++) {
+                out.text("<g transform=\"translate(0,");
+                out.number((long) line * LINE_HEIGHT);
+                out.text(")\">\n");
+                svgLine(out, line);
+                out.text("</g>\n");
+            }
+            out.text("</svg>\n");
+        } finally {
+            out.close();
+        }
+    }
+
+    private void svgLine(TextChannelWriter out, int line) {
+        long from = (long) line * lineSpan;
+        long to = Math.min(span, from + lineSpan);
+        int right = x(to, from);
+        int count = timeline.size();
+        int first = timeline.seek((int) from);
+        int last = timeline.seek((int) to - 1);
+        if (dense(first, last)) {
+            // Pixel columns, with runs of the same process merged into one rect
+            int runStart = GanttPainter.MARGIN;
+            int runProcess = -1;
+            for (int px = GanttPainter.MARGIN; px <= right; px++) {
+                int p = px < right ? sample((int) (from + (px - GanttPainter.MARGIN) / scale)) : -2;
+                if (p != runProcess) {
+                    if (runProcess >= 0) {
+                        svgRect(out, runStart, px - runStart, colors[runProcess].getRGB());
+                        out.text("/>\n");
+                    }
+                    runStart = px;
+                    runProcess = p;
+                }
+            }
+            svgAxis(out, from, to, right);
+            return;
+        }
+
+        for (int i = first; i < count && timeline.start(i) < to; i++) {
+            int p = timeline.process(i);
+            int x = x(Math.max(timeline.start(i), from), from);
+            int blockWidth = Math.max(1, x(Math.min(timeline.end(i), to), from) - x);
+            int rgb = colors[p].getRGB();
+            if (blockWidth < ROUNDED_WIDTH) {
+                svgRect(out, x, blockWidth, rgb);
+                out.text("/>\n");
+                continue;
+            }
+            out.text("<rect class=\"s\" x=\"");
+            out.number(x + 2);
+            out.text("\" y=\"");
+            out.number(CHART_Y + 2);
+            out.text("\" width=\"");
+            out.number(blockWidth);
+            out.text("\" height=\"50\" rx=\"5\"/>");
+            svgRect(out, x, blockWidth, rgb);
+            out.text(" rx=\"5\" class=\"b\" stroke=\"#");
+            out.hex(darker(rgb));
+            out.text("\"/>");
+            if (labelWidth(p) + 4 <= blockWidth) {
+                out.text("<text class=\"l\" x=\"");
+                out.number(x + blockWidth / 2);
+                out.text("\" y=\"");
+                out.number(CHART_Y + GanttPainter.BLOCK_HEIGHT / 2 + 5);
+                out.text("\">");
+                xml(out, labels[p]);
+                out.text("</text>");
+            }
+            out.ascii('\n');
+        }
+
+        if (!tickEveryBlock(first, last)) {
+            svgAxis(out, from, to, right);
+            return;
+        }
+        svgAxisLine(out, right);
+        for (int i = first; i < count && timeline.start(i) < to; i++) {
+            if (timeline.start(i) >= from) {
+                svgTick(out, x(timeline.start(i), from), timeline.start(i));
+            }
+        }
+        if (span <= to) {
+            svgTick(out, right, span);
+        }
+    }
+
+    private void svgRect(TextChannelWriter out, int x, int w, int rgb) {
+        out.text("<rect x=\"");
+        out.number(x);
+        out.text("\" y=\"");
+        out.number(CHART_Y);
+        out.text("\" width=\"");
+        out.number(w);
+        out.text("\" height=\"");
+        out.number(GanttPainter.BLOCK_HEIGHT);
+        out.text("\" fill=\"#");
+        out.hex(rgb);
+        out.ascii('"');
+    }
+
+    // Round ticks, as GanttPainter.paintAxis draws them.
+    private void svgAxis(TextChannelWriter out, long from, long to, int right) {
+        svgAxisLine(out, right);
+        long step = GanttPainter.tickStep(to - from);
+        for (long t = (from + step - 1) / step * step; t <= to; t += step) {
+            svgTick(out, x(t, from), t);
+        }
+    }
+
+    private void svgAxisLine(TextChannelWriter out, int right) {
+        out.text("<line class=\"a\" x1=\"");
+        out.number(GanttPainter.MARGIN);
+        out.text("\" y1=\"");
+        out.number(AXIS_Y);
+        out.text("\" x2=\"");
+        out.number(right);
+        out.text("\" y2=\"");
+        out.number(AXIS_Y);
+        out.text("\"/>\n");
+    }
+
+    private void svgTick(TextChannelWriter out, int x, long time) {
+        out.text("<line class=\"a\" x1=\"");
+        out.number(x);
+        out.text("\" y1=\"");
+        out.number(AXIS_Y - 5);
+        out.text("\" x2=\"");
+        out.number(x);
+        out.text("\" y2=\"");
+        out.number(AXIS_Y + 5);
+        out.text("\"/><text class=\"t\" x=\"");
+        out.number(x - 5);
+        out.text("\" y=\"");
+        out.number(AXIS_Y + 20);
+        out.text("\">");
+        out.number(time);
+        out.text("</text>\n");
+    }
+
+    // Color.darker() without the Color.
+    private static int darker(int rgb) {
+        int r = (int) (((rgb >> 16) & 0xFF) * 0.7);
+        int g = (int) (((rgb >> 8) & 0xFF) * 0.7);
+        int b = (int) ((rgb & 0xFF) * 0.7);
+        return (r << 16) | (g << 8) | b;
+    }
+
+    private static void xml(TextChannelWriter out, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '&': out.text("&amp;"); break;
+                case '<': out.text("&lt;"); break;
+                case '>': out.text("&gt;"); break;
+                case '"': out.text("&quot;"); break;
+                default:
+                    if (c < 128 && c >= ' ') {
+                        out.ascii(c);
+                    } else {
+                        out.text("&#");
+                        out.number(c);
+                        out.ascii(';');
+                    }
+            }
+        }
+    }
+}
+
+// Truecolor PNG written as rows arrive: signature and header up front, then the rows go
+// through the Up filter and one Deflater, and whatever the deflater produces is written as
+// an IDAT chunk. Only the previous row is kept. The height is fixed when the file is
+// opened, and close() fails if fewer rows were written.
+final class PngStreamWriter implements AutoCloseable {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+    // Filter byte plus RGB, for this row and the one before
+    private byte[] row;
+    private byte[] previous;
+    private final byte[] compressed = new byte[1 << 16];
+    private int written;
+    private boolean finishing;
+
+    PngStreamWriter(Path path, int width, int height, int level) throws IOException {
+        if (width <= 0 || height <= 0 || (long) width * 3 + 1 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bad image size " + width + " x " + height + "!");
+        }
+        this.width = width;
+        this.height = height;
+        row = new byte[1 + 3 * width];
+        previous = new byte[1 + 3 * width];
+        deflater = new Deflater(level);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.put(SIGNATURE);
+        ByteBuffer header = ByteBuffer.allocate(13);
+        // 8 bits per channel, truecolor, deflate, adaptive filtering, no interlace
+        header.putInt(width).putInt(height).put((byte) 8).put((byte) 2).put((byte) 0).put((byte) 0).put((byte) 0);
+        chunk("IHDR", header.array(), 13);
+    }
+
+    // rows rows of width RGB pixels from pixels, starting at offset, scanline ints apart.
+    void rows(int[] pixels, int offset, int scanline, int rows) {
+        if (written + rows > height) {
+            throw new IllegalStateException("Image only has " + height + " rows!");
+        }
+        for (int y = 0; y < rows; y++) {
+            byte[] out = row;
+            byte[] up = previous;
+            out[0] = 2;
+            int in = offset + y * scanline;
+            for (int x = 0, b = 1; x < width; x++, b += 3) {
+                int rgb = pixels[in + x];
+                out[b] = (byte) ((rgb >> 16) - up[b]);
+                out[b + 1] = (byte) ((rgb >> 8) - up[b + 1]);
+                out[b + 2] = (byte) (rgb - up[b + 2]);
+            }
+            deflater.setInput(out);
+            drain();
+            // Keep the unfiltered row for the next one
+            for (int b = 1; b < out.length; b++) {
+                up[b] = (byte) (out[b] + up[b]);
+            }
+            written++;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (written != height) {
+                throw new IllegalStateException("Wrote " + written + " of " + height + " rows!");
+            }
+            deflater.finish();
+            finishing = true;
+            drain();
+            chunk("IEND", compressed, 0);
+            flush();
+        } finally {
+            deflater.end();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Writes what the deflater has ready, until it wants more input or, once finishing,
+    // until it is done.
+    private void drain() {
+        while (!deflater.finished() && (finishing || !deflater.needsInput())) {
+            int n = deflater.deflate(compressed);
+            if (n > 0) {
+                chunk("IDAT", compressed, n);
+            }
+        }
+    }
+
+    private void chunk(String type, byte[] data, int length) {
+        byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+        if (buffer.remaining() < length + 12) {
+            flush();
+        }
+        crc.reset();
+        crc.update(name);
+        crc.update(data, 0, length);
+        buffer.putInt(length).put(name).put(data, 0, length).putInt((int) crc.getValue());
+    }
+
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+}
+
+// Exports the chart of a large round robin schedule and reports what it cost. The output
+// format follows the file name.
+//
+// Usage: java GanttExportSimulation [processes=300000] [quantum=4] [scale=1] [width=1600]
+//        [out=gantt.png] [seed=42]
+class GanttExportSimulation {
+    public static void main(String[] args) throws IOException {
+        int processes = 300_000, quantum = 4, width = GanttExport.DEFAULT_WIDTH;
+        double scale = 1;
+        String out = "gantt.png";
+        long seed = 42;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "processes": processes = Integer.parseInt(value); break;
+                case "quantum": quantum = Integer.parseInt(value); break;
+                case "scale": scale = Double.parseDouble(value); break;
+                case "width": width = Integer.parseInt(value); break;
+                case "out": out = value; break;
+                case "seed": seed = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        if (processes <= 0 || quantum <= 0) {
+            throw new IllegalArgumentException("processes and quantum must be > 0!");
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] at = new int[processes];
+        int[] bt = new int[processes];
+        for (int i = 0; i < processes; i++) {
+            bt[i] = 1 + random.nextInt(19);
+            at[i] = random.nextInt((int) Math.min(Integer.MAX_VALUE, processes * 10L));
+        }
+        Workload workload = new Workload(at, bt);
+        ScheduleResult result = new RoundRobinEngine(quantum).run(workload);
+
+        Path path = Paths.get(out);
+        RunCost.Meter meter = RunCost.start();
+        GanttExport export = GanttExport.of(result, scale, width);
+        export.write(path);
+        RunCost cost = meter.stop();
+        System.out.printf("Segments: %,d, image %,d x %,d in %,d lines%n", result.timeline.size(), export.width(),
+                export.height(), export.lines());
+        System.out.printf("Wrote %s: %,d bytes%n", path, Files.size(path));
+        System.out.println("Export cost: " + cost);
+    }
+}
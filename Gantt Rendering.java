@@ -0,0 +1,225 @@
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+
+// Paints a timeline in the look of the FCFS and SJF Gantt panels: rounded blocks with a
+// drop shadow and a centred label, followed by a time axis with a tick at every block
+// start and at the end of the schedule. Used by the panels and for offscreen rendering.
+// Timelines with more segments than the chart has pixels are sampled instead, one pixel
+// column at a time through Timeline.seek, so painting a spilled 10^9-segment schedule
+// reads a few thousand records rather than all of them.
+final class GanttPainter {
+    static final int MARGIN = 20;
+    static final int BLOCK_HEIGHT = 50;
+    static final Font LABEL_FONT = new Font("Segoe UI", Font.BOLD, 14);
+    static final Font TIME_FONT = new Font("Segoe UI", Font.PLAIN, 12);
+    static final Color SHADOW = new Color(0, 0, 0, 30);
+    static final BasicStroke BORDER_STROKE = new BasicStroke(2);
+    static final BasicStroke AXIS_STROKE = new BasicStroke(1);
+    static final int LANE_LABEL_WIDTH = 60;
+    static final int AXIS_HEIGHT = 40;
+
+    private GanttPainter() {
+    }
+
+    // labels and colors are indexed by the timeline's process numbers.
+    static void paint(Graphics2D g2, int width, int height, Timeline timeline, String[] labels, Color[] colors) {
+        int count = timeline.size();
+        if (count > 0) {
+            paint(g2, width, height, timeline, labels, colors, timeline.end(count - 1));
+        }
+    }
+
+    // Scales the axis to span time units instead of to the end of this timeline, so that
+    // charts stacked on top of each other share one time axis.
+    static void paint(Graphics2D g2, int width, int height, Timeline timeline, String[] labels, Color[] colors,
+            int span) {
+        int count = timeline.size();
+        if (count == 0 || span <= 0) {
+            return;
+        }
+        GanttRenderEvent event = new GanttRenderEvent();
+        event.begin();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        int chartY = (height - BLOCK_HEIGHT) / 2 - 10;
+        int maxTime = timeline.end(count - 1);
+        double scale = (double) (width - 2 * MARGIN) / span;
+
+        int timelineY = chartY + BLOCK_HEIGHT + 15;
+        if (count > width - 2 * MARGIN) {
+            paintColumns(g2, timeline, colors, MARGIN, chartY, BLOCK_HEIGHT, Math.min(span, maxTime), scale);
+            paintAxis(g2, MARGIN, width - MARGIN, timelineY, span, scale);
+            event.blocks = count;
+            event.width = width;
+            event.height = height;
+            event.commit();
+            return;
+        }
+
+        g2.setFont(LABEL_FONT);
+        FontMetrics fm = g2.getFontMetrics();
+        for (int i = 0; i < count; i++) {
+            int p = timeline.process(i);
+            int x = MARGIN + (int) (timeline.start(i) * scale);
+            int blockWidth = (int) ((timeline.end(i) - timeline.start(i)) * scale);
+
+            g2.setColor(SHADOW);
+            g2.fillRoundRect(x + 2, chartY + 2, blockWidth, BLOCK_HEIGHT, 10, 10);
+
+            g2.setColor(colors[p]);
+            g2.fillRoundRect(x, chartY, blockWidth, BLOCK_HEIGHT, 10, 10);
+
+            g2.setColor(colors[p].darker());
+            g2.setStroke(BORDER_STROKE);
+            g2.drawRoundRect(x, chartY, blockWidth, BLOCK_HEIGHT, 10, 10);
+
+            g2.setColor(Color.BLACK);
+            int textX = x + (blockWidth - fm.stringWidth(labels[p])) / 2;
+            int textY = chartY + (BLOCK_HEIGHT + fm.getHeight()) / 2 - 2;
+            g2.drawString(labels[p], textX, textY);
+        }
+
+        g2.setColor(Color.DARK_GRAY);
+        g2.setStroke(AXIS_STROKE);
+        g2.drawLine(MARGIN, timelineY, width - MARGIN, timelineY);
+
+        g2.setFont(TIME_FONT);
+        for (int i = 0; i < count; i++) {
+            int x = MARGIN + (int) (timeline.start(i) * scale);
+            g2.drawLine(x, timelineY - 5, x, timelineY + 5);
+            g2.drawString(String.valueOf(timeline.start(i)), x - 5, timelineY + 20);
+        }
+
+        int finalX = MARGIN + (int) (maxTime * scale);
+        g2.drawLine(finalX, timelineY - 5, finalX, timelineY + 5);
+        g2.drawString(String.valueOf(maxTime), finalX - 5, timelineY + 20);
+
+        event.blocks = count;
+        event.width = width;
+        event.height = height;
+        event.commit();
+    }
+
+    // Row height that fits lanes rows into height, between 2 pixels and BLOCK_HEIGHT.
+    static int laneHeight(int height, int lanes) {
+        return Math.max(2, Math.min(BLOCK_HEIGHT, (height - 2 * MARGIN - AXIS_HEIGHT) / Math.max(1, lanes)));
+    }
+
+    // One row per lane (a CPU) over a shared axis of span time units. Rows shrink with the
+    // number of lanes; blocks lose their shadow, border and label once they get too small
+    // to show them, and the axis is ticked at round intervals instead of at every block.
+    static void paintLanes(Graphics2D g2, int width, int height, Timeline[] lanes, String[] laneNames,
+            String[] labels, Color[] colors, int span) {
+        if (lanes.length == 0 || span <= 0) {
+            return;
+        }
+        GanttRenderEvent event = new GanttRenderEvent();
+        event.begin();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        int row = laneHeight(height, lanes.length);
+        int block = row > 8 ? row - 4 : row;
+        int left = MARGIN + LANE_LABEL_WIDTH;
+        double scale = (double) (width - left - MARGIN) / span;
+        int blocks = 0;
+
+        g2.setFont(row >= 24 ? LABEL_FONT : TIME_FONT);
+        FontMetrics fm = g2.getFontMetrics();
+        for (int lane = 0; lane < lanes.length; lane++) {
+            Timeline timeline = lanes[lane];
+            int y = MARGIN + lane * row;
+            if (row >= fm.getHeight()) {
+                g2.setColor(Color.DARK_GRAY);
+                g2.drawString(laneNames[lane], MARGIN, y + (block + fm.getAscent()) / 2 - 1);
+            }
+            if (timeline.size() > width - left - MARGIN) {
+                paintColumns(g2, timeline, colors, left, y, block, span, scale);
+                blocks += timeline.size();
+                continue;
+            }
+            for (int i = 0; i < timeline.size(); i++) {
+                int p = timeline.process(i);
+                int x = left + (int) (timeline.start(i) * scale);
+                int blockWidth = Math.max(1, (int) ((timeline.end(i) - timeline.start(i)) * scale));
+                if (block >= 20) {
+                    g2.setColor(SHADOW);
+                    g2.fillRoundRect(x + 2, y + 2, blockWidth, block, 10, 10);
+                    g2.setColor(colors[p]);
+                    g2.fillRoundRect(x, y, blockWidth, block, 10, 10);
+                    g2.setColor(colors[p].darker());
+                    g2.setStroke(BORDER_STROKE);
+                    g2.drawRoundRect(x, y, blockWidth, block, 10, 10);
+                } else {
+                    g2.setColor(colors[p]);
+                    g2.fillRect(x, y, blockWidth, block);
+                }
+                int labelWidth = fm.stringWidth(labels[p]);
+                if (block >= fm.getHeight() && labelWidth + 4 <= blockWidth) {
+                    g2.setColor(Color.BLACK);
+                    g2.drawString(labels[p], x + (blockWidth - labelWidth) / 2, y + (block + fm.getAscent()) / 2 - 1);
+                }
+            }
+            blocks += timeline.size();
+        }
+
+        paintAxis(g2, left, width - MARGIN, MARGIN + lanes.length * row + 15, span, scale);
+
+        event.blocks = blocks;
+        event.width = width;
+        event.height = height;
+        event.commit();
+    }
+
+    // One pixel column per step of 1 / scale time units, coloured by the segment running at
+    // the start of the step; idle steps stay blank. Costs a seek per column.
+    private static void paintColumns(Graphics2D g2, Timeline timeline, Color[] colors, int left, int y, int height,
+            int span, double scale) {
+        int count = timeline.size();
+        int columns = (int) Math.ceil(span * scale);
+        for (int column = 0; column < columns; column++) {
+            int time = (int) (column / scale);
+            int i = timeline.seek(time);
+            if (i < count && timeline.start(i) <= time) {
+                g2.setColor(colors[timeline.process(i)]);
+                g2.fillRect(left + column, y, 1, height);
+            }
+        }
+    }
+
+    static void paintAxis(Graphics2D g2, int left, int right, int axisY, int span, double scale) {
+        paintAxis(g2, left, right, axisY, 0, span, scale);
+    }
+
+    // Axis for the time window from .. to, with from at left.
+    static void paintAxis(Graphics2D g2, int left, int right, int axisY, long from, long to, double scale) {
+        g2.setColor(Color.DARK_GRAY);
+        g2.setStroke(AXIS_STROKE);
+        g2.setFont(TIME_FONT);
+        g2.drawLine(left, axisY, right, axisY);
+        long step = tickStep(to - from);
+        for (long t = (from + step - 1) / step * step; t <= to; t += step) {
+            int x = left + (int) ((t - from) * scale);
+            g2.drawLine(x, axisY - 5, x, axisY + 5);
+            g2.drawString(String.valueOf(t), x - 5, axisY + 20);
+        }
+    }
+
+    // About ten ticks over span at 1, 2 or 5 times a power of ten.
+    static long tickStep(long span) {
+        long step = 1;
+        while (span / step > 10) {
+            if (span / (step * 2) <= 10) {
+                step *= 2;
+            } else if (span / (step * 5) <= 10) {
+                step *= 5;
+            } else {
+                step *= 10;
+            }
+        }
+        return step;
+    }
+}
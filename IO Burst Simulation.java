@@ -0,0 +1,512 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Processes that alternate CPU bursts with I/O on a set of devices.
+//
+// Usage: java IoSimulation [processes=1000000] [bursts=5] [cpu-mean=4] [io-mean=10]
+//        [devices=4] [load=0.8] [policy=fcfs|sjf|rr|all] [quantum=4] [seed=42]
+//
+// bursts is the mean number of CPU bursts per process; the I/O bursts between them go to
+// uniformly chosen devices. load sets the arrival rate as a share of the CPU's capacity.
+
+// Process i runs bursts offset[i] .. offset[i + 1] - 1 in order, starting and ending with a
+// CPU burst: even positions (relative to offset[i]) are CPU bursts, odd positions are I/O
+// bursts served by device[burst].
+final class BurstWorkload {
+    final int[] arrival;
+    final int[] offset;
+    final int[] length;
+    final int[] device;
+    final int devices;
+
+    BurstWorkload(int[] arrival, int[] offset, int[] length, int[] device, int devices) {
+        int n = arrival.length;
+        if (offset.length != n + 1 || offset[0] != 0 || offset[n] != length.length || device.length != length.length) {
+            throw new IllegalArgumentException("Burst offsets do not match the burst columns!");
+        }
+        if (devices <= 0) {
+            throw new IllegalArgumentException("Number of devices must be > 0!");
+        }
+        for (int i = 0; i < n; i++) {
+            int count = offset[i + 1] - offset[i];
+            if (arrival[i] < 0 || count <= 0 || count % 2 == 0) {
+                throw new IllegalArgumentException("Process " + (i + 1)
+                        + " needs an arrival >= 0 and CPU bursts around its I/O bursts!");
+            }
+            for (int b = offset[i]; b < offset[i + 1]; b++) {
+                if (length[b] <= 0 || ((b - offset[i]) % 2 == 1 && (device[b] < 0 || device[b] >= devices))) {
+                    throw new IllegalArgumentException("Process " + (i + 1)
+                            + " needs bursts > 0 and I/O on devices 0.." + (devices - 1) + "!");
+                }
+            }
+        }
+        this.arrival = arrival;
+        this.offset = offset;
+        this.length = length;
+        this.device = device;
+        this.devices = devices;
+    }
+
+    private volatile int[] arrivalOrder;
+
+    int size() {
+        return arrival.length;
+    }
+
+    // Process indices by arrival time, ties in index order. Computed once.
+    int[] arrivalOrder() {
+        int[] order = arrivalOrder;
+        if (order == null) {
+            int n = arrival.length;
+            long[] keys = new long[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = (long) arrival[i] << 32 | i;
+            }
+            Arrays.sort(keys);
+            order = new int[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = (int) keys[i];
+            }
+            arrivalOrder = order;
+        }
+        return order;
+    }
+
+    // Poisson arrivals; a geometric number of CPU bursts with the given mean, exponential
+    // burst lengths of at least one time unit.
+    static BurstWorkload random(int processes, double meanCpuBursts, double cpuMean, double ioMean, int devices,
+            double load, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] arrival = new int[processes];
+        int[] offset = new int[processes + 1];
+        int[] length = new int[Math.max(16, (int) (processes * (2 * meanCpuBursts - 1) * 1.1))];
+        int[] device = new int[length.length];
+        double meanGap = meanCpuBursts * cpuMean / load;
+        double clock = 0;
+        int b = 0;
+        for (int i = 0; i < processes; i++) {
+            arrival[i] = (int) clock;
+            clock += exponential(random, meanGap);
+            int cpuBursts = 1;
+            while (random.nextDouble() >= 1 / meanCpuBursts) {
+                cpuBursts++;
+            }
+            if (b + 2 * cpuBursts > length.length) {
+                length = Arrays.copyOf(length, (b + 2 * cpuBursts) * 3 / 2);
+                device = Arrays.copyOf(device, length.length);
+            }
+            for (int k = 0; k < 2 * cpuBursts - 1; k++, b++) {
+                boolean io = k % 2 == 1;
+                length[b] = Math.max(1, (int) Math.round(exponential(random, io ? ioMean : cpuMean)));
+                device[b] = io ? random.nextInt(devices) : 0;
+            }
+            offset[i + 1] = b;
+        }
+        return new BurstWorkload(arrival, offset, Arrays.copyOf(length, b), Arrays.copyOf(device, b), devices);
+    }
+
+    private static double exponential(SplittableRandom random, double mean) {
+        return -Math.log(1 - random.nextDouble()) * mean;
+    }
+}
+
+// Hierarchical timing wheel (Varghese and Lauck) for ids 0 .. capacity - 1, each pending at
+// most once. Four levels of 256 slots cover times up to 2^32; an entry sits at the level of
+// the highest byte in which its time differs from the wheel's current time, and moves down
+// a level when time reaches its slot, so it is touched at most four times in all. Slots are
+// intrusive FIFO lists over one next[] array, and a 256-bit occupancy map per level finds
+// the next busy slot with a few bit scans, so idle stretches are skipped rather than ticked.
+final class TimingWheel {
+    private static final int LEVELS = 4;
+    private static final int BITS = 8;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    static final long MAX_TIME = (1L << (LEVELS * BITS)) - 1;
+
+    private final long[] time;
+    private final int[] next;
+    private final int[] head = new int[LEVELS * SLOTS];
+    private final int[] tail = new int[LEVELS * SLOTS];
+    private final long[] occupied = new long[LEVELS * SLOTS / 64];
+    private long now;
+    private int size;
+
+    TimingWheel(int capacity) {
+        time = new long[capacity];
+        next = new int[capacity];
+        Arrays.fill(head, -1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    long now() {
+        return now;
+    }
+
+    // Adds id to expire at the given time, which must not be in the past.
+    void schedule(int id, long at) {
+        if (at < now || at > MAX_TIME) {
+            throw new IllegalArgumentException("Event time " + at + " is outside " + now + ".." + MAX_TIME + "!");
+        }
+        time[id] = at;
+        insert(id);
+        size++;
+    }
+
+    // Moves time to the earliest scheduled time and returns it. Call only when not empty;
+    // then poll() the ids due at that time.
+    long advance() {
+        while (true) {
+            int slot = nextSlot(0, (int) (now & MASK));
+            if (slot >= 0) {
+                now = (now & ~MASK) | slot;
+                return now;
+            }
+            // Nothing left in this turn of level 0: open the next busy slot further up
+            for (int level = 1; ; level++) {
+                if (level == LEVELS) {
+                    throw new IllegalStateException("Timing wheel is empty!");
+                }
+                int shift = level * BITS;
+                int current = (int) ((now >>> shift) & MASK);
+                slot = current == MASK ? -1 : nextSlot(level, current + 1);
+                if (slot >= 0) {
+                    now = (now >>> (shift + BITS) << (shift + BITS)) | ((long) slot << shift);
+                    cascade(level * SLOTS + slot);
+                    break;
+                }
+            }
+        }
+    }
+
+    // Next id due now, or -1 once there are none.
+    int poll() {
+        int index = (int) (now & MASK);
+        int id = head[index];
+        if (id < 0) {
+            return -1;
+        }
+        head[index] = next[id];
+        if (head[index] < 0) {
+            occupied[index >>> 6] &= ~(1L << index);
+        }
+        size--;
+        return id;
+    }
+
+    private void insert(int id) {
+        long diff = time[id] ^ now;
+        int level = diff == 0 ? 0 : (63 - Long.numberOfLeadingZeros(diff)) / BITS;
+        int index = level * SLOTS + (int) ((time[id] >>> (level * BITS)) & MASK);
+        next[id] = -1;
+        if (head[index] < 0) {
+            head[index] = id;
+            occupied[index >>> 6] |= 1L << index;
+        } else {
+            next[tail[index]] = id;
+        }
+        tail[index] = id;
+    }
+
+    private void cascade(int index) {
+        int id = head[index];
+        head[index] = -1;
+        occupied[index >>> 6] &= ~(1L << index);
+        while (id >= 0) {
+            int following = next[id];
+            insert(id);
+            id = following;
+        }
+    }
+
+    // First occupied slot >= from at this level, or -1.
+    private int nextSlot(int level, int from) {
+        int base = level * SLOTS;
+        for (int i = base + from, end = base + SLOTS; i < end; i = (i | 63) + 1) {
+            long word = occupied[i >>> 6] & (-1L << i);
+            if (word != 0) {
+                return (i & ~63) + Long.numberOfTrailingZeros(word) - base;
+            }
+        }
+        return -1;
+    }
+}
+
+final class IoResult {
+    final BurstWorkload workload;
+    final int[] completion;
+    // Time spent in the ready queue and in device queues, per process
+    final long[] readyWait;
+    final long[] deviceWait;
+    final long[] deviceBusy;
+    long cpuBusy;
+    long ioBusy;
+    long overlap;
+    long events;
+    int makespan;
+    RunCost cost;
+
+    IoResult(BurstWorkload workload) {
+        int n = workload.size();
+        this.workload = workload;
+        completion = new int[n];
+        readyWait = new long[n];
+        deviceWait = new long[n];
+        deviceBusy = new long[workload.devices];
+    }
+
+    double averageTurnaround() {
+        double total = 0;
+        for (int i = 0; i < completion.length; i++) {
+            total += completion[i] - workload.arrival[i];
+        }
+        return completion.length == 0 ? 0 : total / completion.length;
+    }
+
+    double averageReadyWait() {
+        return average(readyWait);
+    }
+
+    double averageDeviceWait() {
+        return average(deviceWait);
+    }
+
+    // Share of the run the CPU was busy.
+    double cpuUtilisation() {
+        return makespan == 0 ? 0 : (double) cpuBusy / makespan;
+    }
+
+    // Share of the run with at least one device busy and of that with the CPU busy too.
+    double ioUtilisation() {
+        return makespan == 0 ? 0 : (double) ioBusy / makespan;
+    }
+
+    double overlap() {
+        return ioBusy == 0 ? 0 : (double) overlap / ioBusy;
+    }
+
+    private double average(long[] values) {
+        double total = 0;
+        for (long v : values) {
+            total += v;
+        }
+        return values.length == 0 ? 0 : total / values.length;
+    }
+}
+
+// One CPU scheduled FCFS, SJF (by the length of the next CPU burst, no preemption) or round
+// robin, with FCFS device queues. A process that finishes an I/O burst goes back to the
+// ready queue of the active policy. Arrivals, slice ends and I/O completions all go through
+// one TimingWheel keyed by process, since a process has at most one pending event; the
+// arrivals are fed in one at a time from the arrival order.
+final class IoEngine {
+    enum Policy { FCFS, SJF, RR }
+
+    // Process states; a process that has not arrived yet is still 0
+    private static final byte READY = 1, RUNNING = 2, IO = 3;
+
+    private final Policy policy;
+    private final int quantum;
+
+    IoEngine(Policy policy, int quantum) {
+        if (policy == Policy.RR && quantum <= 0) {
+            throw new IllegalArgumentException("Time quantum must be > 0!");
+        }
+        this.policy = policy;
+        this.quantum = quantum;
+    }
+
+    String name() {
+        return policy == Policy.RR ? "RR (q=" + quantum + ")" : policy.toString();
+    }
+
+    IoResult run(BurstWorkload workload) {
+        return run(workload, null, null);
+    }
+
+    // cpu and devices (one per device) record the slices when not null.
+    IoResult run(BurstWorkload workload, Timeline cpu, Timeline[] devices) {
+        RunCost.Meter meter = RunCost.start();
+        int n = workload.size();
+        int[] offset = workload.offset;
+        int[] length = workload.length;
+        int[] device = workload.device;
+        IoResult result = new IoResult(workload);
+        TimingWheel wheel = new TimingWheel(n);
+        byte[] state = new byte[n];
+        int[] position = new int[n];
+        int[] remaining = new int[n];
+        // When the process joined its current queue
+        int[] queued = new int[n];
+        IntRing ring = policy == Policy.SJF ? null : new IntRing(1024);
+        IntHeap heap = policy == Policy.SJF ? new IntHeap(1024) : null;
+        IntRing[] deviceQueue = new IntRing[workload.devices];
+        boolean[] deviceBusy = new boolean[workload.devices];
+        for (int d = 0; d < deviceQueue.length; d++) {
+            deviceQueue[d] = new IntRing(64);
+        }
+        // Only the next arrival is in the wheel, so it holds at most devices + 2 entries
+        int[] order = workload.arrivalOrder();
+        int next = 0;
+        if (n > 0) {
+            wheel.schedule(order[next++], workload.arrival[order[0]]);
+        }
+
+        int running = -1;
+        int busyDevices = 0;
+        long last = 0;
+        long events = 0;
+        while (!wheel.isEmpty()) {
+            int time = (int) wheel.advance();
+            long span = time - last;
+            if (running >= 0) {
+                result.cpuBusy += span;
+            }
+            if (busyDevices > 0) {
+                result.ioBusy += span;
+                if (running >= 0) {
+                    result.overlap += span;
+                }
+            }
+            last = time;
+
+            int p;
+            while ((p = wheel.poll()) >= 0) {
+                events++;
+                if (state[p] == RUNNING) {
+                    // Slice end
+                    running = -1;
+                    if (remaining[p] > 0) {
+                        state[p] = READY;
+                        queued[p] = time;
+                        ring.add(p);
+                        continue;
+                    }
+                    if (++position[p] == offset[p + 1]) {
+                        result.completion[p] = time;
+                        continue;
+                    }
+                    state[p] = IO;
+                    int d = device[position[p]];
+                    if (deviceBusy[d]) {
+                        queued[p] = time;
+                        deviceQueue[d].add(p);
+                    } else {
+                        deviceBusy[d] = true;
+                        busyDevices++;
+                        startIo(p, d, time, length, position, wheel, result, devices);
+                    }
+                } else {
+                    if (state[p] == IO) {
+                        // I/O completion: the device takes its next request
+                        int d = device[position[p]];
+                        if (deviceQueue[d].isEmpty()) {
+                            deviceBusy[d] = false;
+                            busyDevices--;
+                        } else {
+                            int q = deviceQueue[d].poll();
+                            result.deviceWait[q] += time - queued[q];
+                            startIo(q, d, time, length, position, wheel, result, devices);
+                        }
+                        remaining[p] = length[++position[p]];
+                    } else {
+                        // Arrival
+                        position[p] = offset[p];
+                        remaining[p] = length[offset[p]];
+                        if (next < n) {
+                            wheel.schedule(order[next], workload.arrival[order[next]]);
+                            next++;
+                        }
+                    }
+                    state[p] = READY;
+                    queued[p] = time;
+                    if (ring != null) {
+                        ring.add(p);
+                    } else {
+                        heap.push(p, remaining[p]);
+                    }
+                }
+            }
+
+            if (running < 0 && (ring != null ? !ring.isEmpty() : !heap.isEmpty())) {
+                running = ring != null ? ring.poll() : heap.pop();
+                int slice = policy == Policy.RR ? Math.min(quantum, remaining[running]) : remaining[running];
+                remaining[running] -= slice;
+                state[running] = RUNNING;
+                result.readyWait[running] += time - queued[running];
+                wheel.schedule(running, time + slice);
+                if (cpu != null) {
+                    cpu.add(running, time, time + slice);
+                }
+            }
+        }
+        result.makespan = (int) last;
+        result.events = events;
+        result.cost = meter.stop();
+        return result;
+    }
+
+    private static void startIo(int p, int d, int time, int[] length, int[] position, TimingWheel wheel,
+            IoResult result, Timeline[] devices) {
+        int service = length[position[p]];
+        result.deviceBusy[d] += service;
+        wheel.schedule(p, time + service);
+        if (devices != null) {
+            devices[d].add(p, time, time + service);
+        }
+    }
+}
+
+class IoSimulation {
+    public static void main(String[] args) {
+        int processes = 1_000_000, devices = 4, quantum = 4;
+        double bursts = 5, cpuMean = 4, ioMean = 10, load = 0.8;
+        String policy = "all";
+        long seed = 42;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "processes": processes = Integer.parseInt(value); break;
+                case "bursts": bursts = Double.parseDouble(value); break;
+                case "cpu-mean": cpuMean = Double.parseDouble(value); break;
+                case "io-mean": ioMean = Double.parseDouble(value); break;
+                case "devices": devices = Integer.parseInt(value); break;
+                case "load": load = Double.parseDouble(value); break;
+                case "policy": policy = value.toLowerCase(); break;
+                case "quantum": quantum = Integer.parseInt(value); break;
+                case "seed": seed = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        if (processes <= 0 || bursts < 1 || cpuMean <= 0 || ioMean <= 0 || load <= 0) {
+            throw new IllegalArgumentException("processes, cpu-mean, io-mean and load must be > 0 and bursts >= 1!");
+        }
+        IoEngine.Policy[] policies = policy.equals("all") ? IoEngine.Policy.values()
+                : new IoEngine.Policy[]{IoEngine.Policy.valueOf(policy.toUpperCase())};
+
+        BurstWorkload workload = BurstWorkload.random(processes, bursts, cpuMean, ioMean, devices, load, seed);
+        System.out.printf("%d processes, %d bursts on %d devices%n", processes, workload.length.length, devices);
+        System.out.printf("%-10s%12s%12s%12s%10s%10s%10s%16s%n",
+                "Policy", "Avg TAT", "Ready wait", "Device wait", "CPU", "I/O", "Overlap", "Events/s");
+        for (IoEngine.Policy p : policies) {
+            IoEngine engine = new IoEngine(p, quantum);
+            IoResult result = engine.run(workload);
+            System.out.printf("%-10s%12.2f%12.2f%12.2f%9.1f%%%9.1f%%%9.1f%%%16.0f%n", engine.name(),
+                    result.averageTurnaround(), result.averageReadyWait(), result.averageDeviceWait(),
+                    100 * result.cpuUtilisation(), 100 * result.ioUtilisation(), 100 * result.overlap(),
+                    result.events / (result.cost.wallNanos / 1e9));
+            System.out.println("          Run cost: " + result.cost);
+        }
+    }
+}
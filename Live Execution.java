@@ -0,0 +1,710 @@
+import javax.swing.*;
+import javax.swing.border.*;
+import javax.swing.table.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Bounded single-producer single-consumer ring of timeline segments. Each side owns one
+// counter and publishes it with a release store; the other side reads it with an acquire
+// load, and only when its cached copy says the ring is full or empty. No locks, and no
+// allocation per segment.
+final class SegmentRing {
+    private final int mask;
+    private final int[] process;
+    private final int[] start;
+    private final int[] end;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    // Producer side
+    private long cachedHead;
+    // Consumer side
+    private long cachedTail;
+    private volatile boolean closed;
+
+    SegmentRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = size - 1;
+        process = new int[size];
+        start = new int[size];
+        end = new int[size];
+    }
+
+    // Producer: false when the ring is full.
+    boolean offer(int p, int from, int to) {
+        long t = tail.get();
+        if (t - cachedHead > mask) {
+            cachedHead = head.getAcquire();
+            if (t - cachedHead > mask) {
+                return false;
+            }
+        }
+        int i = (int) t & mask;
+        process[i] = p;
+        start[i] = from;
+        end[i] = to;
+        tail.setRelease(t + 1);
+        return true;
+    }
+
+    // Producer: no more segments after this.
+    void close() {
+        closed = true;
+    }
+
+    // Consumer: true if a segment is waiting.
+    boolean available() {
+        long h = head.get();
+        if (h == cachedTail) {
+            cachedTail = tail.getAcquire();
+        }
+        return h != cachedTail;
+    }
+
+    // Consumer: the waiting segment; only after available() returned true.
+    int peekProcess() {
+        return process[(int) head.get() & mask];
+    }
+
+    int peekStart() {
+        return start[(int) head.get() & mask];
+    }
+
+    int peekEnd() {
+        return end[(int) head.get() & mask];
+    }
+
+    void skip() {
+        head.setRelease(head.get() + 1);
+    }
+
+    // Consumer: closed and drained. Checks closed first, so segments offered before
+    // close() are never missed.
+    boolean finished() {
+        return closed && !available();
+    }
+}
+
+// The consumer side of a live run: the segments that have started by the current
+// simulated time, the one running now, and the ready processes, all kept incrementally
+// as time advances. Runs on one thread, the EDT in the frame.
+final class LivePlayback {
+    final Workload workload;
+    final int span;
+    final Timeline shown;
+    private final SegmentRing ring;
+    private final int[] order;
+    private final int[] rank;
+    private final int[] remaining;
+    // Arrived, unfinished processes over arrival ranks; rank n is the list head
+    private final int[] next;
+    private final int[] prev;
+    private int joined;
+    private int active;
+    private int now;
+    // Index in shown of the segment on the CPU, or -1
+    private int current = -1;
+    private boolean behind;
+
+    LivePlayback(Workload workload, SegmentRing ring) {
+        this.workload = workload;
+        this.ring = ring;
+        span = makespan(workload);
+        shown = new Timeline(workload.size());
+        order = workload.arrivalOrder();
+        int n = order.length;
+        rank = new int[n];
+        for (int r = 0; r < n; r++) {
+            rank[order[r]] = r;
+        }
+        remaining = workload.burst.clone();
+        next = new int[n + 1];
+        prev = new int[n + 1];
+        next[n] = n;
+        prev[n] = n;
+    }
+
+    // Every engine behind the frames keeps the CPU busy while anything is ready, so the
+    // schedule ends where FCFS would end it. Lets the chart fix its scale before the run.
+    static int makespan(Workload workload) {
+        long time = 0;
+        for (int p : workload.arrivalOrder()) {
+            time = Math.max(time, workload.arrival[p]) + workload.burst[p];
+        }
+        if (time > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Schedule does not fit in an int!");
+        }
+        return (int) time;
+    }
+
+    // Takes every segment that has started by time off the ring. When the producer has not
+    // delivered that far yet it stops early, and behind() says so.
+    void advance(int time) {
+        behind = false;
+        while (true) {
+            if (current >= 0) {
+                int end = shown.end(current);
+                if (end > time) {
+                    now = time;
+                    break;
+                }
+                finish(current);
+                current = -1;
+                now = end;
+            }
+            if (!ring.available()) {
+                if (ring.finished()) {
+                    now = Math.max(now, Math.min(time, span));
+                } else {
+                    behind = true;
+                }
+                break;
+            }
+            int start = ring.peekStart();
+            if (start > time) {
+                now = time;
+                break;
+            }
+            join(start);
+            shown.add(ring.peekProcess(), start, ring.peekEnd());
+            ring.skip();
+            current = shown.size() - 1;
+        }
+        join(now);
+    }
+
+    private void join(int time) {
+        int n = order.length;
+        while (joined < n && workload.arrival[order[joined]] <= time) {
+            next[joined] = n;
+            prev[joined] = prev[n];
+            next[prev[n]] = joined;
+            prev[n] = joined;
+            joined++;
+            active++;
+        }
+    }
+
+    private void finish(int segment) {
+        int p = shown.process(segment);
+        remaining[p] -= shown.end(segment) - shown.start(segment);
+        if (remaining[p] == 0) {
+            int r = rank[p];
+            next[prev[r]] = next[r];
+            prev[next[r]] = prev[r];
+            active--;
+        }
+    }
+
+    int now() {
+        return now;
+    }
+
+    int current() {
+        return current;
+    }
+
+    boolean behind() {
+        return behind;
+    }
+
+    boolean done() {
+        return current < 0 && ring.finished() && now >= span;
+    }
+
+    int running() {
+        return current >= 0 ? shown.process(current) : -1;
+    }
+
+    int runningRemaining() {
+        return current >= 0 ? remaining[shown.process(current)] - (now - shown.start(current)) : 0;
+    }
+
+    int readyCount() {
+        return active - (current >= 0 ? 1 : 0);
+    }
+
+    // The first ready processes in arrival order, up to ids.length; returns how many.
+    int ready(int[] ids, int[] left) {
+        int n = order.length;
+        int running = running();
+        int k = 0;
+        for (int r = next[n]; r != n && k < ids.length; r = next[r]) {
+            int p = order[r];
+            if (p != running) {
+                ids[k] = p;
+                left[k] = remaining[p];
+                k++;
+            }
+        }
+        return k;
+    }
+}
+
+// Paints the part of a live chart inside the clip: the segments that have started, cut
+// off at the current time, the running one outlined, and a fixed axis. The scale comes
+// from the precomputed span, so earlier pixels never move and each frame only has to
+// paint what was added.
+final class LivePainter {
+    static final int BLOCK_TOP = GanttPainter.MARGIN;
+    static final int BLOCK_HEIGHT = GanttPainter.BLOCK_HEIGHT;
+    static final int AXIS_Y = BLOCK_TOP + BLOCK_HEIGHT + 15;
+    private static final Color HIGHLIGHT = new Color(220, 20, 60);
+    private static final BasicStroke HIGHLIGHT_STROKE = new BasicStroke(3);
+
+    private LivePainter() {
+    }
+
+    static double scale(int width, int span) {
+        return (double) (width - 2 * GanttPainter.MARGIN) / Math.max(span, 1);
+    }
+
+    static int x(int time, double scale) {
+        return GanttPainter.MARGIN + (int) (time * scale);
+    }
+
+    static void paint(Graphics2D g2, int width, int height, LivePlayback playback, String[] labels, Color[] colors) {
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, width, height);
+        }
+        g2.setColor(Color.WHITE);
+        g2.fillRect(clip.x, clip.y, clip.width, clip.height);
+        double scale = scale(width, playback.span);
+        int now = playback.now();
+        Timeline shown = playback.shown;
+        int count = shown.size();
+        int from = Math.max(0, (int) ((clip.x - GanttPainter.MARGIN) / scale) - 1);
+        int to = (int) Math.ceil((clip.x + clip.width - GanttPainter.MARGIN) / scale) + 1;
+
+        if (scale < 1) {
+            // Several time units to a pixel: a column per pixel, as GanttPainter does. Each
+            // column only depends on its own time, so a strip comes out as a full paint would.
+            for (int px = Math.max(clip.x, GanttPainter.MARGIN); px < clip.x + clip.width; px++) {
+                int time = (int) ((px - GanttPainter.MARGIN) / scale);
+                if (time >= now) {
+                    break;
+                }
+                int i = shown.seek(time);
+                if (i < count && shown.start(i) <= time) {
+                    g2.setColor(colors[shown.process(i)]);
+                    g2.fillRect(px, BLOCK_TOP, 1, BLOCK_HEIGHT);
+                }
+            }
+        } else {
+            g2.setFont(GanttPainter.LABEL_FONT);
+            FontMetrics fm = g2.getFontMetrics();
+            for (int i = shown.seek(from); i < count && shown.start(i) <= to; i++) {
+                int p = shown.process(i);
+                int x = x(shown.start(i), scale);
+                int end = shown.end(i);
+                int w = x(Math.min(end, now), scale) - x;
+                g2.setColor(colors[p]);
+                g2.fillRect(x, BLOCK_TOP, w, BLOCK_HEIGHT);
+                // Only finished segments are labelled; the running one is still growing
+                int labelWidth = fm.stringWidth(labels[p]);
+                if (end <= now && labelWidth + 4 <= w) {
+                    g2.setColor(Color.BLACK);
+                    g2.drawString(labels[p], x + (w - labelWidth) / 2, BLOCK_TOP + (BLOCK_HEIGHT + fm.getAscent()) / 2 - 2);
+                }
+            }
+        }
+        int current = playback.current();
+        if (current >= 0) {
+            int x = x(shown.start(current), scale);
+            int w = Math.max(1, x(now, scale) - x);
+            g2.setColor(HIGHLIGHT);
+            g2.setStroke(HIGHLIGHT_STROKE);
+            g2.drawRect(x, BLOCK_TOP - 3, w, BLOCK_HEIGHT + 6);
+        }
+
+        GanttPainter.paintAxis(g2, GanttPainter.MARGIN, width - GanttPainter.MARGIN, AXIS_Y, playback.span, scale);
+    }
+
+    // Left edge of what changed since the frame that ended at before: the newly run
+    // stretch, and the whole of the segment that was running then if its outline has to
+    // come off.
+    static int dirtyFrom(LivePlayback playback, int before, int currentBefore, double scale) {
+        int from = before;
+        if (currentBefore >= 0 && currentBefore != playback.current()) {
+            from = Math.min(from, playback.shown.start(currentBefore));
+        }
+        return x(from, scale) - 4;
+    }
+}
+
+// Runs an engine on a background thread and plays its schedule back at a chosen speed:
+// the Gantt chart grows as simulated time advances, the running process is outlined, and
+// the ready queue is listed beside it. Frames come from a Swing timer; each one drains the
+// segment ring and repaints only the strip that changed.
+class PlayFrame extends JFrame {
+    static final int FRAME_MILLIS = 16;
+    static final int READY_ROWS = 200;
+
+    private final SchedulingEngine engine;
+    private final Workload workload;
+    private final String[] labels;
+    private final Color[] colors;
+    private final SegmentRing ring = new SegmentRing(1 << 16);
+    private final LivePlayback playback;
+    private volatile boolean cancelled;
+    private Timer clock;
+
+    private JSpinner speedSpinner;
+    private JButton pauseButton;
+    private JLabel timeLabel, runningLabel, statusLabel;
+    private LivePanel livePanel;
+    private ReadyModel readyModel;
+
+    private double simulated;
+    private long lastTick;
+    private int frames, lateFrames;
+    private long worstFrameNanos;
+
+    PlayFrame(SchedulingEngine engine, Workload workload) {
+        this.engine = engine;
+        this.workload = workload;
+        setTitle("Play - " + engine.name());
+        setSize(1000, 600);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setLocationRelativeTo(null);
+
+        setContentPane(new JPanel(new BorderLayout(15, 15)) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                Graphics2D g2 = (Graphics2D) g;
+                g2.setPaint(new GradientPaint(0, 0, new Color(240, 248, 255), 0, getHeight(), new Color(230, 240, 250)));
+                g2.fillRect(0, 0, getWidth(), getHeight());
+            }
+        });
+
+        int n = workload.size();
+        labels = new String[n];
+        colors = new Color[n];
+        for (int i = 0; i < n; i++) {
+            labels[i] = workload.name(i);
+            colors[i] = Color.getHSBColor((float) i / n, 0.7f, 0.9f);
+        }
+        playback = new LivePlayback(workload, ring);
+
+        initializeComponents();
+        setupLayout();
+        start();
+    }
+
+    private void initializeComponents() {
+        // Time units per second; by default the whole run takes about ten seconds
+        int speed = Math.max(1, playback.span / 10);
+        speedSpinner = new JSpinner(new SpinnerNumberModel(speed, 1, Integer.MAX_VALUE, Math.max(1, speed / 10)));
+        speedSpinner.setPreferredSize(new Dimension(110, 28));
+        pauseButton = ComparisonFrame.button("Pause", new Color(255, 140, 0));
+        timeLabel = ComparisonFrame.label("T = 0");
+        runningLabel = ComparisonFrame.label("CPU idle");
+        statusLabel = new JLabel(" ");
+        statusLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        statusLabel.setForeground(ComparisonFrame.TEXT);
+        livePanel = new LivePanel();
+        readyModel = new ReadyModel();
+    }
+
+    private void setupLayout() {
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.CENTER, 12, 8));
+        controls.setOpaque(false);
+        controls.setBorder(new CompoundBorder(new LineBorder(ComparisonFrame.ACCENT, 2, true), new EmptyBorder(0, 10, 0, 10)));
+        JLabel titleLabel = new JLabel("▶ Play");
+        titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 18));
+        titleLabel.setForeground(ComparisonFrame.TEXT);
+        controls.add(titleLabel);
+        controls.add(Box.createHorizontalStrut(15));
+        controls.add(ComparisonFrame.label("Speed (time units/s):"));
+        controls.add(speedSpinner);
+        controls.add(pauseButton);
+        controls.add(timeLabel);
+        add(controls, BorderLayout.NORTH);
+
+        JPanel center = new JPanel(new BorderLayout(10, 10));
+        center.setOpaque(false);
+        center.add(ComparisonFrame.titled(new JScrollPane(livePanel), "📅 Gantt Chart"), BorderLayout.NORTH);
+        JTable readyTable = new JTable(readyModel);
+        ComparisonFrame.styleTable(readyTable);
+        JPanel queuePanel = new JPanel(new BorderLayout(5, 5));
+        queuePanel.setOpaque(false);
+        queuePanel.add(runningLabel, BorderLayout.NORTH);
+        queuePanel.add(ComparisonFrame.titled(new JScrollPane(readyTable), "📋 Ready Queue (in arrival order)"),
+                BorderLayout.CENTER);
+        center.add(queuePanel, BorderLayout.CENTER);
+        add(center, BorderLayout.CENTER);
+
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        bottomPanel.setOpaque(false);
+        bottomPanel.setBorder(new EmptyBorder(0, 10, 10, 10));
+        bottomPanel.add(statusLabel, BorderLayout.CENTER);
+        add(bottomPanel, BorderLayout.SOUTH);
+
+        pauseButton.addActionListener(e -> {
+            if (clock.isRunning()) {
+                clock.stop();
+                pauseButton.setText("Resume");
+            } else if (!playback.done()) {
+                lastTick = System.nanoTime();
+                clock.start();
+                pauseButton.setText("Pause");
+            }
+        });
+    }
+
+    private void start() {
+        Thread producer = new Thread(() -> {
+            SchedulerListener listener = new SchedulerListener() {
+                @Override
+                public void dispatched(long process, long start, long end, int ready) {
+                    while (!ring.offer((int) process, (int) start, (int) end)) {
+                        if (cancelled) {
+                            throw new CancellationException();
+                        }
+                        LockSupport.parkNanos(200_000);
+                    }
+                }
+            };
+            try {
+                engine.schedule(workload, new int[workload.size()], null, listener);
+            } catch (CancellationException e) {
+                // Window closed
+            } finally {
+                ring.close();
+            }
+        }, "play-" + engine.name());
+        producer.setDaemon(true);
+        producer.start();
+
+        clock = new Timer(FRAME_MILLIS, e -> tick());
+        clock.setCoalesce(true);
+        lastTick = System.nanoTime();
+        clock.start();
+    }
+
+    @Override
+    public void dispose() {
+        cancelled = true;
+        if (clock != null) {
+            clock.stop();
+        }
+        super.dispose();
+    }
+
+    private void tick() {
+        long started = System.nanoTime();
+        if (started - lastTick > 2_000_000L * FRAME_MILLIS) {
+            lateFrames++;
+        }
+        simulated += (started - lastTick) / 1e9 * ((Number) speedSpinner.getValue()).doubleValue();
+        lastTick = started;
+        int target = (int) Math.min(simulated, playback.span);
+
+        int before = playback.now();
+        int currentBefore = playback.current();
+        playback.advance(target);
+        // Catch up with the producer rather than run ahead of what has been delivered
+        if (playback.behind()) {
+            simulated = playback.now();
+        }
+        double scale = LivePainter.scale(livePanel.getWidth(), playback.span);
+        int from = LivePainter.dirtyFrom(playback, before, currentBefore, scale);
+        int to = LivePainter.x(playback.now(), scale) + 4;
+        livePanel.repaint(from, 0, to - from, LivePainter.BLOCK_TOP + LivePainter.BLOCK_HEIGHT + 5);
+
+        timeLabel.setText("T = " + playback.now());
+        int running = playback.running();
+        runningLabel.setText((running < 0 ? "CPU idle"
+                : "Running: " + labels[running] + " (" + playback.runningRemaining() + " left)")
+                + ", " + playback.readyCount() + " ready");
+        if (frames % 6 == 0 || playback.done()) {
+            showReady();
+        }
+        frames++;
+        worstFrameNanos = Math.max(worstFrameNanos, System.nanoTime() - started);
+        statusLabel.setText(String.format("%,d dispatches shown, %d frames, %d late, slowest frame %s",
+                playback.shown.size(), frames, lateFrames, RunCost.formatNanos(worstFrameNanos)));
+        if (playback.done()) {
+            clock.stop();
+            pauseButton.setEnabled(false);
+            livePanel.repaint();
+        }
+    }
+
+    // The ready queue changes every frame at speed, so the table follows ten times a second,
+    // and lists the first READY_ROWS processes only.
+    private void showReady() {
+        readyModel.rows = playback.ready(readyModel.ids, readyModel.left);
+        readyModel.fireTableDataChanged();
+    }
+
+    private class ReadyModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Process", "AT", "BT", "Remaining"};
+        private final int[] ids = new int[READY_ROWS];
+        private final int[] left = new int[READY_ROWS];
+        private int rows;
+
+        @Override
+        public int getRowCount() {
+            return rows;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            int p = ids[row];
+            switch (column) {
+                case 0: return labels[p];
+                case 1: return workload.arrival[p];
+                case 2: return workload.burst[p];
+                default: return left[row];
+            }
+        }
+    }
+
+    private class LivePanel extends JPanel {
+        LivePanel() {
+            setBackground(Color.WHITE);
+            setPreferredSize(new Dimension(700, LivePainter.BLOCK_TOP + LivePainter.BLOCK_HEIGHT + 60));
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            LivePainter.paint(g2, getWidth(), getHeight(), playback, labels, colors);
+            g2.dispose();
+        }
+    }
+}
+
+// Drives a live playback without a screen: an engine thread fills the ring while a 60 Hz
+// frame loop advances the clock and paints each dirty strip into an offscreen image,
+// reporting how long the frames took.
+//
+// Usage: java LiveSimulation [processes=200000] [quantum=2] [rate=100000] [seconds=10]
+//        [seed=42]
+class LiveSimulation {
+    public static void main(String[] args) throws InterruptedException {
+        int processes = 200_000, quantum = 2, rate = 100_000, seconds = 10;
+        long seed = 42;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "processes": processes = Integer.parseInt(value); break;
+                case "quantum": quantum = Integer.parseInt(value); break;
+                case "rate": rate = Integer.parseInt(value); break;
+                case "seconds": seconds = Integer.parseInt(value); break;
+                case "seed": seed = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        if (processes <= 0 || rate <= 0 || seconds <= 0) {
+            throw new IllegalArgumentException("processes, rate and seconds must be > 0!");
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] at = new int[processes];
+        int[] bt = new int[processes];
+        for (int i = 0; i < processes; i++) {
+            bt[i] = 1 + random.nextInt(2 * quantum * 4);
+            at[i] = random.nextInt(processes * quantum * 4);
+        }
+        Workload workload = new Workload(at, bt);
+        SchedulingEngine engine = new RoundRobinEngine(quantum);
+        // Simulated time units per second for the requested dispatch rate
+        int segments = engine.run(workload).timeline.size();
+        double speed = (double) rate * LivePlayback.makespan(workload) / segments;
+
+        SegmentRing ring = new SegmentRing(1 << 16);
+        LivePlayback playback = new LivePlayback(workload, ring);
+        Thread producer = new Thread(() -> {
+            engine.schedule(workload, new int[workload.size()], null, new SchedulerListener() {
+                @Override
+                public void dispatched(long process, long start, long end, int ready) {
+                    while (!ring.offer((int) process, (int) start, (int) end)) {
+                        LockSupport.parkNanos(200_000);
+                    }
+                }
+            });
+            ring.close();
+        });
+        producer.setDaemon(true);
+        producer.start();
+
+        int width = 1600;
+        int height = 160;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        String[] labels = new String[processes];
+        Color[] colors = new Color[processes];
+        for (int i = 0; i < processes; i++) {
+            labels[i] = workload.name(i);
+            colors[i] = Color.getHSBColor((float) i / processes, 0.7f, 0.9f);
+        }
+        int[] ids = new int[PlayFrame.READY_ROWS];
+        int[] left = new int[PlayFrame.READY_ROWS];
+        double scale = LivePainter.scale(width, playback.span);
+        // The whole chart once, as the window paints it when it opens
+        Graphics2D first = image.createGraphics();
+        LivePainter.paint(first, width, height, playback, labels, colors);
+        first.dispose();
+
+        long frameNanos = 1_000_000_000L / 60;
+        int total = 60 * seconds;
+        long[] busy = new long[total];
+        int late = 0;
+        long startedAt = System.nanoTime();
+        int frame = 0;
+        for (; frame < total && !playback.done(); frame++) {
+            long deadline = startedAt + frame * frameNanos;
+            long wait = deadline - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long t0 = System.nanoTime();
+            int target = (int) Math.min(playback.span, (t0 - startedAt) / 1e9 * speed);
+            int before = playback.now();
+            int currentBefore = playback.current();
+            playback.advance(target);
+            int from = LivePainter.dirtyFrom(playback, before, currentBefore, scale);
+            int to = LivePainter.x(playback.now(), scale) + 4;
+            Graphics2D g2 = image.createGraphics();
+            g2.clipRect(from, 0, to - from, height);
+            LivePainter.paint(g2, width, height, playback, labels, colors);
+            g2.dispose();
+            if (frame % 6 == 0) {
+                playback.ready(ids, left);
+            }
+            busy[frame] = System.nanoTime() - t0;
+            if (busy[frame] > frameNanos) {
+                late++;
+            }
+        }
+        double elapsed = (System.nanoTime() - startedAt) / 1e9;
+        long[] times = Arrays.copyOf(busy, frame);
+        Arrays.sort(times);
+        System.out.printf("Frames: %d in %.2f s, %,.0f dispatches/s shown, %,d of %,d segments%n", frame, elapsed,
+                playback.shown.size() / elapsed, playback.shown.size(), segments);
+        System.out.printf("Frame work: median %s, p99 %s, max %s, %d over budget%n",
+                RunCost.formatNanos(times[frame / 2]), RunCost.formatNanos(times[(int) Math.ceil(0.99 * frame) - 1]),
+                RunCost.formatNanos(times[frame - 1]), late);
+    }
+}
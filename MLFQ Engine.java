@@ -0,0 +1,339 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Multi-level feedback queue. New processes enter the top level; a process that uses up
+// its quantum at a level drops one level, and the last level is plain round robin. A
+// process running below the top level is preempted when a new process arrives, and keeps
+// the part of its quantum it has not used yet. Every boostPeriod time units (0 = never)
+// all waiting processes move back to the top level.
+//
+// Each level is an IntRing of process indices, and the highest non-empty level is found
+// with two bit scans over an occupancy bitmap (a summary word over 64-level words, as in
+// the Linux O(1) scheduler), so a dispatch costs O(1) for any number of levels up to
+// MAX_LEVELS. Only a boost touches more than one process, and it moves each process once.
+final class MlfqEngine implements SchedulingEngine {
+    static final int MAX_LEVELS = 64 * 64;
+
+    private final int[] quanta;
+    private final int boostPeriod;
+
+    MlfqEngine(int[] quanta, int boostPeriod) {
+        if (quanta.length == 0 || quanta.length > MAX_LEVELS) {
+            throw new IllegalArgumentException("MLFQ needs between 1 and " + MAX_LEVELS + " levels!");
+        }
+        for (int q : quanta) {
+            if (q <= 0) {
+                throw new IllegalArgumentException("Every level needs a time quantum > 0!");
+            }
+        }
+        if (boostPeriod < 0) {
+            throw new IllegalArgumentException("Boost period must be >= 0!");
+        }
+        this.quanta = quanta.clone();
+        this.boostPeriod = boostPeriod;
+    }
+
+    // Three levels with quanta q, 2q and 4q, boosted every 32 base quanta.
+    MlfqEngine(int quantum) {
+        this(new int[]{quantum, 2 * quantum, 4 * quantum}, 32 * quantum);
+    }
+
+    @Override
+    public String name() {
+        StringBuilder name = new StringBuilder("MLFQ (q=");
+        for (int i = 0; i < quanta.length; i++) {
+            name.append(i == 0 ? "" : "/").append(quanta[i]);
+        }
+        return name.append(boostPeriod > 0 ? ", boost " + boostPeriod : "").append(')').toString();
+    }
+
+    @Override
+    public void schedule(Workload workload, int[] completion, Timeline timeline, SchedulerListener listener) {
+        int[] at = workload.arrival;
+        int[] bt = workload.burst;
+        int[] order = workload.arrivalOrder();
+        int n = order.length;
+        int levels = quanta.length;
+        Queues queues = new Queues(levels);
+        int[] level = new int[n];
+        int[] used = new int[n];
+        int[] remaining = bt.clone();
+        long nextBoost = boostPeriod > 0 ? boostPeriod : Long.MAX_VALUE;
+        int time = 0;
+        int next = 0;
+        int done = 0;
+        while (done < n) {
+            while (next < n && at[order[next]] <= time) {
+                int p = order[next++];
+                if (listener != null) {
+                    listener.arrived(p, at[p]);
+                }
+                queues.add(0, p);
+            }
+            if (time >= nextBoost) {
+                queues.boost(level, used);
+                nextBoost = time - time % boostPeriod + boostPeriod;
+            }
+            if (queues.size == 0) {
+                if (listener != null) {
+                    listener.idle(time, at[order[next]]);
+                }
+                time = at[order[next]];
+                continue;
+            }
+
+            int lv = queues.highest();
+            int p = queues.poll(lv);
+            int slice = Math.min(quanta[lv] - used[p], remaining[p]);
+            if (lv > 0 && next < n) {
+                // A new arrival enters the top level and takes the CPU
+                slice = Math.min(slice, at[order[next]] - time);
+            }
+            int start = time;
+            time += slice;
+            remaining[p] -= slice;
+            used[p] += slice;
+            if (timeline != null) {
+                timeline.add(p, start, time);
+            }
+            if (listener != null) {
+                listener.dispatched(p, start, time, queues.size);
+            }
+            if (remaining[p] == 0) {
+                completion[p] = time;
+                if (listener != null) {
+                    listener.completed(p, time);
+                }
+                done++;
+                continue;
+            }
+            if (listener != null) {
+                listener.preempted(p, time, remaining[p]);
+            }
+            if (used[p] == quanta[lv]) {
+                used[p] = 0;
+                level[p] = Math.min(lv + 1, levels - 1);
+            }
+            // Processes that arrived during the slice queue up ahead of it
+            while (next < n && at[order[next]] <= time) {
+                int q = order[next++];
+                if (listener != null) {
+                    listener.arrived(q, at[q]);
+                }
+                queues.add(0, q);
+            }
+            queues.add(level[p], p);
+        }
+        if (listener != null) {
+            listener.finished(time);
+        }
+    }
+
+    // One IntRing per level plus the occupancy bitmap over the levels.
+    private static final class Queues {
+        final IntRing[] rings;
+        final long[] words;
+        long summary;
+        int size;
+
+        Queues(int levels) {
+            rings = new IntRing[levels];
+            words = new long[(levels + 63) >>> 6];
+        }
+
+        void add(int level, int p) {
+            IntRing ring = rings[level];
+            if (ring == null) {
+                ring = rings[level] = new IntRing(16);
+            }
+            ring.add(p);
+            words[level >>> 6] |= 1L << level;
+            summary |= 1L << (level >>> 6);
+            size++;
+        }
+
+        int highest() {
+            int w = Long.numberOfTrailingZeros(summary);
+            return (w << 6) + Long.numberOfTrailingZeros(words[w]);
+        }
+
+        int poll(int level) {
+            IntRing ring = rings[level];
+            int p = ring.poll();
+            if (ring.isEmpty()) {
+                words[level >>> 6] &= ~(1L << level);
+                if (words[level >>> 6] == 0) {
+                    summary &= ~(1L << (level >>> 6));
+                }
+            }
+            size--;
+            return p;
+        }
+
+        // Moves every waiting process to level 0, keeping the order of the levels.
+        void boost(int[] level, int[] used) {
+            for (int lv = 1; lv < rings.length; lv++) {
+                IntRing ring = rings[lv];
+                while (ring != null && !ring.isEmpty()) {
+                    int p = poll(lv);
+                    level[p] = 0;
+                    used[p] = 0;
+                    add(0, p);
+                }
+            }
+        }
+    }
+}
+
+// Checks MlfqEngine against a tick-by-tick reference on random small workloads, each run
+// with random quanta for up to four levels and a random boost period (or none). The
+// reference keeps a plain queue per level and looks at every time unit: the running slice
+// ends on completion, on a used-up quantum, or below the top level when a process arrives;
+// arrivals queue ahead of the process that left the CPU, and a due boost happens whenever
+// the CPU is free. Completion times and timeline segments must agree exactly; the first
+// workload where they do not is printed and the run fails.
+//
+// Usage: java MlfqSimulation [workloads=100000] [processes=8] [max-arrival=20]
+//        [max-burst=10] [seed=42]
+class MlfqSimulation {
+    public static void main(String[] args) {
+        int workloads = 100_000, processes = 8, maxArrival = 20, maxBurst = 10;
+        long seed = 42;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "workloads": workloads = Integer.parseInt(value); break;
+                case "processes": processes = Integer.parseInt(value); break;
+                case "max-arrival": maxArrival = Integer.parseInt(value); break;
+                case "max-burst": maxBurst = Integer.parseInt(value); break;
+                case "seed": seed = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        if (workloads <= 0 || processes <= 0 || maxArrival < 0 || maxBurst <= 0) {
+            throw new IllegalArgumentException("workloads, processes and max-burst must be > 0 and max-arrival >= 0!");
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        RunCost.Meter meter = RunCost.start();
+        for (int w = 0; w < workloads; w++) {
+            int n = 1 + random.nextInt(processes);
+            int[] at = new int[n];
+            int[] bt = new int[n];
+            for (int i = 0; i < n; i++) {
+                at[i] = random.nextInt(maxArrival + 1);
+                bt[i] = 1 + random.nextInt(maxBurst);
+            }
+            int[] quanta = new int[1 + random.nextInt(4)];
+            for (int lv = 0; lv < quanta.length; lv++) {
+                quanta[lv] = 1 + random.nextInt(4);
+            }
+            int boostPeriod = random.nextBoolean() ? 0 : 1 + random.nextInt(40);
+            MlfqEngine engine = new MlfqEngine(quanta, boostPeriod);
+            Workload workload = new Workload(at, bt);
+            Timeline timeline = new Timeline(n);
+            ScheduleResult result = engine.run(workload, timeline, null);
+            Timeline expectedTimeline = new Timeline(n);
+            int[] expected = reference(at, bt, quanta, boostPeriod, expectedTimeline);
+            String mismatch = !Arrays.equals(expected, result.completion) ? "completion"
+                    : !SrtfSimulation.segments(expectedTimeline).equals(SrtfSimulation.segments(timeline)) ? "timeline"
+                    : null;
+            if (mismatch != null) {
+                System.out.println("Workload " + w + " under " + engine.name() + ": AT " + Arrays.toString(at) + ", BT "
+                        + Arrays.toString(bt));
+                System.out.println("   reference CT " + Arrays.toString(expected) + ", "
+                        + SrtfSimulation.segments(expectedTimeline));
+                System.out.println("   MLFQ      CT " + Arrays.toString(result.completion) + ", "
+                        + SrtfSimulation.segments(timeline));
+                throw new IllegalStateException("MLFQ " + mismatch + " differs from the reference on workload " + w
+                        + "!");
+            }
+        }
+        System.out.println(workloads + " workloads of up to " + processes + " processes match the reference");
+        System.out.println("Run cost: " + meter.stop());
+    }
+
+    // One time unit at a time; every slice is one segment, even when the same process gets
+    // the next one.
+    static int[] reference(int[] at, int[] bt, int[] quanta, int boostPeriod, Timeline timeline) {
+        int n = at.length;
+        int levels = quanta.length;
+        List<ArrayDeque<Integer>> queues = new ArrayList<>();
+        for (int lv = 0; lv < levels; lv++) {
+            queues.add(new ArrayDeque<>());
+        }
+        int[] remaining = bt.clone();
+        int[] level = new int[n];
+        int[] used = new int[n];
+        int[] completion = new int[n];
+        long nextBoost = boostPeriod > 0 ? boostPeriod : Long.MAX_VALUE;
+        int running = -1;
+        int sliceStart = 0;
+        int done = 0;
+        for (int time = 0; done < n; time++) {
+            boolean arriving = false;
+            for (int i = 0; i < n; i++) {
+                arriving |= at[i] == time;
+            }
+            int left = -1;
+            if (running >= 0) {
+                int p = running;
+                int lv = level[p];
+                if (remaining[p] == 0) {
+                    completion[p] = time;
+                    timeline.add(p, sliceStart, time);
+                    done++;
+                    running = -1;
+                } else if (used[p] == quanta[lv] || (lv > 0 && arriving)) {
+                    timeline.add(p, sliceStart, time);
+                    if (used[p] == quanta[lv]) {
+                        used[p] = 0;
+                        level[p] = Math.min(lv + 1, levels - 1);
+                    }
+                    left = p;
+                    running = -1;
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                if (at[i] == time) {
+                    queues.get(0).add(i);
+                }
+            }
+            if (left >= 0) {
+                queues.get(level[left]).add(left);
+            }
+            if (running < 0) {
+                if (time >= nextBoost) {
+                    for (int lv = 1; lv < levels; lv++) {
+                        while (!queues.get(lv).isEmpty()) {
+                            int p = queues.get(lv).poll();
+                            level[p] = 0;
+                            used[p] = 0;
+                            queues.get(0).add(p);
+                        }
+                    }
+                    nextBoost = time - time % boostPeriod + boostPeriod;
+                }
+                for (int lv = 0; lv < levels && running < 0; lv++) {
+                    if (!queues.get(lv).isEmpty()) {
+                        running = queues.get(lv).poll();
+                        sliceStart = time;
+                    }
+                }
+            }
+            if (running >= 0) {
+                remaining[running]--;
+                used[running]++;
+            }
+        }
+        return completion;
+    }
+}
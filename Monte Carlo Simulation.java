@@ -0,0 +1,282 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+// Monte Carlo comparison of FCFS, SJF and RR on randomly generated workloads.
+//
+// Replications run in fixed-size batches on all cores. Every replication gets its own
+// SplittableRandom split off the master seed in replication order, and batch results
+// are folded in replication order, so the output for a given seed is bit-identical no
+// matter how many threads ran it. After each batch the run stops once every metric's
+// 95% confidence interval is narrower than the target width.
+//
+// Usage: java MonteCarloSimulation [seed=42] [processes=200] [quantum=4] [ci-width=2]
+//        [min-reps=30] [max-reps=100000] [batch=64] [threads=<cores>]
+//        [mean-interarrival=6] [mean-burst=5] [jmx=true]
+//
+// With jmx=true every algorithm gets a SchedulerStats MBean for the duration of the run.
+class MonteCarloSimulation {
+    static final String[] METRICS = {"avg WT", "p50 WT", "p95 WT", "p99 WT", "avg TAT", "p50 TAT", "p95 TAT", "p99 TAT"};
+
+    final int processes;
+    final double meanInterarrival;
+    final double meanBurst;
+    final SchedulingEngine[] engines;
+    // Live counters per engine, or null when monitoring is off
+    SchedulerStats[] stats;
+    // Cost of the last run(): wall time and GC of the whole run, CPU and allocation summed over the workers
+    RunCost cost;
+
+    MonteCarloSimulation(int processes, double meanInterarrival, double meanBurst, SchedulingEngine... engines) {
+        this.processes = processes;
+        this.meanInterarrival = meanInterarrival;
+        this.meanBurst = meanBurst;
+        this.engines = engines;
+    }
+
+    // Running mean and variance (Welford), one per algorithm and metric.
+    static final class RunningStat {
+        long count;
+        double mean;
+        double m2;
+
+        void add(double x) {
+            count++;
+            double delta = x - mean;
+            mean += delta / count;
+            m2 += delta * (x - mean);
+        }
+
+        // Folds in the values another RunningStat has seen (Chan et al.'s pairwise update).
+        void merge(long otherCount, double otherMean, double otherM2) {
+            if (otherCount == 0) {
+                return;
+            }
+            long total = count + otherCount;
+            double delta = otherMean - mean;
+            mean += delta * otherCount / total;
+            m2 += otherM2 + delta * delta * ((double) count * otherCount / total);
+            count = total;
+        }
+
+        double variance() {
+            return count > 1 ? m2 / (count - 1) : Double.POSITIVE_INFINITY;
+        }
+
+        // Half width of the 95% confidence interval for the mean.
+        double halfWidth() {
+            if (count < 2) {
+                return Double.POSITIVE_INFINITY;
+            }
+            return studentT975(count - 1) * Math.sqrt(variance() / count);
+        }
+    }
+
+    // 97.5% quantile of Student's t via the Cornish-Fisher expansion around the normal
+    // quantile; accurate to about 1e-3 from 5 degrees of freedom upwards.
+    static double studentT975(long df) {
+        double z = 1.959963984540054;
+        double z3 = z * z * z;
+        double z5 = z3 * z * z;
+        double v = df;
+        return z + (z3 + z) / (4 * v) + (5 * z5 + 16 * z3 + 3 * z) / (96 * v * v);
+    }
+
+    // Per-thread scratch so replications allocate nothing but the workload itself.
+    private final ThreadLocal<int[][]> scratch = new ThreadLocal<>();
+
+    Workload randomWorkload(SplittableRandom random) {
+        int[] at = new int[processes];
+        int[] bt = new int[processes];
+        double clock = 0;
+        for (int i = 0; i < processes; i++) {
+            at[i] = (int) clock;
+            bt[i] = Math.max(1, (int) Math.round(-Math.log(1.0 - random.nextDouble()) * meanBurst));
+            clock += -Math.log(1.0 - random.nextDouble()) * meanInterarrival;
+        }
+        return new Workload(at, bt);
+    }
+
+    // Runs one replication and returns [engine][metric] flattened.
+    double[] replicate(SplittableRandom random) {
+        Workload workload = randomWorkload(random);
+        int n = workload.size();
+        int[][] buffers = scratch.get();
+        if (buffers == null || buffers[0].length != n) {
+            buffers = new int[][]{new int[n], new int[n], new int[n]};
+            scratch.set(buffers);
+        }
+        int[] completion = buffers[0];
+        int[] wt = buffers[1];
+        int[] tat = buffers[2];
+        double[] out = new double[engines.length * METRICS.length];
+        for (int e = 0; e < engines.length; e++) {
+            SchedulerListener listener = SchedulerListener.both(stats == null ? null : stats[e].recorder(),
+                    SchedulerEvents.listener(engines[e].name()));
+            engines[e].schedule(workload, completion, null, listener);
+            long totalWt = 0, totalTat = 0;
+            for (int i = 0; i < n; i++) {
+                tat[i] = completion[i] - workload.arrival[i];
+                wt[i] = tat[i] - workload.burst[i];
+                totalWt += wt[i];
+                totalTat += tat[i];
+            }
+            Arrays.sort(wt);
+            Arrays.sort(tat);
+            int base = e * METRICS.length;
+            out[base] = (double) totalWt / n;
+            out[base + 1] = percentile(wt, 0.50);
+            out[base + 2] = percentile(wt, 0.95);
+            out[base + 3] = percentile(wt, 0.99);
+            out[base + 4] = (double) totalTat / n;
+            out[base + 5] = percentile(tat, 0.50);
+            out[base + 6] = percentile(tat, 0.95);
+            out[base + 7] = percentile(tat, 0.99);
+        }
+        return out;
+    }
+
+    // Nearest-rank percentile of a sorted array.
+    static int percentile(int[] sorted, double q) {
+        int rank = (int) Math.ceil(q * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    RunningStat[] run(long seed, double ciWidth, int minReps, int maxReps, int batch, int threads)
+            throws InterruptedException, ExecutionException {
+        RunningStat[] stats = new RunningStat[engines.length * METRICS.length];
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new RunningStat();
+        }
+        SplittableRandom master = new SplittableRandom(seed);
+        RunCost.Meter meter = RunCost.start();
+        LongAdder workerCpu = new LongAdder();
+        LongAdder workerAllocated = new LongAdder();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            int reps = 0;
+            while (reps < maxReps) {
+                int size = Math.min(batch, maxReps - reps);
+                List<Callable<double[]>> tasks = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    SplittableRandom stream = master.split();
+                    tasks.add(() -> {
+                        long cpu = RunCost.threadCpuNanos();
+                        long allocated = RunCost.threadAllocatedBytes();
+                        double[] values = replicate(stream);
+                        workerCpu.add(RunCost.threadCpuNanos() - cpu);
+                        workerAllocated.add(RunCost.threadAllocatedBytes() - allocated);
+                        return values;
+                    });
+                }
+                for (Future<double[]> f : pool.invokeAll(tasks)) {
+                    double[] values = f.get();
+                    for (int i = 0; i < values.length; i++) {
+                        stats[i].add(values[i]);
+                    }
+                }
+                reps += size;
+                if (reps >= minReps && converged(stats, ciWidth)) {
+                    break;
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        RunCost run = meter.stop();
+        cost = new RunCost(run.wallNanos, workerCpu.sum(), workerAllocated.sum(), run.gcCount, run.gcMillis);
+        return stats;
+    }
+
+    static boolean converged(RunningStat[] stats, double ciWidth) {
+        for (RunningStat s : stats) {
+            if (2 * s.halfWidth() >= ciWidth) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long seed = 42;
+        int processes = 200, quantum = 4, minReps = 30, maxReps = 100_000, batch = 64;
+        int threads = Runtime.getRuntime().availableProcessors();
+        double ciWidth = 2, meanInterarrival = 6, meanBurst = 5;
+        boolean jmx = true;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "seed": seed = Long.parseLong(value); break;
+                case "processes": processes = Integer.parseInt(value); break;
+                case "quantum": quantum = Integer.parseInt(value); break;
+                case "ci-width": ciWidth = Double.parseDouble(value); break;
+                case "min-reps": minReps = Integer.parseInt(value); break;
+                case "max-reps": maxReps = Integer.parseInt(value); break;
+                case "batch": batch = Integer.parseInt(value); break;
+                case "threads": threads = Integer.parseInt(value); break;
+                case "mean-interarrival": meanInterarrival = Double.parseDouble(value); break;
+                case "mean-burst": meanBurst = Double.parseDouble(value); break;
+                case "jmx": jmx = Boolean.parseBoolean(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        if (processes <= 0 || batch <= 0 || threads <= 0 || meanBurst <= 0 || meanInterarrival <= 0) {
+            throw new IllegalArgumentException("processes, batch, threads and the means must be > 0!");
+        }
+
+        MonteCarloSimulation simulation = new MonteCarloSimulation(processes, meanInterarrival, meanBurst,
+                new FcfsEngine(), new SjfEngine(), new RoundRobinEngine(quantum));
+        if (jmx) {
+            simulation.stats = new SchedulerStats[simulation.engines.length];
+            for (int e = 0; e < simulation.engines.length; e++) {
+                simulation.stats[e] = SchedulerStats.register(simulation.engines[e].name());
+            }
+        }
+        long started = System.nanoTime();
+        RunningStat[] stats;
+        try {
+            stats = simulation.run(seed, ciWidth, minReps, maxReps, batch, threads);
+        } finally {
+            if (simulation.stats != null) {
+                for (SchedulerStats s : simulation.stats) {
+                    s.close();
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        long reps = stats[0].count;
+
+        System.out.printf("Monte Carlo: %d replications x %d processes, seed %d, %d threads, %.2f s (%.0f reps/s)%n",
+                reps, processes, seed, threads, seconds, reps / seconds);
+        System.out.printf("Stopped: %s%n%n", converged(stats, ciWidth)
+                ? String.format("every 95%% CI narrower than %.3f", ciWidth) : "max-reps reached");
+        System.out.printf("%-12s", "Algorithm");
+        for (String metric : METRICS) {
+            System.out.printf("%20s", metric);
+        }
+        System.out.println();
+        for (int e = 0; e < simulation.engines.length; e++) {
+            System.out.printf("%-12s", simulation.engines[e].name());
+            for (int m = 0; m < METRICS.length; m++) {
+                RunningStat s = stats[e * METRICS.length + m];
+                System.out.printf("%20s", String.format("%.3f +/- %.3f", s.mean, s.halfWidth()));
+            }
+            System.out.println();
+        }
+        System.out.println();
+        System.out.println("Run cost: " + simulation.cost);
+        System.out.println("cost " + simulation.cost.toJson());
+    }
+}
@@ -0,0 +1,234 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Priority scheduling on the workload's priority column, lower values first, preemptive or
+// not. Ties go to the earlier arrival. With aging, a process gains one priority level for
+// every agingInterval time units it has spent waiting, so nobody starves. The waiting
+// time is never reset: a process that ran keeps the levels it earned, which stops two
+// processes from preempting each other back and forth.
+//
+// Aging never touches the waiting processes. By default it is continuous and kept lazily:
+// effective priority times agingInterval is base * agingInterval - waited, and for a
+// process that joined the ready queue at time e that is (base * agingInterval - waited + e)
+// - now. The part in brackets is fixed while it waits, so it is the heap key and the clock
+// is a global offset shared by the whole queue; the time at which the best waiting process
+// overtakes the running one follows from its key. Batched aging is the periodic kind: every
+// agingInterval time units, on the multiples of it, each waiting process gains a whole
+// level. That update is uniform too, so the heap key is base - levels + epoch(e) and the
+// offset is the current epoch. Either way the waiting processes keep their order, no key
+// is rewritten while they wait, and an event costs O(log n) with any number waiting.
+final class PriorityEngine implements SchedulingEngine {
+    private final boolean preemptive;
+    private final int agingInterval;
+    private final boolean batched;
+
+    // agingInterval 0 turns aging off.
+    PriorityEngine(boolean preemptive, int agingInterval, boolean batched) {
+        if (agingInterval < 0) {
+            throw new IllegalArgumentException("Aging interval must be >= 0!");
+        }
+        if (batched && agingInterval == 0) {
+            throw new IllegalArgumentException("Batched aging needs an aging interval > 0!");
+        }
+        this.preemptive = preemptive;
+        this.agingInterval = agingInterval;
+        this.batched = batched;
+    }
+
+    PriorityEngine(boolean preemptive, int agingInterval) {
+        this(preemptive, agingInterval, false);
+    }
+
+    @Override
+    public String name() {
+        StringBuilder name = new StringBuilder("Priority");
+        if (preemptive || agingInterval > 0) {
+            name.append(" (").append(preemptive ? "preemptive" : "");
+            if (agingInterval > 0) {
+                name.append(preemptive ? ", " : "").append("aging ").append(agingInterval).append(batched ? " batched" : "");
+            }
+            name.append(')');
+        }
+        return name.toString();
+    }
+
+    @Override
+    public void schedule(Workload workload, int[] completion, Timeline timeline, SchedulerListener listener) {
+        int[] at = workload.arrival;
+        int[] bt = workload.burst;
+        int[] order = workload.arrivalOrder();
+        int n = order.length;
+        long interval = agingInterval;
+        // By arrival rank. aged is the time spent waiting, or with batched aging the levels earned.
+        int[] base = new int[n];
+        int[] remaining = new int[n];
+        int[] enqueued = new int[n];
+        long[] aged = new long[n];
+        IntHeap ready = new IntHeap(n);
+        int time = 0;
+        int next = 0;
+        int done = 0;
+        int running = -1;
+        int sliceStart = 0;
+        while (done < n) {
+            long event = next < n ? at[order[next]] : Long.MAX_VALUE;
+            if (running >= 0) {
+                event = Math.min(event, sliceStart + remaining[running]);
+                if (preemptive && interval > 0 && !ready.isEmpty()) {
+                    // First time the best waiting process is strictly ahead of the running one
+                    long ahead = ready.peekKey() - runningKey(base[running], aged[running]) + 1;
+                    event = Math.min(event, batched ? ahead * interval : ahead);
+                }
+            } else if (ready.isEmpty()) {
+                if (listener != null && at[order[next]] > time) {
+                    listener.idle(time, at[order[next]]);
+                }
+            }
+            time = (int) Math.max(time, event);
+
+            if (running >= 0 && sliceStart + remaining[running] == time) {
+                int p = order[running];
+                remaining[running] = 0;
+                completion[p] = time;
+                if (timeline != null) {
+                    timeline.add(p, sliceStart, time);
+                }
+                if (listener != null) {
+                    listener.dispatched(p, sliceStart, time, ready.size());
+                    listener.completed(p, time);
+                }
+                running = -1;
+                done++;
+            }
+            while (next < n && at[order[next]] <= time) {
+                int p = order[next];
+                base[next] = workload.priority(p);
+                remaining[next] = bt[p];
+                enqueue(next, time, base, aged, enqueued, ready);
+                if (listener != null) {
+                    listener.arrived(p, at[p]);
+                }
+                next++;
+            }
+
+            if (running >= 0 && preemptive && !ready.isEmpty()
+                    && waitingKey(ready.peekKey(), time) < runningKey(base[running], aged[running])) {
+                int p = order[running];
+                remaining[running] -= time - sliceStart;
+                if (timeline != null) {
+                    timeline.add(p, sliceStart, time);
+                }
+                if (listener != null) {
+                    listener.dispatched(p, sliceStart, time, ready.size());
+                    listener.preempted(p, time, remaining[running]);
+                }
+                enqueue(running, time, base, aged, enqueued, ready);
+                running = -1;
+            }
+            if (running < 0 && !ready.isEmpty()) {
+                running = ready.pop();
+                aged[running] += batched ? time / interval - enqueued[running] / interval : time - enqueued[running];
+                sliceStart = time;
+            }
+        }
+        if (listener != null) {
+            listener.finished(time);
+        }
+    }
+
+    private void enqueue(int r, int time, int[] base, long[] aged, int[] enqueued, IntHeap ready) {
+        enqueued[r] = time;
+        if (agingInterval == 0) {
+            ready.push(r, base[r]);
+        } else if (batched) {
+            ready.push(r, base[r] - aged[r] + time / agingInterval);
+        } else {
+            ready.push(r, (long) base[r] * agingInterval - aged[r] + time);
+        }
+    }
+
+    // The running and best waiting process on one scale, so the waiting one preempts when
+    // its value is smaller.
+    private long waitingKey(long key, int time) {
+        if (agingInterval == 0) {
+            return key;
+        }
+        return batched ? key - time / agingInterval : key - time;
+    }
+
+    private long runningKey(int base, long aged) {
+        if (agingInterval == 0) {
+            return base;
+        }
+        return batched ? base - aged : (long) base * agingInterval - aged;
+    }
+}
+
+// Starvation study: a burst of arrivals far beyond what the CPU can serve, so up to a
+// million processes wait at once, with priorities spread uniformly.
+//
+// Usage: java PrioritySimulation [processes=1000000] [levels=140] [mean-burst=5]
+//        [arrival-window=100000] [aging=50] [preemptive=true] [batched=false] [seed=42]
+class PrioritySimulation {
+    public static void main(String[] args) {
+        int processes = 1_000_000, levels = 140, window = 100_000, aging = 50;
+        double meanBurst = 5;
+        boolean preemptive = true, batched = false;
+        long seed = 42;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "processes": processes = Integer.parseInt(value); break;
+                case "levels": levels = Integer.parseInt(value); break;
+                case "mean-burst": meanBurst = Double.parseDouble(value); break;
+                case "arrival-window": window = Integer.parseInt(value); break;
+                case "aging": aging = Integer.parseInt(value); break;
+                case "preemptive": preemptive = Boolean.parseBoolean(value); break;
+                case "batched": batched = Boolean.parseBoolean(value); break;
+                case "seed": seed = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        if (processes <= 0 || levels <= 0 || window <= 0 || meanBurst < 1) {
+            throw new IllegalArgumentException("processes, levels and arrival-window must be > 0 and mean-burst >= 1!");
+        }
+
+        Workload workload = randomWorkload(processes, levels, meanBurst, window, seed);
+        workload.arrivalOrder();
+
+        System.out.printf("%-40s%12s%12s%12s%12s%n", "Engine", "Avg WT", "p99 WT", "Max WT", "Preemptions");
+        SchedulingEngine[] engines = {
+            new PriorityEngine(preemptive, 0),
+            new PriorityEngine(preemptive, aging, batched),
+        };
+        for (SchedulingEngine engine : engines) {
+            ScheduleResult result = engine.run(workload);
+            int[] wt = new int[processes];
+            for (int i = 0; i < processes; i++) {
+                wt[i] = result.waiting(i);
+            }
+            Arrays.sort(wt);
+            System.out.printf("%-40s%12.1f%12d%12d%12d%n", engine.name(), result.averageWaiting(),
+                    wt[(int) Math.ceil(0.99 * processes) - 1], wt[processes - 1], result.preemptions());
+            System.out.println("    Run cost: " + result.cost);
+        }
+    }
+
+    static Workload randomWorkload(int processes, int levels, double meanBurst, int window, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] at = new int[processes];
+        int[] bt = new int[processes];
+        int[] priority = new int[processes];
+        for (int i = 0; i < processes; i++) {
+            at[i] = random.nextInt(window);
+            bt[i] = Math.max(1, (int) Math.round(-Math.log(1 - random.nextDouble()) * meanBurst));
+            priority[i] = random.nextInt(levels);
+        }
+        return new Workload(null, at, bt, priority);
+    }
+}
@@ -0,0 +1,208 @@
+import java.util.SplittableRandom;
+
+// Proportional-share schedulers. Both hand out one quantum at a time, like round robin,
+// and give every runnable process CPU in proportion to its tickets: the CFS load weight
+// of its priority column, so nice 0 holds 1024 tickets. Processes arriving during a
+// quantum join at the next decision.
+
+// Lottery scheduling: every quantum goes to the holder of a ticket drawn uniformly at
+// random. Tickets live in a TicketTree, so a draw, an arrival and a completion each cost
+// O(log n) instead of a scan over all processes. The draw sequence is fixed by the seed.
+final class LotteryEngine implements SchedulingEngine {
+    private final int quantum;
+    private final long seed;
+
+    LotteryEngine(int quantum, long seed) {
+        if (quantum <= 0) {
+            throw new IllegalArgumentException("Time quantum must be > 0!");
+        }
+        this.quantum = quantum;
+        this.seed = seed;
+    }
+
+    @Override
+    public String name() {
+        return "Lottery (q=" + quantum + ")";
+    }
+
+    @Override
+    public void schedule(Workload workload, int[] completion, Timeline timeline, SchedulerListener listener) {
+        int[] at = workload.arrival;
+        int[] bt = workload.burst;
+        int[] order = workload.arrivalOrder();
+        int n = order.length;
+        int[] remaining = bt.clone();
+        TicketTree tickets = new TicketTree(n);
+        SplittableRandom random = new SplittableRandom(seed);
+        int runnable = 0;
+        int time = 0;
+        int next = 0;
+        int done = 0;
+        while (done < n) {
+            while (next < n && at[order[next]] <= time) {
+                int p = order[next++];
+                tickets.add(p, CfsEngine.weight(workload.priority(p)));
+                runnable++;
+                if (listener != null) {
+                    listener.arrived(p, at[p]);
+                }
+            }
+            if (runnable == 0) {
+                if (listener != null) {
+                    listener.idle(time, at[order[next]]);
+                }
+                time = at[order[next]];
+                continue;
+            }
+            int p = tickets.find(random.nextLong(tickets.total()));
+            int start = time;
+            int slice = Math.min(quantum, remaining[p]);
+            time += slice;
+            remaining[p] -= slice;
+            if (timeline != null) {
+                timeline.add(p, start, time);
+            }
+            if (listener != null) {
+                listener.dispatched(p, start, time, runnable - 1);
+            }
+            if (remaining[p] == 0) {
+                completion[p] = time;
+                tickets.add(p, -CfsEngine.weight(workload.priority(p)));
+                runnable--;
+                done++;
+                if (listener != null) {
+                    listener.completed(p, time);
+                }
+            } else if (listener != null) {
+                listener.preempted(p, time, remaining[p]);
+            }
+        }
+        if (listener != null) {
+            listener.finished(time);
+        }
+    }
+}
+
+// Stride scheduling: the deterministic counterpart of lottery. Each process advances its
+// pass by STRIDE1 / tickets for every full quantum it uses (proportionally less for a
+// partial one), and the lowest pass runs next, so shares are exact over any window
+// instead of only in expectation. Passes sit in an IntHeap with arrival ranks as ids, and
+// a newcomer starts at the lowest pass in the heap so it cannot claim the past.
+final class StrideEngine implements SchedulingEngine {
+    static final long STRIDE1 = 1L << 30;
+
+    private final int quantum;
+
+    StrideEngine(int quantum) {
+        if (quantum <= 0) {
+            throw new IllegalArgumentException("Time quantum must be > 0!");
+        }
+        this.quantum = quantum;
+    }
+
+    @Override
+    public String name() {
+        return "Stride (q=" + quantum + ")";
+    }
+
+    @Override
+    public void schedule(Workload workload, int[] completion, Timeline timeline, SchedulerListener listener) {
+        int[] at = workload.arrival;
+        int[] bt = workload.burst;
+        int[] order = workload.arrivalOrder();
+        int n = order.length;
+        // By arrival rank
+        int[] remaining = new int[n];
+        long[] pass = new long[n];
+        IntHeap queue = new IntHeap(Math.min(n, 1024));
+        long minPass = 0;
+        int time = 0;
+        int next = 0;
+        int done = 0;
+        while (done < n) {
+            while (next < n && at[order[next]] <= time) {
+                int p = order[next];
+                remaining[next] = bt[p];
+                pass[next] = minPass;
+                queue.push(next, minPass);
+                if (listener != null) {
+                    listener.arrived(p, at[p]);
+                }
+                next++;
+            }
+            if (queue.isEmpty()) {
+                if (listener != null) {
+                    listener.idle(time, at[order[next]]);
+                }
+                time = at[order[next]];
+                continue;
+            }
+            int r = queue.pop();
+            int p = order[r];
+            int start = time;
+            int slice = Math.min(quantum, remaining[r]);
+            time += slice;
+            remaining[r] -= slice;
+            pass[r] += STRIDE1 / CfsEngine.weight(workload.priority(p)) * slice / quantum;
+            if (timeline != null) {
+                timeline.add(p, start, time);
+            }
+            if (listener != null) {
+                listener.dispatched(p, start, time, queue.size());
+            }
+            if (remaining[r] == 0) {
+                completion[p] = time;
+                done++;
+                if (listener != null) {
+                    listener.completed(p, time);
+                }
+            } else {
+                if (listener != null) {
+                    listener.preempted(p, time, remaining[r]);
+                }
+                queue.push(r, pass[r]);
+            }
+            minPass = Math.max(minPass, queue.isEmpty() ? pass[r] : queue.peekKey());
+        }
+        if (listener != null) {
+            listener.finished(time);
+        }
+    }
+}
+
+// Fenwick tree over per-process ticket counts: point updates, the running total, and
+// the process holding the k-th ticket, all in O(log n).
+final class TicketTree {
+    private final long[] tree;
+    private final int top;
+    private long total;
+
+    TicketTree(int size) {
+        tree = new long[size + 1];
+        top = size == 0 ? 0 : Integer.highestOneBit(size);
+    }
+
+    long total() {
+        return total;
+    }
+
+    void add(int index, long delta) {
+        total += delta;
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    // Index whose tickets cover ticket number k, 0 <= k < total().
+    int find(long k) {
+        int pos = 0;
+        for (int step = top; step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next < tree.length && tree[next] <= k) {
+                pos = next;
+                k -= tree[next];
+            }
+        }
+        return pos;
+    }
+}
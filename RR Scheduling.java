@@ -1,22 +1,38 @@
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
 
 public class SOLOALVHIN extends JFrame {
    private JTextField processCountField, quantumField;
-   private JButton setButton, calculateButton, clearButton;
+   private JComboBox<String> algorithmCombo;
+   private JButton setButton, calculateButton, clearButton, replayButton, playButton, exportButton;
    private JTable resultTable;
    private DefaultTableModel tableModel;
-   private JLabel avgTatLabel, avgWtLabel;
+   private JLabel avgTatLabel, avgWtLabel, runCostLabel, historyLabel;
    private GanttChartPanel ganttChartPanel;
    private final ArrayList<Process> processes = new ArrayList<>();
-   private final ArrayList<GanttBlock> ganttChartData = new ArrayList<>();
+   // Runs expected to produce more segments than this spill their timeline to disk
+   private static final long SPILL_SEGMENTS = 1 << 22;
+   private Timeline timeline;
+   // The timeline a run in the background is writing, until it is done
+   private Timeline computing;
+   private ScheduleResult lastResult;
+   private SchedulingEngine lastEngine;
+   private StoredRun lastRun;
+   private ReplayFrame replayFrame;
    private static class Process {
        String name;
        int arrivalTime;
        int burstTime;
-       int remainingTime;
        int completionTime = 0;
        int turnaroundTime = 0;
        int waitingTime = 0;
@@ -24,23 +40,26 @@ public class SOLOALVHIN extends JFrame {
            this.name = name;
            this.arrivalTime = at;
            this.burstTime = bt;
-           this.remainingTime = bt;
-       }
-   }
-   private static class GanttBlock {
-       String processName;
-       int startTime;
-       int endTime;
-       GanttBlock(String name, int start, int end) {
-           this.processName = name;
-           this.startTime = start;
-           this.endTime = end;
        }
    }
    public SOLOALVHIN() {
        setTitle("Round Robin Scheduling");
        setSize(1000, 700);
        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+       // Exiting skips the reset that would otherwise delete a spilled timeline's files
+       addWindowListener(new WindowAdapter() {
+           @Override
+           public void windowClosing(WindowEvent e) {
+               discardTimeline();
+               if (computing != null) {
+                   try {
+                       computing.close();
+                   } catch (IOException ex) {
+                       System.err.println("Could not delete the timeline files: " + ex.getMessage());
+                   }
+               }
+           }
+       });
        setLocationRelativeTo(null);
        setLayout(new BorderLayout(10, 10));
        JPanel inputPanel  = createInputPanel();
@@ -53,6 +72,7 @@ public class SOLOALVHIN extends JFrame {
        add(inputPanel, BorderLayout.NORTH);
        add(mainPanel, BorderLayout.CENTER);
        add(footerPanel, BorderLayout.SOUTH);
+       RunStore.openShared();
    }
    private JPanel createInputPanel() {
        JPanel panel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
@@ -67,9 +87,28 @@ public class SOLOALVHIN extends JFrame {
        quantumField = new JTextField(5);
        quantumField.setText("4");
        panel.add(quantumField);
+       panel.add(new JLabel("Algorithm:"));
+       algorithmCombo = new JComboBox<>(new String[]{"Round Robin", "Lottery", "Stride"});
+       panel.add(algorithmCombo);
        calculateButton = new JButton("Calculate");
        calculateButton.addActionListener(e -> calculate());
        panel.add(calculateButton);
+       replayButton = new JButton("Replay");
+       replayButton.setEnabled(false);
+       replayButton.addActionListener(e -> {
+           if (replayFrame != null) replayFrame.dispose();
+           replayFrame = new ReplayFrame(lastEngine.name(), lastResult);
+           replayFrame.setVisible(true);
+       });
+       panel.add(replayButton);
+       playButton = new JButton("Play");
+       playButton.setEnabled(false);
+       playButton.addActionListener(e -> new PlayFrame(lastEngine, lastResult.workload).setVisible(true));
+       panel.add(playButton);
+       exportButton = new JButton("Export");
+       exportButton.setEnabled(false);
+       exportButton.addActionListener(e -> exportResults());
+       panel.add(exportButton);
        clearButton = new JButton("Start Again");
        clearButton.addActionListener(e -> clearAll());
        panel.add(clearButton);
@@ -99,8 +138,12 @@ public class SOLOALVHIN extends JFrame {
        JPanel panel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 8));
        avgTatLabel = new JLabel("AVERAGE TAT: N/A");
        avgWtLabel  = new JLabel("AVERAGE WT: N/A");
+       runCostLabel = new JLabel("RUN COST: N/A");
+       historyLabel = new JLabel("HISTORY: N/A");
        panel.add(avgTatLabel);
        panel.add(avgWtLabel);
+       panel.add(runCostLabel);
+       panel.add(historyLabel);
        return panel;
    }
    private void setProcesses() {
@@ -112,13 +155,15 @@ public class SOLOALVHIN extends JFrame {
            }
            tableModel.setRowCount(0);
            processes.clear();
-           ganttChartData.clear();
+           discardTimeline();
            for (int i = 1; i <= count; i++) {
                tableModel.addRow(new Object[]{"P" + i, "", "", "", "", ""});
            }
            ganttChartPanel.repaint();
            avgTatLabel.setText("AVERAGE TAT: N/A");
            avgWtLabel.setText("AVERAGE WT: N/A");
+           runCostLabel.setText("RUN COST: N/A");
+           historyLabel.setText("HISTORY: N/A");
        } catch (NumberFormatException ex) {
            JOptionPane.showMessageDialog(this, "Enter a valid integer for number of processes.", "Error", JOptionPane.ERROR_MESSAGE);
        }
@@ -134,10 +179,12 @@ public class SOLOALVHIN extends JFrame {
        if (confirm == JOptionPane.YES_OPTION) {
            tableModel.setRowCount(0);
            processes.clear();
-           ganttChartData.clear();
+           discardTimeline();
            ganttChartPanel.repaint();
            avgTatLabel.setText("AVERAGE TAT: N/A");
            avgWtLabel.setText("AVERAGE WT: N/A");
+           runCostLabel.setText("RUN COST: N/A");
+           historyLabel.setText("HISTORY: N/A");
        }
    }
    private void calculate() {
@@ -165,53 +212,88 @@ public class SOLOALVHIN extends JFrame {
            JOptionPane.showMessageDialog(this, "Invalid time quantum.", "Error", JOptionPane.ERROR_MESSAGE);
            return;
        }
-       // Reset
-       ganttChartData.clear();
-       for (Process p : processes) {
-           p.remainingTime = p.burstTime;
-           p.completionTime = 0;
-           p.turnaroundTime = 0;
-           p.waitingTime = 0;
-       }
        int n = processes.size();
-       int completed = 0;
-       int currentTime = 0;
-       int idx = 0;
-       int earliestArrival = Integer.MAX_VALUE;
-       for (Process p : processes) earliestArrival = Math.min(earliestArrival, p.arrivalTime);
-       if (currentTime < earliestArrival) currentTime = earliestArrival;
-       while (completed < n) {
-           boolean ranThisPass = false;
-           for (int steps = 0; steps < n; steps++) {
-               Process p = processes.get(idx);
-               if (p.remainingTime > 0 && p.arrivalTime <= currentTime) {
-                   int start = currentTime;
-                   int slice = Math.min(quantum, p.remainingTime);
-                   currentTime += slice;
-                   p.remainingTime -= slice;
-                   ganttChartData.add(new GanttBlock(p.name, start, currentTime));
-                   if (p.remainingTime == 0) {
-                       p.completionTime = currentTime;
-                       completed++;
-                   }
-                   ranThisPass = true;
-               }
-               idx = (idx + 1) % n;
+       String[] names = new String[n];
+       int[] at = new int[n];
+       int[] bt = new int[n];
+       long segments = 0;
+       for (int i = 0; i < n; i++) {
+           names[i] = processes.get(i).name;
+           at[i] = processes.get(i).arrivalTime;
+           bt[i] = processes.get(i).burstTime;
+           // Not (bt + quantum - 1) / quantum, which overflows for bursts near Integer.MAX_VALUE
+           segments += bt[i] / quantum + (bt[i] % quantum != 0 ? 1 : 0);
+       }
+       discardTimeline();
+       Timeline next;
+       try {
+           next = segments > SPILL_SEGMENTS
+                   ? Timeline.spilled(Files.createTempDirectory("ccopsysl-timeline"))
+                   : new Timeline(n);
+       } catch (IOException ex) {
+           JOptionPane.showMessageDialog(this, "Cannot create the timeline files: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+           return;
+       }
+       SchedulingEngine engine;
+       String algorithm;
+       switch (algorithmCombo.getSelectedIndex()) {
+           // Same seed as the comparison window, so a table always draws the same schedule
+           case 1: engine = new LotteryEngine(quantum, 42); algorithm = "lottery"; break;
+           case 2: engine = new StrideEngine(quantum); algorithm = "stride"; break;
+           default: engine = new RoundRobinEngine(quantum); algorithm = "rr"; break;
+       }
+       Workload workload = new Workload(names, at, bt);
+       // A spilled run writes up to millions of segments, so every run leaves the event
+       // dispatch thread; the chart only gets the timeline once it is complete
+       computing = next;
+       setRunning(true);
+       runCostLabel.setText("RUN COST: running...");
+       new SwingWorker<ScheduleResult, Void>() {
+           private RunCost cost;
+
+           @Override
+           protected ScheduleResult doInBackground() {
+               RunCost.Meter meter = RunCost.start();
+               ScheduleResult schedule = engine.run(workload, next, null);
+               cost = meter.stop();
+               return schedule;
            }
-           if (!ranThisPass) {
-               int nextArrival = Integer.MAX_VALUE;
-               for (Process p : processes) {
-                   if (p.remainingTime > 0 && p.arrivalTime > currentTime) {
-                       nextArrival = Math.min(nextArrival, p.arrivalTime);
+
+           @Override
+           protected void done() {
+               computing = null;
+               setRunning(false);
+               try {
+                   showResult(get(), next, engine, algorithm, quantum, cost);
+               } catch (InterruptedException | ExecutionException ex) {
+                   try {
+                       next.close();
+                   } catch (IOException closing) {
+                       System.err.println("Could not delete the timeline files: " + closing.getMessage());
                    }
+                   runCostLabel.setText("RUN COST: N/A");
+                   JOptionPane.showMessageDialog(SOLOALVHIN.this, "Calculation failed: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
                }
-               if (nextArrival == Integer.MAX_VALUE) break;
-               currentTime = nextArrival;
            }
-       }
+       }.execute();
+   }
+   // Keeps the table and the timeline as they are while a run is in the background.
+   private void setRunning(boolean running) {
+       setButton.setEnabled(!running);
+       calculateButton.setEnabled(!running);
+       clearButton.setEnabled(!running);
+   }
+   private void showResult(ScheduleResult schedule, Timeline complete, SchedulingEngine engine, String algorithm, int quantum, RunCost cost) {
+       timeline = complete;
+       lastResult = schedule;
+       lastEngine = engine;
+       replayButton.setEnabled(true);
+       playButton.setEnabled(true);
+       exportButton.setEnabled(true);
        double totalTat = 0, totalWt = 0;
        for (int i = 0; i < processes.size(); i++) {
            Process p = processes.get(i);
+           p.completionTime = schedule.completion[i];
            p.turnaroundTime = p.completionTime - p.arrivalTime;
            p.waitingTime    = p.turnaroundTime - p.burstTime;
            totalTat += p.turnaroundTime;
@@ -226,30 +308,99 @@ public class SOLOALVHIN extends JFrame {
        double avgWt  = totalWt  / processes.size();
        avgTatLabel.setText(String.format("AVERAGE TAT: %.1f", avgTat));
        avgWtLabel.setText(String.format("AVERAGE WT: %.1f", avgWt));
+       runCostLabel.setText("RUN COST: " + cost);
+       historyLabel.setText("HISTORY: saving...");
+       RunStore.remember(algorithm, quantum, schedule, (run, history) -> {
+           // Skipped when the table was cleared or calculated again meanwhile
+           if (lastResult == schedule) {
+               lastRun = run;
+               historyLabel.setText("HISTORY: " + history);
+           }
+       });
        ganttChartPanel.repaint();
    }
+   // Results to the chosen file and the timeline beside it, as CSV for a .csv name and
+   // columnar binary otherwise; a .svg or .png name gets the Gantt chart instead. Streams
+   // straight from a spilled timeline.
+   private void exportResults() {
+       JFileChooser chooser = new JFileChooser();
+       chooser.setDialogTitle("Export results (.csv for CSV, .svg or .png for the chart, anything else for columnar)");
+       chooser.setSelectedFile(new File("rr-results.csv"));
+       if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+       Path path = chooser.getSelectedFile().toPath();
+       String name = path.getFileName().toString().toLowerCase();
+       try {
+           if (name.endsWith(".svg") || name.endsWith(".png")) {
+               String scale = JOptionPane.showInputDialog(this, "Pixels per time unit:", GanttExport.fittingScale(lastResult.makespan()));
+               if (scale == null) return;
+               GanttExport chart = GanttExport.of(lastResult, Double.parseDouble(scale.trim()), GanttExport.DEFAULT_WIDTH);
+               chart.write(path);
+               JOptionPane.showMessageDialog(this, "Exported the chart to " + path + " (" + chart.width() + " x " + chart.height() + ")", "Export", JOptionPane.INFORMATION_MESSAGE);
+               return;
+           }
+           Path exported = ResultExport.writeWithTimeline(lastResult, path);
+           RunStore.rememberTimeline(lastRun, exported);
+           JOptionPane.showMessageDialog(this, "Exported to " + path + " and " + exported.getFileName(), "Export", JOptionPane.INFORMATION_MESSAGE);
+       } catch (IOException | UncheckedIOException ex) {
+           JOptionPane.showMessageDialog(this, "Export failed: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+       } catch (IllegalArgumentException ex) {
+           JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+       }
+   }
+   // Also closes the replay, which reads the same timeline.
+   private void discardTimeline() {
+       if (replayFrame != null) {
+           replayFrame.dispose();
+           replayFrame = null;
+       }
+       lastResult = null;
+       lastRun = null;
+       replayButton.setEnabled(false);
+       playButton.setEnabled(false);
+       exportButton.setEnabled(false);
+       if (timeline == null) return;
+       try {
+           timeline.close();
+       } catch (IOException ex) {
+           System.err.println("Could not delete the timeline files: " + ex.getMessage());
+       }
+       timeline = null;
+   }
    private class GanttChartPanel extends JPanel {
        private final int barHeight = 36;
        private final int margin = 20;
        @Override
        protected void paintComponent(Graphics g) {
            super.paintComponent(g);
-           if (ganttChartData.isEmpty()) return;
-           int totalTime = ganttChartData.get(ganttChartData.size() - 1).endTime;
+           if (timeline == null || timeline.size() == 0) return;
+           int count = timeline.size();
+           int totalTime = timeline.end(count - 1);
            if (totalTime <= 0) return;
            int width = getWidth() - 2 * margin;
            double scale = (double) width / totalTime;
            g.drawLine(margin, margin + barHeight, margin + (int) (totalTime * scale), margin + barHeight);
-           for (GanttBlock b : ganttChartData) {
-               int x1 = margin + (int) Math.round(b.startTime * scale);
-               int x2 = margin + (int) Math.round(b.endTime   * scale);
-               int w  = Math.max(1, x2 - x1);
+           if (count > width) {
+               // More blocks than pixels: one column per pixel, looked up by time
                g.setColor(new Color(100, 149, 237));
-               g.fillRect(x1, margin, w, barHeight);
+               for (int x = 0; x < width; x++) {
+                   int time = (int) (x / scale);
+                   int k = timeline.seek(time);
+                   if (k < count && timeline.start(k) <= time) g.fillRect(margin + x, margin, 1, barHeight);
+               }
                g.setColor(Color.BLACK);
-               g.drawRect(x1, margin, w, barHeight);
-               g.drawString(b.processName, x1 + 5, margin + barHeight / 2 + 5);
-               g.drawString(String.valueOf(b.startTime), x1, margin + barHeight + 15);
+               g.drawString("0", margin, margin + barHeight + 15);
+           } else {
+               for (int k = 0; k < count; k++) {
+                   int x1 = margin + (int) Math.round(timeline.start(k) * scale);
+                   int x2 = margin + (int) Math.round(timeline.end(k)   * scale);
+                   int w  = Math.max(1, x2 - x1);
+                   g.setColor(new Color(100, 149, 237));
+                   g.fillRect(x1, margin, w, barHeight);
+                   g.setColor(Color.BLACK);
+                   g.drawRect(x1, margin, w, barHeight);
+                   g.drawString(processes.get(timeline.process(k)).name, x1 + 5, margin + barHeight / 2 + 5);
+                   g.drawString(String.valueOf(timeline.start(k)), x1, margin + barHeight + 15);
+               }
            }
            g.drawString(String.valueOf(totalTime), margin + (int) Math.round(totalTime * scale), margin + barHeight + 15);
        }
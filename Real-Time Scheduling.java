@@ -0,0 +1,573 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Real-time scheduling of periodic and sporadic tasks: earliest deadline first and rate
+// monotonic, a schedulability test for each, and an event-driven simulator.
+//
+// Usage: java RealTimeSimulation [tasks=50] [utilisation=0.9] [deadline=1.0] [sporadic=0]
+//        [seed=42] [horizon=100000000] [task=<period>:<wcet>[:<deadline>[:<offset>]] ...]
+//
+// Without task= options a task set is drawn at random: UUniFast utilisations, periods from
+// a harmonic-friendly set so the hyperperiod stays small, deadlines at deadline x period,
+// and the given fraction of tasks sporadic.
+
+// A task set. A periodic task releases a job every period after its offset; a sporadic
+// task releases the next job at least one period after the previous one. Every job needs
+// wcet time units and must finish within deadline of its release.
+final class TaskSet {
+    final String[] names;
+    final long[] period;
+    final long[] wcet;
+    final long[] deadline;
+    final long[] offset;
+    final boolean[] sporadic;
+
+    TaskSet(String[] names, long[] period, long[] wcet, long[] deadline, long[] offset, boolean[] sporadic) {
+        int n = period.length;
+        if (wcet.length != n || deadline.length != n || offset.length != n || sporadic.length != n
+                || (names != null && names.length != n)) {
+            throw new IllegalArgumentException("All task columns must have the same length!");
+        }
+        for (int i = 0; i < n; i++) {
+            if (period[i] <= 0 || wcet[i] <= 0 || deadline[i] <= 0 || offset[i] < 0) {
+                throw new IllegalArgumentException("Period, WCET and deadline must be > 0 and offset >= 0!");
+            }
+        }
+        this.names = names;
+        this.period = period;
+        this.wcet = wcet;
+        this.deadline = deadline;
+        this.offset = offset;
+        this.sporadic = sporadic;
+    }
+
+    int size() {
+        return period.length;
+    }
+
+    String name(int i) {
+        return names != null ? names[i] : "T" + (i + 1);
+    }
+
+    double utilisation() {
+        double u = 0;
+        for (int i = 0; i < period.length; i++) {
+            u += (double) wcet[i] / period[i];
+        }
+        return u;
+    }
+
+    // Least common multiple of the periods, or cap if it would be larger.
+    long hyperperiod(long cap) {
+        long h = 1;
+        for (long p : period) {
+            long g = gcd(h, p);
+            if (h / g > cap / p) {
+                return cap;
+            }
+            h = h / g * p;
+        }
+        return Math.min(h, cap);
+    }
+
+    long maxOffset() {
+        long max = 0;
+        for (long o : offset) {
+            max = Math.max(max, o);
+        }
+        return max;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
+
+// Per-task and overall outcome of one simulation.
+final class RealTimeResult {
+    final long horizon;
+    final long[] jobs;
+    final long[] misses;
+    // Largest completion - deadline per task; negative when every job finished early
+    final long[] maxLateness;
+    long preemptions;
+    long idleTime;
+    long busyTime;
+    RunCost cost;
+
+    RealTimeResult(int tasks, long horizon) {
+        this.horizon = horizon;
+        jobs = new long[tasks];
+        misses = new long[tasks];
+        maxLateness = new long[tasks];
+        Arrays.fill(maxLateness, Long.MIN_VALUE);
+    }
+
+    long totalJobs() {
+        long total = 0;
+        for (long j : jobs) {
+            total += j;
+        }
+        return total;
+    }
+
+    long totalMisses() {
+        long total = 0;
+        for (long m : misses) {
+            total += m;
+        }
+        return total;
+    }
+
+    long maxLateness() {
+        long max = Long.MIN_VALUE;
+        for (long l : maxLateness) {
+            max = Math.max(max, l);
+        }
+        return max;
+    }
+}
+
+// Preemptive EDF or rate-monotonic simulation that only stops at releases and
+// completions. Pending releases sit in an IntHeap keyed by release time and the ready
+// tasks in an IntHeap keyed by the absolute deadline of their oldest job (EDF) or by
+// their rate-monotonic rank (RM), so the cost grows with the number of jobs, not with the
+// length of the hyperperiod. Jobs of one task run in release order from a LongRing.
+final class RealTimeEngine {
+    enum Policy { EDF, RM }
+
+    final Policy policy;
+    private final long seed;
+
+    RealTimeEngine(Policy policy, long seed) {
+        this.policy = policy;
+        this.seed = seed;
+    }
+
+    String name() {
+        return policy == Policy.EDF ? "EDF" : "RM";
+    }
+
+    // Releases jobs until horizon and runs until all of them are done. The timeline may be
+    // null; when given, the simulated time must fit in an int.
+    RealTimeResult simulate(TaskSet tasks, long horizon, Timeline timeline) {
+        RunCost.Meter meter = RunCost.start();
+        int n = tasks.size();
+        long[] period = tasks.period;
+        long[] wcet = tasks.wcet;
+        long[] deadline = tasks.deadline;
+        RealTimeResult result = new RealTimeResult(n, horizon);
+        SplittableRandom random = new SplittableRandom(seed);
+
+        long[] rank = new long[n];
+        if (policy == Policy.RM) {
+            // Shorter period first, ties by index
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> period[a] != period[b] ? Long.compare(period[a], period[b]) : a - b);
+            for (int r = 0; r < n; r++) {
+                rank[order[r]] = r;
+            }
+        }
+
+        IntHeap releases = new IntHeap(Math.max(n, 1));
+        for (int i = 0; i < n; i++) {
+            releases.push(i, tasks.offset[i]);
+        }
+        LongRing[] pending = new LongRing[n];
+        long[] remaining = new long[n];
+        IntHeap ready = new IntHeap(Math.max(n, 1));
+        long time = 0;
+        long sliceStart = 0;
+        int running = -1;
+        while (true) {
+            long nextRelease = !releases.isEmpty() && releases.peekKey() < horizon ? releases.peekKey() : Long.MAX_VALUE;
+            if (running < 0) {
+                if (ready.isEmpty()) {
+                    if (nextRelease == Long.MAX_VALUE) {
+                        break;
+                    }
+                    result.idleTime += nextRelease - time;
+                    time = nextRelease;
+                    release(tasks, time, horizon, releases, pending, remaining, ready, rank, random);
+                    continue;
+                }
+                running = ready.pop();
+                sliceStart = time;
+            }
+            long finish = time + remaining[running];
+            if (nextRelease < finish) {
+                remaining[running] -= nextRelease - time;
+                time = nextRelease;
+                release(tasks, time, horizon, releases, pending, remaining, ready, rank, random);
+                if (!ready.isEmpty() && ready.peekKey() < key(running, pending, deadline, rank)) {
+                    record(timeline, running, sliceStart, time);
+                    result.preemptions++;
+                    ready.push(running, key(running, pending, deadline, rank));
+                    running = ready.pop();
+                    sliceStart = time;
+                }
+                continue;
+            }
+            time = finish;
+            record(timeline, running, sliceStart, time);
+            long released = pending[running].poll();
+            long lateness = time - (released + deadline[running]);
+            result.jobs[running]++;
+            if (lateness > 0) {
+                result.misses[running]++;
+            }
+            result.maxLateness[running] = Math.max(result.maxLateness[running], lateness);
+            if (!pending[running].isEmpty()) {
+                remaining[running] = wcet[running];
+                ready.push(running, key(running, pending, deadline, rank));
+            }
+            running = -1;
+        }
+        result.busyTime = time - result.idleTime;
+        result.cost = meter.stop();
+        return result;
+    }
+
+    private long key(int task, LongRing[] pending, long[] deadline, long[] rank) {
+        return policy == Policy.EDF ? pending[task].peek() + deadline[task] : rank[task];
+    }
+
+    private void release(TaskSet tasks, long time, long horizon, IntHeap releases, LongRing[] pending,
+            long[] remaining, IntHeap ready, long[] rank, SplittableRandom random) {
+        while (!releases.isEmpty() && releases.peekKey() <= time && releases.peekKey() < horizon) {
+            long at = releases.peekKey();
+            int i = releases.pop();
+            if (pending[i] == null) {
+                pending[i] = new LongRing(4);
+            }
+            pending[i].add(at);
+            if (pending[i].size() == 1) {
+                remaining[i] = tasks.wcet[i];
+                ready.push(i, key(i, pending, tasks.deadline, rank));
+            }
+            long gap = tasks.period[i];
+            if (tasks.sporadic[i]) {
+                // Minimum inter-arrival time plus up to one more period
+                gap += random.nextLong(tasks.period[i] + 1);
+            }
+            releases.push(i, at + gap);
+        }
+    }
+
+    private static void record(Timeline timeline, int task, long start, long end) {
+        if (timeline != null) {
+            if (end > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Timeline needs a horizon that fits in an int!");
+            }
+            timeline.add(task, (int) start, (int) end);
+        }
+    }
+}
+
+// Schedulability tests that answer before any simulation, assuming synchronous release
+// (the worst case for sporadic tasks and a sufficient condition with offsets).
+final class Schedulability {
+    static final class Verdict {
+        final boolean schedulable;
+        final String reason;
+
+        Verdict(boolean schedulable, String reason) {
+            this.schedulable = schedulable;
+            this.reason = reason;
+        }
+
+        @Override
+        public String toString() {
+            return (schedulable ? "schedulable" : "NOT schedulable") + " (" + reason + ")";
+        }
+    }
+
+    private Schedulability() {
+    }
+
+    // Utilisation bound when deadlines are at least the periods, otherwise the processor
+    // demand criterion checked with Zhang and Burns' quick processor-demand analysis.
+    static Verdict edf(TaskSet tasks) {
+        int n = tasks.size();
+        double u = tasks.utilisation();
+        if (u > 1) {
+            return new Verdict(false, String.format("U = %.4f > 1", u));
+        }
+        boolean implicit = true;
+        long minDeadline = Long.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            implicit &= tasks.deadline[i] >= tasks.period[i];
+            minDeadline = Math.min(minDeadline, tasks.deadline[i]);
+        }
+        if (implicit) {
+            return new Verdict(true, String.format("U = %.4f <= 1 with D >= T", u));
+        }
+
+        long limit = busyPeriod(tasks);
+        if (u < 1) {
+            double la = 0;
+            for (int i = 0; i < n; i++) {
+                la = Math.max(la, tasks.deadline[i]);
+            }
+            double slack = 0;
+            for (int i = 0; i < n; i++) {
+                slack += (double) (tasks.period[i] - tasks.deadline[i]) * tasks.wcet[i] / tasks.period[i];
+            }
+            la = Math.max(la, slack / (1 - u));
+            limit = Math.min(limit, (long) Math.ceil(la));
+        }
+        long t = lastDeadlineBefore(tasks, limit);
+        long h = demand(tasks, t);
+        while (h <= t && h > minDeadline) {
+            t = h < t ? h : lastDeadlineBefore(tasks, t);
+            h = demand(tasks, t);
+        }
+        return h <= minDeadline
+                ? new Verdict(true, String.format("U = %.4f, processor demand met up to t = %d", u, limit))
+                : new Verdict(false, "processor demand " + h + " exceeds t = " + t);
+    }
+
+    // Liu and Layland bound first; if it does not decide, exact response-time analysis with
+    // priorities by period. Deadlines beyond the period are checked against the period.
+    static Verdict rm(TaskSet tasks) {
+        int n = tasks.size();
+        double u = tasks.utilisation();
+        if (u > 1) {
+            return new Verdict(false, String.format("U = %.4f > 1", u));
+        }
+        boolean implicit = true;
+        for (int i = 0; i < n; i++) {
+            implicit &= tasks.deadline[i] >= tasks.period[i];
+        }
+        double bound = n * (Math.pow(2, 1.0 / n) - 1);
+        if (implicit && u <= bound) {
+            return new Verdict(true, String.format("U = %.4f <= Liu-Layland bound %.4f", u, bound));
+        }
+
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> tasks.period[a] != tasks.period[b]
+                ? Long.compare(tasks.period[a], tasks.period[b]) : a - b);
+        long worst = 0;
+        for (int k = 0; k < n; k++) {
+            int i = order[k];
+            long limit = Math.min(tasks.deadline[i], tasks.period[i]);
+            long r = tasks.wcet[i];
+            for (int j = 0; j < k; j++) {
+                r += tasks.wcet[order[j]];
+            }
+            while (true) {
+                if (r > limit) {
+                    return new Verdict(false, "response time of " + tasks.name(i) + " exceeds " + limit);
+                }
+                long next = tasks.wcet[i];
+                for (int j = 0; j < k; j++) {
+                    int hp = order[j];
+                    next += ceilDiv(r, tasks.period[hp]) * tasks.wcet[hp];
+                }
+                if (next == r) {
+                    break;
+                }
+                r = next;
+            }
+            worst = Math.max(worst, r);
+        }
+        return new Verdict(true, String.format("U = %.4f, response-time analysis, worst response %d", u, worst));
+    }
+
+    // Length of the synchronous busy period.
+    private static long busyPeriod(TaskSet tasks) {
+        long w = 0;
+        for (long c : tasks.wcet) {
+            w += c;
+        }
+        while (true) {
+            long next = 0;
+            for (int i = 0; i < tasks.size(); i++) {
+                next += ceilDiv(w, tasks.period[i]) * tasks.wcet[i];
+            }
+            if (next == w) {
+                return w;
+            }
+            w = next;
+        }
+    }
+
+    // Work with both release and deadline in [0, t].
+    private static long demand(TaskSet tasks, long t) {
+        long h = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            if (tasks.deadline[i] <= t) {
+                h += ((t - tasks.deadline[i]) / tasks.period[i] + 1) * tasks.wcet[i];
+            }
+        }
+        return h;
+    }
+
+    // Largest absolute deadline strictly before t, or 0 if there is none.
+    private static long lastDeadlineBefore(TaskSet tasks, long t) {
+        long last = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            if (tasks.deadline[i] < t) {
+                last = Math.max(last, (t - 1 - tasks.deadline[i]) / tasks.period[i] * tasks.period[i] + tasks.deadline[i]);
+            }
+        }
+        return last;
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return (a + b - 1) / b;
+    }
+}
+
+// Growable FIFO of longs.
+final class LongRing {
+    private long[] items;
+    private int head;
+    private int size;
+
+    LongRing(int capacity) {
+        items = new long[Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void add(long value) {
+        if (size == items.length) {
+            long[] grown = new long[items.length << 1];
+            for (int i = 0; i < size; i++) {
+                grown[i] = items[(head + i) & (items.length - 1)];
+            }
+            items = grown;
+            head = 0;
+        }
+        items[(head + size++) & (items.length - 1)] = value;
+    }
+
+    long peek() {
+        return items[head];
+    }
+
+    long poll() {
+        long value = items[head];
+        head = (head + 1) & (items.length - 1);
+        size--;
+        return value;
+    }
+}
+
+class RealTimeSimulation {
+    // Periods whose least common multiple is 300000
+    static final long[] PERIODS = {
+        1000, 2000, 2500, 4000, 5000, 6000, 7500, 10000, 12000, 12500,
+        15000, 20000, 25000, 30000, 37500, 50000, 60000, 75000, 100000,
+    };
+
+    // UUniFast (Bini and Buttazzo): n utilisations summing to total, uniformly distributed.
+    static TaskSet random(int n, double total, double deadlineRatio, double sporadicShare, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] period = new long[n];
+        long[] wcet = new long[n];
+        long[] deadline = new long[n];
+        boolean[] sporadic = new boolean[n];
+        double sum = total;
+        // Rounding error carried to the next task so the total utilisation stays on target
+        double carry = 0;
+        for (int i = 0; i < n; i++) {
+            double next = i == n - 1 ? 0 : sum * Math.pow(random.nextDouble(), 1.0 / (n - 1 - i));
+            double u = sum - next;
+            sum = next;
+            period[i] = PERIODS[random.nextInt(PERIODS.length)];
+            double exact = u * period[i] + carry;
+            wcet[i] = Math.max(1, Math.round(exact));
+            carry = exact - wcet[i];
+            deadline[i] = Math.max(wcet[i], Math.round(deadlineRatio * period[i]));
+            sporadic[i] = random.nextDouble() < sporadicShare;
+        }
+        return new TaskSet(null, period, wcet, deadline, new long[n], sporadic);
+    }
+
+    static TaskSet parse(String[] specs, int count) {
+        long[] period = new long[count];
+        long[] wcet = new long[count];
+        long[] deadline = new long[count];
+        long[] offset = new long[count];
+        for (int i = 0; i < count; i++) {
+            String[] parts = specs[i].split(":");
+            if (parts.length < 2 || parts.length > 4) {
+                throw new IllegalArgumentException("Expected task=<period>:<wcet>[:<deadline>[:<offset>]] but got: " + specs[i]);
+            }
+            period[i] = Long.parseLong(parts[0]);
+            wcet[i] = Long.parseLong(parts[1]);
+            deadline[i] = parts.length > 2 ? Long.parseLong(parts[2]) : period[i];
+            offset[i] = parts.length > 3 ? Long.parseLong(parts[3]) : 0;
+        }
+        return new TaskSet(null, period, wcet, deadline, offset, new boolean[count]);
+    }
+
+    public static void main(String[] args) {
+        int tasks = 50;
+        double utilisation = 0.9, deadlineRatio = 1.0, sporadicShare = 0;
+        long seed = 42, horizonCap = 100_000_000L;
+        String[] specs = new String[args.length];
+        int specCount = 0;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "tasks": tasks = Integer.parseInt(value); break;
+                case "utilisation": utilisation = Double.parseDouble(value); break;
+                case "deadline": deadlineRatio = Double.parseDouble(value); break;
+                case "sporadic": sporadicShare = Double.parseDouble(value); break;
+                case "seed": seed = Long.parseLong(value); break;
+                case "horizon": horizonCap = Long.parseLong(value); break;
+                case "task": specs[specCount++] = value; break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        if (tasks <= 0 || utilisation <= 0 || deadlineRatio <= 0 || horizonCap <= 0) {
+            throw new IllegalArgumentException("tasks, utilisation, deadline and horizon must be > 0!");
+        }
+
+        TaskSet set = specCount > 0 ? parse(specs, specCount) : random(tasks, utilisation, deadlineRatio, sporadicShare, seed);
+        long horizon = Math.min(horizonCap, set.maxOffset() + set.hyperperiod(horizonCap));
+        System.out.printf("%d tasks, U = %.4f, hyperperiod %d, simulating %d time units%n",
+                set.size(), set.utilisation(), set.hyperperiod(horizonCap), horizon);
+
+        long started = System.nanoTime();
+        Schedulability.Verdict edf = Schedulability.edf(set);
+        Schedulability.Verdict rm = Schedulability.rm(set);
+        System.out.printf("EDF test: %s%nRM test:  %s%nTests took %s%n%n", edf, rm,
+                RunCost.formatNanos(System.nanoTime() - started));
+
+        System.out.printf("%-6s%12s%10s%14s%14s%10s%n", "Policy", "Jobs", "Misses", "Max lateness", "Preemptions", "Busy");
+        for (RealTimeEngine.Policy policy : RealTimeEngine.Policy.values()) {
+            RealTimeEngine engine = new RealTimeEngine(policy, seed);
+            RealTimeResult result = engine.simulate(set, horizon, null);
+            System.out.printf("%-6s%12d%10d%14d%14d%9.1f%%%n", engine.name(), result.totalJobs(), result.totalMisses(),
+                    result.maxLateness(), result.preemptions,
+                    100.0 * result.busyTime / Math.max(1, result.busyTime + result.idleTime));
+            System.out.println("       Run cost: " + result.cost);
+        }
+    }
+}
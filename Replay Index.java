@@ -0,0 +1,296 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Scrubbing through a finished schedule. The state at any time T, meaning the running
+// process, the ready processes and what each has left, follows from the workload and the
+// timeline alone, so one index serves every engine. Rebuilding it from zero costs the
+// whole timeline, though, so the index keeps checkpoints: at every checkpoint segment the
+// processes that have arrived and not completed, with their remaining time. A seek
+// restores the last checkpoint before T and replays the segments from there.
+//
+// Checkpoints are at least interval segments apart, and at least as many segments as the
+// checkpoint holds processes. A checkpoint then never stores more entries than the
+// segments it covers, and a seek replays no more segments than it has to list anyway.
+final class ScheduleReplay {
+    private final Workload workload;
+    private final Timeline timeline;
+    private final int[] order;
+
+    // Checkpoint c describes the instant before segment segment[c] starts
+    private int[] segment = new int[16];
+    private int[] time = new int[16];
+    private int[] arrived = new int[16];
+    private int[] offset = new int[17];
+    private int checkpoints;
+    // Processes of all checkpoints in arrival order, with their remaining time
+    private int[] pool = new int[64];
+    private int[] poolRemaining = new int[64];
+
+    // Scratch, only valid for the processes the current build or seek has touched
+    private final int[] remaining;
+
+    ScheduleReplay(Workload workload, Timeline timeline, int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be > 0!");
+        }
+        this.workload = workload;
+        this.timeline = timeline;
+        this.order = workload.arrivalOrder();
+        int n = order.length;
+        remaining = workload.burst.clone();
+
+        // Arrived, unfinished processes as a list over arrival ranks, so walking it yields
+        // them in arrival order; rank n is the list head
+        int[] next = new int[n + 1];
+        int[] prev = new int[n + 1];
+        next[n] = n;
+        prev[n] = n;
+        int[] rank = new int[n];
+        for (int r = 0; r < n; r++) {
+            rank[order[r]] = r;
+        }
+        int active = 0;
+        int joined = 0;
+        int last = 0;
+        int count = timeline.size();
+        for (int s = 0; s < count; s++) {
+            int start = timeline.start(s);
+            while (joined < n && workload.arrival[order[joined]] <= start) {
+                next[joined] = n;
+                prev[joined] = prev[n];
+                next[prev[n]] = joined;
+                prev[n] = joined;
+                joined++;
+                active++;
+            }
+            if (s == 0 || s - last >= Math.max(interval, active)) {
+                checkpoint(s, start, joined, active, next);
+                last = s;
+            }
+            int p = timeline.process(s);
+            remaining[p] -= timeline.end(s) - start;
+            if (remaining[p] == 0) {
+                int r = rank[p];
+                next[prev[r]] = next[r];
+                prev[next[r]] = prev[r];
+                active--;
+            }
+        }
+    }
+
+    private void checkpoint(int s, int start, int joined, int active, int[] next) {
+        if (checkpoints == segment.length) {
+            int capacity = checkpoints * 2;
+            segment = Arrays.copyOf(segment, capacity);
+            time = Arrays.copyOf(time, capacity);
+            arrived = Arrays.copyOf(arrived, capacity);
+            offset = Arrays.copyOf(offset, capacity + 1);
+        }
+        int from = offset[checkpoints];
+        if (from + active > pool.length) {
+            int capacity = Math.max(pool.length * 2, from + active);
+            pool = Arrays.copyOf(pool, capacity);
+            poolRemaining = Arrays.copyOf(poolRemaining, capacity);
+        }
+        int k = from;
+        int n = order.length;
+        for (int r = next[n]; r != n; r = next[r]) {
+            pool[k] = order[r];
+            poolRemaining[k] = remaining[order[r]];
+            k++;
+        }
+        segment[checkpoints] = s;
+        time[checkpoints] = start;
+        arrived[checkpoints] = joined;
+        offset[checkpoints + 1] = k;
+        checkpoints++;
+    }
+
+    int checkpoints() {
+        return checkpoints;
+    }
+
+    Timeline timeline() {
+        return timeline;
+    }
+
+    Workload workload() {
+        return workload;
+    }
+
+    // The schedule at time, after everything that happens at time itself: segments ending
+    // then are done, and a segment starting then is running.
+    ReplayState at(int time) {
+        int n = order.length;
+        int lo = 0;
+        int hi = checkpoints;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (this.time[mid] <= time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        // Before the first segment nothing has run yet, so an empty start will do
+        int[] ids = new int[16];
+        int size = 0;
+        int joined = 0;
+        int s = 0;
+        if (lo > 0) {
+            int c = lo - 1;
+            int count = offset[c + 1] - offset[c];
+            ids = Arrays.copyOf(ids, Math.max(16, count + 16));
+            for (int k = offset[c]; k < offset[c + 1]; k++) {
+                int p = pool[k];
+                remaining[p] = poolRemaining[k];
+                ids[size++] = p;
+            }
+            joined = arrived[c];
+            s = segment[c];
+        }
+
+        int running = -1;
+        int segments = timeline.size();
+        for (; s < segments && timeline.start(s) <= time; s++) {
+            int start = timeline.start(s);
+            while (joined < n && workload.arrival[order[joined]] <= start) {
+                ids = join(ids, size++, order[joined++]);
+            }
+            int p = timeline.process(s);
+            int end = timeline.end(s);
+            remaining[p] -= Math.min(end, time) - start;
+            if (end > time) {
+                running = p;
+            }
+        }
+        while (joined < n && workload.arrival[order[joined]] <= time) {
+            ids = join(ids, size++, order[joined++]);
+        }
+
+        int ready = 0;
+        int[] left = new int[size];
+        for (int k = 0; k < size; k++) {
+            int p = ids[k];
+            if (p != running && remaining[p] > 0) {
+                ids[ready] = p;
+                left[ready] = remaining[p];
+                ready++;
+            }
+        }
+        return new ReplayState(time, running, running >= 0 ? remaining[running] : 0,
+                Arrays.copyOf(ids, ready), Arrays.copyOf(left, ready), s);
+    }
+
+    private int[] join(int[] ids, int k, int p) {
+        if (k == ids.length) {
+            ids = Arrays.copyOf(ids, k * 2);
+        }
+        ids[k] = p;
+        remaining[p] = workload.burst[p];
+        return ids;
+    }
+
+    // Start of the first segment after time, or -1 at the end of the schedule.
+    int nextDispatch(int time) {
+        int i = timeline.seek(time);
+        if (i < timeline.size() && timeline.start(i) <= time) {
+            i++;
+        }
+        return i < timeline.size() ? timeline.start(i) : -1;
+    }
+
+    // Start of the last segment before time, or -1 if none started earlier.
+    int previousDispatch(int time) {
+        int i = timeline.seek(time - 1);
+        if (i < timeline.size() && timeline.start(i) < time) {
+            return timeline.start(i);
+        }
+        return i > 0 ? timeline.start(i - 1) : -1;
+    }
+}
+
+// What the schedule looks like at one instant. The ready processes are in arrival order.
+final class ReplayState {
+    final int time;
+    // -1 while the CPU is idle
+    final int running;
+    final int runningRemaining;
+    final int[] ready;
+    final int[] readyRemaining;
+    // Segments that had started by time
+    final int dispatched;
+
+    ReplayState(int time, int running, int runningRemaining, int[] ready, int[] readyRemaining, int dispatched) {
+        this.time = time;
+        this.running = running;
+        this.runningRemaining = runningRemaining;
+        this.ready = ready;
+        this.readyRemaining = readyRemaining;
+        this.dispatched = dispatched;
+    }
+}
+
+// Seek latency on a large round robin schedule: builds the index, then seeks to random
+// times and reports the mean and worst seek.
+//
+// Usage: java ReplaySimulation [processes=100000] [quantum=4] [interval=256] [seeks=10000]
+//        [seed=42]
+class ReplaySimulation {
+    public static void main(String[] args) {
+        int processes = 100_000, quantum = 4, interval = 256, seeks = 10_000;
+        long seed = 42;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "processes": processes = Integer.parseInt(value); break;
+                case "quantum": quantum = Integer.parseInt(value); break;
+                case "interval": interval = Integer.parseInt(value); break;
+                case "seeks": seeks = Integer.parseInt(value); break;
+                case "seed": seed = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        if (processes <= 0 || seeks <= 0) {
+            throw new IllegalArgumentException("processes and seeks must be > 0!");
+        }
+
+        // Arrivals at 90% load, so the ready queue stays short but never quite empties
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] at = new int[processes];
+        int[] bt = new int[processes];
+        for (int i = 0; i < processes; i++) {
+            bt[i] = 1 + random.nextInt(19);
+            at[i] = random.nextInt((int) Math.min(Integer.MAX_VALUE, processes * 10L / 9 * 10));
+        }
+        Workload workload = new Workload(at, bt);
+        ScheduleResult result = new RoundRobinEngine(quantum).run(workload);
+
+        RunCost.Meter meter = RunCost.start();
+        ScheduleReplay replay = new ScheduleReplay(workload, result.timeline, interval);
+        System.out.printf("Segments: %,d, checkpoints: %,d%n", result.timeline.size(), replay.checkpoints());
+        System.out.println("Index cost: " + meter.stop());
+
+        int makespan = result.makespan();
+        long[] elapsed = new long[seeks];
+        long total = 0;
+        long ready = 0;
+        for (int k = 0; k < seeks; k++) {
+            int t = random.nextInt(makespan + 1);
+            long t0 = System.nanoTime();
+            ReplayState state = replay.at(t);
+            elapsed[k] = System.nanoTime() - t0;
+            total += elapsed[k];
+            ready += state.ready.length;
+        }
+        Arrays.sort(elapsed);
+        System.out.printf("Seeks: mean %s, p99 %s, max %s, %.1f ready on average%n", RunCost.formatNanos(total / seeks),
+                RunCost.formatNanos(elapsed[(int) Math.ceil(0.99 * seeks) - 1]), RunCost.formatNanos(elapsed[seeks - 1]),
+                (double) ready / seeks);
+    }
+}
@@ -0,0 +1,428 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Result and timeline export. Both formats write through reusable direct buffers straight
+// to a FileChannel, numbers are formatted by hand into the buffer, and no row allocates,
+// so a streaming run can export 10^8 rows at about disk speed.
+//
+// Per-process columns: process, arrival, burst, completion, turnaround, waiting.
+// Timeline columns: process, start, end. process is the index in the workload, or the
+// position in the arrival stream for the streaming engines.
+
+// One row at a time into a file; ResultExport and TimelineExport pick the format.
+interface RowWriter extends AutoCloseable {
+    void value(long v);
+
+    void endRow();
+
+    @Override
+    void close();
+
+    // Comma-separated with a header line when the file name ends in .csv, columnar
+    // otherwise.
+    static RowWriter open(Path path, String[] columns, int[] widths) throws IOException {
+        if (path.getFileName().toString().endsWith(".csv")) {
+            return new CsvChannelWriter(path, columns);
+        }
+        return new ColumnarChannelWriter(path, columns, widths, ColumnarChannelWriter.CHUNK_ROWS);
+    }
+}
+
+// RFC 4180 CSV without quoting, which integer columns never need.
+final class CsvChannelWriter implements RowWriter {
+    private final TextChannelWriter out;
+    private boolean first = true;
+
+    CsvChannelWriter(Path path, String[] columns) throws IOException {
+        out = new TextChannelWriter(path);
+        out.text(String.join(",", columns));
+        out.text("\r\n");
+    }
+
+    @Override
+    public void value(long v) {
+        if (!first) {
+            out.ascii(',');
+        }
+        first = false;
+        out.number(v);
+    }
+
+    @Override
+    public void endRow() {
+        out.ascii('\r');
+        out.ascii('\n');
+        first = true;
+    }
+
+    @Override
+    public void close() {
+        out.close();
+    }
+}
+
+// ASCII text into a file without allocating: numbers are formatted two digits at a time
+// from a table, backwards into a small scratch array, and everything collects in a heap
+// array that goes into a direct buffer in one bulk put; putting each number into a
+// direct buffer on its own costs more than formatting it. Used for CSV and SVG.
+final class TextChannelWriter {
+    private static final byte[] PAIRS = new byte[200];
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            PAIRS[2 * i] = (byte) ('0' + i / 10);
+            PAIRS[2 * i + 1] = (byte) ('0' + i % 10);
+        }
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+    // Sign and 19 digits, filled from the end
+    private final byte[] scratch = new byte[20];
+    private final byte[] pending = new byte[1 << 16];
+    private int size;
+
+    TextChannelWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    void ascii(char c) {
+        if (size == pending.length) {
+            drain();
+        }
+        pending[size++] = (byte) c;
+    }
+
+    // Characters outside ASCII are written as '?'; callers escape what their format needs.
+    void text(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            ascii(c < 128 ? c : '?');
+        }
+    }
+
+    void number(long v) {
+        byte[] out = scratch;
+        int i = out.length;
+        boolean negative = v < 0;
+        if (v == Long.MIN_VALUE) {
+            // The one value that has no positive counterpart
+            out[--i] = '8';
+            v = -(v / 10);
+        } else if (negative) {
+            v = -v;
+        }
+        while (v > Integer.MAX_VALUE) {
+            long q = v / 100;
+            int r = (int) (v - q * 100);
+            out[--i] = PAIRS[2 * r + 1];
+            out[--i] = PAIRS[2 * r];
+            v = q;
+        }
+        int w = (int) v;
+        while (w >= 100) {
+            int q = w / 100;
+            int r = w - q * 100;
+            out[--i] = PAIRS[2 * r + 1];
+            out[--i] = PAIRS[2 * r];
+            w = q;
+        }
+        if (w >= 10) {
+            out[--i] = PAIRS[2 * w + 1];
+            out[--i] = PAIRS[2 * w];
+        } else {
+            out[--i] = (byte) ('0' + w);
+        }
+        if (negative) {
+            out[--i] = '-';
+        }
+        if (size > pending.length - out.length) {
+            drain();
+        }
+        byte[] to = pending;
+        int at = size;
+        while (i < out.length) {
+            to[at++] = out[i++];
+        }
+        size = at;
+    }
+
+    // Six lowercase hex digits of the low 24 bits, as in an RGB colour.
+    void hex(int rgb) {
+        if (size > pending.length - 6) {
+            drain();
+        }
+        for (int shift = 20; shift >= 0; shift -= 4) {
+            pending[size++] = HEX[(rgb >>> shift) & 15];
+        }
+    }
+
+    void close() {
+        drain();
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void drain() {
+        if (buffer.remaining() < size) {
+            flush();
+        }
+        buffer.put(pending, 0, size);
+        size = 0;
+    }
+
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+}
+
+// Column-chunked binary, little-endian throughout so it maps directly onto numpy, Arrow
+// or a C struct on x86 and ARM:
+//
+//   header   int MAGIC, int VERSION, int columns, int chunkRows, then per column an int
+//            width (4 or 8 bytes) and the name as an int length plus ASCII bytes, padded
+//            with zeros to a multiple of 8 bytes
+//   chunk    long rows, then each column as rows values of its width, each column padded
+//            to a multiple of 8 bytes; every chunk but the last holds chunkRows rows
+//   trailer  long -1, long total rows
+//
+// Every value stays 8-byte aligned, so a reader can take any column of any chunk as a
+// typed array in place, or skip whole chunks by their size. Rows fill plain arrays, one
+// per column; a full chunk is bulk-copied into one direct buffer per column and goes out
+// in a single gathering write.
+final class ColumnarChannelWriter implements RowWriter {
+    static final int MAGIC = 0x4C4F4343; // "CCOL" read little-endian
+    static final int VERSION = 1;
+    static final int CHUNK_ROWS = 1 << 16;
+
+    private final FileChannel channel;
+    private final int chunkRows;
+    private final int[] widths;
+    // Values of the current chunk, by column; only the array matching the width is set
+    private final int[][] ints;
+    private final long[][] longs;
+    // Chunk header and the columns, in the order they are written
+    private final ByteBuffer[] chunk;
+    private int column;
+    private int rows;
+    private long total;
+
+    ColumnarChannelWriter(Path path, String[] columns, int[] widths, int chunkRows) throws IOException {
+        if (columns.length != widths.length || columns.length == 0) {
+            throw new IllegalArgumentException("Need a width for every column, and at least one column!");
+        }
+        if (chunkRows <= 0) {
+            throw new IllegalArgumentException("Chunk rows must be > 0!");
+        }
+        this.chunkRows = chunkRows;
+        this.widths = widths.clone();
+        ints = new int[columns.length][];
+        longs = new long[columns.length][];
+        chunk = new ByteBuffer[columns.length + 1];
+        chunk[0] = ByteBuffer.allocateDirect(8).order(ByteOrder.LITTLE_ENDIAN);
+        int headerBytes = 16;
+        for (int c = 0; c < columns.length; c++) {
+            if (widths[c] != 4 && widths[c] != 8) {
+                throw new IllegalArgumentException("Column width must be 4 or 8 bytes!");
+            }
+            chunk[c + 1] = ByteBuffer.allocateDirect(padded((long) chunkRows * widths[c])).order(ByteOrder.LITTLE_ENDIAN);
+            if (widths[c] == 4) {
+                ints[c] = new int[chunkRows];
+            } else {
+                longs[c] = new long[chunkRows];
+            }
+            headerBytes += 8 + columns[c].length();
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(padded(headerBytes)).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(columns.length).putInt(chunkRows);
+        for (int c = 0; c < columns.length; c++) {
+            byte[] name = columns[c].getBytes(StandardCharsets.US_ASCII);
+            header.putInt(widths[c]).putInt(name.length).put(name);
+        }
+        header.position(header.capacity()).flip();
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        write(new ByteBuffer[]{header});
+    }
+
+    private static int padded(long bytes) {
+        if (bytes > Integer.MAX_VALUE - 7) {
+            throw new IllegalArgumentException("Chunk column does not fit in a buffer!");
+        }
+        return (int) (bytes + 7) & ~7;
+    }
+
+    @Override
+    public void value(long v) {
+        if (widths[column] == 4) {
+            ints[column][rows] = (int) v;
+        } else {
+            longs[column][rows] = v;
+        }
+        column++;
+    }
+
+    @Override
+    public void endRow() {
+        if (column != widths.length) {
+            throw new IllegalStateException("Row has " + column + " of " + widths.length + " values!");
+        }
+        column = 0;
+        total++;
+        if (++rows == chunkRows) {
+            flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (rows > 0) {
+            flush();
+        }
+        chunk[0].clear();
+        ByteBuffer trailer = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN).putLong(-1).putLong(total);
+        trailer.flip();
+        try {
+            write(new ByteBuffer[]{trailer});
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flush() {
+        chunk[0].clear();
+        chunk[0].putLong(rows).flip();
+        for (int c = 0; c < widths.length; c++) {
+            ByteBuffer buffer = chunk[c + 1];
+            buffer.clear();
+            if (widths[c] == 4) {
+                buffer.asIntBuffer().put(ints[c], 0, rows);
+                if ((rows & 1) != 0) {
+                    buffer.putInt(rows * 4, 0);
+                }
+            } else {
+                buffer.asLongBuffer().put(longs[c], 0, rows);
+            }
+            buffer.limit(padded((long) rows * widths[c]));
+        }
+        try {
+            write(chunk);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        rows = 0;
+    }
+
+    private void write(ByteBuffer[] buffers) throws IOException {
+        ByteBuffer last = buffers[buffers.length - 1];
+        while (last.hasRemaining()) {
+            channel.write(buffers);
+        }
+    }
+}
+
+// Per-process results, from a finished ScheduleResult or as a streaming engine completes
+// them.
+final class ResultExport implements CompletionSink, AutoCloseable {
+    static final String[] COLUMNS = {"process", "arrival", "burst", "completion", "turnaround", "waiting"};
+    static final int[] WIDTHS = {8, 8, 4, 8, 8, 8};
+
+    private final RowWriter writer;
+
+    ResultExport(Path path) throws IOException {
+        writer = RowWriter.open(path, COLUMNS, WIDTHS);
+    }
+
+    static void write(ScheduleResult result, Path path) throws IOException {
+        try (ResultExport export = new ResultExport(path)) {
+            Workload workload = result.workload;
+            for (int i = 0; i < result.completion.length; i++) {
+                export.completed(i, workload.arrival[i], workload.burst[i], result.completion[i]);
+            }
+        }
+    }
+
+    // Writes the results to path and the timeline beside it as <name>-timeline<.ext>, in
+    // the same format. Returns the timeline file.
+    static Path writeWithTimeline(ScheduleResult result, Path path) throws IOException {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        Path timeline = path.resolveSibling(dot <= 0 ? name + "-timeline"
+                : name.substring(0, dot) + "-timeline" + name.substring(dot));
+        write(result, path);
+        TimelineExport.write(result.timeline, timeline);
+        return timeline;
+    }
+
+    @Override
+    public void completed(long id, long arrival, int burst, long completion) {
+        writer.value(id);
+        writer.value(arrival);
+        writer.value(burst);
+        writer.value(completion);
+        writer.value(completion - arrival);
+        writer.value(completion - arrival - burst);
+        writer.endRow();
+    }
+
+    @Override
+    public void close() {
+        writer.close();
+    }
+}
+
+// Timeline segments, from a finished Timeline, heap or spilled, or as an engine
+// dispatches them.
+final class TimelineExport implements SchedulerListener, AutoCloseable {
+    static final String[] COLUMNS = {"process", "start", "end"};
+    static final int[] WIDTHS = {8, 8, 8};
+
+    private final RowWriter writer;
+
+    TimelineExport(Path path) throws IOException {
+        writer = RowWriter.open(path, COLUMNS, WIDTHS);
+    }
+
+    static void write(Timeline timeline, Path path) throws IOException {
+        try (TimelineExport export = new TimelineExport(path)) {
+            for (int i = 0; i < timeline.size(); i++) {
+                export.dispatched(timeline.process(i), timeline.start(i), timeline.end(i), 0);
+            }
+        }
+    }
+
+    @Override
+    public void dispatched(long process, long start, long end, int ready) {
+        writer.value(process);
+        writer.value(start);
+        writer.value(end);
+        writer.endRow();
+    }
+
+    @Override
+    public void close() {
+        writer.close();
+    }
+}
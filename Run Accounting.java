@@ -0,0 +1,124 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+// What a scheduling run cost the JVM: wall time, CPU time and bytes allocated by the
+// measuring thread, plus collections and collection time across the whole JVM.
+final class RunCost {
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+    private static final List<GarbageCollectorMXBean> COLLECTORS = ManagementFactory.getGarbageCollectorMXBeans();
+
+    final long wallNanos;
+    final long cpuNanos;
+    final long allocatedBytes;
+    final long gcCount;
+    final long gcMillis;
+
+    RunCost(long wallNanos, long cpuNanos, long allocatedBytes, long gcCount, long gcMillis) {
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.gcCount = gcCount;
+        this.gcMillis = gcMillis;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (threads.isThreadAllocatedMemorySupported() && !threads.isThreadAllocatedMemoryEnabled()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+        if (threads.isCurrentThreadCpuTimeSupported() && !threads.isThreadCpuTimeEnabled()) {
+            threads.setThreadCpuTimeEnabled(true);
+        }
+        return threads;
+    }
+
+    // CPU time of the current thread in nanoseconds, or -1 when unsupported.
+    static long threadCpuNanos() {
+        return THREADS != null && THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    // Bytes allocated so far by the current thread, or -1 when unsupported.
+    static long threadAllocatedBytes() {
+        return THREADS != null && THREADS.isThreadAllocatedMemorySupported()
+                ? THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : COLLECTORS) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : COLLECTORS) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    static Meter start() {
+        return new Meter();
+    }
+
+    // Measures from construction to stop() on the thread that created it.
+    static final class Meter {
+        private final long wall = System.nanoTime();
+        private final long cpu = threadCpuNanos();
+        private final long allocated = threadAllocatedBytes();
+        private final long collections = gcCount();
+        private final long collectionMillis = gcMillis();
+
+        RunCost stop() {
+            long cpuNow = threadCpuNanos();
+            long allocatedNow = threadAllocatedBytes();
+            return new RunCost(System.nanoTime() - wall,
+                    cpu < 0 ? -1 : cpuNow - cpu,
+                    allocated < 0 ? -1 : allocatedNow - allocated,
+                    gcCount() - collections,
+                    gcMillis() - collectionMillis);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Wall %s, CPU %s, Allocated %s, GC %d (%d ms)",
+                formatNanos(wallNanos), cpuNanos < 0 ? "n/a" : formatNanos(cpuNanos),
+                allocatedBytes < 0 ? "n/a" : formatBytes(allocatedBytes), gcCount, gcMillis);
+    }
+
+    String toJson() {
+        return "{\"wallNanos\":" + wallNanos + ",\"cpuNanos\":" + cpuNanos + ",\"allocatedBytes\":" + allocatedBytes
+                + ",\"gcCount\":" + gcCount + ",\"gcMillis\":" + gcMillis + "}";
+    }
+
+    static String formatNanos(long nanos) {
+        if (nanos < 1_000_000) {
+            return String.format("%.1f us", nanos / 1e3);
+        }
+        if (nanos < 1_000_000_000) {
+            return String.format("%.2f ms", nanos / 1e6);
+        }
+        return String.format("%.2f s", nanos / 1e9);
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        if (bytes < 1024L * 1024 * 1024) {
+            return String.format("%.1f MB", bytes / (1024.0 * 1024));
+        }
+        return String.format("%.2f GB", bytes / (1024.0 * 1024 * 1024));
+    }
+}
@@ -0,0 +1,1324 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+import javax.swing.SwingWorker;
+
+// Every run ever recorded, kept in one append-only log so results outlive the window that
+// computed them. A record is framed as length, CRC32 and body; a run record holds the
+// workload hash, algorithm and quantum, the summary metrics, a waiting-time histogram and
+// an optional path to an exported timeline. Linking a timeline later and deleting a run
+// are records of their own, so nothing in the file is ever rewritten in place.
+//
+// Opening the log scans it once into columns of the summary fields, with posting lists by
+// algorithm, by algorithm and quantum, and by workload. Queries walk the shortest posting
+// list that applies and read the columns, never the log; only the histogram and timeline
+// of a single run are read back from disk. A torn record at the end, left by a crash
+// mid-append, is moved to a .torn file beside the log on open; a damaged record with
+// intact ones after it makes opening fail instead, so no recorded run is ever dropped.
+// repair then salvages every intact record into a new log and keeps the damaged one.
+//
+// Any number of processes can share the log. Each takes the lock on the .lock file beside
+// it only to open, flush or compact. A flush first reads the records others appended since
+// and then writes its own runs at the end, giving them their ids on the way, so an
+// appended run has an id and shows up in queries once it is flushed.
+//
+// Once superseded records (deleted runs, timeline links and deletions) pass COMPACT_BYTES
+// and outweigh the live runs, the log is rewritten without them into a temporary file
+// that then replaces it. The header keeps the next run id, so ids are never reused.
+// Compaction also counts up a generation kept in the lock file; a process that sees it
+// change holds the replaced file and reloads the log from its path.
+final class RunStore implements AutoCloseable {
+    static final int MAGIC = 0x43435253; // "CCRS"
+    static final int VERSION = 1;
+    // Magic, version and next id
+    static final int HEADER_BYTES = 16;
+    static final byte RUN = 1;
+    static final byte TIMELINE = 2;
+    static final byte DELETE = 3;
+    static final int MAX_STRING = 4096;
+    static final int MAX_BODY = 1 << 16;
+    static final long COMPACT_BYTES = 1 << 20;
+
+    // Held around every file lock taken in this JVM, as two channels of one JVM cannot both
+    // lock the same file
+    private static final Object FILE_LOCKS = new Object();
+
+    private static RunStore shared;
+    private static boolean sharedFailed;
+    // Why the windows are not recording, shown in place of the history line
+    private static String sharedProblem = "History is off";
+
+    private final Path path;
+    private final FileChannel lockChannel;
+    private FileChannel channel;
+    // Compactions of the log seen so far
+    private long generation;
+    // Frames appended but not yet written, and the runs among them, which get their ids
+    // when they are written
+    private final ByteBuffer pending = ByteBuffer.allocateDirect(1 << 16);
+    private final List<StoredRun> pendingRuns = new ArrayList<>();
+    private final ByteBuffer frame = ByteBuffer.allocate(MAX_BODY + 8);
+    // End of the last record read or written
+    private long end;
+    private long nextId;
+
+    // One row per run record in log order, deleted ones included until compaction
+    private int rows;
+    private long[] ids = new long[1024];
+    private long[] times = new long[1024];
+    private long[] workloads = new long[1024];
+    private int[] algorithms = new int[1024];
+    private int[] quanta = new int[1024];
+    private int[] processes = new int[1024];
+    private double[] waiting = new double[1024];
+    private double[] turnaround = new double[1024];
+    private int[] makespans = new int[1024];
+    private long[] offsets = new long[1024];
+    private int[] frameBytes = new int[1024];
+    private final BitSet deleted = new BitSet();
+    private int live;
+    private long liveBytes;
+    private long deadBytes;
+    // Timelines linked after the run was recorded, by run id
+    private final Map<Long, String> timelines = new HashMap<>();
+
+    private final List<String> algorithmNames = new ArrayList<>();
+    private final Map<String, Integer> algorithmIds = new HashMap<>();
+    private final List<Postings> byAlgorithm = new ArrayList<>();
+    // Keyed by algorithm << 32 | quantum
+    private final Map<Long, Postings> byParameter = new HashMap<>();
+    private final Map<Long, Postings> byWorkload = new HashMap<>();
+
+    // Rows in ascending order.
+    private static final class Postings {
+        int[] rows = new int[4];
+        int size;
+
+        void add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size << 1);
+            }
+            rows[size++] = row;
+        }
+    }
+
+    private interface FrameVisitor {
+        void visit(ByteBuffer frame, long offset) throws IOException;
+    }
+
+    // Average waiting time per bucket of consecutive matching runs, oldest first.
+    static final class Trend {
+        final long[] from;
+        final long[] to;
+        final int[] runs;
+        final double[] averageWaiting;
+
+        Trend(int buckets) {
+            from = new long[buckets];
+            to = new long[buckets];
+            runs = new int[buckets];
+            averageWaiting = new double[buckets];
+        }
+    }
+
+    RunStore(Path path) throws IOException {
+        this.path = path.toAbsolutePath();
+        if (this.path.getParent() != null) {
+            Files.createDirectories(this.path.getParent());
+        }
+        lockChannel = FileChannel.open(this.path.resolveSibling(this.path.getFileName() + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            synchronized (FILE_LOCKS) {
+                try (FileLock lock = lockChannel.lock()) {
+                    // Opened under the lock, so a compaction cannot replace the file in between
+                    channel = open(this.path);
+                    generation = generation(lockChannel);
+                    load();
+                    if (worthCompacting()) {
+                        rewrite();
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    static Path defaultPath() {
+        String configured = System.getProperty("ccopsysl.runs");
+        return configured != null ? Paths.get(configured)
+                : Paths.get(System.getProperty("user.home"), ".ccopsysl", "runs.log");
+    }
+
+    // The store the windows record into, opened on first use and closed on exit, or null
+    // when it cannot be opened; that failure is final and printed once. Opening scans the
+    // whole log, so the windows only reach it through openShared, remember and
+    // rememberTimeline, which work off the event dispatch thread.
+    static synchronized RunStore shared() {
+        if (shared == null && !sharedFailed) {
+            try {
+                shared = new RunStore(defaultPath());
+                RunStore store = shared;
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        store.close();
+                    } catch (IOException e) {
+                        System.err.println("Could not close the run history: " + e.getMessage());
+                    }
+                }, "run-store-close"));
+            } catch (IOException | RuntimeException e) {
+                sharedFailed = true;
+                sharedProblem = "History is off: " + e.getMessage();
+                System.err.println("Run history is not available: " + e.getMessage());
+            }
+        }
+        return shared;
+    }
+
+    private static synchronized String unavailable() {
+        return sharedProblem;
+    }
+
+    // Opens the shared store in the background as a window starts, so its first run does
+    // not wait for the scan.
+    static void openShared() {
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                shared();
+                return null;
+            }
+        }.execute();
+    }
+
+    // Records result in the shared store in the background, then hands done the stored run
+    // and the line to show for it on the event dispatch thread. The run is null when there
+    // is no store or the run could not be written, and the line says why.
+    static void remember(String algorithm, int quantum, ScheduleResult result, BiConsumer<StoredRun, String> done) {
+        new SwingWorker<String, Void>() {
+            private StoredRun run;
+
+            @Override
+            protected String doInBackground() {
+                run = record(algorithm, quantum, result);
+                return run != null ? describe(run) : unavailable();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    done.accept(run, get());
+                } catch (InterruptedException | ExecutionException e) {
+                    done.accept(null, "Run not saved: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private static StoredRun record(String algorithm, int quantum, ScheduleResult result) {
+        RunStore store = shared();
+        if (store == null) {
+            return null;
+        }
+        StoredRun run = StoredRun.of(algorithm, quantum, result, null);
+        try {
+            store.append(run);
+            store.flush();
+            return run;
+        } catch (IOException | RuntimeException e) {
+            synchronized (RunStore.class) {
+                sharedProblem = "Run not saved: " + e.getMessage();
+            }
+            System.err.println("Could not record the run: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // The run's id and the best run recorded so far on the same workload.
+    private static String describe(StoredRun run) {
+        RunStore store = shared();
+        try {
+            StoredRun best = store.best(null, null, run.workload);
+            return String.format("Saved as run #%d; best of %d runs on this workload: %s, avg WT %.2f (run #%d)",
+                    run.id, store.count(null, null, run.workload), best.label(), best.averageWaiting, best.id);
+        } catch (IOException e) {
+            return "Saved as run #" + run.id;
+        }
+    }
+
+    // Links timeline to run in the background; a window without a recorded run does nothing.
+    static void rememberTimeline(StoredRun run, Path timeline) {
+        if (run == null) {
+            return;
+        }
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                RunStore store = shared();
+                try {
+                    store.linkTimeline(run.id, timeline);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Could not link the timeline to run #" + run.id + ": " + e.getMessage());
+                }
+                return null;
+            }
+        }.execute();
+    }
+
+    // A stable 64-bit hash of the arrival, burst and priority columns. Names are left out,
+    // so the same processes under other names count as the same workload.
+    static long workloadHash(Workload workload) {
+        long h = mix(workload.size());
+        for (int i = 0; i < workload.size(); i++) {
+            h = mix(h ^ workload.arrival[i]);
+            h = mix(h ^ ((long) workload.burst[i] << 32 | (workload.priority == null ? 0 : workload.priority[i])));
+        }
+        return h;
+    }
+
+    // The finalizer of SplittableRandom (Stafford's Mix13) over a golden-gamma step.
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    static String hex(long workload) {
+        return String.format("%016x", workload);
+    }
+
+    static long parseWorkload(String hex) {
+        return Long.parseUnsignedLong(hex, 16);
+    }
+
+    synchronized int size() {
+        return live;
+    }
+
+    synchronized long fileBytes() {
+        return end;
+    }
+
+    synchronized List<String> algorithms() {
+        return new ArrayList<>(algorithmNames);
+    }
+
+    // Appends run, buffered until the next flush, which sets its id. A run without a time
+    // is stamped with the current one.
+    synchronized void append(StoredRun run) throws IOException {
+        if (run.time == 0) {
+            run.time = System.currentTimeMillis();
+        }
+        frame.clear();
+        frame.position(8);
+        frame.put(RUN);
+        encode(run, frame);
+        queue();
+        pendingRuns.add(run);
+    }
+
+    // Links the timeline exported for run id.
+    synchronized void linkTimeline(long id, Path timeline) throws IOException {
+        String linked = timeline.toAbsolutePath().toString();
+        flush();
+        if (!isLive(id)) {
+            throw new IllegalArgumentException("No run #" + id + "!");
+        }
+        frame.clear();
+        frame.position(8);
+        frame.put(TIMELINE).putLong(id);
+        putString(frame, linked);
+        queue();
+        flush();
+        compactIfWorthIt();
+    }
+
+    synchronized void delete(long id) throws IOException {
+        flush();
+        if (!isLive(id)) {
+            throw new IllegalArgumentException("No run #" + id + "!");
+        }
+        frame.clear();
+        frame.position(8);
+        frame.put(DELETE).putLong(id);
+        queue();
+        flush();
+        compactIfWorthIt();
+    }
+
+    synchronized boolean isLive(long id) {
+        int row = row(id);
+        return row >= 0 && !deleted.get(row);
+    }
+
+    // The whole run, histogram and timeline included, or null.
+    synchronized StoredRun run(long id) throws IOException {
+        int row = row(id);
+        if (row < 0 || deleted.get(row)) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(frameBytes[row]);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offsets[row] + buffer.position()) < 0) {
+                throw new IOException(path + " is shorter than its index");
+            }
+        }
+        buffer.position(9);
+        StoredRun run = decode(buffer);
+        String linked = timelines.get(id);
+        if (linked != null) {
+            run.timeline = linked;
+        }
+        return run;
+    }
+
+    // The latest count matching runs, newest first. A null algorithm, quantum or workload
+    // matches any.
+    synchronized List<StoredRun> latest(String algorithm, Integer quantum, Long workload, int count)
+            throws IOException {
+        int[] selected = select(algorithm, quantum, workload);
+        List<StoredRun> runs = new ArrayList<>();
+        for (int i = selected.length - 1; i >= 0 && runs.size() < count; i--) {
+            runs.add(run(ids[selected[i]]));
+        }
+        return runs;
+    }
+
+    synchronized int count(String algorithm, Integer quantum, Long workload) {
+        return select(algorithm, quantum, workload).length;
+    }
+
+    // The matching run with the lowest average waiting time, the earliest on a tie, or null.
+    synchronized StoredRun best(String algorithm, Integer quantum, Long workload) throws IOException {
+        int[] selected = select(algorithm, quantum, workload);
+        int best = -1;
+        for (int row : selected) {
+            if (best < 0 || waiting[row] < waiting[best]) {
+                best = row;
+            }
+        }
+        return best < 0 ? null : run(ids[best]);
+    }
+
+    // Runs, mean and lowest average waiting time per quantum of one algorithm on workload.
+    synchronized SortedMap<Integer, double[]> quanta(String algorithm, long workload) {
+        SortedMap<Integer, double[]> byQuantum = new TreeMap<>();
+        for (int row : select(algorithm, null, workload)) {
+            double[] summary = byQuantum.computeIfAbsent(quanta[row], q -> new double[]{0, 0, Double.MAX_VALUE});
+            summary[0]++;
+            summary[1] += (waiting[row] - summary[1]) / summary[0];
+            summary[2] = Math.min(summary[2], waiting[row]);
+        }
+        return byQuantum;
+    }
+
+    // Matching runs in buckets of (almost) equal size, or fewer buckets when there are fewer runs.
+    synchronized Trend trend(String algorithm, Integer quantum, Long workload, int buckets) {
+        if (buckets <= 0) {
+            throw new IllegalArgumentException("Buckets must be > 0!");
+        }
+        int[] selected = select(algorithm, quantum, workload);
+        Trend trend = new Trend(Math.min(buckets, selected.length));
+        int n = trend.runs.length;
+        for (int b = 0; b < n; b++) {
+            int first = (int) ((long) b * selected.length / n);
+            int last = (int) ((long) (b + 1) * selected.length / n);
+            double sum = 0;
+            for (int i = first; i < last; i++) {
+                sum += waiting[selected[i]];
+            }
+            trend.from[b] = times[selected[first]];
+            trend.to[b] = times[selected[last - 1]];
+            trend.runs[b] = last - first;
+            trend.averageWaiting[b] = sum / (last - first);
+        }
+        return trend;
+    }
+
+    // Live rows matching every given key, in log order.
+    private int[] select(String algorithm, Integer quantum, Long workload) {
+        int a = -1;
+        if (algorithm != null) {
+            Integer known = algorithmIds.get(algorithm);
+            if (known == null) {
+                return new int[0];
+            }
+            a = known;
+        }
+        // Walk the shortest posting list that applies; null walks every row
+        Postings walk = null;
+        if (a >= 0) {
+            walk = quantum != null ? byParameter.get((long) a << 32 | (quantum & 0xFFFFFFFFL)) : byAlgorithm.get(a);
+            if (walk == null) {
+                return new int[0];
+            }
+        }
+        if (workload != null) {
+            Postings postings = byWorkload.get(workload);
+            if (postings == null) {
+                return new int[0];
+            }
+            if (walk == null || postings.size < walk.size) {
+                walk = postings;
+            }
+        }
+        int n = walk == null ? rows : walk.size;
+        int[] selected = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int row = walk == null ? i : walk.rows[i];
+            if (deleted.get(row) || (a >= 0 && algorithms[row] != a) || (quantum != null && quanta[row] != quantum)
+                    || (workload != null && workloads[row] != workload)) {
+                continue;
+            }
+            selected[count++] = row;
+        }
+        return count == n ? selected : Arrays.copyOf(selected, count);
+    }
+
+    private int row(long id) {
+        int row = Arrays.binarySearch(ids, 0, rows, id);
+        return row >= 0 ? row : -1;
+    }
+
+    // Frames the body in frame and queues it for the next flush.
+    private void queue() throws IOException {
+        int length = frame.position() - 8;
+        frame.putInt(0, length);
+        frame.flip();
+        if (pending.remaining() < frame.remaining()) {
+            flush();
+        }
+        pending.put(frame);
+    }
+
+    // Reads what other processes appended, then writes the pending frames after it and
+    // adds them to the index.
+    synchronized void flush() throws IOException {
+        synchronized (FILE_LOCKS) {
+            try (FileLock lock = lockChannel.lock()) {
+                catchUp();
+                writePending();
+            }
+        }
+    }
+
+    // Numbers the pending runs from nextId, then writes and indexes every pending frame.
+    // Called with the file lock held. Frames that fail to be written are dropped, and a
+    // part written of one is cut off as a torn record by the next catchUp.
+    private void writePending() throws IOException {
+        pending.flip();
+        try {
+            int run = 0;
+            for (int at = 0; at < pending.limit(); at += 8 + pending.getInt(at)) {
+                if (pending.get(at + 8) == RUN) {
+                    StoredRun stored = pendingRuns.get(run++);
+                    stored.id = nextId++;
+                    pending.putLong(at + 9, stored.id);
+                }
+                pending.putInt(at + 4, crc(pending, at + 8, pending.getInt(at)));
+            }
+            long position = end;
+            ByteBuffer out = pending.duplicate();
+            while (out.hasRemaining()) {
+                position += channel.write(out, position);
+            }
+            for (int at = 0; at < pending.limit(); at += 8 + pending.getInt(at)) {
+                ByteBuffer record = pending.duplicate();
+                record.limit(at + 8 + pending.getInt(at)).position(at);
+                apply(record, end + at);
+            }
+            end = position;
+        } finally {
+            pending.clear();
+            pendingRuns.clear();
+        }
+    }
+
+    // Brings the index up to what other processes wrote since it was last read: the records
+    // they appended, or the whole log again once one of them has compacted it. Called with
+    // the file lock held.
+    private void catchUp() throws IOException {
+        long current = generation(lockChannel);
+        if (current != generation) {
+            channel.close();
+            channel = open(path);
+            generation = current;
+            clear();
+            load();
+            return;
+        }
+        long size = channel.size();
+        if (size > end) {
+            end = cutTornTail(scan(channel, end, this::apply), size);
+        }
+    }
+
+    // The generation in the lock file, 0 while no compaction or repair has written one.
+    private static long generation(FileChannel lockChannel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        while (buffer.hasRemaining()) {
+            if (lockChannel.read(buffer, buffer.position()) < 0) {
+                return 0;
+            }
+        }
+        return buffer.getLong(0);
+    }
+
+    private static void setGeneration(FileChannel lockChannel, long generation) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8).putLong(0, generation);
+        while (buffer.hasRemaining()) {
+            lockChannel.write(buffer, buffer.position());
+        }
+        lockChannel.force(false);
+    }
+
+    // Forces everything appended so far to the disk.
+    synchronized void sync() throws IOException {
+        flush();
+        channel.force(false);
+    }
+
+    private void load() throws IOException {
+        long size = channel.size();
+        if (size < HEADER_BYTES) {
+            // New, or cut short before its first record
+            writeHeader(channel, 1);
+            channel.truncate(HEADER_BYTES);
+            nextId = 1;
+            end = HEADER_BYTES;
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining()) {
+            channel.read(header, header.position());
+        }
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException(path + " is not a run store");
+        }
+        nextId = header.getLong(8);
+        end = cutTornTail(scan(channel, HEADER_BYTES, this::apply), size);
+    }
+
+    // Moves what follows the last intact record at good to a .torn file and returns good.
+    // Only a damaged last record is a torn append; anything with intact records after it
+    // is damage to the log itself and left alone.
+    private long cutTornTail(long good, long size) throws IOException {
+        if (good == size) {
+            return good;
+        }
+        long next = nextFrame(channel, good + 1, size);
+        if (next >= 0) {
+            throw new IOException(path + " is damaged at offset " + good + " but has intact records from offset "
+                    + next + " on; it is left as it is, and RunHistory query=repair salvages it");
+        }
+        Path torn = path.resolveSibling(path.getFileName() + ".torn-" + good);
+        for (int k = 1; Files.exists(torn); k++) {
+            torn = path.resolveSibling(path.getFileName() + ".torn-" + good + "-" + k);
+        }
+        try (FileChannel copy = FileChannel.open(torn, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long copied = 0;
+            while (copied < size - good) {
+                copied += channel.transferTo(good + copied, size - good - copied, copy);
+            }
+            copy.force(true);
+        }
+        System.err.println("Moved " + (size - good) + " bytes of a torn record at the end of " + path + " to "
+                + torn.getFileName());
+        channel.truncate(good);
+        return good;
+    }
+
+    // Offset of the first intact frame starting between from and size, or -1. Reads windows
+    // that overlap by a whole frame, so no candidate is cut in two.
+    private static long nextFrame(FileChannel in, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((1 << 20) + MAX_BODY + 8);
+        long base = from;
+        while (base + 8 <= size) {
+            buffer.clear();
+            int window = (int) Math.min(buffer.capacity(), size - base);
+            buffer.limit(window);
+            while (buffer.hasRemaining()) {
+                if (in.read(buffer, base + buffer.position()) < 0) {
+                    throw new IOException("Log shrank while it was read");
+                }
+            }
+            boolean last = base + window == size;
+            int starts = last ? window - 8 : window - MAX_BODY - 8;
+            for (int i = 0; i <= starts; i++) {
+                int length = buffer.getInt(i);
+                if (length < 9 || length > MAX_BODY || i + 8 + length > window) {
+                    continue;
+                }
+                byte type = buffer.get(i + 8);
+                if ((type == RUN || type == TIMELINE || type == DELETE)
+                        && crc(buffer, i + 8, length) == buffer.getInt(i + 4)) {
+                    return base + i;
+                }
+            }
+            if (last) {
+                break;
+            }
+            base += starts + 1;
+        }
+        return -1;
+    }
+
+    // Copies every intact record of the log at path into a new log that replaces it, jumping
+    // over damaged stretches with nextFrame, and keeps the original beside it as a .damaged
+    // file. Returns what was kept and skipped. Processes with the log open reload it.
+    static String repair(Path path) throws IOException {
+        Path log = path.toAbsolutePath();
+        try (FileChannel lockChannel = FileChannel.open(log.resolveSibling(log.getFileName() + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            synchronized (FILE_LOCKS) {
+                try (FileLock lock = lockChannel.lock();
+                        FileChannel in = FileChannel.open(log, StandardOpenOption.READ)) {
+                    long size = in.size();
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                    while (header.hasRemaining()) {
+                        if (in.read(header, header.position()) < 0) {
+                            throw new IOException(log + " is shorter than a header");
+                        }
+                    }
+                    if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                        throw new IOException(log + " is not a run store");
+                    }
+                    Path repaired = log.resolveSibling(log.getFileName() + ".repair");
+                    long[] kept = {0, HEADER_BYTES};
+                    long skipped = 0;
+                    int stretches = 0;
+                    try (FileChannel out = FileChannel.open(repaired, StandardOpenOption.CREATE,
+                            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                        writeHeader(out, header.getLong(8));
+                        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+                        long from = HEADER_BYTES;
+                        while (from < size) {
+                            long good = scan(in, from, (record, offset) -> {
+                                if (buffer.remaining() < record.remaining()) {
+                                    kept[1] += drain(buffer, out, kept[1]);
+                                }
+                                buffer.put(record);
+                                kept[0]++;
+                            });
+                            if (good >= size) {
+                                break;
+                            }
+                            long next = nextFrame(in, good + 1, size);
+                            skipped += (next < 0 ? size : next) - good;
+                            stretches++;
+                            if (next < 0) {
+                                break;
+                            }
+                            from = next;
+                        }
+                        kept[1] += drain(buffer, out, kept[1]);
+                        out.force(true);
+                    }
+                    Path damaged = log.resolveSibling(log.getFileName() + ".damaged");
+                    for (int k = 1; Files.exists(damaged); k++) {
+                        damaged = log.resolveSibling(log.getFileName() + ".damaged-" + k);
+                    }
+                    // Copied rather than moved, so the log is never missing
+                    Files.copy(log, damaged);
+                    setGeneration(lockChannel, generation(lockChannel) + 1);
+                    Files.move(repaired, log, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    return String.format("Kept %,d records (%,d bytes) and skipped %,d bytes in %d damaged stretches;"
+                            + " the original is %s", kept[0], kept[1], skipped, stretches, damaged.getFileName());
+                }
+            }
+        }
+    }
+
+    // Calls visitor with each intact frame from offset from on and returns where the last
+    // one ends.
+    private static long scan(FileChannel in, long from, FrameVisitor visitor) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        long read = from;
+        long position = from;
+        buffer.flip();
+        while (true) {
+            if (buffer.remaining() >= 8) {
+                int length = buffer.getInt(buffer.position());
+                if (length < 9 || length > MAX_BODY) {
+                    return position;
+                }
+                if (buffer.remaining() >= 8 + length) {
+                    int start = buffer.position();
+                    if (crc(buffer, start + 8, length) != buffer.getInt(start + 4)) {
+                        return position;
+                    }
+                    ByteBuffer record = buffer.duplicate();
+                    record.limit(start + 8 + length);
+                    visitor.visit(record, position);
+                    buffer.position(start + 8 + length);
+                    position += 8 + length;
+                    continue;
+                }
+            }
+            buffer.compact();
+            int n = in.read(buffer, read);
+            buffer.flip();
+            if (n <= 0) {
+                return position;
+            }
+            read += n;
+        }
+    }
+
+    private static int crc(ByteBuffer buffer, int from, int length) {
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buffer.duplicate();
+        body.limit(from + length).position(from);
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    // Applies a framed record, positioned at its length, that starts at offset in the log.
+    private void apply(ByteBuffer record, long offset) throws IOException {
+        int bytes = record.remaining();
+        ByteBuffer body = record.duplicate();
+        body.position(record.position() + 8);
+        byte type = body.get();
+        if (type == RUN) {
+            index(decode(body), offset, bytes);
+            return;
+        }
+        if (type != TIMELINE && type != DELETE) {
+            throw new IOException("Unknown record type " + type + " at " + offset + " in " + path);
+        }
+        long id = body.getLong();
+        int row = row(id);
+        deadBytes += bytes;
+        if (row < 0 || deleted.get(row)) {
+            return;
+        }
+        if (type == TIMELINE) {
+            timelines.put(id, getString(body));
+        } else {
+            deleted.set(row);
+            live--;
+            liveBytes -= frameBytes[row];
+            deadBytes += frameBytes[row];
+            timelines.remove(id);
+        }
+    }
+
+    private void index(StoredRun run, long offset, int bytes) throws IOException {
+        if (rows > 0 && run.id <= ids[rows - 1]) {
+            throw new IOException("Run #" + run.id + " out of order at " + offset + " in " + path);
+        }
+        if (rows == ids.length) {
+            int capacity = rows + (rows >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            times = Arrays.copyOf(times, capacity);
+            workloads = Arrays.copyOf(workloads, capacity);
+            algorithms = Arrays.copyOf(algorithms, capacity);
+            quanta = Arrays.copyOf(quanta, capacity);
+            processes = Arrays.copyOf(processes, capacity);
+            waiting = Arrays.copyOf(waiting, capacity);
+            turnaround = Arrays.copyOf(turnaround, capacity);
+            makespans = Arrays.copyOf(makespans, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            frameBytes = Arrays.copyOf(frameBytes, capacity);
+        }
+        Integer a = algorithmIds.get(run.algorithm);
+        if (a == null) {
+            a = algorithmNames.size();
+            algorithmNames.add(run.algorithm);
+            algorithmIds.put(run.algorithm, a);
+            byAlgorithm.add(new Postings());
+        }
+        int row = rows++;
+        ids[row] = run.id;
+        times[row] = run.time;
+        workloads[row] = run.workload;
+        algorithms[row] = a;
+        quanta[row] = run.quantum;
+        processes[row] = run.processes;
+        waiting[row] = run.averageWaiting;
+        turnaround[row] = run.averageTurnaround;
+        makespans[row] = run.makespan;
+        offsets[row] = offset;
+        frameBytes[row] = bytes;
+        byAlgorithm.get(a).add(row);
+        byParameter.computeIfAbsent((long) a << 32 | (run.quantum & 0xFFFFFFFFL), k -> new Postings()).add(row);
+        byWorkload.computeIfAbsent(run.workload, k -> new Postings()).add(row);
+        live++;
+        liveBytes += bytes;
+        nextId = Math.max(nextId, run.id + 1);
+    }
+
+    private boolean worthCompacting() {
+        return deadBytes > COMPACT_BYTES && deadBytes > liveBytes;
+    }
+
+    private void compactIfWorthIt() throws IOException {
+        if (worthCompacting()) {
+            compact();
+        }
+    }
+
+    // Rewrites the log with only the live runs, linked timelines folded in.
+    synchronized void compact() throws IOException {
+        synchronized (FILE_LOCKS) {
+            try (FileLock lock = lockChannel.lock()) {
+                catchUp();
+                writePending();
+                rewrite();
+            }
+        }
+    }
+
+    // Called with the file lock held, after catching up.
+    private void rewrite() throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeHeader(out, nextId);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            long[] position = {HEADER_BYTES};
+            scan(channel, HEADER_BYTES, (record, offset) -> {
+                int start = record.position();
+                if (record.get(start + 8) != RUN) {
+                    return;
+                }
+                long id = record.getLong(start + 9);
+                int row = row(id);
+                if (row < 0 || deleted.get(row)) {
+                    return;
+                }
+                ByteBuffer copy = record;
+                String linked = timelines.get(id);
+                if (linked != null) {
+                    ByteBuffer body = record.duplicate();
+                    body.position(start + 9);
+                    StoredRun run = decode(body);
+                    run.timeline = linked;
+                    frame.clear();
+                    frame.position(8);
+                    frame.put(RUN);
+                    encode(run, frame);
+                    int length = frame.position() - 8;
+                    frame.putInt(0, length);
+                    frame.putInt(4, crc(frame, 8, length));
+                    frame.flip();
+                    copy = frame;
+                }
+                if (buffer.remaining() < copy.remaining()) {
+                    position[0] += drain(buffer, out, position[0]);
+                }
+                buffer.put(copy);
+            });
+            drain(buffer, out, position[0]);
+            out.force(true);
+        }
+        // Counted up before the move, so a crash in between only makes the others reload
+        // the same log
+        setGeneration(lockChannel, ++generation);
+        channel.close();
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = open(path);
+        clear();
+        load();
+    }
+
+    // Empties the index before the log is read again.
+    private void clear() {
+        rows = 0;
+        live = 0;
+        liveBytes = 0;
+        deadBytes = 0;
+        deleted.clear();
+        timelines.clear();
+        algorithmNames.clear();
+        algorithmIds.clear();
+        byAlgorithm.clear();
+        byParameter.clear();
+        byWorkload.clear();
+    }
+
+    private static int drain(ByteBuffer buffer, FileChannel out, long position) throws IOException {
+        buffer.flip();
+        int written = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            position += out.write(buffer, position);
+        }
+        buffer.clear();
+        return written;
+    }
+
+    private static void writeHeader(FileChannel out, long nextId) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putLong(nextId).flip();
+        while (header.hasRemaining()) {
+            out.write(header, header.position());
+        }
+    }
+
+    private static void encode(StoredRun run, ByteBuffer out) {
+        out.putLong(run.id).putLong(run.time).putLong(run.workload).putInt(run.processes);
+        putString(out, run.algorithm);
+        out.putInt(run.quantum).putDouble(run.averageWaiting).putDouble(run.averageTurnaround)
+                .putInt(run.makespan).putInt(run.maxWaiting);
+        out.put((byte) run.histogram.length);
+        for (int count : run.histogram) {
+            out.putInt(count);
+        }
+        putString(out, run.timeline == null ? "" : run.timeline);
+    }
+
+    private static StoredRun decode(ByteBuffer in) {
+        long id = in.getLong();
+        long time = in.getLong();
+        long workload = in.getLong();
+        int processes = in.getInt();
+        String algorithm = getString(in);
+        int quantum = in.getInt();
+        double averageWaiting = in.getDouble();
+        double averageTurnaround = in.getDouble();
+        int makespan = in.getInt();
+        int maxWaiting = in.getInt();
+        int[] histogram = new int[in.get() & 0xFF];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = in.getInt();
+        }
+        String timeline = getString(in);
+        StoredRun run = new StoredRun(workload, processes, algorithm, quantum, averageWaiting, averageTurnaround,
+                makespan, maxWaiting, histogram, timeline.isEmpty() ? null : timeline);
+        run.id = id;
+        run.time = time;
+        return run;
+    }
+
+    private static void putString(ByteBuffer out, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING) {
+            throw new IllegalArgumentException("Longer than " + MAX_STRING + " bytes: " + s.substring(0, 40) + "...!");
+        }
+        out.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            if (pending.position() > 0) {
+                flush();
+            }
+            channel.force(false);
+        } finally {
+            channel.close();
+            lockChannel.close();
+        }
+    }
+}
+
+// One recorded run. id and time are filled in by RunStore.append.
+final class StoredRun {
+    // Waiting-time histogram: bin 0 counts zero waits, bin b waits in [2^(b-1), 2^b), the
+    // last bin everything longer
+    static final int BINS = 24;
+
+    long id;
+    long time;
+    final long workload;
+    final int processes;
+    final String algorithm;
+    // 0 for algorithms without a time slice
+    final int quantum;
+    final double averageWaiting;
+    final double averageTurnaround;
+    final int makespan;
+    final int maxWaiting;
+    final int[] histogram;
+    // Exported timeline, or null
+    String timeline;
+
+    StoredRun(long workload, int processes, String algorithm, int quantum, double averageWaiting,
+            double averageTurnaround, int makespan, int maxWaiting, int[] histogram, String timeline) {
+        this.workload = workload;
+        this.processes = processes;
+        this.algorithm = algorithm;
+        this.quantum = quantum;
+        this.averageWaiting = averageWaiting;
+        this.averageTurnaround = averageTurnaround;
+        this.makespan = makespan;
+        this.maxWaiting = maxWaiting;
+        this.histogram = histogram;
+        this.timeline = timeline;
+    }
+
+    static StoredRun of(String algorithm, int quantum, ScheduleResult result, String timeline) {
+        int[] histogram = new int[BINS];
+        int maxWaiting = 0;
+        for (int i = 0; i < result.completion.length; i++) {
+            int wait = result.waiting(i);
+            histogram[bin(wait)]++;
+            maxWaiting = Math.max(maxWaiting, wait);
+        }
+        return new StoredRun(RunStore.workloadHash(result.workload), result.workload.size(), algorithm, quantum,
+                result.averageWaiting(), result.averageTurnaround(), result.makespan(), maxWaiting, histogram,
+                timeline);
+    }
+
+    static int bin(int wait) {
+        return wait <= 0 ? 0 : Math.min(BINS - 1, 32 - Integer.numberOfLeadingZeros(wait));
+    }
+
+    String label() {
+        return algorithm + (quantum > 0 ? " q=" + quantum : "");
+    }
+
+    @Override
+    public String toString() {
+        return String.format("#%d %s on %s (%d processes): avg WT %.2f, avg TAT %.2f, makespan %d", id, label(),
+                RunStore.hex(workload), processes, averageWaiting, averageTurnaround, makespan);
+    }
+}
+
+// Queries over the run history.
+//
+// Usage: java RunHistory [store=~/.ccopsysl/runs.log] [query=latest|best|quanta|trend|show|
+//        algorithms|delete|compact|repair] [algorithm=<name>] [quantum=<q>] [workload=<hex>]
+//        [buckets=10] [count=20] [id=<run>]
+//
+// best and quanta take the workload, quanta and trend an algorithm; show and delete
+// take an id. repair salvages a log that is damaged in the middle and cannot be opened.
+class RunHistory {
+    public static void main(String[] args) throws IOException {
+        Path path = RunStore.defaultPath();
+        String query = "latest";
+        String algorithm = null;
+        Integer quantum = null;
+        Long workload = null;
+        int buckets = 10, count = 20;
+        long id = -1;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "store": path = Paths.get(value); break;
+                case "query": query = value; break;
+                case "algorithm": algorithm = value.toLowerCase(); break;
+                case "quantum": quantum = Integer.parseInt(value); break;
+                case "workload": workload = RunStore.parseWorkload(value); break;
+                case "buckets": buckets = Integer.parseInt(value); break;
+                case "count": count = Integer.parseInt(value); break;
+                case "id": id = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        long opened = System.nanoTime();
+        if (query.equals("repair")) {
+            System.out.println(RunStore.repair(path));
+            System.out.println("Repaired in " + RunCost.formatNanos(System.nanoTime() - opened));
+            return;
+        }
+        try (RunStore store = new RunStore(path)) {
+            System.out.printf("%,d runs in %s (%,d bytes), opened in %s%n", store.size(), path, store.fileBytes(),
+                    RunCost.formatNanos(System.nanoTime() - opened));
+            long started = System.nanoTime();
+            switch (query) {
+                case "latest":
+                    for (StoredRun run : store.latest(algorithm, quantum, workload, count)) {
+                        System.out.println(run);
+                    }
+                    break;
+                case "best":
+                    if (workload == null) {
+                        throw new IllegalArgumentException("best needs a workload!");
+                    }
+                    StoredRun best = store.best(algorithm, quantum, workload);
+                    System.out.println(best == null ? "No runs" : "Best: " + best);
+                    break;
+                case "quanta":
+                    if (workload == null || algorithm == null) {
+                        throw new IllegalArgumentException("quanta needs an algorithm and a workload!");
+                    }
+                    System.out.printf("%-10s%10s%14s%14s%n", "Quantum", "Runs", "Mean avg WT", "Best avg WT");
+                    for (Map.Entry<Integer, double[]> e : store.quanta(algorithm, workload).entrySet()) {
+                        double[] s = e.getValue();
+                        System.out.printf("%-10d%10.0f%14.2f%14.2f%n", e.getKey(), s[0], s[1], s[2]);
+                    }
+                    break;
+                case "trend":
+                    RunStore.Trend trend = store.trend(algorithm, quantum, workload, buckets);
+                    System.out.printf("%-8s%12s%16s%16s%n", "Bucket", "Runs", "First run at", "Avg WT");
+                    for (int b = 0; b < trend.runs.length; b++) {
+                        System.out.printf("%-8d%12d%16tT%16.3f%n", b, trend.runs[b], trend.from[b],
+                                trend.averageWaiting[b]);
+                    }
+                    break;
+                case "show":
+                    StoredRun run = store.run(id);
+                    if (run == null) {
+                        throw new IllegalArgumentException("No run #" + id + "!");
+                    }
+                    System.out.println(run);
+                    System.out.println("Max WT " + run.maxWaiting + ", timeline " + run.timeline);
+                    int last = run.histogram.length - 1;
+                    for (int b = 0; b <= last; b++) {
+                        if (run.histogram[b] > 0) {
+                            System.out.printf("   WT %s: %d%n",
+                                    b == 0 ? "0" : b == last ? ">= " + (1L << (b - 1)) : "< " + (1L << b),
+                                    run.histogram[b]);
+                        }
+                    }
+                    break;
+                case "algorithms": System.out.println(store.algorithms()); break;
+                case "delete": store.delete(id); break;
+                case "compact": store.compact(); break;
+                default: throw new IllegalArgumentException("Unknown query: " + query);
+            }
+            System.out.println("Answered in " + RunCost.formatNanos(System.nanoTime() - started));
+        }
+    }
+}
+
+// Fills a run store with real runs of random workloads, then times reopening it, the
+// queries, deleting the FCFS runs and compacting the log afterwards.
+//
+// Usage: java RunStoreSimulation [runs=1000000] [workloads=1000] [processes=16]
+//        [store=<temp dir>/runs.log] [seed=42]
+class RunStoreSimulation {
+    public static void main(String[] args) throws IOException {
+        int runs = 1_000_000, workloadCount = 1000, processCount = 16;
+        long seed = 42;
+        Path path = null;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "runs": runs = Integer.parseInt(value); break;
+                case "workloads": workloadCount = Integer.parseInt(value); break;
+                case "processes": processCount = Integer.parseInt(value); break;
+                case "store": path = Paths.get(value); break;
+                case "seed": seed = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        if (runs <= 0 || workloadCount <= 0 || processCount <= 0) {
+            throw new IllegalArgumentException("runs, workloads and processes must be > 0!");
+        }
+        if (path == null) {
+            path = Files.createTempDirectory("ccopsysl-runs").resolve("runs.log");
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        Workload[] workloads = new Workload[workloadCount];
+        for (int w = 0; w < workloadCount; w++) {
+            int[] at = new int[processCount];
+            int[] bt = new int[processCount];
+            for (int i = 1; i < processCount; i++) {
+                at[i] = at[i - 1] + random.nextInt(6);
+            }
+            for (int i = 0; i < processCount; i++) {
+                bt[i] = 1 + random.nextInt(20);
+            }
+            workloads[w] = new Workload(at, bt);
+        }
+        String[] algorithms = {"fcfs", "sjf", "rr", "stride"};
+
+        RunCost.Meter meter = RunCost.start();
+        try (RunStore store = new RunStore(path)) {
+            for (int r = 0; r < runs; r++) {
+                String algorithm = algorithms[random.nextInt(algorithms.length)];
+                int quantum = BatchRunner.slices(algorithm) ? 1 + random.nextInt(16) : 0;
+                SchedulingEngine engine = BatchRunner.engine(algorithm, Math.max(1, quantum));
+                store.append(StoredRun.of(algorithm, quantum, engine.run(workloads[random.nextInt(workloadCount)], null, null), null));
+            }
+        }
+        System.out.println("Recorded " + runs + " runs: " + meter.stop());
+
+        long workload = RunStore.workloadHash(workloads[0]);
+        long started = System.nanoTime();
+        try (RunStore store = new RunStore(path)) {
+            System.out.printf("Reopened %,d runs (%,d bytes) in %s%n", store.size(), store.fileBytes(),
+                    RunCost.formatNanos(System.nanoTime() - started));
+            for (int pass = 0; pass < 2; pass++) {
+                // The first pass warms up; the second is the one to read
+                started = System.nanoTime();
+                StoredRun best = store.best("rr", null, workload);
+                long bestNanos = System.nanoTime() - started;
+                started = System.nanoTime();
+                SortedMap<Integer, double[]> byQuantum = store.quanta("rr", workload);
+                long quantaNanos = System.nanoTime() - started;
+                started = System.nanoTime();
+                RunStore.Trend trend = store.trend("rr", null, null, 10);
+                long trendNanos = System.nanoTime() - started;
+                started = System.nanoTime();
+                RunStore.Trend all = store.trend(null, null, null, 10);
+                long allNanos = System.nanoTime() - started;
+                if (pass == 1) {
+                    System.out.println("Best RR quantum on workload " + RunStore.hex(workload) + " in "
+                            + RunCost.formatNanos(bestNanos) + ": " + best);
+                    System.out.println(byQuantum.size() + " quanta compared in " + RunCost.formatNanos(quantaNanos));
+                    System.out.printf("RR WT trend over %,d runs in %s, every run in %s: %.3f -> %.3f%n",
+                            Arrays.stream(trend.runs).sum(), RunCost.formatNanos(trendNanos),
+                            RunCost.formatNanos(allNanos), all.averageWaiting[0],
+                            all.averageWaiting[all.runs.length - 1]);
+                }
+            }
+
+            started = System.nanoTime();
+            int deletions = 0;
+            for (StoredRun run : store.latest("fcfs", null, null, Integer.MAX_VALUE)) {
+                store.delete(run.id);
+                deletions++;
+            }
+            System.out.printf("Deleted %,d FCFS runs in %s, %,d runs (%,d bytes) left%n", deletions,
+                    RunCost.formatNanos(System.nanoTime() - started), store.size(), store.fileBytes());
+
+            // A quarter of the log is not enough to compact on its own
+            started = System.nanoTime();
+            store.compact();
+            System.out.printf("Compacted to %,d bytes in %s%n", store.fileBytes(),
+                    RunCost.formatNanos(System.nanoTime() - started));
+        }
+    }
+}
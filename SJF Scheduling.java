@@ -14,7 +14,6 @@ import java.awt.Insets;
 import java.awt.RenderingHints;
 import java.awt.geom.RoundRectangle2D;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import javax.swing.*;
 import javax.swing.border.AbstractBorder;
@@ -121,7 +120,10 @@ public class SJFAlgo {
 
     private JFrame frame;
     private JComboBox<Integer> processCountCombo;
-    private RoundedButton setProcessesBtn, computeBtn, resetBtn;
+    private RoundedButton setProcessesBtn, computeBtn, resetBtn, replayBtn, playBtn;
+    private ScheduleResult lastResult;
+    private SchedulingEngine lastEngine;
+    private JCheckBox preemptiveCheck;
     private JTable processTable;
     private DefaultTableModel tableModel;
     private JPanel ganttPanel, resultPanel;
@@ -158,6 +160,7 @@ public class SJFAlgo {
 
         frame.setResizable(false);
         frame.setVisible(true);
+        RunStore.openShared();
     }
     
     private void initializeComponents() {
@@ -173,6 +176,12 @@ public class SJFAlgo {
         setProcessesBtn.setForeground(Color.WHITE);
         setProcessesBtn.setMaximumSize(new Dimension(140, 35));
 
+        preemptiveCheck = new JCheckBox("Preemptive (SRTF)");
+        preemptiveCheck.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        preemptiveCheck.setForeground(new Color(25, 25, 112));
+        preemptiveCheck.setOpaque(false);
+        preemptiveCheck.setToolTipText("Preempt the running process when a shorter one arrives");
+
         computeBtn = new RoundedButton("Compute", 25);
         computeBtn.setFont(new Font("Segoe UI", Font.BOLD, 14));
         computeBtn.setBackground(new Color(46, 139, 87));
@@ -190,6 +199,24 @@ public class SJFAlgo {
         resetBtn.setMaximumSize(new Dimension(130, 45));
         resetBtn.setEnabled(false);
 
+        replayBtn = new RoundedButton("Replay", 25);
+        replayBtn.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        replayBtn.setBackground(new Color(100, 149, 237));
+        replayBtn.setForeground(Color.WHITE);
+        replayBtn.setToolTipText("Step through the schedule");
+        replayBtn.setPreferredSize(new Dimension(130, 45));
+        replayBtn.setMaximumSize(new Dimension(130, 45));
+        replayBtn.setEnabled(false);
+
+        playBtn = new RoundedButton("Play", 25);
+        playBtn.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        playBtn.setBackground(new Color(46, 139, 87));
+        playBtn.setForeground(Color.WHITE);
+        playBtn.setToolTipText("Run the schedule again, live");
+        playBtn.setPreferredSize(new Dimension(130, 45));
+        playBtn.setMaximumSize(new Dimension(130, 45));
+        playBtn.setEnabled(false);
+
         String[] columns = {"Process", "AT", "BT", "ET", "TAT", "WT"};
         tableModel = new DefaultTableModel(columns, 0) {
             @Override
@@ -299,6 +326,8 @@ public class SJFAlgo {
         inputPanel.add(processCountCombo);
         inputPanel.add(Box.createHorizontalStrut(15));
         inputPanel.add(setProcessesBtn);
+        inputPanel.add(Box.createHorizontalStrut(15));
+        inputPanel.add(preemptiveCheck);
         
         JPanel centerSection = new JPanel(new GridLayout(2, 1, 0, 20));
         centerSection.setOpaque(false);
@@ -343,6 +372,10 @@ public class SJFAlgo {
         buttonPanel.add(Box.createHorizontalGlue());
         buttonPanel.add(computeBtn);
         buttonPanel.add(Box.createHorizontalStrut(40));
+        buttonPanel.add(replayBtn);
+        buttonPanel.add(Box.createHorizontalStrut(40));
+        buttonPanel.add(playBtn);
+        buttonPanel.add(Box.createHorizontalStrut(40));
         buttonPanel.add(resetBtn);
         buttonPanel.add(Box.createHorizontalGlue());
         
@@ -384,6 +417,9 @@ public class SJFAlgo {
 
         computeBtn.addActionListener(e -> computeSJF());
         resetBtn.addActionListener(e -> resetWithConfirmation());
+        replayBtn.addActionListener(e ->
+            new ReplayFrame(preemptiveCheck.isSelected() ? "SRTF" : "SJF", lastResult).setVisible(true));
+        playBtn.addActionListener(e -> new PlayFrame(lastEngine, lastResult.workload).setVisible(true));
     }
 
     private void setProcessRows(int count) {
@@ -429,44 +465,34 @@ public class SJFAlgo {
             }
         }
 
-        List<Process> completed = new ArrayList<>();
-        int time = 0;
-        boolean[] done = new boolean[n];
-        int completedCount = 0;
-        List<GanttBlock> ganttBlocks = new ArrayList<>();
+        RunCost.Meter meter = RunCost.start();
+        int[] at = new int[n];
+        int[] bt = new int[n];
+        String[] names = new String[n];
+        for (Process p : processes) {
+            at[p.id] = p.at;
+            bt[p.id] = p.bt;
+            names[p.id] = p.name;
+        }
+        boolean preemptive = preemptiveCheck.isSelected();
+        SchedulingEngine engine = preemptive ? new SrtfEngine() : new SjfEngine();
+        ScheduleResult schedule = engine.run(new Workload(names, at, bt));
+        lastResult = schedule;
+        lastEngine = engine;
 
-        while (completedCount < n) {
-            int idx = -1;
-            int minBT = Integer.MAX_VALUE;
-            for (int i = 0; i < n; i++) {
-                Process p = processes.get(i);
-                if (!done[i] && p.at <= time) {
-                    if (p.bt < minBT || (p.bt == minBT && p.at < processes.get(idx == -1 ? i : idx).at)) {
-                        minBT = p.bt;
-                        idx = i;
-                    }
-                }
-            }
-            if (idx == -1) {
-                time++;
-                continue;
-            }
-            Process p = processes.get(idx);
-            int startTime = time;
-            p.ct = time + p.bt;
-            p.tat = p.ct - p.at;
-            p.wt = p.tat - p.bt;
-            time = p.ct;
-            done[idx] = true;
-            completed.add(p);
-            completedCount++;
-
-            ganttBlocks.add(new GanttBlock(p.name, startTime, p.ct, getProcessColor(idx)));
+        List<GanttBlock> ganttBlocks = new ArrayList<>();
+        Timeline timeline = schedule.timeline;
+        for (int k = 0; k < timeline.size(); k++) {
+            int idx = timeline.process(k);
+            ganttBlocks.add(new GanttBlock(names[idx], timeline.start(k), timeline.end(k), getProcessColor(idx)));
         }
 
-        completed.sort(Comparator.comparingInt(proc -> proc.id));
+        List<Process> completed = processes;
         for (int i = 0; i < n; i++) {
             Process p = completed.get(i);
+            p.ct = schedule.completion[p.id];
+            p.tat = schedule.turnaround(p.id);
+            p.wt = schedule.waiting(p.id);
             tableModel.setValueAt(p.ct, i, 3);
             tableModel.setValueAt(p.tat, i, 4);
             tableModel.setValueAt(p.wt, i, 5);
@@ -477,15 +503,25 @@ public class SJFAlgo {
         double avgTAT = completed.stream().mapToInt(p -> p.tat).average().orElse(0);
         double avgWT = completed.stream().mapToInt(p -> p.wt).average().orElse(0);
 
+        String preemptions = preemptive ? String.format("\nPreemptions: %d", schedule.preemptions()) : "";
         resultArea.setText(String.format(
-            "Results:\nAverage Turn Around Time: %.2f\nAverage Waiting Time: %.2f",
-            avgTAT, avgWT));
+            "Results (%s):\nAverage Turn Around Time: %.2f\nAverage Waiting Time: %.2f%s\nRun Cost: %s",
+            engine.name(), avgTAT, avgWT, preemptions, meter.stop()));
+        RunStore.remember(preemptive ? "srtf" : "sjf", 0, schedule, (run, history) -> {
+            // Skipped when the table was reset or computed again meanwhile
+            if (lastResult == schedule) {
+                resultArea.append("\n" + history);
+            }
+        });
 
         isComputed = true;
         computeBtn.setEnabled(false);
         resetBtn.setEnabled(true);
+        replayBtn.setEnabled(true);
+        playBtn.setEnabled(true);
         setProcessesBtn.setEnabled(false);
         processCountCombo.setEnabled(false);
+        preemptiveCheck.setEnabled(false);
         processTable.repaint();
     }
 
@@ -508,8 +544,12 @@ public class SJFAlgo {
         setProcessRows(processCount);
         computeBtn.setEnabled(true);
         resetBtn.setEnabled(false);
+        lastResult = null;
+        replayBtn.setEnabled(false);
+        playBtn.setEnabled(false);
         setProcessesBtn.setEnabled(true);
         processCountCombo.setEnabled(true);
+        preemptiveCheck.setEnabled(true);
         processTable.repaint();
         resultArea.setText("System reset! Select number of processes to begin.");
     }
@@ -553,8 +593,6 @@ public class SJFAlgo {
 
     private class GanttChartPanel extends JPanel {
         private List<GanttBlock> ganttBlocks;
-        private final int BLOCK_HEIGHT = 50;
-        private final int MARGIN = 20;
 
         public GanttChartPanel() {
             setBackground(Color.WHITE);
@@ -586,53 +624,18 @@ public class SJFAlgo {
                 return;
             }
             
-            Graphics2D g2 = (Graphics2D) g.create();
-            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            
-            int chartHeight = BLOCK_HEIGHT;
-            int chartY = (getHeight() - chartHeight) / 2 - 10;
-            int maxTime = ganttBlocks.get(ganttBlocks.size() - 1).endTime;
-            double scale = (double) (getWidth() - 2 * MARGIN) / maxTime;
-            
-            for (GanttBlock block : ganttBlocks) {
-                int x = MARGIN + (int) (block.startTime * scale);
-                int width = (int) ((block.endTime - block.startTime) * scale);
-                
-                g2.setColor(new Color(0, 0, 0, 30));
-                g2.fillRoundRect(x + 2, chartY + 2, width, chartHeight, 10, 10);
-                
-                g2.setColor(block.color);
-                g2.fillRoundRect(x, chartY, width, chartHeight, 10, 10);
-                
-                g2.setColor(block.color.darker());
-                g2.setStroke(new BasicStroke(2));
-                g2.drawRoundRect(x, chartY, width, chartHeight, 10, 10);
-                
-                g2.setColor(Color.BLACK);
-                g2.setFont(new Font("Segoe UI", Font.BOLD, 14));
-                FontMetrics fm = g2.getFontMetrics();
-                int textX = x + (width - fm.stringWidth(block.processName)) / 2;
-                int textY = chartY + (chartHeight + fm.getHeight()) / 2 - 2;
-                g2.drawString(block.processName, textX, textY);
+            int count = ganttBlocks.size();
+            Timeline timeline = new Timeline(count);
+            String[] labels = new String[count];
+            Color[] colors = new Color[count];
+            for (int i = 0; i < count; i++) {
+                GanttBlock block = ganttBlocks.get(i);
+                timeline.add(i, block.startTime, block.endTime);
+                labels[i] = block.processName;
+                colors[i] = block.color;
             }
-            
-            g2.setColor(Color.DARK_GRAY);
-            g2.setStroke(new BasicStroke(1));
-            int timelineY = chartY + chartHeight + 15;
-            g2.drawLine(MARGIN, timelineY, getWidth() - MARGIN, timelineY);
-            
-            g2.setFont(new Font("Segoe UI", Font.PLAIN, 12));
-            for (GanttBlock block : ganttBlocks) {
-                int x = MARGIN + (int) (block.startTime * scale);
-                g2.drawLine(x, timelineY - 5, x, timelineY + 5);
-                g2.drawString(String.valueOf(block.startTime), x - 5, timelineY + 20);
-            }
-
-            GanttBlock lastBlock = ganttBlocks.get(ganttBlocks.size() - 1);
-            int finalX = MARGIN + (int) (lastBlock.endTime * scale);
-            g2.drawLine(finalX, timelineY - 5, finalX, timelineY + 5);
-            g2.drawString(String.valueOf(lastBlock.endTime), finalX - 5, timelineY + 20);
-            
+            Graphics2D g2 = (Graphics2D) g.create();
+            GanttPainter.paint(g2, getWidth(), getHeight(), timeline, labels, colors);
             g2.dispose();
         }
     }
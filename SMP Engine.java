@@ -0,0 +1,454 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Symmetric multiprocessing: K CPUs, each with its own FCFS, SJF or round robin run queue.
+// A new process is placed on a CPU round robin or on the least loaded one (running plus
+// waiting). Every balancePeriod time units (0 = never) waiting processes move from the
+// most to the least loaded CPUs until no two differ by more than one, and with stealing
+// a CPU that runs dry takes a waiting process from the busiest CPU instead of idling.
+// A process that runs on a different CPU than last time counts as a migration.
+//
+// Time advances through one global event heap of slice ends, keyed by time with CPUs as
+// ids, merged with the arrival stream and the balancing ticks. Loads sit in a LoadTree, so
+// placement, balancing and stealing cost O(log K) per process moved and a whole run costs
+// O(events log K), independent of how long the CPUs stay busy or idle.
+final class SmpEngine implements SchedulingEngine {
+    enum Policy { FCFS, SJF, RR }
+
+    enum Placement { ROUND_ROBIN, LEAST_LOADED }
+
+    private final int cpus;
+    private final Policy policy;
+    private final int quantum;
+    private final Placement placement;
+    private final int balancePeriod;
+    private final boolean stealing;
+
+    SmpEngine(int cpus, Policy policy, int quantum, Placement placement, int balancePeriod, boolean stealing) {
+        if (cpus <= 0) {
+            throw new IllegalArgumentException("Number of CPUs must be > 0!");
+        }
+        if (policy == Policy.RR && quantum <= 0) {
+            throw new IllegalArgumentException("Time quantum must be > 0!");
+        }
+        if (balancePeriod < 0) {
+            throw new IllegalArgumentException("Balance period must be >= 0!");
+        }
+        this.cpus = cpus;
+        this.policy = policy;
+        this.quantum = quantum;
+        this.placement = placement;
+        this.balancePeriod = balancePeriod;
+        this.stealing = stealing;
+    }
+
+    int cpus() {
+        return cpus;
+    }
+
+    @Override
+    public String name() {
+        return "SMP " + cpus + "x " + (policy == Policy.RR ? "RR (q=" + quantum + ")" : policy.toString())
+                + (placement == Placement.ROUND_ROBIN ? ", round robin" : ", least loaded")
+                + (balancePeriod > 0 ? ", balance " + balancePeriod : "") + (stealing ? ", stealing" : "");
+    }
+
+    @Override
+    public void schedule(Workload workload, int[] completion, Timeline timeline, SchedulerListener listener) {
+        schedule(workload, completion, timeline, null, listener);
+    }
+
+    // As schedule(), and also records every CPU's slices in lanes[cpu] when lanes is not null.
+    SmpCounters schedule(Workload workload, int[] completion, Timeline timeline, Timeline[] lanes,
+            SchedulerListener listener) {
+        if (lanes != null && lanes.length != cpus) {
+            throw new IllegalArgumentException("Expected one lane per CPU!");
+        }
+        return new Run(workload, completion, timeline, lanes, listener).execute();
+    }
+
+    // State of one schedule() call; the engine itself stays immutable and shareable.
+    private final class Run {
+        final int[] at;
+        final int[] bt;
+        final int[] order;
+        final int n;
+        final int[] completion;
+        final Timeline timeline;
+        final Timeline[] lanes;
+        final SchedulerListener listener;
+        final SmpCounters counters = new SmpCounters(cpus);
+        // Run queues hold arrival ranks, so ties go to the earlier arrival
+        final RunQueue[] queues = new RunQueue[cpus];
+        final int[] running = new int[cpus];
+        final int[] remaining;
+        final int[] lastCpu;
+        final IntHeap sliceEnds = new IntHeap(cpus);
+        final LoadTree load = new LoadTree(cpus);
+        // CPUs to look at before time moves on, and CPUs with nothing to do
+        final IntRing pending = new IntRing(16);
+        final boolean[] isPending = new boolean[cpus];
+        final IntRing idle = new IntRing(16);
+        final boolean[] isIdle = new boolean[cpus];
+        int waiting;
+        int time;
+
+        Run(Workload workload, int[] completion, Timeline timeline, Timeline[] lanes, SchedulerListener listener) {
+            at = workload.arrival;
+            bt = workload.burst;
+            order = workload.arrivalOrder();
+            n = order.length;
+            this.completion = completion;
+            this.timeline = timeline;
+            this.lanes = lanes;
+            this.listener = listener;
+            remaining = new int[n];
+            lastCpu = new int[n];
+            for (int c = 0; c < cpus; c++) {
+                queues[c] = new RunQueue(policy == Policy.SJF);
+            }
+            Arrays.fill(running, -1);
+            for (int c = 0; c < cpus; c++) {
+                isIdle[c] = true;
+                idle.add(c);
+            }
+        }
+
+        SmpCounters execute() {
+            IntRing preempted = new IntRing(16);
+            long nextBalance = balancePeriod > 0 ? balancePeriod : Long.MAX_VALUE;
+            int nextCpu = 0;
+            int next = 0;
+            int done = 0;
+            while (done < n) {
+                long nextEvent = Long.MAX_VALUE;
+                if (next < n) {
+                    nextEvent = at[order[next]];
+                }
+                if (!sliceEnds.isEmpty()) {
+                    nextEvent = Math.min(nextEvent, sliceEnds.peekKey());
+                }
+                if (waiting > 0) {
+                    nextEvent = Math.min(nextEvent, nextBalance);
+                }
+                if (sliceEnds.isEmpty() && waiting == 0 && nextEvent > time && listener != null) {
+                    listener.idle(time, (int) nextEvent);
+                }
+                time = (int) nextEvent;
+
+                // Slices ending now; preempted processes queue up behind this instant's arrivals
+                while (!sliceEnds.isEmpty() && sliceEnds.peekKey() <= time) {
+                    int c = sliceEnds.pop();
+                    int r = running[c];
+                    int p = order[r];
+                    running[c] = -1;
+                    if (remaining[r] == 0) {
+                        load.add(c, -1);
+                        completion[p] = time;
+                        done++;
+                        if (listener != null) {
+                            listener.completed(p, time);
+                        }
+                    } else {
+                        if (listener != null) {
+                            listener.preempted(p, time, remaining[r]);
+                        }
+                        preempted.add(r);
+                    }
+                    wake(c);
+                }
+                while (next < n && at[order[next]] <= time) {
+                    int p = order[next];
+                    remaining[next] = bt[p];
+                    lastCpu[next] = -1;
+                    if (listener != null) {
+                        listener.arrived(p, at[p]);
+                    }
+                    int c = placement == Placement.LEAST_LOADED ? load.min() : nextCpu;
+                    nextCpu = nextCpu + 1 == cpus ? 0 : nextCpu + 1;
+                    enqueue(c, next);
+                    next++;
+                }
+                // Still counted in their CPU's load, so placement saw them
+                while (!preempted.isEmpty()) {
+                    int r = preempted.poll();
+                    queues[lastCpu[r]].add(r, remaining[r]);
+                    waiting++;
+                }
+
+                if (time >= nextBalance) {
+                    balance();
+                    nextBalance = time - time % balancePeriod + balancePeriod;
+                }
+                while (!pending.isEmpty()) {
+                    int c = pending.poll();
+                    isPending[c] = false;
+                    if (running[c] >= 0) {
+                        continue;
+                    }
+                    if (queues[c].size() > 0) {
+                        waiting--;
+                        dispatch(c, queues[c].poll());
+                    } else if (!isIdle[c]) {
+                        isIdle[c] = true;
+                        idle.add(c);
+                    }
+                }
+                if (stealing) {
+                    steal();
+                }
+            }
+            if (listener != null) {
+                listener.finished(time);
+            }
+            return counters;
+        }
+
+        void enqueue(int c, int r) {
+            queues[c].add(r, remaining[r]);
+            load.add(c, 1);
+            waiting++;
+            if (running[c] < 0) {
+                wake(c);
+            }
+        }
+
+        void wake(int c) {
+            if (!isPending[c]) {
+                isPending[c] = true;
+                pending.add(c);
+            }
+        }
+
+        // Running processes stay put, so a gap of two or more means the busier CPU has
+        // somebody waiting.
+        void balance() {
+            int hi, lo;
+            while (load.get(hi = load.max()) - load.get(lo = load.min()) >= 2) {
+                int r = queues[hi].poll();
+                load.add(hi, -1);
+                waiting--;
+                enqueue(lo, r);
+                counters.balanced++;
+            }
+        }
+
+        // Idle CPUs take from the busiest CPU while anybody is waiting.
+        void steal() {
+            while (waiting > 0 && !idle.isEmpty()) {
+                int c = idle.poll();
+                isIdle[c] = false;
+                if (running[c] >= 0) {
+                    continue;
+                }
+                int victim = load.max();
+                int r = queues[victim].poll();
+                load.add(victim, -1);
+                load.add(c, 1);
+                waiting--;
+                counters.steals++;
+                dispatch(c, r);
+            }
+        }
+
+        void dispatch(int c, int r) {
+            int p = order[r];
+            int slice = policy == Policy.RR ? Math.min(quantum, remaining[r]) : remaining[r];
+            remaining[r] -= slice;
+            running[c] = r;
+            sliceEnds.push(c, (long) time + slice);
+            if (lastCpu[r] >= 0 && lastCpu[r] != c) {
+                counters.migrations++;
+            }
+            lastCpu[r] = c;
+            counters.busy[c] += slice;
+            if (timeline != null) {
+                timeline.add(p, time, time + slice);
+            }
+            if (lanes != null) {
+                lanes[c].add(p, time, time + slice);
+            }
+            if (listener != null) {
+                listener.dispatched(p, time, time + slice, waiting);
+            }
+        }
+    }
+
+    // A CPU's waiting processes: a FIFO ring, or a heap keyed by burst for SJF.
+    private static final class RunQueue {
+        private final IntRing ring;
+        private final IntHeap heap;
+
+        RunQueue(boolean shortestFirst) {
+            ring = shortestFirst ? null : new IntRing(16);
+            heap = shortestFirst ? new IntHeap(16) : null;
+        }
+
+        void add(int r, int key) {
+            if (ring != null) {
+                ring.add(r);
+            } else {
+                heap.push(r, key);
+            }
+        }
+
+        int poll() {
+            return ring != null ? ring.poll() : heap.pop();
+        }
+
+        int size() {
+            return ring != null ? ring.size() : heap.size();
+        }
+    }
+}
+
+// What an SMP run did besides scheduling: processes moved by balancing or stolen by idle
+// CPUs, dispatches on another CPU than the last one, and busy time per CPU.
+final class SmpCounters {
+    long balanced;
+    long steals;
+    long migrations;
+    final long[] busy;
+
+    SmpCounters(int cpus) {
+        busy = new long[cpus];
+    }
+
+    // Busy time over the time all CPUs were available up to the makespan.
+    double utilisation(int makespan) {
+        long total = 0;
+        for (long b : busy) {
+            total += b;
+        }
+        return makespan == 0 ? 0 : (double) total / ((double) busy.length * makespan);
+    }
+}
+
+// Tournament tree over per-CPU loads: point updates and the least and most loaded CPU
+// (lowest index on ties) in O(log K).
+final class LoadTree {
+    private final int leaves;
+    private final int[] load;
+    private final int[] minIndex;
+    private final int[] maxIndex;
+
+    LoadTree(int size) {
+        leaves = Integer.highestOneBit(Math.max(size, 1) * 2 - 1);
+        load = new int[size];
+        minIndex = new int[2 * leaves];
+        maxIndex = new int[2 * leaves];
+        for (int i = 0; i < leaves; i++) {
+            minIndex[leaves + i] = maxIndex[leaves + i] = i < size ? i : -1;
+        }
+        for (int i = leaves - 1; i > 0; i--) {
+            pull(i);
+        }
+    }
+
+    int get(int c) {
+        return load[c];
+    }
+
+    void add(int c, int delta) {
+        load[c] += delta;
+        for (int i = (c + leaves) >> 1; i > 0; i >>= 1) {
+            pull(i);
+        }
+    }
+
+    int min() {
+        return minIndex[1];
+    }
+
+    int max() {
+        return maxIndex[1];
+    }
+
+    private void pull(int i) {
+        int a = minIndex[2 * i], b = minIndex[2 * i + 1];
+        minIndex[i] = b < 0 || (a >= 0 && load[a] <= load[b]) ? a : b;
+        a = maxIndex[2 * i];
+        b = maxIndex[2 * i + 1];
+        maxIndex[i] = b < 0 || (a >= 0 && load[a] >= load[b]) ? a : b;
+    }
+}
+
+// How the SMP policies scale with the number of CPUs. The arrival rate grows with the CPU
+// count so that every run offers each CPU the same load.
+//
+// Usage: java SmpSimulation [processes=1000000] [cpus=256] [policy=fcfs|sjf|rr|all]
+//        [quantum=4] [placement=round_robin|least_loaded] [balance=0] [steal=true]
+//        [load=0.9] [mean-burst=5] [seed=42]
+class SmpSimulation {
+    // Poisson arrivals, exponential bursts rounded to whole time units of at least one.
+    static Workload randomWorkload(int processes, int cpus, double load, double meanBurst, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] at = new int[processes];
+        int[] bt = new int[processes];
+        double meanGap = meanBurst / (cpus * load);
+        double clock = 0;
+        for (int i = 0; i < processes; i++) {
+            at[i] = (int) clock;
+            bt[i] = Math.max(1, (int) Math.round(-Math.log(1 - random.nextDouble()) * meanBurst));
+            clock += -Math.log(1 - random.nextDouble()) * meanGap;
+        }
+        return new Workload(at, bt);
+    }
+
+    public static void main(String[] args) {
+        int processes = 1_000_000, maxCpus = 256, quantum = 4, balance = 0;
+        String policy = "all";
+        SmpEngine.Placement placement = SmpEngine.Placement.LEAST_LOADED;
+        boolean steal = true;
+        double load = 0.9, meanBurst = 5;
+        long seed = 42;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "processes": processes = Integer.parseInt(value); break;
+                case "cpus": maxCpus = Integer.parseInt(value); break;
+                case "policy": policy = value.toLowerCase(); break;
+                case "quantum": quantum = Integer.parseInt(value); break;
+                case "placement": placement = SmpEngine.Placement.valueOf(value.toUpperCase()); break;
+                case "balance": balance = Integer.parseInt(value); break;
+                case "steal": steal = Boolean.parseBoolean(value); break;
+                case "load": load = Double.parseDouble(value); break;
+                case "mean-burst": meanBurst = Double.parseDouble(value); break;
+                case "seed": seed = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        if (processes <= 0 || maxCpus <= 0 || load <= 0 || meanBurst < 1) {
+            throw new IllegalArgumentException("processes, cpus and load must be > 0 and mean-burst >= 1!");
+        }
+        SmpEngine.Policy[] policies = policy.equals("all") ? SmpEngine.Policy.values()
+                : new SmpEngine.Policy[]{SmpEngine.Policy.valueOf(policy.toUpperCase())};
+
+        System.out.printf("%-6s%6s%12s%12s%12s%12s%12s%14s%n",
+                "Policy", "CPUs", "Avg WT", "Avg TAT", "Busy", "Migrations", "Steals", "Run time");
+        for (SmpEngine.Policy p : policies) {
+            // 1, 2, 4, ... and finally maxCpus itself
+            for (int cpus = 1; ; cpus = Math.min(2 * cpus, maxCpus)) {
+                Workload workload = randomWorkload(processes, cpus, load, meanBurst, seed);
+                SmpEngine engine = new SmpEngine(cpus, p, quantum, placement, balance, steal);
+                int[] completion = new int[processes];
+                RunCost.Meter meter = RunCost.start();
+                SmpCounters counters = engine.schedule(workload, completion, null, null,
+                        SchedulerEvents.listener(engine.name()));
+                RunCost cost = meter.stop();
+                ScheduleResult result = new ScheduleResult(workload, completion, null, cost);
+                System.out.printf("%-6s%6d%12.2f%12.2f%11.1f%%%12d%12d%14s%n", p, cpus, result.averageWaiting(),
+                        result.averageTurnaround(), 100 * counters.utilisation(result.makespan()),
+                        counters.migrations, counters.steals, RunCost.formatNanos(cost.wallNanos));
+                if (cpus == maxCpus) {
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+import javax.swing.*;
+import javax.swing.border.*;
+import javax.swing.table.*;
+import java.awt.*;
+import java.util.Random;
+
+// Schedules one workload on several CPUs with SmpEngine and draws a Gantt lane per CPU.
+// Styling comes from ComparisonFrame so the two windows look alike.
+class SmpFrame extends JFrame {
+    private static final String[] PLACEMENTS = {"Least loaded", "Round robin"};
+
+    private JSpinner countSpinner, cpuSpinner, quantumSpinner, balanceSpinner;
+    private JComboBox<SmpEngine.Policy> policyCombo;
+    private JComboBox<String> placementCombo;
+    private JCheckBox stealCheck;
+    private JTable inputTable;
+    private DefaultTableModel inputModel;
+    private LanesPanel lanesPanel;
+    private JLabel resultLabel;
+
+    SmpFrame() {
+        setTitle("SMP Scheduling");
+        setSize(1100, 750);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setLocationRelativeTo(null);
+
+        setContentPane(new JPanel(new BorderLayout(15, 15)) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                Graphics2D g2 = (Graphics2D) g;
+                g2.setPaint(new GradientPaint(0, 0, new Color(240, 248, 255), 0, getHeight(), new Color(230, 240, 250)));
+                g2.fillRect(0, 0, getWidth(), getHeight());
+            }
+        });
+
+        initializeComponents();
+        setupLayout();
+        setProcesses(8);
+    }
+
+    private void initializeComponents() {
+        countSpinner = new JSpinner(new SpinnerNumberModel(8, 1, 500, 1));
+        cpuSpinner = new JSpinner(new SpinnerNumberModel(2, 1, 256, 1));
+        quantumSpinner = new JSpinner(new SpinnerNumberModel(2, 1, 100, 1));
+        balanceSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 1000, 1));
+        policyCombo = new JComboBox<>(SmpEngine.Policy.values());
+        placementCombo = new JComboBox<>(PLACEMENTS);
+        stealCheck = new JCheckBox("Work stealing", true);
+        stealCheck.setOpaque(false);
+        stealCheck.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        stealCheck.setForeground(ComparisonFrame.TEXT);
+
+        inputModel = new DefaultTableModel(new Object[]{"Process", "AT", "BT"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return column != 0;
+            }
+        };
+        inputTable = new JTable(inputModel);
+        ComparisonFrame.styleTable(inputTable);
+
+        lanesPanel = new LanesPanel();
+        resultLabel = new JLabel("Enter AT and BT for each process, then press Schedule.");
+        resultLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        resultLabel.setForeground(ComparisonFrame.TEXT);
+    }
+
+    private void setupLayout() {
+        JPanel controls = new JPanel(new GridLayout(2, 1));
+        controls.setOpaque(false);
+        controls.setBorder(new CompoundBorder(new LineBorder(ComparisonFrame.ACCENT, 2, true), new EmptyBorder(0, 10, 0, 10)));
+
+        JPanel workloadRow = new JPanel(new FlowLayout(FlowLayout.CENTER, 12, 8));
+        workloadRow.setOpaque(false);
+        JLabel titleLabel = new JLabel("🖥 SMP Scheduling");
+        titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 18));
+        titleLabel.setForeground(ComparisonFrame.TEXT);
+        JButton setButton = ComparisonFrame.button("Set Processes", ComparisonFrame.ACCENT);
+        JButton randomButton = ComparisonFrame.button("Random", new Color(255, 140, 0));
+        JButton runButton = ComparisonFrame.button("Schedule", new Color(46, 139, 87));
+        workloadRow.add(titleLabel);
+        workloadRow.add(Box.createHorizontalStrut(15));
+        workloadRow.add(ComparisonFrame.label("Processes:"));
+        workloadRow.add(countSpinner);
+        workloadRow.add(setButton);
+        workloadRow.add(randomButton);
+        workloadRow.add(runButton);
+
+        JPanel machineRow = new JPanel(new FlowLayout(FlowLayout.CENTER, 12, 8));
+        machineRow.setOpaque(false);
+        machineRow.add(ComparisonFrame.label("CPUs:"));
+        machineRow.add(cpuSpinner);
+        machineRow.add(ComparisonFrame.label("Policy:"));
+        machineRow.add(policyCombo);
+        machineRow.add(ComparisonFrame.label("Quantum:"));
+        machineRow.add(quantumSpinner);
+        machineRow.add(ComparisonFrame.label("Placement:"));
+        machineRow.add(placementCombo);
+        machineRow.add(ComparisonFrame.label("Balance every:"));
+        machineRow.add(balanceSpinner);
+        machineRow.add(stealCheck);
+
+        controls.add(workloadRow);
+        controls.add(machineRow);
+        add(controls, BorderLayout.NORTH);
+
+        JScrollPane inputScroll = ComparisonFrame.titled(new JScrollPane(inputTable), "📊 Workload");
+        inputScroll.setPreferredSize(new Dimension(220, 400));
+        add(inputScroll, BorderLayout.WEST);
+
+        add(ComparisonFrame.titled(new JScrollPane(lanesPanel), "📅 Gantt Chart (one lane per CPU)"), BorderLayout.CENTER);
+
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        bottomPanel.setOpaque(false);
+        bottomPanel.setBorder(new EmptyBorder(0, 10, 10, 10));
+        bottomPanel.add(resultLabel, BorderLayout.CENTER);
+        add(bottomPanel, BorderLayout.SOUTH);
+
+        setButton.addActionListener(e -> setProcesses((Integer) countSpinner.getValue()));
+        randomButton.addActionListener(e -> randomize());
+        runButton.addActionListener(e -> schedule());
+        policyCombo.addActionListener(e -> quantumSpinner.setEnabled(policyCombo.getSelectedItem() == SmpEngine.Policy.RR));
+        quantumSpinner.setEnabled(false);
+    }
+
+    private void setProcesses(int count) {
+        inputModel.setRowCount(0);
+        for (int i = 0; i < count; i++) {
+            inputModel.addRow(new Object[]{"P" + (i + 1), "", ""});
+        }
+        lanesPanel.clear();
+    }
+
+    private void randomize() {
+        setProcesses((Integer) countSpinner.getValue());
+        Random random = new Random();
+        for (int i = 0; i < inputModel.getRowCount(); i++) {
+            inputModel.setValueAt(random.nextInt(10), i, 1);
+            inputModel.setValueAt(1 + random.nextInt(9), i, 2);
+        }
+    }
+
+    private void schedule() {
+        if (inputTable.isEditing()) {
+            inputTable.getCellEditor().stopCellEditing();
+        }
+        Workload workload;
+        try {
+            workload = readWorkload();
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "❌ Please enter valid integers for AT and BT values!",
+                    "Input Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, "❌ " + ex.getMessage(),
+                    "Input Validation Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        int cpus = (Integer) cpuSpinner.getValue();
+        SmpEngine engine = new SmpEngine(cpus, (SmpEngine.Policy) policyCombo.getSelectedItem(),
+                (Integer) quantumSpinner.getValue(),
+                placementCombo.getSelectedIndex() == 0 ? SmpEngine.Placement.LEAST_LOADED : SmpEngine.Placement.ROUND_ROBIN,
+                (Integer) balanceSpinner.getValue(), stealCheck.isSelected());
+        int n = workload.size();
+        int[] completion = new int[n];
+        Timeline[] lanes = new Timeline[cpus];
+        for (int c = 0; c < cpus; c++) {
+            lanes[c] = new Timeline();
+        }
+        RunCost.Meter meter = RunCost.start();
+        SmpCounters counters = engine.schedule(workload, completion, null, lanes, SchedulerEvents.listener(engine.name()));
+        ScheduleResult result = new ScheduleResult(workload, completion, null, meter.stop());
+
+        String[] labels = new String[n];
+        Color[] colors = new Color[n];
+        for (int i = 0; i < n; i++) {
+            labels[i] = workload.name(i);
+            colors[i] = Color.getHSBColor((float) i / n, 0.7f, 0.9f);
+        }
+        lanesPanel.show(lanes, labels, colors, result.makespan());
+        resultLabel.setText(String.format(
+                "Avg WT %.2f, Avg TAT %.2f, Makespan %d, CPUs busy %.1f%%, Migrations %d, Steals %d, Balanced %d, Run time %s",
+                result.averageWaiting(), result.averageTurnaround(), result.makespan(),
+                100 * counters.utilisation(result.makespan()), counters.migrations, counters.steals, counters.balanced,
+                RunCost.formatNanos(result.cost.wallNanos)));
+    }
+
+    private Workload readWorkload() {
+        int n = inputModel.getRowCount();
+        if (n == 0) {
+            throw new IllegalArgumentException("Please set the number of processes first!");
+        }
+        String[] names = new String[n];
+        int[] arrival = new int[n];
+        int[] burst = new int[n];
+        for (int i = 0; i < n; i++) {
+            names[i] = inputModel.getValueAt(i, 0).toString();
+            String at = inputModel.getValueAt(i, 1).toString().trim();
+            String bt = inputModel.getValueAt(i, 2).toString().trim();
+            if (at.isEmpty() || bt.isEmpty()) {
+                throw new IllegalArgumentException("All AT and BT fields must be filled!");
+            }
+            arrival[i] = Integer.parseInt(at);
+            burst[i] = Integer.parseInt(bt);
+            if (arrival[i] < 0 || burst[i] <= 0) {
+                throw new IllegalArgumentException("AT must be ≥ 0 and BT must be > 0!");
+            }
+        }
+        return new Workload(names, arrival, burst);
+    }
+
+    // The lanes of the last run. Grows taller with the number of CPUs, down to a few
+    // pixels per lane, and scrolls beyond that.
+    static class LanesPanel extends JPanel {
+        private static final int MIN_LANE = 8;
+
+        private Timeline[] lanes;
+        private String[] laneNames;
+        private String[] labels;
+        private Color[] colors;
+        private int span;
+
+        LanesPanel() {
+            setBackground(Color.WHITE);
+            setPreferredSize(new Dimension(700, 300));
+        }
+
+        void show(Timeline[] lanes, String[] labels, Color[] colors, int span) {
+            this.lanes = lanes;
+            this.labels = labels;
+            this.colors = colors;
+            this.span = span;
+            laneNames = new String[lanes.length];
+            for (int c = 0; c < lanes.length; c++) {
+                laneNames[c] = "CPU " + c;
+            }
+            int height = 2 * GanttPainter.MARGIN + GanttPainter.AXIS_HEIGHT
+                    + lanes.length * Math.max(MIN_LANE, GanttPainter.laneHeight(300, lanes.length));
+            setPreferredSize(new Dimension(700, Math.max(300, height)));
+            revalidate();
+            repaint();
+        }
+
+        void clear() {
+            lanes = null;
+            revalidate();
+            repaint();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            if (lanes == null) {
+                return;
+            }
+            Graphics2D g2 = (Graphics2D) g.create();
+            GanttPainter.paintLanes(g2, getWidth(), getHeight(), lanes, laneNames, labels, colors, span);
+            g2.dispose();
+        }
+    }
+
+    public static void main(String[] args) {
+        try {
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+        } catch (ClassNotFoundException | InstantiationException |
+                 IllegalAccessException | UnsupportedLookAndFeelException e) {
+            System.err.println("Could not set system look and feel: " + e.getMessage());
+        }
+        SwingUtilities.invokeLater(() -> new SmpFrame().setVisible(true));
+    }
+}
@@ -0,0 +1,211 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Preemptive shortest remaining time first. Decisions are only taken at arrivals and
+// completions: the running process is charged for the time up to the next event, and an
+// arrival preempts it only when some ready process now has strictly less work left. The
+// ready queue is an IntHeap keyed by remaining time with arrival ranks as ids, so ties go
+// to the earlier arrival and then to the lower index, as in SjfEngine. A process gets a
+// new timeline segment only when it is actually preempted, which makes the cost
+// O(n log n) whatever the burst lengths.
+final class SrtfEngine implements SchedulingEngine {
+    @Override
+    public String name() {
+        return "SRTF";
+    }
+
+    @Override
+    public void schedule(Workload workload, int[] completion, Timeline timeline, SchedulerListener listener) {
+        int[] at = workload.arrival;
+        int[] bt = workload.burst;
+        int[] order = workload.arrivalOrder();
+        int n = order.length;
+        // Remaining work by arrival rank
+        int[] remaining = new int[n];
+        IntHeap ready = new IntHeap(Math.min(n, 1024));
+        int time = 0;
+        int next = 0;
+        int done = 0;
+        int running = -1;
+        int sliceStart = 0;
+        while (done < n) {
+            if (running < 0) {
+                if (ready.isEmpty() && at[order[next]] > time) {
+                    if (listener != null) {
+                        listener.idle(time, at[order[next]]);
+                    }
+                    time = at[order[next]];
+                }
+                while (next < n && at[order[next]] <= time) {
+                    arrive(order, at, bt, remaining, ready, next++, listener);
+                }
+                running = ready.pop();
+                sliceStart = time;
+                continue;
+            }
+            int finish = time + remaining[running];
+            if (next < n && at[order[next]] < finish) {
+                int arrival = at[order[next]];
+                remaining[running] -= arrival - time;
+                time = arrival;
+                while (next < n && at[order[next]] == time) {
+                    arrive(order, at, bt, remaining, ready, next++, listener);
+                }
+                if (ready.peekKey() < remaining[running]) {
+                    int p = order[running];
+                    if (timeline != null) {
+                        timeline.add(p, sliceStart, time);
+                    }
+                    if (listener != null) {
+                        listener.dispatched(p, sliceStart, time, ready.size());
+                        listener.preempted(p, time, remaining[running]);
+                    }
+                    ready.push(running, remaining[running]);
+                    running = ready.pop();
+                    sliceStart = time;
+                }
+                continue;
+            }
+            int p = order[running];
+            time = finish;
+            remaining[running] = 0;
+            completion[p] = time;
+            if (timeline != null) {
+                timeline.add(p, sliceStart, time);
+            }
+            if (listener != null) {
+                listener.dispatched(p, sliceStart, time, ready.size());
+                listener.completed(p, time);
+            }
+            running = -1;
+            done++;
+        }
+        if (listener != null) {
+            listener.finished(time);
+        }
+    }
+
+    private static void arrive(int[] order, int[] at, int[] bt, int[] remaining, IntHeap ready, int rank,
+            SchedulerListener listener) {
+        int p = order[rank];
+        remaining[rank] = bt[p];
+        ready.push(rank, bt[p]);
+        if (listener != null) {
+            listener.arrived(p, at[p]);
+        }
+    }
+}
+
+// Checks SrtfEngine against a tick-by-tick reference on random small workloads: every
+// time unit the reference runs the arrived process with the least work left, keeping the
+// running one on a tie and otherwise preferring the earlier arrival, then the lower index.
+// Completion times and timeline segments must agree exactly; the first workload where they
+// do not is printed and the run fails.
+//
+// Usage: java SrtfSimulation [workloads=100000] [processes=8] [max-arrival=20]
+//        [max-burst=10] [seed=42]
+class SrtfSimulation {
+    public static void main(String[] args) {
+        int workloads = 100_000, processes = 8, maxArrival = 20, maxBurst = 10;
+        long seed = 42;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "workloads": workloads = Integer.parseInt(value); break;
+                case "processes": processes = Integer.parseInt(value); break;
+                case "max-arrival": maxArrival = Integer.parseInt(value); break;
+                case "max-burst": maxBurst = Integer.parseInt(value); break;
+                case "seed": seed = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        if (workloads <= 0 || processes <= 0 || maxArrival < 0 || maxBurst <= 0) {
+            throw new IllegalArgumentException("workloads, processes and max-burst must be > 0 and max-arrival >= 0!");
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        SrtfEngine engine = new SrtfEngine();
+        RunCost.Meter meter = RunCost.start();
+        for (int w = 0; w < workloads; w++) {
+            int n = 1 + random.nextInt(processes);
+            int[] at = new int[n];
+            int[] bt = new int[n];
+            for (int i = 0; i < n; i++) {
+                at[i] = random.nextInt(maxArrival + 1);
+                bt[i] = 1 + random.nextInt(maxBurst);
+            }
+            Workload workload = new Workload(at, bt);
+            Timeline timeline = new Timeline(n);
+            ScheduleResult result = engine.run(workload, timeline, null);
+            Timeline expectedTimeline = new Timeline(n);
+            int[] expected = reference(at, bt, expectedTimeline);
+            String mismatch = !Arrays.equals(expected, result.completion) ? "completion"
+                    : !segments(expectedTimeline).equals(segments(timeline)) ? "timeline" : null;
+            if (mismatch != null) {
+                System.out.println("Workload " + w + ": AT " + Arrays.toString(at) + ", BT " + Arrays.toString(bt));
+                System.out.println("   reference CT " + Arrays.toString(expected) + ", " + segments(expectedTimeline));
+                System.out.println("   SRTF      CT " + Arrays.toString(result.completion) + ", " + segments(timeline));
+                throw new IllegalStateException("SRTF " + mismatch + " differs from the reference on workload " + w
+                        + "!");
+            }
+        }
+        System.out.println(workloads + " workloads of up to " + processes + " processes match the reference");
+        System.out.println("Run cost: " + meter.stop());
+    }
+
+    // One time unit at a time; consecutive units of the same process form one segment.
+    static int[] reference(int[] at, int[] bt, Timeline timeline) {
+        int n = at.length;
+        int[] remaining = bt.clone();
+        int[] completion = new int[n];
+        int running = -1;
+        int segment = -1;
+        int segmentStart = 0;
+        int done = 0;
+        for (int time = 0; done < n; time++) {
+            int best = -1;
+            for (int i = 0; i < n; i++) {
+                if (at[i] <= time && remaining[i] > 0 && (best < 0 || remaining[i] < remaining[best]
+                        || (remaining[i] == remaining[best] && (at[i] < at[best] || (at[i] == at[best] && i < best))))) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                continue;
+            }
+            if (running >= 0 && remaining[best] >= remaining[running]) {
+                best = running;
+            }
+            if (best != segment) {
+                if (segment >= 0) {
+                    timeline.add(segment, segmentStart, time);
+                }
+                segment = best;
+                segmentStart = time;
+            }
+            running = best;
+            if (--remaining[best] == 0) {
+                completion[best] = time + 1;
+                timeline.add(best, segmentStart, time + 1);
+                segment = -1;
+                running = -1;
+                done++;
+            }
+        }
+        return completion;
+    }
+
+    static String segments(Timeline timeline) {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < timeline.size(); i++) {
+            s.append(i == 0 ? "" : " ").append('P').append(timeline.process(i)).append('[')
+                    .append(timeline.start(i)).append(',').append(timeline.end(i)).append(')');
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,241 @@
+import javax.swing.*;
+import javax.swing.border.*;
+import javax.swing.table.*;
+import java.awt.*;
+import java.util.concurrent.ExecutionException;
+
+// Steps through a finished schedule: a slider over the whole run, buttons that jump to the
+// previous or next dispatch, the Gantt chart with a cursor at the chosen time, and the
+// running and ready processes with their remaining time at that moment. Seeks go through
+// a ScheduleReplay checkpoint index, built in the background; the chart and the controls
+// wait for it, as a spilled timeline must not be read from two threads. Styling comes from
+// ComparisonFrame.
+class ReplayFrame extends JFrame {
+    static final int CHECKPOINT_INTERVAL = 256;
+
+    private final Workload workload;
+    private final Timeline timeline;
+    private final String[] labels;
+    private final Color[] colors;
+    private final int span;
+    // Null until the checkpoint index is built
+    private ScheduleReplay replay;
+
+    private JSlider timeSlider;
+    private JButton previousButton, nextButton;
+    private JLabel timeLabel, runningLabel, statusLabel;
+    private CursorPanel cursorPanel;
+    private ReadyModel readyModel;
+
+    ReplayFrame(String title, ScheduleResult result) {
+        setTitle("Replay - " + title);
+        setSize(1000, 650);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setLocationRelativeTo(null);
+
+        setContentPane(new JPanel(new BorderLayout(15, 15)) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                Graphics2D g2 = (Graphics2D) g;
+                g2.setPaint(new GradientPaint(0, 0, new Color(240, 248, 255), 0, getHeight(), new Color(230, 240, 250)));
+                g2.fillRect(0, 0, getWidth(), getHeight());
+            }
+        });
+
+        workload = result.workload;
+        timeline = result.timeline;
+        int n = workload.size();
+        labels = new String[n];
+        colors = new Color[n];
+        for (int i = 0; i < n; i++) {
+            labels[i] = workload.name(i);
+            colors[i] = Color.getHSBColor((float) i / n, 0.7f, 0.9f);
+        }
+        span = result.makespan();
+
+        initializeComponents();
+        setupLayout();
+        index();
+    }
+
+    // Builds the checkpoint index off the event dispatch thread, then turns on the controls
+    // at T = 0.
+    private void index() {
+        setControlsEnabled(false);
+        statusLabel.setText(String.format("Indexing %,d dispatches...", timeline.size()));
+        new SwingWorker<ScheduleReplay, Void>() {
+            @Override
+            protected ScheduleReplay doInBackground() {
+                return new ScheduleReplay(workload, timeline, CHECKPOINT_INTERVAL);
+            }
+
+            @Override
+            protected void done() {
+                if (!isDisplayable()) {
+                    return;
+                }
+                try {
+                    replay = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    statusLabel.setText("Cannot replay this run: " + e.getMessage());
+                    return;
+                }
+                setControlsEnabled(true);
+                seek(0);
+                cursorPanel.repaint();
+            }
+        }.execute();
+    }
+
+    private void setControlsEnabled(boolean enabled) {
+        timeSlider.setEnabled(enabled);
+        previousButton.setEnabled(enabled);
+        nextButton.setEnabled(enabled);
+    }
+
+    private void initializeComponents() {
+        timeSlider = new JSlider(0, Math.max(span, 1), 0);
+        timeSlider.setOpaque(false);
+        timeSlider.setPreferredSize(new Dimension(450, 40));
+        timeLabel = ComparisonFrame.label("T = 0");
+        runningLabel = ComparisonFrame.label("");
+        statusLabel = new JLabel();
+        statusLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        statusLabel.setForeground(ComparisonFrame.TEXT);
+        cursorPanel = new CursorPanel();
+        readyModel = new ReadyModel();
+    }
+
+    private void setupLayout() {
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.CENTER, 12, 8));
+        controls.setOpaque(false);
+        controls.setBorder(new CompoundBorder(new LineBorder(ComparisonFrame.ACCENT, 2, true), new EmptyBorder(0, 10, 0, 10)));
+        JLabel titleLabel = new JLabel("⏯ Replay");
+        titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 18));
+        titleLabel.setForeground(ComparisonFrame.TEXT);
+        previousButton = ComparisonFrame.button("◀ Previous", ComparisonFrame.ACCENT);
+        nextButton = ComparisonFrame.button("Next ▶", ComparisonFrame.ACCENT);
+        controls.add(titleLabel);
+        controls.add(Box.createHorizontalStrut(15));
+        controls.add(previousButton);
+        controls.add(timeSlider);
+        controls.add(nextButton);
+        controls.add(timeLabel);
+        add(controls, BorderLayout.NORTH);
+
+        JPanel center = new JPanel(new BorderLayout(10, 10));
+        center.setOpaque(false);
+        center.add(ComparisonFrame.titled(new JScrollPane(cursorPanel), "📅 Gantt Chart"), BorderLayout.NORTH);
+        JTable readyTable = new JTable(readyModel);
+        ComparisonFrame.styleTable(readyTable);
+        JPanel queuePanel = new JPanel(new BorderLayout(5, 5));
+        queuePanel.setOpaque(false);
+        queuePanel.add(runningLabel, BorderLayout.NORTH);
+        queuePanel.add(ComparisonFrame.titled(new JScrollPane(readyTable), "📋 Ready Queue (in arrival order)"),
+                BorderLayout.CENTER);
+        center.add(queuePanel, BorderLayout.CENTER);
+        add(center, BorderLayout.CENTER);
+
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        bottomPanel.setOpaque(false);
+        bottomPanel.setBorder(new EmptyBorder(0, 10, 10, 10));
+        bottomPanel.add(statusLabel, BorderLayout.CENTER);
+        add(bottomPanel, BorderLayout.SOUTH);
+
+        timeSlider.addChangeListener(e -> {
+            if (replay != null) {
+                seek(timeSlider.getValue());
+            }
+        });
+        previousButton.addActionListener(e -> {
+            int time = replay.previousDispatch(timeSlider.getValue());
+            timeSlider.setValue(Math.max(time, 0));
+        });
+        nextButton.addActionListener(e -> {
+            int time = replay.nextDispatch(timeSlider.getValue());
+            timeSlider.setValue(time < 0 ? span : time);
+        });
+    }
+
+    private void seek(int time) {
+        long started = System.nanoTime();
+        ReplayState state = replay.at(time);
+        long elapsed = System.nanoTime() - started;
+
+        timeLabel.setText("T = " + time);
+        runningLabel.setText(state.running < 0 ? "CPU idle"
+                : "Running: " + labels[state.running] + " (" + state.runningRemaining + " left)");
+        readyModel.show(state);
+        cursorPanel.setTime(time);
+        statusLabel.setText(String.format("Dispatch %d of %d, %d ready, seek %s over %d checkpoints",
+                state.dispatched, replay.timeline().size(), state.ready.length, RunCost.formatNanos(elapsed),
+                replay.checkpoints()));
+    }
+
+    private class ReadyModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Process", "AT", "BT", "Remaining"};
+        private ReplayState state;
+
+        void show(ReplayState state) {
+            this.state = state;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return state == null ? 0 : state.ready.length;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            int p = state.ready[row];
+            switch (column) {
+                case 0: return labels[p];
+                case 1: return workload.arrival[p];
+                case 2: return workload.burst[p];
+                default: return state.readyRemaining[row];
+            }
+        }
+    }
+
+    // The Gantt chart as GanttPainter draws it, with a line at the replay time.
+    private class CursorPanel extends JPanel {
+        private int time;
+
+        CursorPanel() {
+            setBackground(Color.WHITE);
+            setPreferredSize(new Dimension(700, 140));
+        }
+
+        void setTime(int time) {
+            this.time = time;
+            repaint();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            if (span <= 0 || replay == null) {
+                return;
+            }
+            Graphics2D g2 = (Graphics2D) g.create();
+            GanttPainter.paint(g2, getWidth(), getHeight(), timeline, labels, colors, span);
+            double scale = (double) (getWidth() - 2 * GanttPainter.MARGIN) / span;
+            int x = GanttPainter.MARGIN + (int) (time * scale);
+            g2.setColor(new Color(220, 20, 60));
+            g2.setStroke(new BasicStroke(2));
+            g2.drawLine(x, 5, x, getHeight() - 5);
+            g2.dispose();
+        }
+    }
+}
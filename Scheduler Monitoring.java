@@ -0,0 +1,246 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+// Live counters of a scheduling run, registered as CCOPSYSL:type=SchedulerRun,engine=...,run=N
+// on the platform MBean server so JConsole or any local JMX client can watch it.
+//
+// Engines never touch the shared counters directly. Each run feeds a Recorder, which
+// counts into plain fields and publishes to the LongAdders every FLUSH_EVENTS events, so
+// the hot loop pays for a field increment and the adders stay cheap even when many
+// Monte Carlo workers share one SchedulerStats. Implemented as a DynamicMBean because a
+// standard MBean interface would have to be public and live in its own file.
+final class SchedulerStats implements DynamicMBean, AutoCloseable {
+    static final int FLUSH_EVENTS = 4096;
+    private static final AtomicLong RUNS = new AtomicLong();
+
+    private static final String[][] ATTRIBUTES = {
+        {"Engine", "java.lang.String", "Scheduling algorithm"},
+        {"SimulatedTime", "long", "Simulated time units covered so far"},
+        {"ProcessesArrived", "long", "Processes that have arrived"},
+        {"ProcessesCompleted", "long", "Processes that have completed"},
+        {"ReadyQueueLength", "int", "Processes waiting for the CPU at the last flush"},
+        {"DispatchDecisions", "long", "Times the scheduler handed the CPU to a process"},
+        {"ContextSwitches", "long", "Dispatches of a different process than the previous one"},
+        {"Preemptions", "long", "Slices that ended before the process completed"},
+        {"IdleTime", "long", "Simulated time units with nothing to run"},
+        {"SimulatedTimePerSecond", "double", "Simulated time units per wall-clock second since the previous read"},
+        {"ElapsedSeconds", "double", "Wall-clock seconds since registration"},
+    };
+
+    final String engine;
+    final LongAdder simulatedTime = new LongAdder();
+    final LongAdder arrived = new LongAdder();
+    final LongAdder completed = new LongAdder();
+    final LongAdder dispatches = new LongAdder();
+    final LongAdder contextSwitches = new LongAdder();
+    final LongAdder preemptions = new LongAdder();
+    final LongAdder idleTime = new LongAdder();
+    volatile int readyQueueLength;
+
+    private final long startedNanos = System.nanoTime();
+    private long sampleNanos = startedNanos;
+    private long sampleTime;
+    private double sampleRate;
+    private ObjectName objectName;
+
+    SchedulerStats(String engine) {
+        this.engine = engine;
+    }
+
+    // Creates the counters for one run and registers them with the platform MBean server.
+    static SchedulerStats register(String engine) {
+        SchedulerStats stats = new SchedulerStats(engine);
+        try {
+            ObjectName name = new ObjectName("CCOPSYSL:type=SchedulerRun,engine=" + ObjectName.quote(engine)
+                    + ",run=" + RUNS.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(stats, name);
+            stats.objectName = name;
+        } catch (JMException e) {
+            System.err.println("Could not register scheduler MBean: " + e.getMessage());
+        }
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        if (objectName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(objectName);
+        } catch (JMException e) {
+            System.err.println("Could not unregister scheduler MBean: " + e.getMessage());
+        }
+        objectName = null;
+    }
+
+    // A recorder belongs to one engine run on one thread.
+    Recorder recorder() {
+        return new Recorder(this);
+    }
+
+    // Rate since the previous read, recomputed at most ten times a second.
+    synchronized double simulatedTimePerSecond() {
+        long now = System.nanoTime();
+        if (now - sampleNanos >= 100_000_000L) {
+            long time = simulatedTime.sum();
+            sampleRate = (time - sampleTime) * 1e9 / (now - sampleNanos);
+            sampleTime = time;
+            sampleNanos = now;
+        }
+        return sampleRate;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        switch (attribute) {
+            case "Engine": return engine;
+            case "SimulatedTime": return simulatedTime.sum();
+            case "ProcessesArrived": return arrived.sum();
+            case "ProcessesCompleted": return completed.sum();
+            case "ReadyQueueLength": return readyQueueLength;
+            case "DispatchDecisions": return dispatches.sum();
+            case "ContextSwitches": return contextSwitches.sum();
+            case "Preemptions": return preemptions.sum();
+            case "IdleTime": return idleTime.sum();
+            case "SimulatedTimePerSecond": return simulatedTimePerSecond();
+            case "ElapsedSeconds": return (System.nanoTime() - startedNanos) / 1e9;
+            default: throw new AttributeNotFoundException(attribute);
+        }
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                // JMX convention: unknown attributes are left out of the list
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Scheduler counters are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        // getMBeanInfo advertises no operations, so any name is unknown
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        MBeanAttributeInfo[] infos = new MBeanAttributeInfo[ATTRIBUTES.length];
+        for (int i = 0; i < ATTRIBUTES.length; i++) {
+            infos[i] = new MBeanAttributeInfo(ATTRIBUTES[i][0], ATTRIBUTES[i][1], ATTRIBUTES[i][2], true, false, false);
+        }
+        return new MBeanInfo(getClass().getName(), "Live counters of a scheduling run", infos, null,
+                new MBeanOperationInfo[0], null);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: time %d, arrived %d, completed %d, dispatches %d, context switches %d, "
+                + "preemptions %d, idle %d", engine, simulatedTime.sum(), arrived.sum(), completed.sum(),
+                dispatches.sum(), contextSwitches.sum(), preemptions.sum(), idleTime.sum());
+    }
+
+    static final class Recorder implements SchedulerListener {
+        private final SchedulerStats stats;
+        private long arrived, completed, dispatches, contextSwitches, preemptions, idleTime;
+        private long lastProcess = -1;
+        private long clock;
+        private long publishedClock;
+        private int ready;
+        private int events;
+
+        Recorder(SchedulerStats stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public void arrived(long process, long time) {
+            arrived++;
+            tick(time);
+        }
+
+        @Override
+        public void dispatched(long process, long start, long end, int ready) {
+            dispatches++;
+            if (process != lastProcess) {
+                contextSwitches++;
+                lastProcess = process;
+            }
+            this.ready = ready;
+            tick(start);
+            clock = Math.max(clock, end);
+        }
+
+        @Override
+        public void preempted(long process, long time, long remaining) {
+            preemptions++;
+        }
+
+        @Override
+        public void completed(long process, long time) {
+            completed++;
+        }
+
+        @Override
+        public void idle(long from, long to) {
+            idleTime += to - from;
+            tick(to);
+        }
+
+        @Override
+        public void finished(long time) {
+            clock = Math.max(clock, time);
+            ready = 0;
+            flush();
+        }
+
+        private void tick(long time) {
+            clock = Math.max(clock, time);
+            if (++events == FLUSH_EVENTS) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            events = 0;
+            stats.arrived.add(arrived);
+            stats.completed.add(completed);
+            stats.dispatches.add(dispatches);
+            stats.contextSwitches.add(contextSwitches);
+            stats.preemptions.add(preemptions);
+            stats.idleTime.add(idleTime);
+            stats.simulatedTime.add(clock - publishedClock);
+            stats.readyQueueLength = ready;
+            publishedClock = clock;
+            arrived = completed = dispatches = contextSwitches = preemptions = idleTime = 0;
+        }
+    }
+}
@@ -0,0 +1,956 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Headless scheduling engines shared by the Swing frames and the batch tools.
+// Everything works on primitive arrays indexed by process number so that the
+// same code handles a 3-row table and a 10^7 process workload.
+
+// Input workload. The arrays are owned by the workload once passed in and must
+// not be modified afterwards, which lets several engines share one instance.
+final class Workload {
+    final int[] arrival;
+    final int[] burst;
+    final String[] names;
+    // Optional, lower is more important; CFS reads it as the nice level
+    final int[] priority;
+    private volatile int[] arrivalOrder;
+
+    Workload(String[] names, int[] arrival, int[] burst, int[] priority) {
+        if (arrival.length != burst.length || (names != null && names.length != arrival.length)
+                || (priority != null && priority.length != arrival.length)) {
+            throw new IllegalArgumentException("Arrival, burst, name and priority columns must have the same length!");
+        }
+        this.names = names;
+        this.arrival = arrival;
+        this.burst = burst;
+        this.priority = priority;
+    }
+
+    Workload(String[] names, int[] arrival, int[] burst) {
+        this(names, arrival, burst, null);
+    }
+
+    Workload(int[] arrival, int[] burst) {
+        this(null, arrival, burst, null);
+    }
+
+    int size() {
+        return arrival.length;
+    }
+
+    String name(int i) {
+        return names != null ? names[i] : "P" + (i + 1);
+    }
+
+    int priority(int i) {
+        return priority != null ? priority[i] : 0;
+    }
+
+    // Process indices sorted by (arrival time, index), computed once per workload.
+    int[] arrivalOrder() {
+        int[] order = arrivalOrder;
+        if (order == null) {
+            int n = arrival.length;
+            long[] keys = new long[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = ((long) arrival[i] << 32) | i;
+            }
+            Arrays.sort(keys);
+            order = new int[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = (int) keys[i];
+            }
+            arrivalOrder = order;
+        }
+        return order;
+    }
+}
+
+// Executed segments in dispatch order, stored as parallel int columns, or spilled to
+// memory-mapped files once a run may not fit in the heap. Readers go through the same
+// accessors either way.
+final class Timeline {
+    private int[] process;
+    private int[] start;
+    private int[] end;
+    private int size;
+    // Where the segments go instead of the arrays, or null
+    private final MappedTimelineStore store;
+
+    Timeline() {
+        this(16);
+    }
+
+    Timeline(int capacity) {
+        capacity = Math.max(capacity, 1);
+        process = new int[capacity];
+        start = new int[capacity];
+        end = new int[capacity];
+        store = null;
+    }
+
+    private Timeline(MappedTimelineStore store) {
+        this.store = store;
+    }
+
+    // A timeline kept in segment files under directory, with only the last few files mapped
+    // at a time. close() deletes the files.
+    static Timeline spilled(Path directory) throws IOException {
+        return new Timeline(new MappedTimelineStore(directory));
+    }
+
+    void add(int p, int from, int to) {
+        if (store != null) {
+            store.add(p, from, to);
+            return;
+        }
+        if (size == process.length) {
+            int capacity = size + (size >> 1) + 1;
+            process = Arrays.copyOf(process, capacity);
+            start = Arrays.copyOf(start, capacity);
+            end = Arrays.copyOf(end, capacity);
+        }
+        process[size] = p;
+        start[size] = from;
+        end[size] = to;
+        size++;
+    }
+
+    int size() {
+        return store != null ? store.size() : size;
+    }
+
+    int process(int i) {
+        return store != null ? store.process(i) : process[i];
+    }
+
+    int start(int i) {
+        return store != null ? store.start(i) : start[i];
+    }
+
+    int end(int i) {
+        return store != null ? store.end(i) : end[i];
+    }
+
+    // Index of the first segment that ends after time, or size() if none does. Assumes
+    // the segments were added in time order, as one CPU produces them.
+    int seek(int time) {
+        if (store != null) {
+            return store.seek(time);
+        }
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (end[mid] <= time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    boolean isSpilled() {
+        return store != null;
+    }
+
+    void clear() {
+        if (store != null) {
+            store.clear();
+        }
+        size = 0;
+    }
+
+    // Deletes the segment files of a spilled timeline; a no-op on the heap.
+    void close() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+}
+
+final class ScheduleResult {
+    final Workload workload;
+    final int[] completion;
+    final Timeline timeline;
+    // What the engine run cost, or null when the result was assembled by hand
+    final RunCost cost;
+
+    ScheduleResult(Workload workload, int[] completion, Timeline timeline, RunCost cost) {
+        this.workload = workload;
+        this.completion = completion;
+        this.timeline = timeline;
+        this.cost = cost;
+    }
+
+    int turnaround(int i) {
+        return completion[i] - workload.arrival[i];
+    }
+
+    int waiting(int i) {
+        return turnaround(i) - workload.burst[i];
+    }
+
+    double averageTurnaround() {
+        long total = 0;
+        for (int i = 0; i < completion.length; i++) {
+            total += turnaround(i);
+        }
+        return completion.length == 0 ? 0 : (double) total / completion.length;
+    }
+
+    double averageWaiting() {
+        long total = 0;
+        for (int i = 0; i < completion.length; i++) {
+            total += waiting(i);
+        }
+        return completion.length == 0 ? 0 : (double) total / completion.length;
+    }
+
+    // CPU time each process was entitled to over its lifetime: the integral of its weight
+    // over the total weight of runnable processes, where a process counts as runnable
+    // from arrival to completion and weighs CfsEngine.weight(priority). Depends only on
+    // arrival and completion times, so it applies to every engine.
+    double[] fairShare() {
+        int n = completion.length;
+        int[] arrivals = workload.arrivalOrder();
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = ((long) completion[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        // fair[i] holds the integral of 1 / W(t) at arrival, then the difference up to completion
+        double[] fair = new double[n];
+        double integral = 0;
+        long weight = 0;
+        long last = 0;
+        int a = 0;
+        int c = 0;
+        while (c < n) {
+            boolean arrival = a < n && workload.arrival[arrivals[a]] <= (int) (keys[c] >>> 32);
+            long t = arrival ? workload.arrival[arrivals[a]] : keys[c] >>> 32;
+            if (weight > 0) {
+                integral += (t - last) / (double) weight;
+            }
+            last = t;
+            if (arrival) {
+                int p = arrivals[a++];
+                fair[p] = integral;
+                weight += CfsEngine.weight(workload.priority(p));
+            } else {
+                int p = (int) keys[c++];
+                fair[p] = integral - fair[p];
+                weight -= CfsEngine.weight(workload.priority(p));
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            fair[i] *= CfsEngine.weight(workload.priority(i));
+        }
+        return fair;
+    }
+
+    // Fraction of all CPU time that went to processes beyond or short of their fair share.
+    // Unlike a mean of per-process ratios it is not dominated by one-unit bursts, whose
+    // fair share can be far below the smallest slice an engine hands out.
+    double averageShareDeviation() {
+        double[] fair = fairShare();
+        double off = 0;
+        long total = 0;
+        for (int i = 0; i < fair.length; i++) {
+            off += Math.abs(workload.burst[i] - fair[i]);
+            total += workload.burst[i];
+        }
+        return total == 0 ? 0 : off / total;
+    }
+
+    // Slices that ended before their process completed; needs the timeline.
+    int preemptions() {
+        return timeline.size() - completion.length;
+    }
+
+    int makespan() {
+        int max = 0;
+        for (int c : completion) {
+            max = Math.max(max, c);
+        }
+        return max;
+    }
+}
+
+// Optional per-event callbacks from the engines, used for monitoring. Process ids are
+// table indices for the array engines and stream positions for the streaming engines.
+interface SchedulerListener {
+    default void arrived(long process, long time) {
+    }
+
+    // ready is the number of processes left waiting once this one got the CPU.
+    default void dispatched(long process, long start, long end, int ready) {
+    }
+
+    default void preempted(long process, long time, long remaining) {
+    }
+
+    default void completed(long process, long time) {
+    }
+
+    default void idle(long from, long to) {
+    }
+
+    default void finished(long time) {
+    }
+
+    // Forwards every event to both listeners; either may be null.
+    static SchedulerListener both(SchedulerListener first, SchedulerListener second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        return new SchedulerListener() {
+            @Override
+            public void arrived(long process, long time) {
+                first.arrived(process, time);
+                second.arrived(process, time);
+            }
+
+            @Override
+            public void dispatched(long process, long start, long end, int ready) {
+                first.dispatched(process, start, end, ready);
+                second.dispatched(process, start, end, ready);
+            }
+
+            @Override
+            public void preempted(long process, long time, long remaining) {
+                first.preempted(process, time, remaining);
+                second.preempted(process, time, remaining);
+            }
+
+            @Override
+            public void completed(long process, long time) {
+                first.completed(process, time);
+                second.completed(process, time);
+            }
+
+            @Override
+            public void idle(long from, long to) {
+                first.idle(from, to);
+                second.idle(from, to);
+            }
+
+            @Override
+            public void finished(long time) {
+                first.finished(time);
+                second.finished(time);
+            }
+        };
+    }
+}
+
+interface SchedulingEngine {
+    String name();
+
+    // Writes the completion time of every process into completion[] and appends the
+    // executed segments to timeline. The timeline may be null when only metrics are
+    // needed, and the listener may be null when nobody is watching.
+    void schedule(Workload workload, int[] completion, Timeline timeline, SchedulerListener listener);
+
+    default void schedule(Workload workload, int[] completion, Timeline timeline) {
+        schedule(workload, completion, timeline, null);
+    }
+
+    default ScheduleResult run(Workload workload) {
+        return run(workload, null);
+    }
+
+    default ScheduleResult run(Workload workload, SchedulerListener listener) {
+        return run(workload, new Timeline(workload.size()), listener);
+    }
+
+    // As run(workload, listener), appending to the given timeline, which may be spilled.
+    default ScheduleResult run(Workload workload, Timeline timeline, SchedulerListener listener) {
+        RunCost.Meter meter = RunCost.start();
+        int[] completion = new int[workload.size()];
+        schedule(workload, completion, timeline, SchedulerListener.both(listener, SchedulerEvents.listener(name())));
+        return new ScheduleResult(workload, completion, timeline, meter.stop());
+    }
+}
+
+// First come first served, ties broken by input order.
+final class FcfsEngine implements SchedulingEngine {
+    @Override
+    public String name() {
+        return "FCFS";
+    }
+
+    @Override
+    public void schedule(Workload workload, int[] completion, Timeline timeline, SchedulerListener listener) {
+        int[] at = workload.arrival;
+        int[] bt = workload.burst;
+        int[] order = workload.arrivalOrder();
+        int time = 0;
+        int arrived = 0;
+        for (int k = 0; k < order.length; k++) {
+            int p = order[k];
+            int start = Math.max(time, at[p]);
+            if (listener != null) {
+                if (start > time) {
+                    listener.idle(time, start);
+                }
+                while (arrived < order.length && at[order[arrived]] <= start) {
+                    listener.arrived(order[arrived], at[order[arrived]]);
+                    arrived++;
+                }
+                listener.dispatched(p, start, start + bt[p], arrived - k - 1);
+                listener.completed(p, start + bt[p]);
+            }
+            time = start + bt[p];
+            completion[p] = time;
+            if (timeline != null) {
+                timeline.add(p, start, time);
+            }
+        }
+        if (listener != null) {
+            listener.finished(time);
+        }
+    }
+}
+
+// Non-preemptive shortest job first. Ties go to the earlier arrival, then to the
+// lower process index, exactly like the original table scan in SJFAlgo.
+final class SjfEngine implements SchedulingEngine {
+    @Override
+    public String name() {
+        return "SJF";
+    }
+
+    @Override
+    public void schedule(Workload workload, int[] completion, Timeline timeline, SchedulerListener listener) {
+        int[] at = workload.arrival;
+        int[] bt = workload.burst;
+        int[] order = workload.arrivalOrder();
+        int n = order.length;
+        // Heap ids are arrival ranks, so equal bursts fall back to (arrival, index) order
+        IntHeap ready = new IntHeap(Math.min(n, 1024));
+        int time = 0;
+        int next = 0;
+        int done = 0;
+        while (done < n) {
+            while (next < n && at[order[next]] <= time) {
+                if (listener != null) {
+                    listener.arrived(order[next], at[order[next]]);
+                }
+                ready.push(next, bt[order[next]]);
+                next++;
+            }
+            if (ready.isEmpty()) {
+                if (listener != null) {
+                    listener.idle(time, at[order[next]]);
+                }
+                time = at[order[next]];
+                continue;
+            }
+            int p = order[ready.pop()];
+            int start = time;
+            time += bt[p];
+            completion[p] = time;
+            if (timeline != null) {
+                timeline.add(p, start, time);
+            }
+            if (listener != null) {
+                listener.dispatched(p, start, time, ready.size());
+                listener.completed(p, time);
+            }
+            done++;
+        }
+        if (listener != null) {
+            listener.finished(time);
+        }
+    }
+}
+
+// Round robin as implemented by SOLOALVHIN: the CPU cycles over the process table in
+// index order and gives each arrived, unfinished process up to one quantum. When a
+// whole pass finds nothing to run, time jumps to the next arrival and the scan restarts
+// at the first row. Runnable processes are kept in a two-level bitset so that finding
+// the next one costs O(1) amortised instead of a scan over the whole table.
+final class RoundRobinEngine implements SchedulingEngine {
+    private final int quantum;
+
+    RoundRobinEngine(int quantum) {
+        if (quantum <= 0) {
+            throw new IllegalArgumentException("Time quantum must be > 0!");
+        }
+        this.quantum = quantum;
+    }
+
+    int quantum() {
+        return quantum;
+    }
+
+    @Override
+    public String name() {
+        return "RR (q=" + quantum + ")";
+    }
+
+    @Override
+    public void schedule(Workload workload, int[] completion, Timeline timeline, SchedulerListener listener) {
+        int[] at = workload.arrival;
+        int[] bt = workload.burst;
+        int[] order = workload.arrivalOrder();
+        int n = order.length;
+        if (n == 0) {
+            return;
+        }
+        int[] remaining = bt.clone();
+        long[] words = new long[(n + 63) >>> 6];
+        long[] summary = new long[(words.length + 63) >>> 6];
+        int time = at[order[0]];
+        int next = 0;
+        int runnable = 0;
+        int done = 0;
+        int idx = 0;
+        while (done < n) {
+            while (next < n && at[order[next]] <= time) {
+                int p = order[next++];
+                if (listener != null) {
+                    listener.arrived(p, at[p]);
+                }
+                words[p >>> 6] |= 1L << p;
+                summary[p >>> 12] |= 1L << (p >>> 6);
+                runnable++;
+            }
+            if (runnable == 0) {
+                if (listener != null) {
+                    listener.idle(time, at[order[next]]);
+                }
+                time = at[order[next]];
+                idx = 0;
+                continue;
+            }
+            int p = nextSetBit(words, summary, idx);
+            if (p < 0) {
+                p = nextSetBit(words, summary, 0);
+            }
+            int start = time;
+            int slice = Math.min(quantum, remaining[p]);
+            time += slice;
+            remaining[p] -= slice;
+            if (timeline != null) {
+                timeline.add(p, start, time);
+            }
+            if (listener != null) {
+                listener.dispatched(p, start, time, runnable - 1);
+                if (remaining[p] == 0) {
+                    listener.completed(p, time);
+                } else {
+                    listener.preempted(p, time, remaining[p]);
+                }
+            }
+            if (remaining[p] == 0) {
+                completion[p] = time;
+                words[p >>> 6] &= ~(1L << p);
+                if (words[p >>> 6] == 0) {
+                    summary[p >>> 12] &= ~(1L << (p >>> 6));
+                }
+                runnable--;
+                done++;
+            }
+            idx = p + 1 == n ? 0 : p + 1;
+        }
+        if (listener != null) {
+            listener.finished(time);
+        }
+    }
+
+    private static int nextSetBit(long[] words, long[] summary, int from) {
+        int w = from >>> 6;
+        long word = words[w] & (-1L << from);
+        if (word != 0) {
+            return (w << 6) + Long.numberOfTrailingZeros(word);
+        }
+        w++;
+        if (w == words.length) {
+            return -1;
+        }
+        int s = w >>> 6;
+        long bits = summary[s] & (-1L << w);
+        while (bits == 0) {
+            if (++s == summary.length) {
+                return -1;
+            }
+            bits = summary[s];
+        }
+        w = (s << 6) + Long.numberOfTrailingZeros(bits);
+        return (w << 6) + Long.numberOfTrailingZeros(words[w]);
+    }
+}
+
+// Receives processes one at a time in non-decreasing arrival order.
+interface ProcessSink {
+    void accept(long arrival, int burst);
+
+    // Called once after the last process.
+    void finish();
+}
+
+interface CompletionSink {
+    // id is the position of the process in the arrival stream.
+    void completed(long id, long arrival, int burst, long completion);
+}
+
+// Streaming counterparts of the engines above. They consume an arrival-ordered stream
+// and only keep the processes that have arrived but not yet completed, so workloads far
+// larger than the heap can be scheduled. For an arrival-sorted workload they produce the
+// same completion times as FcfsEngine, SjfEngine and RoundRobinEngine.
+abstract class StreamingEngine implements ProcessSink {
+    final CompletionSink completions;
+    // Optional, set before the first process is offered
+    SchedulerListener listener;
+    long time;
+    long lastArrival;
+    long nextId;
+
+    StreamingEngine(CompletionSink completions) {
+        this.completions = completions;
+    }
+
+    abstract String name();
+
+    void checkOrder(long arrival) {
+        if (arrival < lastArrival || arrival < 0) {
+            throw new IllegalArgumentException("Arrivals must be non-negative and non-decreasing!");
+        }
+        lastArrival = arrival;
+    }
+}
+
+final class StreamingFcfsEngine extends StreamingEngine {
+    StreamingFcfsEngine(CompletionSink completions) {
+        super(completions);
+    }
+
+    @Override
+    String name() {
+        return "FCFS";
+    }
+
+    @Override
+    public void accept(long arrival, int burst) {
+        checkOrder(arrival);
+        long start = Math.max(time, arrival);
+        if (listener != null) {
+            if (start > time) {
+                listener.idle(time, start);
+            }
+            // The queue behind this process is only known once later arrivals are seen
+            listener.arrived(nextId, arrival);
+            listener.dispatched(nextId, start, start + burst, 0);
+            listener.completed(nextId, start + burst);
+        }
+        time = start + burst;
+        completions.completed(nextId++, arrival, burst, time);
+    }
+
+    @Override
+    public void finish() {
+        if (listener != null) {
+            listener.finished(time);
+        }
+    }
+}
+
+final class StreamingSjfEngine extends StreamingEngine {
+    // Ready processes live in recycled slots; the heap orders slots by (burst, arrival order)
+    private final IntHeap ready = new IntHeap(1024);
+    private final IntRing freeSlots = new IntRing(1024);
+    private long[] slotArrival = new long[1024];
+    private long[] slotId = new long[1024];
+    private int[] slotBurst = new int[1024];
+    private int slots;
+
+    StreamingSjfEngine(CompletionSink completions) {
+        super(completions);
+    }
+
+    @Override
+    String name() {
+        return "SJF";
+    }
+
+    @Override
+    public void accept(long arrival, int burst) {
+        checkOrder(arrival);
+        while (!ready.isEmpty() && time < arrival) {
+            dispatch();
+        }
+        if (listener != null) {
+            if (arrival > time) {
+                listener.idle(time, arrival);
+            }
+            listener.arrived(nextId, arrival);
+        }
+        time = Math.max(time, arrival);
+        int slot = freeSlots.isEmpty() ? newSlot() : freeSlots.poll();
+        slotArrival[slot] = arrival;
+        slotBurst[slot] = burst;
+        slotId[slot] = nextId;
+        // Ties on burst fall back to arrival order; the sequence wraps after 2^32 processes
+        ready.push(slot, ((long) burst << 32) | (nextId++ & 0xFFFFFFFFL));
+    }
+
+    @Override
+    public void finish() {
+        while (!ready.isEmpty()) {
+            dispatch();
+        }
+        if (listener != null) {
+            listener.finished(time);
+        }
+    }
+
+    private void dispatch() {
+        int slot = ready.pop();
+        long start = time;
+        time += slotBurst[slot];
+        if (listener != null) {
+            listener.dispatched(slotId[slot], start, time, ready.size());
+            listener.completed(slotId[slot], time);
+        }
+        completions.completed(slotId[slot], slotArrival[slot], slotBurst[slot], time);
+        freeSlots.add(slot);
+    }
+
+    private int newSlot() {
+        if (slots == slotArrival.length) {
+            int capacity = slots << 1;
+            slotArrival = Arrays.copyOf(slotArrival, capacity);
+            slotId = Arrays.copyOf(slotId, capacity);
+            slotBurst = Arrays.copyOf(slotBurst, capacity);
+        }
+        return slots++;
+    }
+}
+
+// Index-order round robin over an arrival-sorted stream. Newly arrived processes always
+// have the highest index, so the cyclic scan of RoundRobinEngine becomes two FIFOs:
+// processes still ahead of the scan position and processes already passed this cycle.
+final class StreamingRoundRobinEngine extends StreamingEngine {
+    private final int quantum;
+    private IntRing ahead = new IntRing(1024);
+    private IntRing behind = new IntRing(1024);
+    private final IntRing freeSlots = new IntRing(1024);
+    private long[] slotArrival = new long[1024];
+    private long[] slotId = new long[1024];
+    private int[] slotBurst = new int[1024];
+    private int[] slotRemaining = new int[1024];
+    private int slots;
+
+    StreamingRoundRobinEngine(int quantum, CompletionSink completions) {
+        super(completions);
+        if (quantum <= 0) {
+            throw new IllegalArgumentException("Time quantum must be > 0!");
+        }
+        this.quantum = quantum;
+    }
+
+    @Override
+    String name() {
+        return "RR (q=" + quantum + ")";
+    }
+
+    @Override
+    public void accept(long arrival, int burst) {
+        checkOrder(arrival);
+        while (time < arrival && !(ahead.isEmpty() && behind.isEmpty())) {
+            dispatch();
+        }
+        if (listener != null) {
+            // The very first arrival sets the clock rather than ending an idle period
+            if (arrival > time && nextId > 0) {
+                listener.idle(time, arrival);
+            }
+            listener.arrived(nextId, arrival);
+        }
+        time = Math.max(time, arrival);
+        int slot = freeSlots.isEmpty() ? newSlot() : freeSlots.poll();
+        slotArrival[slot] = arrival;
+        slotBurst[slot] = burst;
+        slotRemaining[slot] = burst;
+        slotId[slot] = nextId++;
+        ahead.add(slot);
+    }
+
+    @Override
+    public void finish() {
+        while (!(ahead.isEmpty() && behind.isEmpty())) {
+            dispatch();
+        }
+        if (listener != null) {
+            listener.finished(time);
+        }
+    }
+
+    private void dispatch() {
+        if (ahead.isEmpty()) {
+            IntRing swap = ahead;
+            ahead = behind;
+            behind = swap;
+        }
+        int slot = ahead.poll();
+        int slice = Math.min(quantum, slotRemaining[slot]);
+        long start = time;
+        time += slice;
+        slotRemaining[slot] -= slice;
+        if (listener != null) {
+            listener.dispatched(slotId[slot], start, time, ahead.size() + behind.size());
+            if (slotRemaining[slot] == 0) {
+                listener.completed(slotId[slot], time);
+            } else {
+                listener.preempted(slotId[slot], time, slotRemaining[slot]);
+            }
+        }
+        if (slotRemaining[slot] == 0) {
+            completions.completed(slotId[slot], slotArrival[slot], slotBurst[slot], time);
+            freeSlots.add(slot);
+        } else {
+            behind.add(slot);
+        }
+    }
+
+    private int newSlot() {
+        if (slots == slotArrival.length) {
+            int capacity = slots << 1;
+            slotArrival = Arrays.copyOf(slotArrival, capacity);
+            slotId = Arrays.copyOf(slotId, capacity);
+            slotBurst = Arrays.copyOf(slotBurst, capacity);
+            slotRemaining = Arrays.copyOf(slotRemaining, capacity);
+        }
+        return slots++;
+    }
+}
+
+// Growable FIFO of ints.
+final class IntRing {
+    private int[] items;
+    private int head;
+    private int size;
+
+    IntRing(int capacity) {
+        items = new int[Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void add(int value) {
+        if (size == items.length) {
+            int[] grown = new int[items.length << 1];
+            for (int i = 0; i < size; i++) {
+                grown[i] = items[(head + i) & (items.length - 1)];
+            }
+            items = grown;
+            head = 0;
+        }
+        items[(head + size++) & (items.length - 1)] = value;
+    }
+
+    int poll() {
+        int value = items[head];
+        head = (head + 1) & (items.length - 1);
+        size--;
+        return value;
+    }
+
+    void clear() {
+        head = 0;
+        size = 0;
+    }
+}
+
+// Binary min-heap of int ids ordered by a long key, ties broken by the smaller id.
+final class IntHeap {
+    private int[] ids;
+    private long[] keys;
+    private int size;
+
+    IntHeap(int capacity) {
+        capacity = Math.max(capacity, 1);
+        ids = new int[capacity];
+        keys = new long[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int peek() {
+        return ids[0];
+    }
+
+    long peekKey() {
+        return keys[0];
+    }
+
+    void push(int id, long key) {
+        if (size == ids.length) {
+            int capacity = size << 1;
+            ids = Arrays.copyOf(ids, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(key, id, keys[parent], ids[parent])) {
+                break;
+            }
+            ids[i] = ids[parent];
+            keys[i] = keys[parent];
+            i = parent;
+        }
+        ids[i] = id;
+        keys[i] = key;
+    }
+
+    int pop() {
+        int top = ids[0];
+        int id = ids[--size];
+        long key = keys[size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && less(keys[child + 1], ids[child + 1], keys[child], ids[child])) {
+                child++;
+            }
+            if (!less(keys[child], ids[child], key, id)) {
+                break;
+            }
+            ids[i] = ids[child];
+            keys[i] = keys[child];
+            i = child;
+        }
+        ids[i] = id;
+        keys[i] = key;
+        return top;
+    }
+
+    private static boolean less(long keyA, int idA, long keyB, int idB) {
+        return keyA < keyB || (keyA == keyB && idA < idB);
+    }
+}
@@ -0,0 +1,682 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// The engines over HTTP, on the JDK's built-in server.
+//
+//   POST /schedule?algorithm=rr&quantum=4&timeline=false
+//        body: CSV rows of [name,]arrival,burst[,priority], as BatchRunner reads them
+//        reply: JSON with the averages, the makespan, a row per process and optionally
+//        the executed segments
+//   GET  /algorithms   the algorithm names BatchRunner.engine() knows
+//   GET  /stats        requests served, batches run and the mean batch size
+//
+// Requests are handled on virtual threads where the JDK has them (21 and later) and on a
+// fixed pool of platform threads otherwise. Handlers only parse and serialise; scheduling
+// happens on a compute pool with a thread per core. Workloads of up to small processes
+// go through a MicroBatcher, which hands the compute pool whatever has queued up in one
+// task; larger ones get a compute task of their own, and their reply is streamed with
+// chunked encoding instead of being assembled in memory first.
+//
+// Usage: java SchedulingService [host=127.0.0.1] [port=8080] [threads=<cores>]
+//        [batch=64] [small=4096]
+final class SchedulingService implements AutoCloseable {
+    static final int MAX_PROCESSES = 10_000_000;
+    // Request threads when there are no virtual threads
+    static final int PLATFORM_REQUEST_THREADS = 256;
+
+    private final HttpServer server;
+    private final ExecutorService requests;
+    private final ExecutorService compute;
+    private final MicroBatcher batcher;
+    private final int small;
+    private final LongAdder served = new LongAdder();
+    private final LongAdder streamed = new LongAdder();
+    final boolean virtualThreads;
+
+    static {
+        // Without TCP_NODELAY a reply's headers and body go out as two small segments, and
+        // the second waits for the client's delayed ACK: 40 ms per request on Linux
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    SchedulingService(InetSocketAddress address, int threads, int batch, int small) throws IOException {
+        if (threads <= 0 || batch <= 0 || small < 0) {
+            throw new IllegalArgumentException("threads and batch must be > 0 and small >= 0!");
+        }
+        this.small = small;
+        ExecutorService virtual = virtualThreadExecutor();
+        virtualThreads = virtual != null;
+        requests = virtual != null ? virtual : Executors.newFixedThreadPool(PLATFORM_REQUEST_THREADS, daemon("service-request"));
+        compute = Executors.newFixedThreadPool(threads, daemon("service-compute"));
+        batcher = new MicroBatcher(compute, threads, batch);
+        server = HttpServer.create(address, 1024);
+        server.createContext("/schedule", this::schedule);
+        server.createContext("/algorithms", this::algorithms);
+        server.createContext("/stats", this::stats);
+        server.setExecutor(requests);
+    }
+
+    // A thread per task on virtual threads, or null before JDK 21. Looked up reflectively
+    // so the class still compiles for 17.
+    static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    void start() {
+        server.start();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        batcher.close();
+        requests.shutdownNow();
+        compute.shutdownNow();
+    }
+
+    private void schedule(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                error(exchange, 405, "Use POST");
+                return;
+            }
+            Map<String, String> query = query(exchange.getRequestURI());
+            SchedulingEngine engine;
+            Workload workload;
+            try {
+                engine = BatchRunner.engine(query.getOrDefault("algorithm", "rr"),
+                        Integer.parseInt(query.getOrDefault("quantum", "4")));
+                BufferedReader body = new BufferedReader(new InputStreamReader(exchange.getRequestBody(),
+                        StandardCharsets.UTF_8));
+                workload = BatchRunner.readCsv(body, "request", MAX_PROCESSES);
+            } catch (IllegalArgumentException | IOException e) {
+                error(exchange, 400, e.getMessage());
+                return;
+            }
+            boolean timeline = Boolean.parseBoolean(query.get("timeline"));
+            ScheduleResult result;
+            try {
+                result = workload.size() <= small ? batcher.submit(engine, workload, timeline).get()
+                        : CompletableFuture.supplyAsync(() -> MicroBatcher.run(engine, workload, timeline), compute).get();
+            } catch (ExecutionException e) {
+                error(exchange, 500, e.getCause().toString());
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error(exchange, 503, "Shutting down");
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            if (workload.size() <= small) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + 96 * workload.size());
+                write(new JsonWriter(bytes), engine, result);
+                exchange.sendResponseHeaders(200, bytes.size());
+                bytes.writeTo(exchange.getResponseBody());
+            } else {
+                exchange.sendResponseHeaders(200, 0);
+                write(new JsonWriter(exchange.getResponseBody()), engine, result);
+                streamed.increment();
+            }
+            served.increment();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void write(JsonWriter json, SchedulingEngine engine, ScheduleResult result) throws IOException {
+        Workload workload = result.workload;
+        json.raw("{\"algorithm\":").string(engine.name())
+                .raw(",\"processes\":").number(workload.size())
+                .raw(",\"averageWaiting\":").number(result.averageWaiting())
+                .raw(",\"averageTurnaround\":").number(result.averageTurnaround())
+                .raw(",\"makespan\":").number(result.makespan())
+                .raw(",\"results\":[");
+        for (int i = 0; i < workload.size(); i++) {
+            json.raw(i == 0 ? "{\"process\":" : ",{\"process\":").string(workload.name(i))
+                    .raw(",\"arrival\":").number(workload.arrival[i])
+                    .raw(",\"burst\":").number(workload.burst[i])
+                    .raw(",\"completion\":").number(result.completion[i])
+                    .raw(",\"turnaround\":").number(result.turnaround(i))
+                    .raw(",\"waiting\":").number(result.waiting(i))
+                    .raw("}");
+        }
+        json.raw("]");
+        if (result.timeline != null) {
+            Timeline timeline = result.timeline;
+            json.raw(",\"timeline\":[");
+            for (int i = 0; i < timeline.size(); i++) {
+                json.raw(i == 0 ? "{\"process\":" : ",{\"process\":").string(workload.name(timeline.process(i)))
+                        .raw(",\"start\":").number(timeline.start(i))
+                        .raw(",\"end\":").number(timeline.end(i))
+                        .raw("}");
+            }
+            json.raw("]");
+        }
+        json.raw("}\n").flush();
+    }
+
+    private void algorithms(HttpExchange exchange) throws IOException {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            JsonWriter json = new JsonWriter(bytes);
+            json.raw("[");
+            String[] names = BatchRunner.ALGORITHMS;
+            for (int i = 0; i < names.length; i++) {
+                json.raw(i == 0 ? "" : ",").string(names[i]);
+            }
+            json.raw("]\n").flush();
+            reply(exchange, 200, bytes);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void stats(HttpExchange exchange) throws IOException {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            long batches = batcher.batches.sum();
+            long jobs = batcher.jobs.sum();
+            new JsonWriter(bytes).raw("{\"served\":").number(served.sum())
+                    .raw(",\"streamed\":").number(streamed.sum())
+                    .raw(",\"batches\":").number(batches)
+                    .raw(",\"batchedRequests\":").number(jobs)
+                    .raw(",\"meanBatch\":").number(batches == 0 ? 0 : (double) jobs / batches)
+                    .raw(",\"virtualThreads\":").raw(String.valueOf(virtualThreads))
+                    .raw("}\n").flush();
+            reply(exchange, 200, bytes);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void error(HttpExchange exchange, int status, String message) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new JsonWriter(bytes).raw("{\"error\":").string(String.valueOf(message)).raw("}\n").flush();
+        reply(exchange, status, bytes);
+    }
+
+    private static void reply(HttpExchange exchange, int status, ByteArrayOutputStream bytes) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.size());
+        bytes.writeTo(exchange.getResponseBody());
+    }
+
+    static Map<String, String> query(URI uri) {
+        Map<String, String> query = new HashMap<>();
+        String raw = uri.getRawQuery();
+        if (raw == null) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            query.put(key, eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = "127.0.0.1";
+        int port = 8080, threads = Runtime.getRuntime().availableProcessors(), batch = 64, small = 4096;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "host": host = value; break;
+                case "port": port = Integer.parseInt(value); break;
+                case "threads": threads = Integer.parseInt(value); break;
+                case "batch": batch = Integer.parseInt(value); break;
+                case "small": small = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        SchedulingService service = new SchedulingService(new InetSocketAddress(host, port), threads, batch, small);
+        service.start();
+        System.out.printf("Scheduling service on http://%s:%d/ (%s request threads, %d compute threads)%n", host,
+                service.port(), service.virtualThreads ? "virtual" : "platform", threads);
+    }
+}
+
+// Runs small jobs on the compute pool in batches. A dispatcher thread takes a permit per
+// compute thread before it hands over a batch, so while every compute thread is busy the
+// queue fills up, and the next batch takes whatever has arrived, up to maxBatch jobs.
+// Batches thus grow with the load without a timer holding back requests when it is
+// quiet.
+final class MicroBatcher implements AutoCloseable {
+    private static final class Job {
+        final SchedulingEngine engine;
+        final Workload workload;
+        final boolean timeline;
+        final CompletableFuture<ScheduleResult> result = new CompletableFuture<>();
+
+        Job(SchedulingEngine engine, Workload workload, boolean timeline) {
+            this.engine = engine;
+            this.workload = workload;
+            this.timeline = timeline;
+        }
+    }
+
+    private final LinkedBlockingQueue<Job> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService compute;
+    private final Semaphore slots;
+    private final int maxBatch;
+    private final Thread dispatcher;
+    final LongAdder batches = new LongAdder();
+    final LongAdder jobs = new LongAdder();
+
+    MicroBatcher(ExecutorService compute, int threads, int maxBatch) {
+        this.compute = compute;
+        this.slots = new Semaphore(threads);
+        this.maxBatch = maxBatch;
+        dispatcher = new Thread(this::dispatch, "service-batcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    CompletableFuture<ScheduleResult> submit(SchedulingEngine engine, Workload workload, boolean timeline) {
+        Job job = new Job(engine, workload, timeline);
+        queue.add(job);
+        return job.result;
+    }
+
+    static ScheduleResult run(SchedulingEngine engine, Workload workload, boolean timeline) {
+        return engine.run(workload, timeline ? new Timeline(workload.size()) : null, null);
+    }
+
+    private void dispatch() {
+        try {
+            while (true) {
+                Job first = queue.take();
+                slots.acquire();
+                List<Job> batch = new ArrayList<>();
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                batches.increment();
+                jobs.add(batch.size());
+                compute.execute(() -> {
+                    try {
+                        for (Job job : batch) {
+                            try {
+                                job.result.complete(run(job.engine, job.workload, job.timeline));
+                            } catch (RuntimeException e) {
+                                job.result.completeExceptionally(e);
+                            }
+                        }
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        } catch (InterruptedException | RejectedExecutionException e) {
+            // Closed
+        }
+    }
+
+    @Override
+    public void close() {
+        dispatcher.interrupt();
+        Job job;
+        while ((job = queue.poll()) != null) {
+            job.result.completeExceptionally(new IllegalStateException("Service closed"));
+        }
+    }
+}
+
+// JSON onto an OutputStream through a small buffer, for replies of any size.
+final class JsonWriter {
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8192];
+    private final byte[] digits = new byte[20];
+    private int position;
+
+    JsonWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    // ASCII text as it is.
+    JsonWriter raw(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            put(text.charAt(i));
+        }
+        return this;
+    }
+
+    JsonWriter string(String text) throws IOException {
+        put('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                put('\\');
+                put(c);
+            } else if (c < ' ' || c >= 127) {
+                raw("\\u");
+                for (int shift = 12; shift >= 0; shift -= 4) {
+                    put("0123456789abcdef".charAt((c >> shift) & 0xF));
+                }
+            } else {
+                put(c);
+            }
+        }
+        put('"');
+        return this;
+    }
+
+    JsonWriter number(long value) throws IOException {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                return raw(Long.toString(value));
+            }
+            put('-');
+            value = -value;
+        }
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        while (n > 0) {
+            put((char) digits[--n]);
+        }
+        return this;
+    }
+
+    // Non-finite values have no JSON form and come out as null.
+    JsonWriter number(double value) throws IOException {
+        return raw(Double.isFinite(value) ? Double.toString(value) : "null");
+    }
+
+    void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    private void put(char c) throws IOException {
+        if (position == buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        buffer[position++] = (byte) c;
+    }
+}
+
+// Load generator for SchedulingService: concurrency clients, each on its own keep-alive
+// connection, posting small random workloads as fast as the replies come back, against
+// url or an embedded service. Reports throughput and latency percentiles over the
+// measured seconds, after warm-up seconds that are not counted. The clients speak just
+// enough HTTP/1.1 over plain sockets to do this; java.net.http costs several times the
+// service's own CPU per request, which would leave a single machine measuring mostly
+// the client.
+//
+// Usage: java ServiceLoadTest [url=<embedded>] [seconds=10] [warm-up=3] [concurrency=64]
+//        [processes=20] [algorithm=rr] [quantum=4] [seed=42]
+class ServiceLoadTest {
+    public static void main(String[] args) throws Exception {
+        String url = null, algorithm = "rr";
+        int seconds = 10, warmUp = 3, concurrency = 64, processes = 20, quantum = 4;
+        long seed = 42;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "url": url = value; break;
+                case "seconds": seconds = Integer.parseInt(value); break;
+                case "warm-up": warmUp = Integer.parseInt(value); break;
+                case "concurrency": concurrency = Integer.parseInt(value); break;
+                case "processes": processes = Integer.parseInt(value); break;
+                case "algorithm": algorithm = value; break;
+                case "quantum": quantum = Integer.parseInt(value); break;
+                case "seed": seed = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        if (seconds <= 0 || warmUp < 0 || concurrency <= 0 || processes <= 0) {
+            throw new IllegalArgumentException("seconds, concurrency and processes must be > 0!");
+        }
+
+        SchedulingService embedded = null;
+        if (url == null) {
+            embedded = new SchedulingService(new InetSocketAddress("127.0.0.1", 0),
+                    Runtime.getRuntime().availableProcessors(), 64, 4096);
+            embedded.start();
+            url = "http://127.0.0.1:" + embedded.port();
+        }
+        URI base = URI.create(url);
+        InetSocketAddress address = new InetSocketAddress(base.getHost(), base.getPort() < 0 ? 80 : base.getPort());
+        String path = "/schedule?algorithm=" + algorithm + "&quantum=" + quantum;
+
+        // A few dozen distinct requests, reused round robin
+        SplittableRandom random = new SplittableRandom(seed);
+        byte[][] requests = new byte[64][];
+        for (int r = 0; r < requests.length; r++) {
+            StringBuilder csv = new StringBuilder("arrival,burst\n");
+            for (int i = 0; i < processes; i++) {
+                csv.append(random.nextInt(processes * 5)).append(',').append(1 + random.nextInt(10)).append('\n');
+            }
+            requests[r] = LoadConnection.request("POST", path, base.getHost(), csv.toString());
+        }
+
+        ExecutorService virtual = SchedulingService.virtualThreadExecutor();
+        ExecutorService clients = virtual != null ? virtual
+                : Executors.newFixedThreadPool(concurrency, SchedulingService.daemon("load-client"));
+        long start = System.nanoTime();
+        long measureFrom = start + warmUp * 1_000_000_000L;
+        long end = measureFrom + seconds * 1_000_000_000L;
+        long[][] latencies = new long[concurrency][];
+        int[] counts = new int[concurrency];
+        LongAdder errors = new LongAdder();
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int w = 0; w < concurrency; w++) {
+            int worker = w;
+            workers.add(CompletableFuture.runAsync(() -> {
+                long[] own = new long[1024];
+                int count = 0;
+                int next = worker;
+                LoadConnection connection = null;
+                while (true) {
+                    long t0 = System.nanoTime();
+                    if (t0 >= end) {
+                        break;
+                    }
+                    try {
+                        if (connection == null) {
+                            connection = new LoadConnection(address);
+                        }
+                        if (connection.send(requests[next++ % requests.length]) != 200) {
+                            errors.increment();
+                            continue;
+                        }
+                    } catch (IOException e) {
+                        errors.increment();
+                        connection = null;
+                        continue;
+                    }
+                    long t1 = System.nanoTime();
+                    if (t0 >= measureFrom && t1 <= end) {
+                        if (count == own.length) {
+                            own = Arrays.copyOf(own, count * 2);
+                        }
+                        own[count++] = t1 - t0;
+                    }
+                }
+                if (connection != null) {
+                    connection.close();
+                }
+                latencies[worker] = own;
+                counts[worker] = count;
+            }, clients));
+        }
+        CompletableFuture.allOf(workers.toArray(new CompletableFuture<?>[0])).get();
+
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        long[] all = new long[total];
+        int k = 0;
+        for (int w = 0; w < concurrency; w++) {
+            System.arraycopy(latencies[w], 0, all, k, counts[w]);
+            k += counts[w];
+        }
+        Arrays.sort(all);
+        System.out.printf("%d clients, %d processes per request, %s on %s client threads%n", concurrency, processes,
+                algorithm, virtual != null ? "virtual" : "platform");
+        System.out.printf("Requests: %,d in %d s (%,.0f/s), %d errors%n", total, seconds, total / (double) seconds,
+                errors.sum());
+        if (total > 0) {
+            System.out.printf("Latency: p50 %s, p99 %s, max %s%n", RunCost.formatNanos(all[(total - 1) / 2]),
+                    RunCost.formatNanos(all[(int) Math.ceil(0.99 * total) - 1]), RunCost.formatNanos(all[total - 1]));
+        }
+        if (embedded != null) {
+            LoadConnection connection = new LoadConnection(address);
+            connection.send(LoadConnection.request("GET", "/stats", base.getHost(), null));
+            System.out.print("Service: " + new String(connection.body(), StandardCharsets.UTF_8));
+            connection.close();
+            embedded.close();
+        }
+        clients.shutdownNow();
+    }
+}
+
+// One keep-alive HTTP/1.1 connection of the load generator. Replies must carry a
+// Content-Length, which every SchedulingService reply below the streaming size does.
+final class LoadConnection {
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private byte[] body = new byte[8192];
+    private int bodyLength;
+
+    LoadConnection(InetSocketAddress address) throws IOException {
+        socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(address, 5000);
+        in = new BufferedInputStream(socket.getInputStream(), 16384);
+        out = socket.getOutputStream();
+    }
+
+    static byte[] request(String method, String path, String host, String body) {
+        byte[] content = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        String head = method + " " + path + " HTTP/1.1\r\nHost: " + host + "\r\n"
+                + (body == null ? "" : "Content-Type: text/csv\r\nContent-Length: " + content.length + "\r\n") + "\r\n";
+        byte[] header = head.getBytes(StandardCharsets.US_ASCII);
+        byte[] request = Arrays.copyOf(header, header.length + content.length);
+        System.arraycopy(content, 0, request, header.length, content.length);
+        return request;
+    }
+
+    // Sends request and reads the whole reply; returns the status code.
+    int send(byte[] request) throws IOException {
+        out.write(request);
+        out.flush();
+        String status = line();
+        if (!status.startsWith("HTTP/1.1 ") || status.length() < 12) {
+            throw new IOException("Bad status line: " + status);
+        }
+        long length = -1;
+        String header;
+        while (!(header = line()).isEmpty()) {
+            int colon = header.indexOf(':');
+            if (colon > 0 && header.substring(0, colon).equalsIgnoreCase("Content-Length")) {
+                length = Long.parseLong(header.substring(colon + 1).trim());
+            }
+        }
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("Reply without a usable Content-Length");
+        }
+        if (body.length < length) {
+            body = new byte[(int) length];
+        }
+        bodyLength = (int) length;
+        for (int read = 0; read < length; ) {
+            int n = in.read(body, read, (int) length - read);
+            if (n < 0) {
+                throw new IOException("Connection closed mid-reply");
+            }
+            read += n;
+        }
+        return Integer.parseInt(status.substring(9, 12));
+    }
+
+    byte[] body() {
+        return Arrays.copyOf(body, bodyLength);
+    }
+
+    private String line() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0) {
+                throw new IOException("Connection closed");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Nothing left to read from it anyway
+        }
+    }
+}
@@ -0,0 +1,320 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+// Timeline segments on disk: fixed-width records of (process, start, end) in native byte
+// order, FILE_RECORDS to a file, each file memory-mapped while it is in use. The file
+// being written and the last WINDOW files read stay mapped and the rest are unmapped, so
+// the heap only holds the sparse time index, one int per INDEX_STRIDE records (about 16 MB
+// for 10^9 segments).
+final class MappedTimelineStore {
+    static final int RECORD_BYTES = 12;
+    static final int FILE_SHIFT = 22;
+    static final int FILE_RECORDS = 1 << FILE_SHIFT;
+    static final int INDEX_SHIFT = 8;
+    static final int INDEX_STRIDE = 1 << INDEX_SHIFT;
+    static final int WINDOW = 32;
+    // Unmaps a buffer at once, through sun.misc.Unsafe.invokeCleaner, or null where that is
+    // not available. Left to the collector, dropped mappings pile up on a quiet heap until
+    // the process runs out of them.
+    private static final MethodHandle UNMAP = unmapper();
+
+    private final Path directory;
+    private int files;
+    private int size;
+    private int lastEnd;
+    // End time of every INDEX_STRIDE-th record
+    private int[] index = new int[16];
+
+    private MappedByteBuffer writing;
+    private int writingFile = -1;
+    // Read window, replaced round robin
+    private final MappedByteBuffer[] mapped = new MappedByteBuffer[WINDOW];
+    private final int[] mappedFile = new int[WINDOW];
+    private int nextSlot;
+    private MappedByteBuffer last;
+    private int lastFile = -1;
+
+    MappedTimelineStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        Arrays.fill(mappedFile, -1);
+    }
+
+    void add(int p, int from, int to) {
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Timeline is full!");
+        }
+        int file = size >>> FILE_SHIFT;
+        if (file != writingFile) {
+            release(writing);
+            writing = map(file, true);
+            writingFile = file;
+            files = Math.max(files, file + 1);
+        }
+        int offset = (size & (FILE_RECORDS - 1)) * RECORD_BYTES;
+        writing.putInt(offset, p);
+        writing.putInt(offset + 4, from);
+        writing.putInt(offset + 8, to);
+        if ((size & (INDEX_STRIDE - 1)) == 0) {
+            int slot = size >>> INDEX_SHIFT;
+            if (slot == index.length) {
+                index = Arrays.copyOf(index, slot + (slot >> 1) + 1);
+            }
+            index[slot] = to;
+        }
+        lastEnd = to;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // The readers and close are synchronized as a whole, so no thread can unmap a buffer
+    // between another one's record and getInt; a replay indexes the timeline while the
+    // window paints it, and the window may close it meanwhile.
+    synchronized int process(int i) {
+        return record(i).getInt(offset(i));
+    }
+
+    synchronized int start(int i) {
+        return record(i).getInt(offset(i) + 4);
+    }
+
+    synchronized int end(int i) {
+        return record(i).getInt(offset(i) + 8);
+    }
+
+    // Binary search of the index for the stride holding the answer, then of that stride's
+    // records, so a seek maps at most one file.
+    synchronized int seek(int time) {
+        if (size == 0 || lastEnd <= time) {
+            return size;
+        }
+        int lo = 0;
+        int hi = ((size - 1) >>> INDEX_SHIFT) + 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (index[mid] <= time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        if (lo == 0) {
+            return 0;
+        }
+        int from = (lo - 1) << INDEX_SHIFT;
+        int to = (int) Math.min(size, (long) lo << INDEX_SHIFT);
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (end(mid) <= time) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    void clear() {
+        size = 0;
+        lastEnd = 0;
+    }
+
+    synchronized void close() throws IOException {
+        release(writing);
+        writing = null;
+        writingFile = -1;
+        for (int slot = 0; slot < WINDOW; slot++) {
+            release(mapped[slot]);
+            mapped[slot] = null;
+            mappedFile[slot] = -1;
+        }
+        size = 0;
+        for (int file = 0; file < files; file++) {
+            Files.deleteIfExists(path(file));
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    private static int offset(int i) {
+        return (i & (FILE_RECORDS - 1)) * RECORD_BYTES;
+    }
+
+    private MappedByteBuffer record(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Segment " + i + " of " + size);
+        }
+        int file = i >>> FILE_SHIFT;
+        if (file == lastFile) {
+            return last;
+        }
+        MappedByteBuffer buffer = null;
+        if (file == writingFile) {
+            buffer = writing;
+        } else {
+            for (int slot = 0; slot < WINDOW; slot++) {
+                if (mappedFile[slot] == file) {
+                    buffer = mapped[slot];
+                }
+            }
+            if (buffer == null) {
+                buffer = map(file, false);
+                release(mapped[nextSlot]);
+                mapped[nextSlot] = buffer;
+                mappedFile[nextSlot] = file;
+                nextSlot = (nextSlot + 1) % WINDOW;
+            }
+        }
+        last = buffer;
+        lastFile = file;
+        return buffer;
+    }
+
+    // Forgets a mapping before unmapping it; touching it afterwards would crash the JVM.
+    private void release(MappedByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        if (buffer == last) {
+            last = null;
+            lastFile = -1;
+        }
+        if (UNMAP != null) {
+            try {
+                UNMAP.invokeExact((ByteBuffer) buffer);
+            } catch (Throwable e) {
+                // Still mapped; the collector will get to it
+            }
+        }
+    }
+
+    private static MethodHandle unmapper() {
+        try {
+            Class<?> unsafe = Class.forName("sun.misc.Unsafe");
+            Field instance = unsafe.getDeclaredField("theUnsafe");
+            instance.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafe, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(instance.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private Path path(int file) {
+        return directory.resolve(String.format(Locale.ROOT, "segments-%05d.bin", file));
+    }
+
+    // The channel can be closed once the file is mapped; the mapping stays valid.
+    private MappedByteBuffer map(int file, boolean write) {
+        try (FileChannel channel = write
+                ? FileChannel.open(path(file), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path(file), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(write ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                    0, (long) FILE_RECORDS * RECORD_BYTES);
+            buffer.order(ByteOrder.nativeOrder());
+            return buffer;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot map " + path(file) + ": " + e.getMessage(), e);
+        }
+    }
+}
+
+// Round robin over a few long-running processes with a small quantum, spilling the
+// timeline to disk, then seeking into it and painting it offscreen to show that both
+// stay fast however many segments there are. 10^9 segments take about 12 GB of disk.
+//
+// Usage: java SpilledTimelineSimulation [segments=100000000] [processes=1000] [quantum=1]
+//        [dir=<temp dir>] [keep=false]
+class SpilledTimelineSimulation {
+    public static void main(String[] args) throws IOException {
+        long segments = 100_000_000;
+        int processes = 1000, quantum = 1;
+        Path dir = null;
+        boolean keep = false;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "segments": segments = Long.parseLong(value); break;
+                case "processes": processes = Integer.parseInt(value); break;
+                case "quantum": quantum = Integer.parseInt(value); break;
+                case "dir": dir = Path.of(value); break;
+                case "keep": keep = Boolean.parseBoolean(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        if (segments <= 0 || processes <= 0 || quantum <= 0 || segments * quantum >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segments, processes and quantum must be > 0 and segments * quantum < 2^31!");
+        }
+        if (segments < processes) {
+            throw new IllegalArgumentException("Need at least one segment per process!");
+        }
+
+        // Bursts that add up to segments quanta, all arriving at 0
+        int[] at = new int[processes];
+        int[] bt = new int[processes];
+        for (int i = 0; i < processes; i++) {
+            bt[i] = (int) (segments / processes + (i < segments % processes ? 1 : 0)) * quantum;
+        }
+        Workload workload = new Workload(at, bt);
+        Timeline timeline = Timeline.spilled(dir != null ? dir : Files.createTempDirectory("ccopsysl-timeline"));
+        try {
+            ScheduleResult result = new RoundRobinEngine(quantum).run(workload, timeline, null);
+            System.out.printf("Segments: %,d on disk (%,d MB), makespan %,d%n", timeline.size(),
+                    (long) timeline.size() * MappedTimelineStore.RECORD_BYTES >> 20, result.makespan());
+            System.out.println("Run cost: " + result.cost);
+
+            int seeks = 100_000;
+            SplittableRandom random = new SplittableRandom(42);
+            long checksum = 0;
+            long t0 = System.nanoTime();
+            for (int k = 0; k < seeks; k++) {
+                int i = timeline.seek(random.nextInt(result.makespan()));
+                checksum += timeline.process(i);
+            }
+            System.out.printf("Random seeks: %.0f ns each (checksum %d)%n", (System.nanoTime() - t0) / (double) seeks, checksum);
+
+            String[] labels = new String[processes];
+            Color[] colors = new Color[processes];
+            for (int i = 0; i < processes; i++) {
+                labels[i] = workload.name(i);
+                colors[i] = Color.getHSBColor((float) i / processes, 0.7f, 0.9f);
+            }
+            BufferedImage image = new BufferedImage(1600, 200, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2 = image.createGraphics();
+            t0 = System.nanoTime();
+            GanttPainter.paint(g2, image.getWidth(), image.getHeight(), timeline, labels, colors);
+            g2.dispose();
+            System.out.println("Gantt paint: " + RunCost.formatNanos(System.nanoTime() - t0));
+            Runtime runtime = Runtime.getRuntime();
+            System.out.printf("Heap used: %,d MB of %,d MB%n", (runtime.totalMemory() - runtime.freeMemory()) >> 20,
+                    runtime.maxMemory() >> 20);
+        } finally {
+            if (!keep) {
+                timeline.close();
+            }
+        }
+    }
+}
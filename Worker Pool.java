@@ -0,0 +1,719 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Monte Carlo sweeps spread over worker JVMs. One JVM running every replication ends up
+// bound by memory bandwidth and GC; separate processes each get their own heap and
+// collector. The coordinator listens on a socket, starts the workers, which connect back
+// to it, and deals out SweepTasks: a range of replications at one point of the sweep.
+// Workers answer with a SweepPartial, the RunningStat and histogram of every metric over
+// their range, and the coordinator merges the partials per point in task order, so a
+// given seed and task size always produce the same numbers.
+//
+// Replication i of a point uses the i-th split of the seed, as in MonteCarloSimulation,
+// and every point of the sweep uses the same seed: a quantum sweep compares the quanta on
+// identical workloads.
+//
+// A worker that disconnects or whose process dies has its unfinished tasks queued again
+// at the front, and a spawned worker is restarted, up to a limit. Nothing here assumes
+// the workers are local: they only need the coordinator's address, so workers started
+// by hand on other hosts can join a coordinator that spawns none.
+final class WorkerPool implements AutoCloseable {
+    // Tasks handed to a worker before it has answered any, so it never idles on the
+    // round trip
+    static final int DEPTH = 2;
+    static final long CONNECT_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final ServerSocket server;
+    private final int spawn;
+    private final List<String> workerOptions;
+    private final int maxRestarts;
+    private final LinkedBlockingQueue<Event> events = new LinkedBlockingQueue<>();
+    private final Map<Integer, Worker> workers = new HashMap<>();
+    private final Thread acceptor;
+    // Kills a random worker after every killEvery results; 0 for never
+    int killEvery;
+    private final SplittableRandom chaos = new SplittableRandom(7);
+    int restarts;
+    int redispatched;
+
+    // One worker, spawned or joined; connection is null until it has connected.
+    private static final class Worker {
+        final int id;
+        Process process;
+        long launched;
+        Connection connection;
+        final ArrayDeque<SweepTask> inFlight = new ArrayDeque<>();
+        int completed;
+
+        Worker(int id) {
+            this.id = id;
+        }
+    }
+
+    private static final class Connection {
+        final int worker;
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+        volatile boolean closed;
+
+        Connection(int worker, Socket socket, DataInputStream in) throws IOException {
+            this.worker = worker;
+            this.socket = socket;
+            this.in = in;
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        void close() {
+            closed = true;
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already gone
+            }
+        }
+    }
+
+    // What the acceptor and the connection readers tell the coordinator thread.
+    private static final class Event {
+        final Connection connection;
+        // null when the connection was lost
+        final SweepPartial partial;
+        final String failure;
+        final boolean connected;
+
+        Event(Connection connection, SweepPartial partial, String failure, boolean connected) {
+            this.connection = connection;
+            this.partial = partial;
+            this.failure = failure;
+            this.connected = connected;
+        }
+    }
+
+    WorkerPool(InetAddress address, int port, int spawn, List<String> workerOptions, int maxRestarts)
+            throws IOException {
+        if (spawn < 0 || maxRestarts < 0) {
+            throw new IllegalArgumentException("spawn and restarts must be >= 0!");
+        }
+        this.spawn = spawn;
+        this.workerOptions = workerOptions;
+        this.maxRestarts = maxRestarts;
+        server = new ServerSocket(port, 64, address);
+        acceptor = new Thread(this::accept, "pool-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    InetSocketAddress address() {
+        return (InetSocketAddress) server.getLocalSocketAddress();
+    }
+
+    private void launch(Worker worker) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(workerOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("PoolWorker");
+        command.add(address().getAddress().getHostAddress());
+        command.add(String.valueOf(address().getPort()));
+        command.add(String.valueOf(worker.id));
+        worker.process = new ProcessBuilder(command).inheritIO().start();
+        worker.launched = System.nanoTime();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                if (in.readInt() != PoolProtocol.MAGIC || in.readInt() != PoolProtocol.VERSION) {
+                    socket.close();
+                    continue;
+                }
+                Connection connection = new Connection(in.readInt(), socket, in);
+                events.add(new Event(connection, null, null, true));
+                Thread reader = new Thread(() -> read(connection), "pool-reader-" + connection.worker);
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                // A client that gave up mid-handshake, or the server socket closing
+            }
+        }
+    }
+
+    private void read(Connection connection) {
+        try {
+            while (true) {
+                byte type = connection.in.readByte();
+                if (type == PoolProtocol.RESULT) {
+                    events.add(new Event(connection, SweepPartial.read(connection.in), null, false));
+                } else if (type == PoolProtocol.FAILED) {
+                    int task = connection.in.readInt();
+                    events.add(new Event(connection, null, task + ": " + connection.in.readUTF(), false));
+                } else {
+                    throw new IOException("Unknown message " + type);
+                }
+            }
+        } catch (IOException e) {
+            connection.close();
+            events.add(new Event(connection, null, null, false));
+        }
+    }
+
+    // Runs every task and returns the partials indexed by task id. Tasks must be numbered
+    // 0 .. tasks.size() - 1.
+    SweepPartial[] run(List<SweepTask> tasks) throws IOException, InterruptedException {
+        SweepPartial[] results = new SweepPartial[tasks.size()];
+        int[] attempts = new int[tasks.size()];
+        ArrayDeque<SweepTask> queue = new ArrayDeque<>(tasks);
+        for (int id = 0; id < spawn; id++) {
+            Worker worker = new Worker(id);
+            workers.put(id, worker);
+            launch(worker);
+        }
+        int done = 0;
+        int received = 0;
+        while (done < results.length) {
+            Event event = events.poll(100, TimeUnit.MILLISECONDS);
+            if (event == null) {
+                checkProcesses(queue);
+                continue;
+            }
+            Worker worker = workers.get(event.connection.worker);
+            if (event.connected) {
+                if (worker == null) {
+                    // Joined from outside
+                    worker = new Worker(event.connection.worker);
+                    workers.put(worker.id, worker);
+                } else if (worker.connection != null) {
+                    event.connection.close();
+                    continue;
+                }
+                worker.connection = event.connection;
+            } else if (worker == null || worker.connection != event.connection) {
+                // Left over from a connection already dropped
+                continue;
+            } else if (event.partial != null) {
+                SweepPartial partial = event.partial;
+                worker.inFlight.removeIf(task -> task.id == partial.task);
+                worker.completed++;
+                if (results[partial.task] == null) {
+                    results[partial.task] = partial;
+                    done++;
+                }
+                received++;
+                if (killEvery > 0 && received % killEvery == 0) {
+                    kill();
+                }
+            } else if (event.failure != null) {
+                int task = Integer.parseInt(event.failure.substring(0, event.failure.indexOf(':')));
+                worker.inFlight.removeIf(t -> t.id == task);
+                if (++attempts[task] >= 3) {
+                    throw new IllegalStateException("Task " + event.failure);
+                }
+                queue.addFirst(tasks.get(task));
+            } else {
+                lost(worker, queue);
+            }
+            dispatch(queue);
+        }
+        return results;
+    }
+
+    // Tops every connected worker up to DEPTH tasks.
+    private void dispatch(ArrayDeque<SweepTask> queue) {
+        for (Worker worker : workers.values()) {
+            Connection connection = worker.connection;
+            if (connection == null) {
+                continue;
+            }
+            try {
+                boolean sent = false;
+                while (worker.inFlight.size() < DEPTH && !queue.isEmpty()) {
+                    SweepTask task = queue.poll();
+                    worker.inFlight.add(task);
+                    connection.out.writeByte(PoolProtocol.TASK);
+                    task.write(connection.out);
+                    sent = true;
+                }
+                if (sent) {
+                    connection.out.flush();
+                }
+            } catch (IOException e) {
+                // The reader thread sees the same socket fail and reports the loss
+                connection.close();
+            }
+        }
+    }
+
+    // Workers whose process died, or that never connected, are lost too.
+    private void checkProcesses(ArrayDeque<SweepTask> queue) throws IOException {
+        for (Worker worker : new ArrayList<>(workers.values())) {
+            if (worker.process == null) {
+                continue;
+            }
+            boolean dead = !worker.process.isAlive();
+            boolean silent = worker.connection == null && System.nanoTime() - worker.launched > CONNECT_TIMEOUT_NANOS;
+            if (dead || silent) {
+                lost(worker, queue);
+            }
+        }
+        if (workers.isEmpty() && spawn > 0) {
+            throw new IllegalStateException("All workers failed!");
+        }
+    }
+
+    // Queues a lost worker's tasks again and starts a replacement if it was ours.
+    private void lost(Worker worker, ArrayDeque<SweepTask> queue) throws IOException {
+        redispatched += worker.inFlight.size();
+        while (!worker.inFlight.isEmpty()) {
+            queue.addFirst(worker.inFlight.pollLast());
+        }
+        if (worker.connection != null) {
+            worker.connection.close();
+            worker.connection = null;
+        }
+        if (worker.process == null) {
+            workers.remove(worker.id);
+            return;
+        }
+        worker.process.destroyForcibly();
+        if (restarts == maxRestarts) {
+            workers.remove(worker.id);
+            if (workers.isEmpty()) {
+                throw new IllegalStateException("All workers failed and " + maxRestarts + " restarts are used up!");
+            }
+            return;
+        }
+        restarts++;
+        launch(worker);
+    }
+
+    private void kill() {
+        List<Worker> running = new ArrayList<>();
+        for (Worker worker : workers.values()) {
+            if (worker.process != null && worker.connection != null) {
+                running.add(worker);
+            }
+        }
+        if (!running.isEmpty()) {
+            running.get(chaos.nextInt(running.size())).process.destroyForcibly();
+        }
+    }
+
+    // Tasks each worker id completed.
+    Map<Integer, Integer> completed() {
+        Map<Integer, Integer> completed = new HashMap<>();
+        for (Worker worker : workers.values()) {
+            completed.put(worker.id, worker.completed);
+        }
+        return completed;
+    }
+
+    @Override
+    public void close() {
+        for (Worker worker : workers.values()) {
+            if (worker.connection != null) {
+                try {
+                    worker.connection.out.writeByte(PoolProtocol.SHUTDOWN);
+                    worker.connection.out.flush();
+                } catch (IOException e) {
+                    // Exiting anyway
+                }
+            }
+        }
+        for (Worker worker : workers.values()) {
+            try {
+                if (worker.process != null && !worker.process.waitFor(5, TimeUnit.SECONDS)) {
+                    worker.process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                worker.process.destroyForcibly();
+            }
+            if (worker.connection != null) {
+                worker.connection.close();
+            }
+        }
+        try {
+            server.close();
+        } catch (IOException e) {
+            // Nothing left to accept
+        }
+    }
+}
+
+// The wire format between coordinator and workers, big-endian through Data streams. A
+// worker opens with MAGIC, VERSION and its id; after that every message is a type byte
+// and its body.
+//   TASK      coordinator to worker, a SweepTask
+//   RESULT    worker to coordinator, a SweepPartial
+//   FAILED    worker to coordinator, int task and a UTF message
+//   SHUTDOWN  coordinator to worker, no body
+final class PoolProtocol {
+    static final int MAGIC = 0x4343504C; // "CCPL"
+    static final int VERSION = 1;
+    static final byte TASK = 1;
+    static final byte RESULT = 2;
+    static final byte FAILED = 3;
+    static final byte SHUTDOWN = 4;
+
+    private PoolProtocol() {
+    }
+}
+
+// Replications from .. to - 1 of one sweep point: FCFS, SJF and RR at quantum on random
+// workloads as MonteCarloSimulation generates them.
+final class SweepTask {
+    final int id;
+    final long seed;
+    final int processes;
+    final double meanInterarrival;
+    final double meanBurst;
+    final int quantum;
+    final int from;
+    final int to;
+    // Upper end of the average-waiting histograms; larger values land in the last bin
+    final double histogramMax;
+
+    SweepTask(int id, long seed, int processes, double meanInterarrival, double meanBurst, int quantum, int from,
+            int to, double histogramMax) {
+        this.id = id;
+        this.seed = seed;
+        this.processes = processes;
+        this.meanInterarrival = meanInterarrival;
+        this.meanBurst = meanBurst;
+        this.quantum = quantum;
+        this.from = from;
+        this.to = to;
+        this.histogramMax = histogramMax;
+    }
+
+    static SchedulingEngine[] engines(int quantum) {
+        return new SchedulingEngine[]{new FcfsEngine(), new SjfEngine(), new RoundRobinEngine(quantum)};
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(id);
+        out.writeLong(seed);
+        out.writeInt(processes);
+        out.writeDouble(meanInterarrival);
+        out.writeDouble(meanBurst);
+        out.writeInt(quantum);
+        out.writeInt(from);
+        out.writeInt(to);
+        out.writeDouble(histogramMax);
+    }
+
+    static SweepTask read(DataInputStream in) throws IOException {
+        return new SweepTask(in.readInt(), in.readLong(), in.readInt(), in.readDouble(), in.readDouble(), in.readInt(),
+                in.readInt(), in.readInt(), in.readDouble());
+    }
+
+    SweepPartial run() {
+        RunCost.Meter meter = RunCost.start();
+        SchedulingEngine[] engines = engines(quantum);
+        MonteCarloSimulation simulation = new MonteCarloSimulation(processes, meanInterarrival, meanBurst, engines);
+        int metrics = MonteCarloSimulation.METRICS.length;
+        SweepPartial partial = new SweepPartial(id, engines.length * metrics, engines.length);
+        MonteCarloSimulation.RunningStat[] stats = new MonteCarloSimulation.RunningStat[partial.count.length];
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new MonteCarloSimulation.RunningStat();
+        }
+        SplittableRandom master = new SplittableRandom(seed);
+        for (int i = 0; i < from; i++) {
+            master.split();
+        }
+        for (int rep = from; rep < to; rep++) {
+            double[] values = simulation.replicate(master.split());
+            for (int i = 0; i < values.length; i++) {
+                stats[i].add(values[i]);
+            }
+            for (int e = 0; e < engines.length; e++) {
+                double wait = values[e * metrics];
+                int bin = (int) Math.min(SweepPartial.BINS - 1, Math.max(0, wait / histogramMax * (SweepPartial.BINS - 1)));
+                partial.histogram[e * SweepPartial.BINS + bin]++;
+            }
+        }
+        for (int i = 0; i < stats.length; i++) {
+            partial.count[i] = stats[i].count;
+            partial.mean[i] = stats[i].mean;
+            partial.m2[i] = stats[i].m2;
+        }
+        partial.cost = meter.stop();
+        return partial;
+    }
+}
+
+// One task's worth of results: count, mean and M2 per engine and metric, ready to merge
+// into a RunningStat, and a histogram of average waiting time per engine. The first
+// BINS - 1 bins split 0 .. histogramMax evenly, the last one takes everything above.
+final class SweepPartial {
+    static final int BINS = 64;
+
+    final int task;
+    final long[] count;
+    final double[] mean;
+    final double[] m2;
+    final long[] histogram;
+    RunCost cost;
+
+    SweepPartial(int task, int stats, int engines) {
+        this.task = task;
+        count = new long[stats];
+        mean = new double[stats];
+        m2 = new double[stats];
+        histogram = new long[engines * BINS];
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(task);
+        out.writeInt(count.length);
+        out.writeInt(histogram.length / BINS);
+        for (int i = 0; i < count.length; i++) {
+            out.writeLong(count[i]);
+            out.writeDouble(mean[i]);
+            out.writeDouble(m2[i]);
+        }
+        for (long bin : histogram) {
+            out.writeLong(bin);
+        }
+        out.writeLong(cost.wallNanos);
+        out.writeLong(cost.cpuNanos);
+        out.writeLong(cost.allocatedBytes);
+        out.writeLong(cost.gcCount);
+        out.writeLong(cost.gcMillis);
+    }
+
+    static SweepPartial read(DataInputStream in) throws IOException {
+        int task = in.readInt();
+        int stats = in.readInt();
+        int engines = in.readInt();
+        if (stats < 0 || engines < 0 || stats > 1 << 16 || engines > 1 << 16) {
+            throw new IOException("Bad partial size " + stats + " / " + engines);
+        }
+        SweepPartial partial = new SweepPartial(task, stats, engines);
+        for (int i = 0; i < stats; i++) {
+            partial.count[i] = in.readLong();
+            partial.mean[i] = in.readDouble();
+            partial.m2[i] = in.readDouble();
+        }
+        for (int i = 0; i < partial.histogram.length; i++) {
+            partial.histogram[i] = in.readLong();
+        }
+        partial.cost = new RunCost(in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readLong());
+        return partial;
+    }
+}
+
+// Worker process: connects to the coordinator, runs tasks as they come and sends back
+// their partials, and exits on SHUTDOWN or when the coordinator goes away.
+//
+// Usage: java PoolWorker <coordinator host> <port> <id>
+class PoolWorker {
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            throw new IllegalArgumentException("Expected <coordinator host> <port> <id>!");
+        }
+        try (Socket socket = new Socket()) {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(args[0], Integer.parseInt(args[1])), 10_000);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(PoolProtocol.MAGIC);
+            out.writeInt(PoolProtocol.VERSION);
+            out.writeInt(Integer.parseInt(args[2]));
+            out.flush();
+            while (true) {
+                byte type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException e) {
+                    return;
+                }
+                if (type == PoolProtocol.SHUTDOWN) {
+                    return;
+                }
+                if (type != PoolProtocol.TASK) {
+                    throw new IOException("Unknown message " + type);
+                }
+                SweepTask task = SweepTask.read(in);
+                try {
+                    SweepPartial partial = task.run();
+                    out.writeByte(PoolProtocol.RESULT);
+                    partial.write(out);
+                } catch (RuntimeException e) {
+                    out.writeByte(PoolProtocol.FAILED);
+                    out.writeInt(task.id);
+                    out.writeUTF(String.valueOf(e));
+                }
+                out.flush();
+            }
+        }
+    }
+}
+
+// A quantum sweep on a WorkerPool: for each quantum, reps replications of FCFS, SJF and
+// RR in tasks of chunk replications, merged into one table row per quantum and engine.
+// kill-every kills a random worker after every that many results, to exercise restarts
+// and re-dispatch; the merged numbers must come out the same either way.
+//
+// Usage: java DistributedSweep [workers=<cores>] [quanta=1,2,4,8,16] [reps=2000]
+//        [chunk=50] [processes=200] [mean-interarrival=6] [mean-burst=5] [seed=42]
+//        [histogram-max=200] [listen=127.0.0.1] [port=0] [restarts=16] [kill-every=0]
+//        [worker-opts=-XX:+UseSerialGC]
+//
+// With workers=0 the coordinator spawns nothing and waits for workers started as
+// java PoolWorker <host> <port> <id> to connect, from this host or others.
+class DistributedSweep {
+    public static void main(String[] args) throws Exception {
+        int workers = Runtime.getRuntime().availableProcessors();
+        int[] quanta = {1, 2, 4, 8, 16};
+        int reps = 2000, chunk = 50, processes = 200, port = 0, restarts = 16, killEvery = 0;
+        double meanInterarrival = 6, meanBurst = 5, histogramMax = 200;
+        long seed = 42;
+        String listen = "127.0.0.1";
+        List<String> workerOptions = Arrays.asList("-XX:+UseSerialGC");
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "workers": workers = Integer.parseInt(value); break;
+                case "quanta": quanta = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray(); break;
+                case "reps": reps = Integer.parseInt(value); break;
+                case "chunk": chunk = Integer.parseInt(value); break;
+                case "processes": processes = Integer.parseInt(value); break;
+                case "mean-interarrival": meanInterarrival = Double.parseDouble(value); break;
+                case "mean-burst": meanBurst = Double.parseDouble(value); break;
+                case "seed": seed = Long.parseLong(value); break;
+                case "histogram-max": histogramMax = Double.parseDouble(value); break;
+                case "listen": listen = value; break;
+                case "port": port = Integer.parseInt(value); break;
+                case "restarts": restarts = Integer.parseInt(value); break;
+                case "kill-every": killEvery = Integer.parseInt(value); break;
+                case "worker-opts": workerOptions = value.isEmpty() ? List.of() : Arrays.asList(value.split(" ")); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+        if (reps <= 0 || chunk <= 0 || processes <= 0 || histogramMax <= 0 || quanta.length == 0) {
+            throw new IllegalArgumentException("reps, chunk, processes, histogram-max and quanta must be > 0!");
+        }
+        for (int quantum : quanta) {
+            if (quantum <= 0) {
+                throw new IllegalArgumentException("Quanta must be > 0!");
+            }
+        }
+
+        List<SweepTask> tasks = new ArrayList<>();
+        for (int quantum : quanta) {
+            for (int from = 0; from < reps; from += chunk) {
+                tasks.add(new SweepTask(tasks.size(), seed, processes, meanInterarrival, meanBurst, quantum, from,
+                        Math.min(reps, from + chunk), histogramMax));
+            }
+        }
+
+        RunCost.Meter meter = RunCost.start();
+        SweepPartial[] partials;
+        WorkerPool pool = new WorkerPool(InetAddress.getByName(listen), port, workers, workerOptions, restarts);
+        try {
+            pool.killEvery = killEvery;
+            if (workers == 0) {
+                System.out.println("Waiting for workers on " + pool.address());
+            }
+            partials = pool.run(tasks);
+        } finally {
+            pool.close();
+        }
+        RunCost run = meter.stop();
+
+        int metrics = MonteCarloSimulation.METRICS.length;
+        long workerCpu = 0, workerAllocated = 0, workerGcs = 0, workerGcMillis = 0;
+        System.out.printf("%-8s%-12s", "Quantum", "Algorithm");
+        for (String metric : MonteCarloSimulation.METRICS) {
+            System.out.printf("%20s", metric);
+        }
+        System.out.printf("%30s%n", "avg WT p5 / p50 / p95");
+        int t = 0;
+        for (int quantum : quanta) {
+            SchedulingEngine[] engines = SweepTask.engines(quantum);
+            MonteCarloSimulation.RunningStat[] stats = new MonteCarloSimulation.RunningStat[engines.length * metrics];
+            for (int i = 0; i < stats.length; i++) {
+                stats[i] = new MonteCarloSimulation.RunningStat();
+            }
+            long[] histogram = new long[engines.length * SweepPartial.BINS];
+            for (; t < tasks.size() && tasks.get(t).quantum == quantum; t++) {
+                SweepPartial partial = partials[t];
+                for (int i = 0; i < stats.length; i++) {
+                    stats[i].merge(partial.count[i], partial.mean[i], partial.m2[i]);
+                }
+                for (int i = 0; i < histogram.length; i++) {
+                    histogram[i] += partial.histogram[i];
+                }
+                workerCpu += partial.cost.cpuNanos;
+                workerAllocated += partial.cost.allocatedBytes;
+                workerGcs += partial.cost.gcCount;
+                workerGcMillis += partial.cost.gcMillis;
+            }
+            for (int e = 0; e < engines.length; e++) {
+                System.out.printf("%-8d%-12s", quantum, engines[e].name());
+                for (int m = 0; m < metrics; m++) {
+                    MonteCarloSimulation.RunningStat s = stats[e * metrics + m];
+                    System.out.printf("%20s", String.format("%.3f +/- %.3f", s.mean, s.halfWidth()));
+                }
+                System.out.printf("%30s%n", String.format("%s / %s / %s", quantile(histogram, e, 0.05, histogramMax),
+                        quantile(histogram, e, 0.50, histogramMax), quantile(histogram, e, 0.95, histogramMax)));
+            }
+        }
+        System.out.println();
+        System.out.printf("%d tasks of %d replications on %d workers, %d restarts, %d tasks re-dispatched%n",
+                tasks.size(), chunk, workers, pool.restarts, pool.redispatched);
+        System.out.println("Tasks per worker: " + pool.completed());
+        // CPU, allocation and GC summed over the workers' tasks; wall time is the coordinator's
+        RunCost cost = new RunCost(run.wallNanos, workerCpu, workerAllocated, workerGcs, workerGcMillis);
+        System.out.println("Run cost: " + cost);
+        System.out.println("cost " + cost.toJson());
+    }
+
+    // Upper edge of the bin holding quantile q of engine e's histogram, or "> max" when
+    // it falls in the overflow bin.
+    static String quantile(long[] histogram, int e, double q, double max) {
+        long total = 0;
+        for (int b = 0; b < SweepPartial.BINS; b++) {
+            total += histogram[e * SweepPartial.BINS + b];
+        }
+        long rank = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int b = 0; b < SweepPartial.BINS; b++) {
+            seen += histogram[e * SweepPartial.BINS + b];
+            if (seen >= rank && seen > 0) {
+                return b == SweepPartial.BINS - 1 ? String.format("> %.0f", max)
+                        : String.format("%.1f", (b + 1) * max / (SweepPartial.BINS - 1));
+            }
+        }
+        return "-";
+    }
+}
@@ -0,0 +1,378 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Synthetic workload generator for stress runs far beyond what the frames' tables hold.
+//
+// Processes are generated in fixed-size chunks by a pool of worker threads into a small
+// set of recycled primitive buffers and handed to the sink in order, so nothing is
+// allocated per process and the full workload is never materialised. Each chunk draws
+// from its own SplittableRandom split off the seed in chunk order, which keeps the
+// stream identical for a given seed regardless of the number of threads.
+//
+// Usage: java WorkloadGenerator [count=1000000] [arrivals=poisson|mmpp] [rate=0.2]
+//        [burst-rate=1] [calm-to-burst=0.001] [burst-to-calm=0.01]
+//        [bursts=exponential|bimodal|pareto] [mean=4] [short=2] [long=40] [long-share=0.1]
+//        [alpha=1.5] [min=1] [target=fcfs|sjf|rr|file] [quantum=4] [out=workload.bin]
+//        [seed=42] [threads=<cores>] [chunk=65536] [jmx=true] [export=<file>]
+//        [timeline-export=<file>]
+//
+// export and timeline-export write the engine's completions and dispatches as they
+// happen, as CSV for a .csv file name and columnar binary otherwise.
+final class WorkloadGenerator {
+    enum Arrivals { POISSON, MMPP }
+
+    enum Bursts { EXPONENTIAL, BIMODAL, PARETO }
+
+    Arrivals arrivals = Arrivals.POISSON;
+    // Poisson rate, or the calm-state rate of the two-state MMPP
+    double rate = 0.2;
+    double burstRate = 1;
+    double calmToBurst = 0.001;
+    double burstToCalm = 0.01;
+
+    Bursts bursts = Bursts.EXPONENTIAL;
+    double mean = 4;
+    double shortMean = 2;
+    double longMean = 40;
+    double longShare = 0.1;
+    double alpha = 1.5;
+    double min = 1;
+
+    long seed = 42;
+    int threads = Runtime.getRuntime().availableProcessors();
+    int chunkSize = 1 << 16;
+
+    private static final class Chunk {
+        final double[] offset;
+        final int[] burst;
+        int size;
+        double span;
+        SplittableRandom random;
+
+        Chunk(int capacity) {
+            offset = new double[capacity];
+            burst = new int[capacity];
+        }
+    }
+
+    // Streams count processes into sink and calls sink.finish() at the end.
+    void stream(long count, ProcessSink sink) throws InterruptedException {
+        if (count < 0 || threads <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("count must be >= 0, threads and chunk must be > 0!");
+        }
+        SplittableRandom master = new SplittableRandom(seed);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "workload-generator");
+            t.setDaemon(true);
+            return t;
+        });
+        // Two buffers per worker: one being filled while the other waits to be consumed
+        ArrayDeque<Chunk> free = new ArrayDeque<>();
+        for (int i = 0; i < 2 * threads; i++) {
+            free.add(new Chunk(chunkSize));
+        }
+        ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        double base = 0;
+        try {
+            for (long produced = 0; produced < count; produced += chunkSize) {
+                if (free.isEmpty()) {
+                    Chunk done = inFlight.poll().get();
+                    base = deliver(done, base, sink);
+                    free.add(done);
+                }
+                Chunk chunk = free.poll();
+                chunk.size = (int) Math.min(chunkSize, count - produced);
+                chunk.random = master.split();
+                inFlight.add(pool.submit(() -> fill(chunk)));
+            }
+            while (!inFlight.isEmpty()) {
+                base = deliver(inFlight.poll().get(), base, sink);
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Workload generation failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        sink.finish();
+    }
+
+    private static double deliver(Chunk chunk, double base, ProcessSink sink) {
+        double[] offset = chunk.offset;
+        int[] burst = chunk.burst;
+        for (int i = 0; i < chunk.size; i++) {
+            sink.accept((long) (base + offset[i]), burst[i]);
+        }
+        return base + chunk.span;
+    }
+
+    // Fills a chunk with arrival offsets relative to the chunk start and burst times.
+    private Chunk fill(Chunk chunk) {
+        SplittableRandom random = chunk.random;
+        double clock = 0;
+        // An MMPP chunk starts in a state drawn from the stationary distribution
+        boolean bursting = arrivals == Arrivals.MMPP
+                && random.nextDouble() < calmToBurst / (calmToBurst + burstToCalm);
+        for (int i = 0; i < chunk.size; i++) {
+            if (arrivals == Arrivals.POISSON) {
+                clock += exponential(random, 1 / rate);
+            } else {
+                // Competing exponentials: the next event is an arrival or a state switch
+                while (true) {
+                    double arrivalRate = bursting ? burstRate : rate;
+                    double switchRate = bursting ? burstToCalm : calmToBurst;
+                    double total = arrivalRate + switchRate;
+                    clock += exponential(random, 1 / total);
+                    if (random.nextDouble() * total < arrivalRate) {
+                        break;
+                    }
+                    bursting = !bursting;
+                }
+            }
+            chunk.offset[i] = clock;
+            chunk.burst[i] = nextBurst(random);
+        }
+        // The next chunk's offsets start after this chunk's last arrival
+        chunk.span = clock;
+        return chunk;
+    }
+
+    private int nextBurst(SplittableRandom random) {
+        double value;
+        switch (bursts) {
+            case BIMODAL:
+                value = exponential(random, random.nextDouble() < longShare ? longMean : shortMean);
+                break;
+            case PARETO:
+                value = min * Math.pow(1.0 - random.nextDouble(), -1.0 / alpha);
+                break;
+            default:
+                value = exponential(random, mean);
+        }
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.round(value)));
+    }
+
+    private static double exponential(SplittableRandom random, double mean) {
+        return -Math.log(1.0 - random.nextDouble()) * mean;
+    }
+
+    public static void main(String[] args) throws Exception {
+        WorkloadGenerator generator = new WorkloadGenerator();
+        long count = 1_000_000;
+        String target = "fcfs";
+        int quantum = 4;
+        Path out = Paths.get("workload.bin");
+        boolean jmx = true;
+        Path exportPath = null, timelinePath = null;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            String key = arg.substring(0, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "count": count = Long.parseLong(value); break;
+                case "arrivals": generator.arrivals = Arrivals.valueOf(value.toUpperCase()); break;
+                case "rate": generator.rate = Double.parseDouble(value); break;
+                case "burst-rate": generator.burstRate = Double.parseDouble(value); break;
+                case "calm-to-burst": generator.calmToBurst = Double.parseDouble(value); break;
+                case "burst-to-calm": generator.burstToCalm = Double.parseDouble(value); break;
+                case "bursts": generator.bursts = Bursts.valueOf(value.toUpperCase()); break;
+                case "mean": generator.mean = Double.parseDouble(value); break;
+                case "short": generator.shortMean = Double.parseDouble(value); break;
+                case "long": generator.longMean = Double.parseDouble(value); break;
+                case "long-share": generator.longShare = Double.parseDouble(value); break;
+                case "alpha": generator.alpha = Double.parseDouble(value); break;
+                case "min": generator.min = Double.parseDouble(value); break;
+                case "target": target = value; break;
+                case "quantum": quantum = Integer.parseInt(value); break;
+                case "out": out = Paths.get(value); break;
+                case "seed": generator.seed = Long.parseLong(value); break;
+                case "threads": generator.threads = Integer.parseInt(value); break;
+                case "chunk": generator.chunkSize = Integer.parseInt(value); break;
+                case "jmx": jmx = Boolean.parseBoolean(value); break;
+                case "export": exportPath = Paths.get(value); break;
+                case "timeline-export": timelinePath = Paths.get(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+
+        if ((exportPath != null || timelinePath != null) && target.equals("file")) {
+            throw new IllegalArgumentException("Export needs an engine target!");
+        }
+        StreamStats stats = new StreamStats();
+        ResultExport export = exportPath == null ? null : new ResultExport(exportPath);
+        TimelineExport timelineExport = timelinePath == null ? null : new TimelineExport(timelinePath);
+        CompletionSink completions = export == null ? stats : (id, arrival, burst, completion) -> {
+            stats.completed(id, arrival, burst, completion);
+            export.completed(id, arrival, burst, completion);
+        };
+        ProcessSink sink;
+        switch (target) {
+            case "fcfs": sink = new StreamingFcfsEngine(completions); break;
+            case "sjf": sink = new StreamingSjfEngine(completions); break;
+            case "rr": sink = new StreamingRoundRobinEngine(quantum, completions); break;
+            case "file": sink = new WorkloadFileWriter(out); break;
+            default: throw new IllegalArgumentException("Unknown target: " + target);
+        }
+        SchedulerStats monitor = null;
+        if (sink instanceof StreamingEngine) {
+            StreamingEngine engine = (StreamingEngine) sink;
+            if (jmx) {
+                monitor = SchedulerStats.register(engine.name());
+            }
+            engine.listener = SchedulerListener.both(SchedulerListener.both(monitor == null ? null : monitor.recorder(),
+                    SchedulerEvents.listener(engine.name())), timelineExport);
+        }
+        RunCost.Meter meter = RunCost.start();
+        try {
+            generator.stream(count, sink);
+        } finally {
+            if (monitor != null) {
+                monitor.close();
+            }
+            if (export != null) {
+                export.close();
+            }
+            if (timelineExport != null) {
+                timelineExport.close();
+            }
+        }
+        RunCost cost = meter.stop();
+        double seconds = cost.wallNanos / 1e9;
+        System.out.printf("Generated %d processes into %s in %.2f s (%.1f M processes/s)%n",
+                count, target.equals("file") ? out : ((StreamingEngine) sink).name(), seconds, count / seconds / 1e6);
+        if (!target.equals("file")) {
+            System.out.println(stats);
+        }
+        if (monitor != null) {
+            System.out.println(monitor);
+        }
+        for (Path path : new Path[]{exportPath, timelinePath}) {
+            if (path != null) {
+                long bytes = Files.size(path);
+                System.out.printf("Exported %s: %,d MB (%.0f MB/s over the run)%n", path, bytes >> 20,
+                        bytes / seconds / (1 << 20));
+            }
+        }
+        // CPU and allocation are those of this thread, which runs the engine or file writer
+        System.out.println("Run cost: " + cost);
+        System.out.println("cost " + cost.toJson());
+    }
+}
+
+// Aggregates completions without keeping them.
+final class StreamStats implements CompletionSink {
+    long count;
+    double totalWaiting;
+    double totalTurnaround;
+    long maxWaiting;
+    long makespan;
+
+    @Override
+    public void completed(long id, long arrival, int burst, long completion) {
+        long tat = completion - arrival;
+        long wt = tat - burst;
+        count++;
+        totalWaiting += wt;
+        totalTurnaround += tat;
+        maxWaiting = Math.max(maxWaiting, wt);
+        makespan = Math.max(makespan, completion);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Completed: %d, Average TAT: %.2f, Average WT: %.2f, Max WT: %d, Makespan: %d",
+                count, count == 0 ? 0 : totalTurnaround / count, count == 0 ? 0 : totalWaiting / count,
+                maxWaiting, makespan);
+    }
+}
+
+// Binary workload file: an 8-byte header followed by (long arrival, int burst) records.
+final class WorkloadFileWriter implements ProcessSink {
+    static final int MAGIC = 0x43435750; // "CCWP"
+    static final int VERSION = 1;
+    static final int RECORD_BYTES = 12;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+
+    WorkloadFileWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(MAGIC).putInt(VERSION);
+    }
+
+    @Override
+    public void accept(long arrival, int burst) {
+        if (buffer.remaining() < RECORD_BYTES) {
+            flush();
+        }
+        buffer.putLong(arrival).putInt(burst);
+    }
+
+    @Override
+    public void finish() {
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    // Replays a workload file into sink, e.g. one of the streaming engines.
+    static void replay(Path path, ProcessSink sink) throws IOException {
+        ByteBuffer in = ByteBuffer.allocateDirect(1 << 20);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            in.limit(8);
+            while (in.hasRemaining() && channel.read(in) >= 0) {
+                // header is read in full before any record
+            }
+            in.flip();
+            if (in.remaining() < 8 || in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IOException("Not a workload file: " + path);
+            }
+            in.clear();
+            while (true) {
+                int read = channel.read(in);
+                in.flip();
+                while (in.remaining() >= RECORD_BYTES) {
+                    sink.accept(in.getLong(), in.getInt());
+                }
+                in.compact();
+                if (read < 0) {
+                    if (in.position() != 0) {
+                        throw new IOException("Truncated workload file: " + path);
+                    }
+                    break;
+                }
+            }
+        }
+        sink.finish();
+    }
+}
@@ -0,0 +1,54 @@
+package ccopsysl;
+
+import java.util.SplittableRandom;
+
+// Deterministic workloads shared by the benchmarks, sized for a target load of 0.8.
+final class BenchmarkWorkloads {
+    static final double MEAN_BURST = 4;
+    static final double LOAD = 0.8;
+
+    private BenchmarkWorkloads() {
+    }
+
+    static Workload create(int processes, String distribution, long seed) throws InterruptedException {
+        int[] at = new int[processes];
+        int[] bt = new int[processes];
+        switch (distribution) {
+            case "UNIFORM": {
+                // Uniform arrivals over the horizon, bursts uniform in [1, 2 * mean - 1]
+                SplittableRandom random = new SplittableRandom(seed);
+                int horizon = (int) Math.min(Integer.MAX_VALUE / 4, processes * MEAN_BURST / LOAD);
+                for (int i = 0; i < processes; i++) {
+                    at[i] = random.nextInt(horizon);
+                    bt[i] = 1 + random.nextInt((int) (2 * MEAN_BURST - 1));
+                }
+                break;
+            }
+            case "PARETO": {
+                // Poisson arrivals, Pareto(alpha = 1.5) bursts with the same mean
+                WorkloadGenerator generator = new WorkloadGenerator();
+                generator.seed = seed;
+                generator.bursts = WorkloadGenerator.Bursts.PARETO;
+                generator.alpha = 1.5;
+                generator.min = MEAN_BURST / 3;
+                generator.rate = LOAD / MEAN_BURST;
+                int[] next = {0};
+                generator.stream(processes, new ProcessSink() {
+                    @Override
+                    public void accept(long arrival, int burst) {
+                        at[next[0]] = (int) arrival;
+                        bt[next[0]++] = burst;
+                    }
+
+                    @Override
+                    public void finish() {
+                    }
+                });
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown distribution: " + distribution);
+        }
+        return new Workload(at, bt);
+    }
+}
@@ -0,0 +1,81 @@
+package ccopsysl;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Gantt rendering of an RR timeline into an offscreen image, as the Gantt panels do.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GanttRenderBenchmark {
+    @Param({"100", "1000", "10000", "100000"})
+    int segments;
+
+    @Param({"900", "4096"})
+    int width;
+
+    private Timeline timeline;
+    private String[] labels;
+    private Color[] colors;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        // Enough processes for the requested number of quantum slices
+        Workload workload = BenchmarkWorkloads.create(segments, "UNIFORM", 42);
+        Timeline full = new RoundRobinEngine(4).run(workload).timeline;
+        timeline = new Timeline(segments);
+        for (int i = 0; i < segments; i++) {
+            timeline.add(full.process(i), full.start(i), full.end(i));
+        }
+        labels = new String[workload.size()];
+        colors = new Color[workload.size()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = workload.name(i);
+            colors[i] = Color.getHSBColor((float) i / labels.length, 0.7f, 0.9f);
+        }
+        image = new BufferedImage(width, 130, BufferedImage.TYPE_INT_ARGB);
+        graphics = image.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage render() {
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, width, image.getHeight());
+        GanttPainter.paint(graphics, width, image.getHeight(), timeline, labels, colors);
+        return image;
+    }
+
+    @Benchmark
+    public Timeline buildTimeline() {
+        Timeline copy = new Timeline();
+        for (int i = 0; i < segments; i++) {
+            copy.add(timeline.process(i), timeline.start(i), timeline.end(i));
+        }
+        return copy;
+    }
+}
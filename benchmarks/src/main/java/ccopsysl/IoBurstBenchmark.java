@@ -0,0 +1,50 @@
+package ccopsysl;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The CPU + I/O burst simulator on its timing wheel. A run of 1000000 processes handles
+// about ten million events (arrivals, slice ends and I/O completions), so events per
+// second is roughly 10^7 divided by the average time.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class IoBurstBenchmark {
+    @Param({"10000", "1000000"})
+    int processes;
+
+    @Param({"FCFS", "SJF", "RR"})
+    String policy;
+
+    @Param({"2", "4"})
+    int devices;
+
+    private BurstWorkload workload;
+    private IoEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = BurstWorkload.random(processes, 5, BenchmarkWorkloads.MEAN_BURST, 10, devices, BenchmarkWorkloads.LOAD, 42);
+        workload.arrivalOrder();
+        engine = new IoEngine(IoEngine.Policy.valueOf(policy), 4);
+    }
+
+    @Benchmark
+    public IoResult run() {
+        return engine.run(workload);
+    }
+}
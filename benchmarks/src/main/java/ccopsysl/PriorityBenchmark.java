@@ -0,0 +1,55 @@
+package ccopsysl;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Priority scheduling of an arrival burst the CPU cannot keep up with, so the ready heap
+// holds up to all of the processes at once. Aging 0 is plain priority; the others show
+// what lazy and batched aging add per event.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PriorityBenchmark {
+    @Param({"10000", "1000000"})
+    int processes;
+
+    @Param({"true", "false"})
+    boolean preemptive;
+
+    @Param({"0", "50"})
+    int aging;
+
+    @Param({"false", "true"})
+    boolean batched;
+
+    private Workload workload;
+    private int[] completion;
+    private PriorityEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = PrioritySimulation.randomWorkload(processes, 140, BenchmarkWorkloads.MEAN_BURST, processes / 10, 42);
+        completion = new int[processes];
+        engine = new PriorityEngine(preemptive, aging, batched && aging > 0);
+    }
+
+    @Benchmark
+    public int[] priority() {
+        engine.schedule(new Workload(null, workload.arrival, workload.burst, workload.priority), completion, null);
+        return completion;
+    }
+}
@@ -0,0 +1,80 @@
+package ccopsysl;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Round robin, lottery and stride engines as called by SOLOALVHIN.calculate(), across
+// several quanta, and the three-level MLFQ built on the same base quantum.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RoundRobinBenchmark {
+    @Param({"100", "1000", "10000", "100000", "1000000", "10000000"})
+    int processes;
+
+    @Param({"UNIFORM", "PARETO"})
+    String distribution;
+
+    @Param({"1", "4", "16", "64"})
+    int quantum;
+
+    private Workload workload;
+    private int[] completion;
+    private Timeline timeline;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        workload = BenchmarkWorkloads.create(processes, distribution, 42);
+        completion = new int[processes];
+        timeline = new Timeline(processes);
+    }
+
+    private Workload fresh() {
+        return new Workload(workload.arrival, workload.burst);
+    }
+
+    @Benchmark
+    public int[] rr() {
+        new RoundRobinEngine(quantum).schedule(fresh(), completion, null);
+        return completion;
+    }
+
+    @Benchmark
+    public Timeline rrTimeline() {
+        timeline.clear();
+        new RoundRobinEngine(quantum).schedule(fresh(), completion, timeline);
+        return timeline;
+    }
+
+    @Benchmark
+    public int[] lottery() {
+        new LotteryEngine(quantum, 42).schedule(fresh(), completion, null);
+        return completion;
+    }
+
+    @Benchmark
+    public int[] stride() {
+        new StrideEngine(quantum).schedule(fresh(), completion, null);
+        return completion;
+    }
+
+    @Benchmark
+    public int[] mlfq() {
+        new MlfqEngine(quantum).schedule(fresh(), completion, null);
+        return completion;
+    }
+}
@@ -0,0 +1,92 @@
+package ccopsysl;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// FCFS, SJF and SRTF engines as called by SNFN2.computeScheduling() and SJFAlgo.computeSJF(),
+// plus the CFS engine from the comparison frame.
+// Each invocation wraps the arrays in a fresh Workload so the arrival sort is measured
+// too, exactly as in the frames. The *Timeline variants also build the Gantt timeline.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SchedulingBenchmark {
+    @Param({"100", "1000", "10000", "100000", "1000000", "10000000"})
+    int processes;
+
+    @Param({"UNIFORM", "PARETO"})
+    String distribution;
+
+    private Workload workload;
+    private int[] completion;
+    private Timeline timeline;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        workload = BenchmarkWorkloads.create(processes, distribution, 42);
+        completion = new int[processes];
+        timeline = new Timeline(processes);
+    }
+
+    private Workload fresh() {
+        return new Workload(workload.arrival, workload.burst);
+    }
+
+    @Benchmark
+    public int[] fcfs() {
+        new FcfsEngine().schedule(fresh(), completion, null);
+        return completion;
+    }
+
+    @Benchmark
+    public int[] sjf() {
+        new SjfEngine().schedule(fresh(), completion, null);
+        return completion;
+    }
+
+    @Benchmark
+    public int[] srtf() {
+        new SrtfEngine().schedule(fresh(), completion, null);
+        return completion;
+    }
+
+    @Benchmark
+    public int[] cfs() {
+        new CfsEngine(1, 6).schedule(fresh(), completion, null);
+        return completion;
+    }
+
+    @Benchmark
+    public Timeline fcfsTimeline() {
+        timeline.clear();
+        new FcfsEngine().schedule(fresh(), completion, timeline);
+        return timeline;
+    }
+
+    @Benchmark
+    public Timeline sjfTimeline() {
+        timeline.clear();
+        new SjfEngine().schedule(fresh(), completion, timeline);
+        return timeline;
+    }
+
+    // What the frames do: a new timeline per run, grown from its default capacity.
+    @Benchmark
+    public ScheduleResult sjfFreshTimeline() {
+        return new SjfEngine().run(fresh());
+    }
+}
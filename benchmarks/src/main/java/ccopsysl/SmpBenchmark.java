@@ -0,0 +1,52 @@
+package ccopsysl;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The SMP engine from 1 to 256 CPUs with least-loaded placement and work stealing. The
+// workload's arrival rate grows with the CPU count, so every CPU sees the same load and
+// the score shows how the cost per event grows with K.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SmpBenchmark {
+    @Param({"10000", "1000000"})
+    int processes;
+
+    @Param({"1", "4", "16", "64", "256"})
+    int cpus;
+
+    @Param({"FCFS", "SJF", "RR"})
+    String policy;
+
+    private Workload workload;
+    private int[] completion;
+    private SmpEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = SmpSimulation.randomWorkload(processes, cpus, BenchmarkWorkloads.LOAD, BenchmarkWorkloads.MEAN_BURST, 42);
+        completion = new int[processes];
+        engine = new SmpEngine(cpus, SmpEngine.Policy.valueOf(policy), 4, SmpEngine.Placement.LEAST_LOADED, 0, true);
+    }
+
+    @Benchmark
+    public int[] smp() {
+        engine.schedule(new Workload(workload.arrival, workload.burst), completion, null);
+        return completion;
+    }
+}